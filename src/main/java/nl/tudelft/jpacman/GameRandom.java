@@ -0,0 +1,160 @@
+package nl.tudelft.jpacman;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The source of the random choices in a game. It produces the same numbers
+ * as {@link java.util.SplittableRandom} does for the same seed, but its
+ * state can be read and restored, so that a saved game continues with the
+ * same choices.
+ * <p>
+ * Like {@link java.util.SplittableRandom}, it is not thread-safe: every
+ * thread should {@link #split()} off its own.
+ */
+public final class GameRandom {
+
+    /**
+     * The increment of the seed of an unsplit random.
+     */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /**
+     * The minimum number of bit transitions of a good gamma.
+     */
+    private static final int MIN_GAMMA_TRANSITIONS = 24;
+
+    /**
+     * The source of the seeds of unseeded randoms.
+     */
+    private static final AtomicLong SEEDER = new AtomicLong(
+            mix64(System.currentTimeMillis()) ^ mix64(System.nanoTime()));
+
+    /**
+     * The current seed, which is increased by {@link #gamma} for every number.
+     */
+    private long seed;
+
+    /**
+     * The increment of the seed, which is odd.
+     */
+    private long gamma;
+
+    /**
+     * Creates a new random with a seed different for every instance.
+     */
+    public GameRandom() {
+        final long next = SEEDER.getAndAdd(2 * GOLDEN_GAMMA);
+        this.seed = mix64(next);
+        this.gamma = mixGamma(next + GOLDEN_GAMMA);
+    }
+
+    /**
+     * Creates a new random with a seed.
+     *
+     * @param initialSeed The seed.
+     */
+    public GameRandom(long initialSeed) {
+        this.seed = initialSeed;
+        this.gamma = GOLDEN_GAMMA;
+    }
+
+    private GameRandom(long initialSeed, long initialGamma) {
+        this.seed = initialSeed;
+        this.gamma = initialGamma;
+    }
+
+    /**
+     * Creates a new random whose numbers are independent of the numbers of
+     * this one, and advances this one.
+     *
+     * @return The new random.
+     */
+    public GameRandom split() {
+        return new GameRandom(nextLong(), mixGamma(nextSeed()));
+    }
+
+    /**
+     * @return A random long.
+     */
+    public long nextLong() {
+        return mix64(nextSeed());
+    }
+
+    /**
+     * Returns a random int between 0 (inclusive) and a bound (exclusive).
+     *
+     * @param bound The bound, which must be positive.
+     * @return The random int.
+     */
+    public int nextInt(int bound) {
+        assert bound > 0;
+        int result = mix32(nextSeed());
+        final int mask = bound - 1;
+        if ((bound & mask) == 0) {
+            return result & mask;
+        }
+        int unsigned = result >>> 1;
+        result = unsigned % bound;
+        while (unsigned + mask - result < 0) {
+            unsigned = mix32(nextSeed()) >>> 1;
+            result = unsigned % bound;
+        }
+        return result;
+    }
+
+    /**
+     * @return The current seed, which is half of the state of this random.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return The increment of the seed, which is the other half of the state
+     * of this random.
+     */
+    public long getGamma() {
+        return gamma;
+    }
+
+    /**
+     * Restores the state of this random.
+     *
+     * @param newSeed  The seed, as returned by {@link #getSeed()}.
+     * @param newGamma The increment, as returned by {@link #getGamma()}.
+     */
+    public void setState(long newSeed, long newGamma) {
+        assert (newGamma & 1) == 1;
+        this.seed = newSeed;
+        this.gamma = newGamma;
+    }
+
+    private long nextSeed() {
+        seed += gamma;
+        return seed;
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    private static long mix64(long value) {
+        long z = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    private static int mix32(long value) {
+        final long z = (value ^ (value >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    private static long mixGamma(long value) {
+        long z = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        if (Long.bitCount(z ^ (z >>> 1)) < MIN_GAMMA_TRANSITIONS) {
+            return z ^ 0xaaaaaaaaaaaaaaaaL;
+        }
+        return z;
+    }
+}
@@ -7,7 +7,9 @@ import nl.tudelft.jpacman.game.Game;
 import nl.tudelft.jpacman.game.GameFactory;
 import nl.tudelft.jpacman.level.IdentifiedPlayer;
 import nl.tudelft.jpacman.level.LevelFactory;
+import nl.tudelft.jpacman.level.LevelTemplateCache;
 import nl.tudelft.jpacman.level.PlayerFactory;
+import nl.tudelft.jpacman.metrics.Metrics;
 import nl.tudelft.jpacman.npc.ghost.GhostFactory;
 import nl.tudelft.jpacman.sprite.PacManSprites;
 import nl.tudelft.jpacman.ui.MyJDialogStrategy;
@@ -25,7 +27,13 @@ import java.io.IOException;
 public class Launcher {
     public static final int DIALOG_HEIGHT = 200;
     private static final int DIALOG_WIDTH = 400;
+    /**
+     * The maximum number of level templates kept in memory.
+     */
+    private static final int CACHED_LEVELS = 16;
     private static final PacManSprites SPRITE_STORE = new PacManSprites();
+    private static final LevelTemplateCache LEVEL_TEMPLATES =
+            new LevelTemplateCache(Launcher.class, CACHED_LEVELS);
     private static PacManUI pacManUI;
     private Game game;
 
@@ -44,6 +52,13 @@ public class Launcher {
         return SPRITE_STORE;
     }
 
+    /**
+     * @return The cache of parsed levels, shared by all games.
+     */
+    public static LevelTemplateCache getLevelTemplates() {
+        return LEVEL_TEMPLATES;
+    }
+
     /**
      * @return A new factory using the sprites from {@link #getSpriteStore()}
      * and the ghosts from {@link #getGhostFactory()}.
@@ -66,6 +81,7 @@ public class Launcher {
      * @throws IOException When a resource could not be read.
      */
     public static void main(String[] args) throws IOException {
+        Metrics.enableFromProperty();
         new Launcher().launch(false);
     }
 
@@ -1,8 +1,11 @@
 package nl.tudelft.jpacman.board;
 
+import nl.tudelft.jpacman.GameRandom;
 import nl.tudelft.jpacman.npc.ghost.Ghost;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -16,10 +19,19 @@ public class Board {
      * The "radius" around a ghost that prevents squares in it to be considered "safe".
      */
     private static final int UNSAFE_RANGE = 4;
+    /**
+     * The number of random squares {@link #randomSafeSquare(Collection, GameRandom)}
+     * tries before it lists all safe squares.
+     */
+    private static final int SAFE_SQUARE_TRIES = 32;
     /**
      * The grid of squares with board[x][y] being the square at column x, row y.
      */
     private final Square[][] board;
+    /**
+     * The layout of this board, computed the first time it is needed.
+     */
+    private volatile BoardLayout layout;
 
     /**
      * Creates a new board.
@@ -33,6 +45,15 @@ public class Board {
         assert invariant() : "Initial grid cannot contain null squares";
     }
 
+    /**
+     * Creates a board that does not store its squares in a grid. Subclasses
+     * using this constructor must override {@link #invariant()},
+     * {@link #getWidth()}, {@link #getHeight()} and {@link #squareAt(int, int)}.
+     */
+    protected Board() {
+        this.board = null;
+    }
+
     /**
      * Returns the Manhattan distance between two points p0 and p1 given by their coordinates.
      *
@@ -94,6 +115,39 @@ public class Board {
         return result;
     }
 
+    /**
+     * Determines whether the square at a position is accessible, without
+     * asking for the square itself.
+     *
+     * @param x The <code>x</code> position (column) of the square.
+     * @param y The <code>y</code> position (row) of the square.
+     * @return <code>true</code> iff the square is accessible.
+     */
+    public boolean isAccessible(int x, int y) {
+        return squareAt(x, y).isAccessibleTo();
+    }
+
+    /**
+     * Returns the units of a type on this board, row by row.
+     *
+     * @param type The type of the units.
+     * @param <U>  The type of the units.
+     * @return The units of the type on this board.
+     */
+    public <U extends Unit> List<U> occupantsOf(Class<U> type) {
+        final List<U> result = new ArrayList<>();
+        for (int y = 0; y < getHeight(); y++) {
+            for (int x = 0; x < getWidth(); x++) {
+                for (Unit unit : squareAt(x, y).getOccupants()) {
+                    if (type.isInstance(unit)) {
+                        result.add(type.cast(unit));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
     /**
      * Determines whether the given <code>x,y</code> position is on this board.
      *
@@ -105,24 +159,111 @@ public class Board {
         return x >= 0 && x < getWidth() && y >= 0 && y < getHeight();
     }
 
+    /**
+     * Returns the accessible squares of this board and how they are linked.
+     * Since the walls of a board do not change, this is only computed once.
+     *
+     * @return The layout of this board.
+     */
+    public BoardLayout getLayout() {
+        BoardLayout result = layout;
+        if (result == null) {
+            result = BoardLayout.of(this);
+            layout = result;
+        }
+        return result;
+    }
+
     /**
      * Retrieves possible target squares for the given player by looking at ghosts positions.
      *
      * @return An ArrayList of Squares the player can move on.
      */
     public List<Square> getPossibleSquares() {
+        return getPossibleSquares(occupantsOf(Ghost.class));
+    }
+
+    /**
+     * Retrieves the accessible squares that are safe from the given ghosts,
+     * like {@link #isSafe(int, int)} decides, in the time it takes to visit
+     * the accessible squares once.
+     *
+     * @param ghosts The ghosts on this board.
+     * @return The squares the player can move on, row by row.
+     */
+    public List<Square> getPossibleSquares(Collection<? extends Unit> ghosts) {
+        final BitSet unsafe = unsafeCells(ghosts);
+        final BoardLayout accessible = getLayout();
         final List<Square> possibleSquares = new ArrayList<>();
-        for (int x = 0; x < getWidth(); x++) {
-            for (int y = 0; y < getHeight(); y++) {
-                final Square square = squareAt(x, y);
-                if (square.isAccessibleTo() && isSafe(x, y)) {
-                    possibleSquares.add(square);
-                }
+        for (int node = 0; node < accessible.getNodeCount(); node++) {
+            final int x = accessible.getX(node), y = accessible.getY(node);
+            if (!unsafe.get(y * getWidth() + x)) {
+                possibleSquares.add(squareAt(x, y));
             }
         }
         return possibleSquares;
     }
 
+    /**
+     * Picks a random accessible square that is safe from the given ghosts.
+     * Random squares are tried first, so on a board where most squares are
+     * safe this does not depend on the size of the board.
+     *
+     * @param ghosts The ghosts on this board.
+     * @param random The source of randomness.
+     * @return A random safe square, or <code>null</code> if there is none.
+     */
+    public Square randomSafeSquare(Collection<? extends Unit> ghosts, GameRandom random) {
+        final BitSet unsafe = unsafeCells(ghosts);
+        final BoardLayout accessible = getLayout();
+        if (accessible.getNodeCount() == 0) {
+            return null;
+        }
+        for (int i = 0; i < SAFE_SQUARE_TRIES; i++) {
+            final int node = random.nextInt(accessible.getNodeCount());
+            final int x = accessible.getX(node), y = accessible.getY(node);
+            if (!unsafe.get(y * getWidth() + x)) {
+                return squareAt(x, y);
+            }
+        }
+        final List<Square> possibleSquares = getPossibleSquares(ghosts);
+        if (possibleSquares.isEmpty()) {
+            return null;
+        }
+        return possibleSquares.get(random.nextInt(possibleSquares.size()));
+    }
+
+    /**
+     * Marks the cells (<code>y * width + x</code>) that are too close to a
+     * ghost to be safe. Each ghost marks the squares whose range, as scanned
+     * by {@link #isSafe(int, int)}, contains it.
+     *
+     * @param ghosts The ghosts on this board.
+     * @return The unsafe cells.
+     */
+    private BitSet unsafeCells(Collection<? extends Unit> ghosts) {
+        final int width = getWidth(), height = getHeight();
+        final BitSet unsafe = new BitSet(width * height);
+        for (Unit ghost : ghosts) {
+            final Square square = ghost.getSquare();
+            // isSafe never scans the last column and row
+            if (square == null || square.getX() >= width - 1 || square.getY() >= height - 1) {
+                continue;
+            }
+            for (int dx = 1 - UNSAFE_RANGE; dx <= UNSAFE_RANGE; dx++) {
+                final int x = square.getX() + dx;
+                final int reach = UNSAFE_RANGE - Math.abs(dx);
+                for (int dy = Math.max(1 - UNSAFE_RANGE, -reach); dy <= reach; dy++) {
+                    final int y = square.getY() + dy;
+                    if (withinBorders(x, y)) {
+                        unsafe.set(y * width + x);
+                    }
+                }
+            }
+        }
+        return unsafe;
+    }
+
     /**
      * Determine whether a Square (given by its coordinates) is safe for the player.
      * (i.e. no ghosts are too close).
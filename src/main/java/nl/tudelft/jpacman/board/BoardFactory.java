@@ -1,20 +1,25 @@
 package nl.tudelft.jpacman.board;
 
+import com.google.common.hash.Hashing;
 import nl.tudelft.jpacman.Launcher;
 import nl.tudelft.jpacman.sprite.PacManSprites;
 import nl.tudelft.jpacman.sprite.Sprite;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
 import java.io.*;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * A factory that creates {@link Board} objects from 2-dimensional arrays of
@@ -24,6 +29,32 @@ import java.util.Objects;
  */
 public class BoardFactory {
 
+    /**
+     * The type of ground cells on boards created by {@link #createCompactBoard}.
+     */
+    public static final byte GROUND_TYPE = 0;
+
+    /**
+     * The type of wall cells on boards created by {@link #createCompactBoard}.
+     */
+    public static final byte WALL_TYPE = 1;
+
+    /**
+     * The extension of the file, next to an image level, holding the hash of
+     * the image the text level was last generated from.
+     */
+    static final String HASH_EXTENSION = ".sha256";
+
+    /**
+     * The number of pixels from which the rows of an image are converted in parallel.
+     */
+    private static final int PARALLEL_PIXELS = 1 << 16;
+
+    /**
+     * The directories whose levels have already been generated by this JVM.
+     */
+    private static final Set<String> GENERATED_DIRECTORIES = ConcurrentHashMap.newKeySet();
+
     /**
      * The sprite store providing the sprites for the background.
      */
@@ -49,25 +80,79 @@ public class BoardFactory {
      */
     public Board createBoard(Square[][] grid) {
         assert grid != null;
+        return createBoard(grid, linksOf(grid.length, grid[0].length));
+    }
+
+    /**
+     * Creates a new board from a grid of cells and connects it as given by
+     * links computed before by {@link #linksOf(int, int)}.
+     *
+     * @param grid  The square grid of cells, in which grid[x][y] corresponds to
+     *              the square at position x,y.
+     * @param links The links of the cells of a board of the size of the grid.
+     * @return A new board, wrapping a grid of connected cells.
+     */
+    public Board createBoard(Square[][] grid, int[] links) {
+        assert grid != null;
 
         final Board board = new Board(grid);
 
         final int width = board.getWidth(), height = board.getHeight();
+        final Direction[] directions = Direction.values();
         for (int x = 0; x < width; x++) {
             for (int y = 0; y < height; y++) {
                 Square square = grid[x][y];
                 square.setX(x);
                 square.setY(y);
-                for (Direction dir : Direction.values()) {
+                final int cell = y * width + x;
+                for (Direction dir : directions) {
+                    final int neighbour = links[cell * directions.length + dir.ordinal()];
+                    square.link(grid[neighbour % width][neighbour / width], dir);
+                }
+            }
+        }
+
+        return board;
+    }
+
+    /**
+     * Computes how the cells of a board are linked: every cell to the next
+     * cell in each direction, wrapping around at the edges of the board.
+     *
+     * @param width  The width of the board.
+     * @param height The height of the board.
+     * @return For every cell (<code>y * width + x</code>) and direction, at
+     * <code>cell * 4 + direction</code>, the cell it is linked to.
+     */
+    public static int[] linksOf(int width, int height) {
+        final Direction[] directions = Direction.values();
+        final int[] links = new int[width * height * directions.length];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                for (Direction dir : directions) {
                     int dirX = (width + x + dir.getDeltaX()) % width;
                     int dirY = (height + y + dir.getDeltaY()) % height;
-                    Square neighbour = grid[dirX][dirY];
-                    square.link(neighbour, dir);
+                    links[(y * width + x) * directions.length + dir.ordinal()]
+                            = dirY * width + dirX;
                 }
             }
         }
+        return links;
+    }
 
-        return board;
+    /**
+     * Creates a new board that stores its squares in flat arrays instead of
+     * separate objects, see {@link CompactBoard}. Its squares are linked like
+     * the ones of {@link #createBoard(Square[][])}.
+     *
+     * @param width  The width of the board.
+     * @param height The height of the board.
+     * @param types  For every cell in row-major order, {@link #WALL_TYPE} or
+     *               {@link #GROUND_TYPE}. The array is not copied.
+     * @return A new board of ground and walls, without occupants.
+     */
+    public Board createCompactBoard(int width, int height, byte[] types) {
+        return new CompactBoard(width, height, types, createGround(), createWall());
     }
 
     /**
@@ -91,44 +176,88 @@ public class BoardFactory {
     /**
      * Checks level files and generate text files from images if needed.
      * (will stop when no file is found for the next level i.e. no text/image file)
+     * This is only done once per directory and JVM, since the levels do not
+     * change while the game runs.
      */
     private void generateLevels() {
         final String path =
                 Launcher.class.getProtectionDomain().getCodeSource().getLocation().getPath();
+        if (!GENERATED_DIRECTORIES.add(path)) {
+            return;
+        }
         final File dir = new File(path);
         final File[] files = dir.listFiles();
 
-        int levelCount = 0;
         if (files != null) {
-            File currentFile = levelFileFor(1, files);
+            int level = 1;
+            File currentFile = levelFileFor(level, files);
             while (currentFile != null) {
-                levelCount++;
-                if (currentFile.getName().endsWith(".png")) {
+                final File image = new File(dir, level + ".png");
+                if (image.exists()) {
                     try {
-                        createBoardFileFromImage(currentFile, levelCount);
+                        updateBoardFileFromImage(image, level);
                     } catch (IOException e) {
                         e.printStackTrace();
                     }
                 }
-                currentFile = levelFileFor(levelCount + 1, files);
+                level++;
+                currentFile = levelFileFor(level, files);
             }
         }
     }
 
+    /**
+     * Generates the text file of a level from its image, unless it is up to
+     * date. A text file without hash file next to the image was not generated
+     * and is always kept; a generated one is only kept if the hash of the
+     * image did not change since it was generated.
+     *
+     * @param image The image file to generate the level from.
+     * @param level The level id of this level.
+     * @throws IOException If there is a problem with reading or writing the corresponding files.
+     */
+    private void updateBoardFileFromImage(final File image, final int level) throws IOException {
+        final File board = new File(image.getParent(), "board" + level + ".txt");
+        final Path hashFile = Paths.get(image.getPath() + HASH_EXTENSION);
+        if (board.exists() && !Files.exists(hashFile)) {
+            return;
+        }
+        final String hash = Hashing.sha256().hashBytes(Files.readAllBytes(image.toPath()))
+                .toString();
+        if (board.exists() && hash.equals(readHash(hashFile))) {
+            return;
+        }
+        if (createBoardFileFromImage(image, level)) {
+            Files.write(hashFile, hash.getBytes(Charset.forName("UTF-8")));
+        }
+    }
+
+    /**
+     * Reads the hash stored in a hash file.
+     *
+     * @param hashFile The file to read.
+     * @return The stored hash.
+     * @throws IOException If the file could not be read.
+     */
+    private static String readHash(final Path hashFile) throws IOException {
+        return new String(Files.readAllBytes(hashFile), Charset.forName("UTF-8")).trim();
+    }
+
     /**
      * Creates a text file for a level from a given image file.
      *
      * @param file  The image file to generate the level from.
      * @param level The level id of this level.
+     * @return true iff the text file was written.
      * @throws IOException If there is a problem with reading or writing the corresponding files.
      */
-    private void createBoardFileFromImage(final File file, final int level) throws IOException {
+    private boolean createBoardFileFromImage(final File file, final int level)
+            throws IOException {
         final BufferedImage img = ImageIO.read(file);
         if (img == null) {
             System.err.println("Error loading image " + file.getName());
-            return;
+            return false;
         }
-
         final List<String> lines = convertImageToTxt(img);
         final Path newFile = Paths.get(file.getParent() + File.separator
                 + "board" + level + ".txt");
@@ -150,6 +279,7 @@ public class BoardFactory {
                 }
             }
         }
+        return true;
     }
 
     /**
@@ -159,21 +289,61 @@ public class BoardFactory {
      * @return a List of Strings containing lines in pacman's format.
      */
     protected List<String> convertImageToTxt(final BufferedImage img) {
-        final List<String> lines = new ArrayList<>();
-        //For each line of pixels
-        for (int y = 0; y < img.getHeight(); y++) {
-            StringBuilder line = new StringBuilder();
-            //For each pixel in this line
-            for (int x = 0; x < img.getWidth(); x++) {
-                //Get the corresponding letter
-                Character c = ItemsColor.getLetterByRGBValue(img.getRGB(x, y));
-                if (c != null) {
-                    line.append(c);
-                }
+        return imageToLines(img);
+    }
+
+    /**
+     * Converts a given image to a list of "pacman level" lines (Strings),
+     * one character per pixel as given by {@link ItemsColor}.
+     *
+     * @param img The image used for generating the level.
+     * @return a List of Strings containing lines in pacman's format.
+     */
+    public static List<String> imageToLines(final BufferedImage img) {
+        final BufferedImage argb = toIntArgb(img);
+        final Raster raster = argb.getRaster();
+        IntStream rows = IntStream.range(0, argb.getHeight());
+        if ((long) argb.getWidth() * argb.getHeight() >= PARALLEL_PIXELS) {
+            rows = rows.parallel();
+        }
+        return rows.mapToObj(y -> convertRow(raster, y)).collect(Collectors.toList());
+    }
+
+    /**
+     * Converts one line of pixels to a "pacman level" line.
+     *
+     * @param raster The pixels of the image, as packed ARGB values.
+     * @param y      The line to convert.
+     * @return The line in pacman's format.
+     */
+    private static String convertRow(final Raster raster, final int y) {
+        final int[] pixels = (int[]) raster.getDataElements(0, y, raster.getWidth(), 1, null);
+        final StringBuilder line = new StringBuilder(pixels.length);
+        for (final int pixel : pixels) {
+            //Get the corresponding letter
+            final char c = ItemsColor.letterOf(pixel);
+            if (c != ItemsColor.NO_LETTER) {
+                line.append(c);
             }
-            lines.add(line.toString());
         }
-        return lines;
+        return line.toString();
+    }
+
+    /**
+     * Returns an image whose raster holds one packed ARGB value per pixel.
+     *
+     * @param img The image to convert.
+     * @return The image itself if it already has that format, a converted copy otherwise.
+     */
+    private static BufferedImage toIntArgb(final BufferedImage img) {
+        if (img.getType() == BufferedImage.TYPE_INT_ARGB) {
+            return img;
+        }
+        final int width = img.getWidth(), height = img.getHeight();
+        final BufferedImage argb = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        argb.setRGB(0, 0, width, height, img.getRGB(0, 0, width, height, null, 0, width),
+                0, width);
+        return argb;
     }
 
     /**
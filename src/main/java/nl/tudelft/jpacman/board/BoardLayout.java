@@ -0,0 +1,227 @@
+package nl.tudelft.jpacman.board;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.util.Arrays;
+
+/**
+ * The accessible squares of a {@link Board} and how they are linked, as a
+ * graph of node ids. Since the walls of a board never change, the layout is
+ * computed once per board (see {@link Board#getLayout()}) and can be shared by
+ * everything searching that board.
+ * <p>
+ * The nodes are the accessible squares, numbered in row-major order. An edge
+ * leads from a node to the accessible square next to it in each direction.
+ */
+public final class BoardLayout {
+
+    /**
+     * The id of a missing node, e.g. the neighbour of a square next to a wall.
+     */
+    public static final int NONE = -1;
+
+    /**
+     * The number of directions.
+     */
+    private static final int DIRECTIONS = Direction.values().length;
+
+    /**
+     * The width of the board.
+     */
+    private final int width;
+
+    /**
+     * The height of the board.
+     */
+    private final int height;
+
+    /**
+     * The node of every cell (<code>y * width + x</code>), or {@link #NONE}
+     * for inaccessible squares.
+     */
+    private final int[] nodeOfCell;
+
+    /**
+     * The cell of every node.
+     */
+    private final int[] cellOfNode;
+
+    /**
+     * The neighbours of every node, at <code>node * 4 + direction</code>.
+     */
+    private final int[] neighbours;
+
+    /**
+     * A hash of the layout, computed the first time it is needed.
+     */
+    private volatile String hash;
+
+    private BoardLayout(int width, int height, int[] nodeOfCell, int[] cellOfNode,
+                        int[] neighbours) {
+        this.width = width;
+        this.height = height;
+        this.nodeOfCell = nodeOfCell;
+        this.cellOfNode = cellOfNode;
+        this.neighbours = neighbours;
+    }
+
+    /**
+     * Computes the layout of a board.
+     *
+     * @param board The board, whose squares are linked to squares of the same board.
+     * @return The layout of the board.
+     */
+    static BoardLayout of(Board board) {
+        final int width = board.getWidth(), height = board.getHeight();
+        final int[] nodeOfCell = new int[width * height];
+        int nodes = 0;
+        for (int cell = 0; cell < nodeOfCell.length; cell++) {
+            if (board.isAccessible(cell % width, cell / width)) {
+                nodeOfCell[cell] = nodes++;
+            } else {
+                nodeOfCell[cell] = NONE;
+            }
+        }
+
+        final int[] cellOfNode = new int[nodes];
+        final int[] neighbours = new int[nodes * DIRECTIONS];
+        for (int cell = 0; cell < nodeOfCell.length; cell++) {
+            final int node = nodeOfCell[cell];
+            if (node != NONE) {
+                cellOfNode[node] = cell;
+                final Square square = board.squareAt(cell % width, cell / width);
+                for (Direction direction : Direction.values()) {
+                    final Square next = square.getSquareAt(direction);
+                    int neighbour = NONE;
+                    if (next != null && next.isAccessibleTo()) {
+                        neighbour = nodeOfCell[next.getY() * width + next.getX()];
+                    }
+                    neighbours[node * DIRECTIONS + direction.ordinal()] = neighbour;
+                }
+            }
+        }
+        return new BoardLayout(width, height, nodeOfCell, cellOfNode, neighbours);
+    }
+
+    /**
+     * @return The width of the board.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return The height of the board.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return The number of accessible squares.
+     */
+    public int getNodeCount() {
+        return cellOfNode.length;
+    }
+
+    /**
+     * Returns the node of the square at the given position.
+     *
+     * @param x The column of the square.
+     * @param y The row of the square.
+     * @return The node of the square, or {@link #NONE} if it is not accessible.
+     */
+    public int nodeAt(int x, int y) {
+        return nodeOfCell[y * width + x];
+    }
+
+    /**
+     * Returns the node of a square of the board.
+     *
+     * @param square The square.
+     * @return The node of the square, or {@link #NONE} if it is not accessible.
+     */
+    public int nodeOf(Square square) {
+        return nodeAt(square.getX(), square.getY());
+    }
+
+    /**
+     * @param node A node.
+     * @return The column of the square of the node.
+     */
+    public int getX(int node) {
+        return cellOfNode[node] % width;
+    }
+
+    /**
+     * @param node A node.
+     * @return The row of the square of the node.
+     */
+    public int getY(int node) {
+        return cellOfNode[node] / width;
+    }
+
+    /**
+     * Returns the neighbour of a node.
+     *
+     * @param node      The node.
+     * @param direction The direction of the neighbour.
+     * @return The accessible square next to the node in that direction, or
+     * {@link #NONE} if there is none.
+     */
+    public int neighbour(int node, Direction direction) {
+        return neighbours[node * DIRECTIONS + direction.ordinal()];
+    }
+
+    /**
+     * Returns the neighbour of a node.
+     *
+     * @param node      The node.
+     * @param direction The ordinal of the direction of the neighbour.
+     * @return The accessible square next to the node in that direction, or
+     * {@link #NONE} if there is none.
+     */
+    public int neighbour(int node, int direction) {
+        return neighbours[node * DIRECTIONS + direction];
+    }
+
+    /**
+     * Returns a hash of this layout, which is equal for boards with the same
+     * size, the same accessible squares and the same links between them.
+     *
+     * @return The hash as a hexadecimal string.
+     */
+    public String getHash() {
+        String result = hash;
+        if (result == null) {
+            final Hasher hasher = Hashing.sha256().newHasher()
+                    .putInt(width).putInt(height).putInt(cellOfNode.length);
+            for (int cell : cellOfNode) {
+                hasher.putInt(cell);
+            }
+            for (int neighbour : neighbours) {
+                hasher.putInt(neighbour);
+            }
+            result = hasher.hash().toString();
+            hash = result;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof BoardLayout)) {
+            return false;
+        }
+        final BoardLayout layout = (BoardLayout) other;
+        return width == layout.width && height == layout.height
+                && Arrays.equals(cellOfNode, layout.cellOfNode)
+                && Arrays.equals(neighbours, layout.neighbours);
+    }
+
+    @Override
+    public int hashCode() {
+        return getHash().hashCode();
+    }
+}
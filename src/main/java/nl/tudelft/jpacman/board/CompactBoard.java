@@ -0,0 +1,307 @@
+package nl.tudelft.jpacman.board;
+
+import com.google.common.collect.ImmutableList;
+import nl.tudelft.jpacman.sprite.Sprite;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A board that stores its squares in flat arrays instead of one object per
+ * square, for boards with millions of squares.
+ * <p>
+ * Every cell (with id <code>y * width + x</code>) has a type, which is the
+ * index of a prototype square providing its accessibility and sprite. The
+ * occupants of a cell are kept in an array per cell, which is replaced
+ * atomically when a unit enters or leaves the cell. Moves on different cells
+ * therefore never wait for each other, as with region locking. The neighbours
+ * of a cell are the adjacent cells, wrapping around the borders like
+ * {@link BoardFactory#createBoard(Square[][])} links them, unless a square
+ * was explicitly linked to another one.
+ * <p>
+ * The {@link Square}s of this board are light views over these arrays. They
+ * are created the first time they are needed and there is exactly one view
+ * per cell, so squares can still be compared by identity. Scanning the board
+ * with {@link #occupantsOf(Class)} and {@link #isAccessible(int, int)} does
+ * not create views.
+ */
+public class CompactBoard extends Board {
+
+    /**
+     * The width of this board.
+     */
+    private final int width;
+
+    /**
+     * The height of this board.
+     */
+    private final int height;
+
+    /**
+     * The type of every cell, as an index in {@link #kinds}.
+     */
+    private final byte[] types;
+
+    /**
+     * The prototype squares providing the accessibility and sprite of each type.
+     */
+    private final Square[] kinds;
+
+    /**
+     * The occupants of every cell, in order of appearance, or <code>null</code>
+     * for an empty cell. The arrays are never modified once stored, a change
+     * replaces the array of the cell.
+     */
+    private final AtomicReferenceArray<Unit[]> occupants;
+
+    /**
+     * The views of the cells that have been created so far.
+     */
+    private final AtomicReferenceArray<Square> views;
+
+    /**
+     * Neighbours set with {@link Square#link(Square, Direction)}, by
+     * <code>cell * 4 + direction</code>.
+     */
+    private final Map<Long, Square> links = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new compact board without occupants.
+     *
+     * @param width  The width of the board.
+     * @param height The height of the board.
+     * @param types  The type of every cell in row-major order, i.e. an index
+     *               in <code>kinds</code>. The array is not copied.
+     * @param kinds  The prototype square of every type.
+     */
+    public CompactBoard(int width, int height, byte[] types, Square... kinds) {
+        assert width > 0 && height > 0;
+        assert types.length == width * height;
+        this.width = width;
+        this.height = height;
+        this.types = types;
+        this.kinds = kinds.clone();
+        this.occupants = new AtomicReferenceArray<>(types.length);
+        this.views = new AtomicReferenceArray<>(types.length);
+        assert invariant() : "Every cell must have a prototype square";
+    }
+
+    @Override
+    public boolean invariant() {
+        for (byte type : types) {
+            if (type < 0 || type >= kinds.length || kinds[type] == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public Square squareAt(int x, int y) {
+        assert withinBorders(x, y);
+        return view(y * width + x);
+    }
+
+    @Override
+    public boolean isAccessible(int x, int y) {
+        assert withinBorders(x, y);
+        return kinds[types[y * width + x]].isAccessibleTo();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This reads the occupants of the cells directly, without creating views.
+     */
+    @Override
+    public <U extends Unit> List<U> occupantsOf(Class<U> type) {
+        final List<U> result = new ArrayList<>();
+        for (int cell = 0; cell < types.length; cell++) {
+            final Unit[] units = occupants.get(cell);
+            if (units == null) {
+                continue;
+            }
+            for (Unit unit : units) {
+                if (type.isInstance(unit)) {
+                    result.add(type.cast(unit));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the view of a cell, creating it if this is the first time it is needed.
+     *
+     * @param cell The id of the cell.
+     * @return The only view of the cell.
+     */
+    private Square view(int cell) {
+        final Square existing = views.get(cell);
+        if (existing != null) {
+            return existing;
+        }
+        views.compareAndSet(cell, null, new Cell(cell));
+        return views.get(cell);
+    }
+
+    private Square neighbour(int cell, Direction direction) {
+        if (!links.isEmpty()) {
+            final Square linked = links.get(linkKey(cell, direction));
+            if (linked != null) {
+                return linked;
+            }
+        }
+        final int x = (width + cell % width + direction.getDeltaX()) % width;
+        final int y = (height + cell / width + direction.getDeltaY()) % height;
+        return view(y * width + x);
+    }
+
+    private static long linkKey(int cell, Direction direction) {
+        return (long) cell * Direction.values().length + direction.ordinal();
+    }
+
+    private List<Unit> occupantsOf(int cell) {
+        final Unit[] units = occupants.get(cell);
+        if (units == null) {
+            return ImmutableList.of();
+        }
+        return Collections.unmodifiableList(Arrays.asList(units));
+    }
+
+    private void put(int cell, Unit unit) {
+        Unit[] current;
+        Unit[] next;
+        do {
+            current = occupants.get(cell);
+            if (current == null) {
+                next = new Unit[] {unit};
+            } else if (indexOf(current, unit) >= 0) {
+                return;
+            } else {
+                next = Arrays.copyOf(current, current.length + 1);
+                next[current.length] = unit;
+            }
+        } while (!occupants.compareAndSet(cell, current, next));
+    }
+
+    private void remove(int cell, Unit unit) {
+        Unit[] current;
+        Unit[] next;
+        do {
+            current = occupants.get(cell);
+            final int index = current == null ? -1 : indexOf(current, unit);
+            if (index < 0) {
+                return;
+            }
+            next = null;
+            if (current.length > 1) {
+                next = new Unit[current.length - 1];
+                System.arraycopy(current, 0, next, 0, index);
+                System.arraycopy(current, index + 1, next, index, next.length - index);
+            }
+        } while (!occupants.compareAndSet(cell, current, next));
+    }
+
+    private static int indexOf(Unit[] units, Unit unit) {
+        for (int i = 0; i < units.length; i++) {
+            if (units[i] == unit) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The view of one cell of a compact board.
+     */
+    private final class Cell extends Square {
+
+        /**
+         * The id of the cell.
+         */
+        private final int id;
+
+        /**
+         * Creates a new view.
+         *
+         * @param id The id of the cell.
+         */
+        private Cell(int id) {
+            super(null, null);
+            this.id = id;
+        }
+
+        @Override
+        public Square getSquareAt(Direction direction) {
+            return neighbour(id, direction);
+        }
+
+        @Override
+        public void link(Square neighbour, Direction direction) {
+            links.put(linkKey(id, direction), neighbour);
+        }
+
+        @Override
+        public List<Unit> getOccupants() {
+            return occupantsOf(id);
+        }
+
+        @Override
+        void put(Unit occupant) {
+            assert occupant != null;
+            CompactBoard.this.put(id, occupant);
+        }
+
+        @Override
+        void remove(Unit occupant) {
+            assert occupant != null;
+            CompactBoard.this.remove(id, occupant);
+        }
+
+        @Override
+        public boolean isAccessibleTo() {
+            return kinds[types[id]].isAccessibleTo();
+        }
+
+        @Override
+        public Sprite getSprite() {
+            return kinds[types[id]].getSprite();
+        }
+
+        @Override
+        public int getX() {
+            return id % width;
+        }
+
+        @Override
+        public void setX(int x) {
+            assert x == getX() : "The position of a cell cannot change";
+        }
+
+        @Override
+        public int getY() {
+            return id / width;
+        }
+
+        @Override
+        public void setY(int y) {
+            assert y == getY() : "The position of a cell cannot change";
+        }
+    }
+}
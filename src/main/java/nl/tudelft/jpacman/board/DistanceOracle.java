@@ -0,0 +1,676 @@
+package nl.tudelft.jpacman.board;
+
+import com.google.common.cache.CacheBuilder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Answers how far apart two squares of a board are, walking over accessible
+ * squares only.
+ * <p>
+ * For boards with up to {@link #EXACT_LIMIT} accessible squares, the
+ * distances between all pairs of squares are computed up front and every
+ * lookup is a single array access. For larger boards, the distances to a few
+ * landmark squares are computed instead. They give lower bounds on all
+ * distances, which guide an A* search for the exact distance (ALT).
+ * <p>
+ * The tables are stored in memory-mapped files in the directory given by the
+ * <code>jpacman.distance.cache</code> system property (by default a
+ * directory in <code>java.io.tmpdir</code>, <code>none</code> disables it),
+ * named after the hash of the {@link BoardLayout}. An oracle is read-only and
+ * shared by all boards with the same layout.
+ */
+public final class DistanceOracle {
+
+    /**
+     * The distance between two squares that are not connected.
+     */
+    public static final int UNREACHABLE = -1;
+
+    /**
+     * The largest number of accessible squares for which the distances between
+     * all pairs of squares are stored.
+     */
+    public static final int EXACT_LIMIT = 4096;
+
+    /**
+     * The number of landmarks used for large boards.
+     */
+    private static final int LANDMARKS = 8;
+
+    /**
+     * The number of directions a node can have neighbours in.
+     */
+    private static final int DIRECTIONS = Direction.values().length;
+
+    /**
+     * The number of keys the open set of a search has room for at first.
+     */
+    private static final int OPEN_CAPACITY = 64;
+
+    /**
+     * The reusable state of the searches of each thread.
+     */
+    private static final ThreadLocal<Search> SEARCHES = ThreadLocal.withInitial(Search::new);
+
+    /**
+     * "JPDC", the first four bytes of every table.
+     */
+    private static final int MAGIC = 0x4A504443;
+
+    /**
+     * The version of the table layout.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The size of the header: magic, version, node count, entry size and landmark count.
+     */
+    private static final int HEADER_SIZE = 5 * Integer.BYTES;
+
+    /**
+     * The largest entry of a table with one byte per pair, meaning unreachable.
+     */
+    private static final int BYTE_UNREACHABLE = 0xFF;
+
+    /**
+     * The largest entry of a table with two bytes per pair, meaning unreachable.
+     */
+    private static final int SHORT_UNREACHABLE = 0xFFFF;
+
+    /**
+     * The number of layouts whose oracles are kept at most.
+     */
+    private static final int SHARED_LAYOUTS = 16;
+
+    /**
+     * The oracles of the most recently used layouts, by layout hash. They are
+     * softly referenced, so they are dropped when memory runs low.
+     */
+    private static final ConcurrentMap<String, DistanceOracle> SHARED =
+            CacheBuilder.newBuilder().maximumSize(SHARED_LAYOUTS).softValues()
+                    .<String, DistanceOracle>build().asMap();
+
+    /**
+     * The layout of the boards this oracle is for.
+     */
+    private final BoardLayout layout;
+
+    /**
+     * The number of accessible squares.
+     */
+    private final int nodes;
+
+    /**
+     * The distance between every pair of nodes, at <code>from * nodes + to</code>,
+     * or null if this oracle uses landmarks.
+     */
+    private final ByteBuffer table;
+
+    /**
+     * The number of bytes per entry of the table.
+     */
+    private final int entrySize;
+
+    /**
+     * The landmark nodes, empty if this oracle stores all distances.
+     */
+    private final int[] landmarks;
+
+    /**
+     * The distance from every landmark to every node, at <code>landmark * nodes + node</code>.
+     */
+    private final IntBuffer landmarkDistances;
+
+    private DistanceOracle(BoardLayout layout, ByteBuffer table, int entrySize,
+                           int[] landmarks, IntBuffer landmarkDistances) {
+        this.layout = layout;
+        this.nodes = layout.getNodeCount();
+        this.table = table;
+        this.entrySize = entrySize;
+        this.landmarks = landmarks;
+        this.landmarkDistances = landmarkDistances;
+    }
+
+    /**
+     * Returns the oracle for the layout of the given board, loading or
+     * computing it if no board with that layout was used recently. Concurrent
+     * first calls may both compute it, only one of the results is kept.
+     *
+     * @param board The board.
+     * @return The oracle for the board.
+     */
+    public static DistanceOracle forBoard(Board board) {
+        final BoardLayout layout = board.getLayout();
+        final DistanceOracle shared = SHARED.get(layout.getHash());
+        if (shared != null) {
+            return shared;
+        }
+        final DistanceOracle created = create(layout, EXACT_LIMIT, cacheDirectory());
+        final DistanceOracle raced = SHARED.putIfAbsent(layout.getHash(), created);
+        if (raced != null) {
+            return raced;
+        }
+        return created;
+    }
+
+    /**
+     * Loads the oracle of a layout from the cache directory, or computes and
+     * stores it.
+     *
+     * @param layout     The layout.
+     * @param exactLimit The largest number of nodes for which all distances are stored.
+     * @param directory  The cache directory, or null to keep the tables in memory only.
+     * @return The oracle for the layout.
+     */
+    static DistanceOracle create(BoardLayout layout, int exactLimit, Path directory) {
+        assert exactLimit < SHORT_UNREACHABLE;
+        Path file = null;
+        if (directory != null) {
+            file = directory.resolve(layout.getHash() + ".dist");
+            final DistanceOracle cached = load(layout, file);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        ByteBuffer data = compute(layout, exactLimit);
+        if (file != null) {
+            data = store(data, file);
+        }
+        return read(layout, data);
+    }
+
+    private static Path cacheDirectory() {
+        final String property = System.getProperty("jpacman.distance.cache");
+        if ("none".equals(property)) {
+            return null;
+        }
+        if (property != null && !property.isEmpty()) {
+            return Paths.get(property);
+        }
+        return Paths.get(System.getProperty("java.io.tmpdir"), "jpacman-distances");
+    }
+
+    /**
+     * @return true iff every distance is a single lookup, false if distances
+     * are searched for using landmarks.
+     */
+    public boolean isExact() {
+        return table != null;
+    }
+
+    /**
+     * @return The layout of the boards this oracle is for.
+     */
+    public BoardLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Returns the length of the shortest path between two squares.
+     *
+     * @param from The square to start from.
+     * @param to   The destination.
+     * @return The number of moves needed, or {@link #UNREACHABLE} if there is no
+     * path or one of the squares is not accessible.
+     */
+    public int distance(Square from, Square to) {
+        final int source = layout.nodeOf(from), target = layout.nodeOf(to);
+        if (source == BoardLayout.NONE || target == BoardLayout.NONE) {
+            return UNREACHABLE;
+        }
+        return distance(source, target);
+    }
+
+    /**
+     * Returns the length of the shortest path between two nodes of the layout.
+     *
+     * @param from The node to start from.
+     * @param to   The destination node.
+     * @return The number of moves needed, or {@link #UNREACHABLE} if there is no path.
+     */
+    public int distance(int from, int to) {
+        if (from == to) {
+            return 0;
+        }
+        if (table != null) {
+            return entry(from * nodes + to);
+        }
+        final long found = search(from, to);
+        if (found < 0) {
+            return UNREACHABLE;
+        }
+        return (int) (found >>> Integer.SIZE);
+    }
+
+    /**
+     * Returns a lower bound on the length of the shortest path between two
+     * nodes, which takes constant time. For small boards, this is the exact distance.
+     *
+     * @param from The node to start from.
+     * @param to   The destination node.
+     * @return A lower bound on the number of moves needed, or {@link #UNREACHABLE}
+     * if the nodes are known not to be connected.
+     */
+    public int lowerBound(int from, int to) {
+        if (table != null) {
+            return distance(from, to);
+        }
+        int bound = 0;
+        for (int i = 0; i < landmarks.length; i++) {
+            final int a = landmarkDistances.get(i * nodes + from);
+            final int b = landmarkDistances.get(i * nodes + to);
+            if ((a == UNREACHABLE) != (b == UNREACHABLE)) {
+                return UNREACHABLE;
+            }
+            bound = Math.max(bound, Math.abs(a - b));
+        }
+        return bound;
+    }
+
+    /**
+     * Returns the first move of a shortest path between two squares. If there
+     * are several, the first one in the order of {@link Direction#values()} is chosen.
+     *
+     * @param from The square to start from.
+     * @param to   The destination.
+     * @return The first move, or null if the squares are the same, not
+     * connected or not accessible.
+     */
+    public Direction nextStep(Square from, Square to) {
+        final int source = layout.nodeOf(from), target = layout.nodeOf(to);
+        if (source == BoardLayout.NONE || target == BoardLayout.NONE || source == target) {
+            return null;
+        }
+        if (table == null) {
+            final long found = search(source, target);
+            if (found < 0) {
+                return null;
+            }
+            return Direction.values()[(int) found];
+        }
+        final int remaining = distance(source, target);
+        if (remaining == UNREACHABLE) {
+            return null;
+        }
+        for (Direction direction : Direction.values()) {
+            final int next = layout.neighbour(source, direction);
+            if (next != BoardLayout.NONE && distance(next, target) == remaining - 1) {
+                return direction;
+            }
+        }
+        return null;
+    }
+
+    private int entry(int index) {
+        if (entrySize == 1) {
+            final int value = table.get(index) & BYTE_UNREACHABLE;
+            if (value == BYTE_UNREACHABLE) {
+                return UNREACHABLE;
+            }
+            return value;
+        }
+        final int value = table.getShort(index * 2) & SHORT_UNREACHABLE;
+        if (value == SHORT_UNREACHABLE) {
+            return UNREACHABLE;
+        }
+        return value;
+    }
+
+    /**
+     * Searches a shortest path with A*, using the landmarks for the estimates.
+     *
+     * @param from The node to start from, which is not the destination.
+     * @param to   The destination node.
+     * @return The length of the path in the high and the ordinal of its first
+     * direction in the low 32 bits, or -1 if there is no path.
+     */
+    private long search(int from, int to) {
+        if (lowerBound(from, to) == UNREACHABLE) {
+            return -1;
+        }
+        final Search open = SEARCHES.get();
+        open.reset(nodes);
+        open.reach(from, 0, 0);
+        open.push(key(lowerBound(from, to), from));
+        while (open.size > 0) {
+            final long entry = open.pop();
+            final int node = (int) entry, moves = open.cost[node];
+            if ((int) (entry >>> Integer.SIZE) != moves + lowerBound(node, to)) {
+                continue;
+            }
+            if (node == to) {
+                return ((long) moves << Integer.SIZE) | open.first[node];
+            }
+            for (int direction = 0; direction < DIRECTIONS; direction++) {
+                final int next = layout.neighbour(node, direction);
+                if (next != BoardLayout.NONE && open.improves(next, moves + 1)) {
+                    int first = direction;
+                    if (node != from) {
+                        first = open.first[node];
+                    }
+                    open.reach(next, moves + 1, first);
+                    open.push(key(moves + 1 + lowerBound(next, to), next));
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static long key(int estimate, int node) {
+        return ((long) estimate << Integer.SIZE) | node;
+    }
+
+    /**
+     * Computes the distances from one node to all others by breadth-first search.
+     *
+     * @param layout The layout to search.
+     * @param source The node to start from.
+     * @param dist   Receives the distance of every node, or {@link #UNREACHABLE}.
+     * @param queue  An array with room for every node.
+     * @return The largest distance found.
+     */
+    private static int breadthFirst(BoardLayout layout, int source, int[] dist, int[] queue) {
+        Arrays.fill(dist, UNREACHABLE);
+        dist[source] = 0;
+        queue[0] = source;
+        int head = 0, tail = 1, max = 0;
+        while (head < tail) {
+            final int node = queue[head++];
+            for (int direction = 0; direction < DIRECTIONS; direction++) {
+                final int next = layout.neighbour(node, direction);
+                if (next != BoardLayout.NONE && dist[next] == UNREACHABLE) {
+                    dist[next] = dist[node] + 1;
+                    max = Math.max(max, dist[next]);
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return max;
+    }
+
+    private static ByteBuffer compute(BoardLayout layout, int exactLimit) {
+        if (layout.getNodeCount() <= exactLimit) {
+            return computeTable(layout);
+        }
+        return computeLandmarks(layout);
+    }
+
+    @SuppressWarnings("checkstyle:methodlength")
+    private static ByteBuffer computeTable(BoardLayout layout) {
+        final int count = layout.getNodeCount();
+        final short[] all = new short[count * count];
+        final int[] dist = new int[count], queue = new int[count];
+        int max = 0;
+        for (int from = 0; from < count; from++) {
+            max = Math.max(max, breadthFirst(layout, from, dist, queue));
+            for (int to = 0; to < count; to++) {
+                all[from * count + to] = (short) dist[to];
+            }
+        }
+        int entrySize = 2;
+        if (max < BYTE_UNREACHABLE) {
+            entrySize = 1;
+        }
+        final ByteBuffer data = ByteBuffer.allocate(HEADER_SIZE + all.length * entrySize);
+        data.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(entrySize).putInt(0);
+        for (short distance : all) {
+            if (entrySize == 1) {
+                data.put((byte) distance);
+            } else {
+                data.putShort(distance);
+            }
+        }
+        data.flip();
+        return data;
+    }
+
+    /**
+     * Computes the distances to landmarks spread over the board: every next
+     * landmark is the node furthest away from the landmarks chosen so far.
+     *
+     * @param layout The layout.
+     * @return The table of landmark distances.
+     */
+    private static ByteBuffer computeLandmarks(BoardLayout layout) {
+        final int count = layout.getNodeCount(), landmarks = Math.min(LANDMARKS, count);
+        final ByteBuffer data = ByteBuffer.allocate(HEADER_SIZE
+                + (landmarks + landmarks * count) * Integer.BYTES);
+        data.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(Integer.BYTES).putInt(landmarks);
+        final int[] dist = new int[count], queue = new int[count], nearest = new int[count];
+        Arrays.fill(nearest, Integer.MAX_VALUE);
+        breadthFirst(layout, 0, dist, queue);
+        int next = furthest(dist);
+        for (int i = 0; i < landmarks; i++) {
+            data.putInt(HEADER_SIZE + i * Integer.BYTES, next);
+            breadthFirst(layout, next, dist, queue);
+            final int offset = HEADER_SIZE + (landmarks + i * count) * Integer.BYTES;
+            for (int node = 0; node < count; node++) {
+                data.putInt(offset + node * Integer.BYTES, dist[node]);
+                if (dist[node] != UNREACHABLE) {
+                    nearest[node] = Math.min(nearest[node], dist[node]);
+                }
+            }
+            next = furthest(nearest);
+        }
+        data.clear();
+        return data;
+    }
+
+    private static int furthest(int[] dist) {
+        int result = 0;
+        for (int node = 1; node < dist.length; node++) {
+            if (dist[node] > dist[result]) {
+                result = node;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates an oracle from a table.
+     *
+     * @param layout The layout the table is for.
+     * @param data   The table, including its header.
+     * @return The oracle, or null if the data is not a table for the layout.
+     */
+    private static DistanceOracle read(BoardLayout layout, ByteBuffer data) {
+        final int count = layout.getNodeCount();
+        if (data.remaining() < HEADER_SIZE || data.getInt(0) != MAGIC
+                || data.getInt(Integer.BYTES) != VERSION
+                || data.getInt(2 * Integer.BYTES) != count) {
+            return null;
+        }
+        final int entrySize = data.getInt(3 * Integer.BYTES);
+        final int landmarks = data.getInt(4 * Integer.BYTES);
+        final ByteBuffer body = data.duplicate();
+        body.position(HEADER_SIZE);
+        if (landmarks == 0) {
+            if (body.remaining() != (long) count * count * entrySize) {
+                return null;
+            }
+            return new DistanceOracle(layout, body.slice().asReadOnlyBuffer(), entrySize,
+                    new int[0], null);
+        }
+        if (body.remaining() != (landmarks + (long) landmarks * count) * Integer.BYTES) {
+            return null;
+        }
+        final IntBuffer ints = body.slice().asIntBuffer();
+        final int[] landmarkNodes = new int[landmarks];
+        ints.get(landmarkNodes);
+        return new DistanceOracle(layout, null, entrySize, landmarkNodes,
+                ints.slice().asReadOnlyBuffer());
+    }
+
+    private static DistanceOracle load(BoardLayout layout, Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            return read(layout, map(file));
+        } catch (IOException e) {
+            System.err.println("Unable to read distances from " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes a table to a file and maps it back into memory. The table is
+     * written to a temporary file first, so that other games never read a
+     * partially written table.
+     *
+     * @param data The table to write.
+     * @param file The file to write it to.
+     * @return The mapped file, or the given table if it could not be written.
+     */
+    private static ByteBuffer store(ByteBuffer data, Path file) {
+        Path temp = null;
+        try {
+            Files.createDirectories(file.getParent());
+            temp = Files.createTempFile(file.getParent(), "distances", ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                final ByteBuffer written = data.duplicate();
+                while (written.hasRemaining()) {
+                    channel.write(written);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            return map(file);
+        } catch (IOException e) {
+            System.err.println("Unable to cache distances in " + file + ": " + e.getMessage());
+            deleteQuietly(temp);
+            return data;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                System.err.println("Unable to delete " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * The state of the A* searches of one thread, kept from one search to the
+     * next: the cost and first move of every node reached, and the open set as
+     * a binary min-heap of keys. A node counts as reached only if it is marked
+     * with the number of the current search, so nothing is cleared in between.
+     */
+    private static final class Search {
+
+        /**
+         * The number of the search that last reached each node.
+         */
+        private int[] reached = new int[0];
+
+        /**
+         * The number of moves to each node reached.
+         */
+        private int[] cost = new int[0];
+
+        /**
+         * The ordinal of the first move to each node reached.
+         */
+        private byte[] first = new byte[0];
+
+        /**
+         * The keys of the open set, as a binary min-heap in its first
+         * <code>size</code> elements.
+         */
+        private long[] heap = new long[OPEN_CAPACITY];
+
+        /**
+         * The number of keys in the open set.
+         */
+        private int size;
+
+        /**
+         * The number of the current search.
+         */
+        private int generation;
+
+        /**
+         * Starts a new search, with no node reached and nothing open.
+         *
+         * @param nodes The number of nodes of the layout searched.
+         */
+        void reset(int nodes) {
+            if (reached.length < nodes) {
+                reached = new int[nodes];
+                cost = new int[nodes];
+                first = new byte[nodes];
+                generation = 0;
+            }
+            size = 0;
+            generation++;
+            if (generation == 0) {
+                Arrays.fill(reached, 0);
+                generation = 1;
+            }
+        }
+
+        /**
+         * @param node  A node.
+         * @param moves The number of moves of a path to it.
+         * @return true iff the node was not reached yet, or by a longer path.
+         */
+        boolean improves(int node, int moves) {
+            return reached[node] != generation || moves < cost[node];
+        }
+
+        void reach(int node, int moves, int firstMove) {
+            reached[node] = generation;
+            cost[node] = moves;
+            first[node] = (byte) firstMove;
+        }
+
+        void push(long key) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            int index = size++;
+            while (index > 0 && heap[(index - 1) / 2] > key) {
+                heap[index] = heap[(index - 1) / 2];
+                index = (index - 1) / 2;
+            }
+            heap[index] = key;
+        }
+
+        long pop() {
+            final long top = heap[0], last = heap[--size];
+            int index = 0;
+            while (2 * index + 1 < size) {
+                int child = 2 * index + 1;
+                if (child + 1 < size && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (heap[child] >= last) {
+                    break;
+                }
+                heap[index] = heap[child];
+                index = child;
+            }
+            heap[index] = last;
+            return top;
+        }
+    }
+}
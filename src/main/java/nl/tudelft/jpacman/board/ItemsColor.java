@@ -1,6 +1,7 @@
 package nl.tudelft.jpacman.board;
 
 import java.awt.*;
+import java.util.Arrays;
 
 /**
  * Contains the mapping between pacman items and their corresponding color/letter.
@@ -12,6 +13,34 @@ public enum ItemsColor {
     SQUARE(Color.BLACK, ' '),
     PELLET(Color.WHITE, '.');
 
+    /**
+     * The letter returned by {@link #letterOf(int)} for colours of no item.
+     */
+    static final char NO_LETTER = '\0';
+
+    /**
+     * The RGB values of all items, sorted.
+     */
+    private static final int[] COLORS;
+
+    /**
+     * The letters of all items, in the order of their RGB value in {@link #COLORS}.
+     */
+    private static final char[] LETTERS;
+
+    static {
+        final ItemsColor[] items = values();
+        COLORS = new int[items.length];
+        for (int i = 0; i < items.length; i++) {
+            COLORS[i] = items[i].color;
+        }
+        Arrays.sort(COLORS);
+        LETTERS = new char[items.length];
+        for (final ItemsColor c : items) {
+            LETTERS[Arrays.binarySearch(COLORS, c.color)] = c.character;
+        }
+    }
+
     private final int color;
     private final char character;
 
@@ -34,12 +63,27 @@ public enum ItemsColor {
      * or null if none matches.
      */
     public static Character getLetterByRGBValue(final int rgbValue) {
-        for (final ItemsColor c : ItemsColor.values()) {
-            if (rgbValue == c.color) {
-                return c.character;
-            }
+        final char letter = letterOf(rgbValue);
+        if (letter == NO_LETTER) {
+            return null;
+        }
+        return letter;
+    }
+
+    /**
+     * Returns the letter that corresponds to the item whose colour matches the
+     * given RGB value, without boxing, so that it can be called for every pixel.
+     *
+     * @param rgbValue The int representing a RGB value.
+     * @return A letter representing the game object that matches the given RGB value
+     * or {@link #NO_LETTER} if none matches.
+     */
+    static char letterOf(final int rgbValue) {
+        final int index = Arrays.binarySearch(COLORS, rgbValue);
+        if (index < 0) {
+            System.err.println("Unknown color: " + rgbValue);
+            return NO_LETTER;
         }
-        System.err.println("Unknown color: " + rgbValue);
-        return null;
+        return LETTERS[index];
     }
 }
@@ -36,8 +36,20 @@ public abstract class Square {
      * Creates a new, empty square.
      */
     protected Square() {
-        this.occupants = new ArrayList<>();
-        this.neighbours = new EnumMap<>(Direction.class);
+        this(new ArrayList<>(), new EnumMap<>(Direction.class));
+    }
+
+    /**
+     * Creates a new square with the given storage. Squares that keep their
+     * occupants and neighbours elsewhere pass <code>null</code> and override
+     * all methods using them.
+     *
+     * @param occupants  The list to store the occupants in.
+     * @param neighbours The map to store the neighbours in.
+     */
+    Square(List<Unit> occupants, Map<Direction, Square> neighbours) {
+        this.occupants = occupants;
+        this.neighbours = neighbours;
     }
 
     /**
@@ -19,6 +19,11 @@ public abstract class Unit {
      */
     private Direction direction;
 
+    /**
+     * The registry listing this unit while it is on the board, if any.
+     */
+    private UnitRegistry registry;
+
     /**
      * Creates a unit that is facing east.
      */
@@ -64,11 +69,15 @@ public abstract class Unit {
     public void occupy(Square target) {
         assert target != null;
 
-        if (square != null) {
+        final boolean entering = square == null;
+        if (!entering) {
             square.remove(this);
         }
         square = target;
         target.put(this);
+        if (entering && registry != null) {
+            registry.add(this);
+        }
         assert invariant();
     }
 
@@ -79,6 +88,35 @@ public abstract class Unit {
         if (square != null) {
             square.remove(this);
             square = null;
+            if (registry != null) {
+                registry.remove(this);
+            }
+        }
+    }
+
+    /**
+     * Returns the registry listing this unit while it is on the board.
+     *
+     * @return The registry, or <code>null</code> if this unit is not listed.
+     */
+    public UnitRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Lists this unit in a registry while it is on the board, instead of the
+     * registry it was listed in before.
+     *
+     * @param newRegistry The registry, or <code>null</code> to stop listing
+     *                    this unit.
+     */
+    public void setRegistry(UnitRegistry newRegistry) {
+        if (registry != null) {
+            registry.remove(this);
+        }
+        registry = newRegistry;
+        if (registry != null && square != null) {
+            registry.add(this);
         }
     }
 
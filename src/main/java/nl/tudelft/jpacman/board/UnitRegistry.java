@@ -0,0 +1,140 @@
+package nl.tudelft.jpacman.board;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The units on a board by type, so that the nearest unit of a type can be
+ * found without flooding the board.
+ * <p>
+ * A unit given a registry with {@link Unit#setRegistry(UnitRegistry)} is
+ * listed while it occupies a square: it is added when it enters the board
+ * and removed when it leaves it. Since there are only a few units of each
+ * type, such as the one player of a single player game, finding the nearest
+ * one only takes a glance at each of them.
+ */
+public class UnitRegistry {
+
+    /**
+     * The board the units are on.
+     */
+    private final Board board;
+
+    /**
+     * The width of the board.
+     */
+    private final int width;
+
+    /**
+     * The height of the board.
+     */
+    private final int height;
+
+    /**
+     * The units on the board, by their class.
+     */
+    private final Map<Class<? extends Unit>, CopyOnWriteArrayList<Unit>> units =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new, empty registry.
+     *
+     * @param board The board the units will be on.
+     */
+    public UnitRegistry(Board board) {
+        this.board = board;
+        this.width = board.getWidth();
+        this.height = board.getHeight();
+    }
+
+    /**
+     * @return The board the units are on.
+     */
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * Lists a unit that entered the board.
+     *
+     * @param unit The unit.
+     */
+    void add(Unit unit) {
+        units.computeIfAbsent(unit.getClass(), type -> new CopyOnWriteArrayList<>())
+                .addIfAbsent(unit);
+    }
+
+    /**
+     * Removes a unit that left the board.
+     *
+     * @param unit The unit.
+     */
+    void remove(Unit unit) {
+        final List<Unit> listed = units.get(unit.getClass());
+        if (listed != null) {
+            listed.remove(unit);
+        }
+    }
+
+    /**
+     * Returns the units of a type that are on the board.
+     *
+     * @param type The type of the units, which includes its subtypes.
+     * @param <T>  The type of the units.
+     * @return The units of that type, in the order they entered the board.
+     */
+    public <T extends Unit> List<T> unitsOf(Class<T> type) {
+        final List<T> result = new ArrayList<>();
+        for (Map.Entry<Class<? extends Unit>, CopyOnWriteArrayList<Unit>> entry
+                : units.entrySet()) {
+            if (type.isAssignableFrom(entry.getKey())) {
+                for (Unit unit : entry.getValue()) {
+                    result.add(type.cast(unit));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the unit of a type nearest to a square, ignoring walls like
+     * {@link nl.tudelft.jpacman.npc.ghost.Navigation#findNearest(Class, Square)}
+     * does. Distances are measured in moves on the grid, wrapping around the
+     * borders of the board.
+     *
+     * @param type The type of unit to search for.
+     * @param from The square to measure from.
+     * @return The nearest unit of the given type, or <code>null</code> if
+     * there is none on the board.
+     */
+    public Unit nearest(Class<? extends Unit> type, Square from) {
+        Unit nearest = null;
+        int shortest = Integer.MAX_VALUE;
+        for (Map.Entry<Class<? extends Unit>, CopyOnWriteArrayList<Unit>> entry
+                : units.entrySet()) {
+            if (!type.isAssignableFrom(entry.getKey())) {
+                continue;
+            }
+            for (Unit unit : entry.getValue()) {
+                final Square square = unit.getSquare();
+                if (square != null) {
+                    final int distance = distance(from, square);
+                    if (distance < shortest) {
+                        shortest = distance;
+                        nearest = unit;
+                    }
+                }
+            }
+        }
+        return nearest;
+    }
+
+    private int distance(Square from, Square to) {
+        final int dx = Math.abs(from.getX() - to.getX());
+        final int dy = Math.abs(from.getY() - to.getY());
+        return Math.min(dx, width - dx) + Math.min(dy, height - dy);
+    }
+}
@@ -1,21 +1,27 @@
 package nl.tudelft.jpacman.game;
 
 import nl.tudelft.jpacman.Launcher;
-import nl.tudelft.jpacman.PacmanConfigurationException;
+import nl.tudelft.jpacman.board.BoardFactory;
 import nl.tudelft.jpacman.board.Direction;
 import nl.tudelft.jpacman.board.Square;
 import nl.tudelft.jpacman.level.AILevel;
 import nl.tudelft.jpacman.level.IdentifiedPlayer;
 import nl.tudelft.jpacman.level.Level.LevelObserver;
+import nl.tudelft.jpacman.level.LevelFactory;
+import nl.tudelft.jpacman.level.LevelTemplate;
+import nl.tudelft.jpacman.level.LevelTemplateCache;
 import nl.tudelft.jpacman.level.MapParser;
+import nl.tudelft.jpacman.npc.ghost.GhostFactory;
+import nl.tudelft.jpacman.sprite.PacManSprites;
 import nl.tudelft.jpacman.strategy.HumanControllerStrategy;
 import nl.tudelft.jpacman.strategy.PacManhattanAI;
 import nl.tudelft.jpacman.strategy.PacmanStrategy;
 import nl.tudelft.jpacman.ui.MyJDialogStrategy;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -40,20 +46,68 @@ public abstract class Game implements LevelObserver {
     private boolean inProgress, firstPass = true;
 
     /**
-     * For the execution of the thread for the continuousMovement method.
+     * The directions asked for by the human players, by player.
      */
-    private PlayerMoveTask currentMoveTask;
-    private ScheduledExecutorService service;
+    private final Map<IdentifiedPlayer, PlayerInput> inputs = new ConcurrentHashMap<>();
+    /**
+     * The service moving the human players, or <code>null</code> while none
+     * has asked for a direction since the game started.
+     */
+    private ScheduledExecutorService inputService;
     /**
      * The chosen strategy by the player.
      */
     private PacmanStrategy strategy;
+    /**
+     * The factory creating the squares of every level of this game.
+     */
+    private BoardFactory boardFactory;
+    /**
+     * The templates of the levels of this game.
+     */
+    private final LevelTemplateCache levelTemplates;
+    /**
+     * The sprites of the units and squares of this game.
+     */
+    private final PacManSprites sprites;
+    /**
+     * The factory creating the levels and units of this game.
+     */
+    private final LevelFactory levelFactory;
 
     /**
-     * Creates a new game.
+     * Creates a new game with the levels and sprites of the {@link Launcher}.
      */
     protected Game() {
+        this(Launcher.getLevelTemplates(), Launcher.getSpriteStore());
+    }
+
+    /**
+     * Creates a new game with its own levels and sprites, which does not
+     * depend on the {@link Launcher}.
+     *
+     * @param templates   The templates of the levels.
+     * @param spriteStore The sprites of the units and squares.
+     */
+    protected Game(LevelTemplateCache templates, PacManSprites spriteStore) {
         inProgress = false;
+        this.levelTemplates = templates;
+        this.sprites = spriteStore;
+        this.levelFactory = new LevelFactory(spriteStore, new GhostFactory(spriteStore));
+    }
+
+    /**
+     * Creates a new game with its own levels and sprites, whose levels all
+     * make the same random choices every time the game is created with the
+     * same seed.
+     *
+     * @param templates   The templates of the levels.
+     * @param spriteStore The sprites of the units and squares.
+     * @param seed        The seed of the random choices of the levels.
+     */
+    protected Game(LevelTemplateCache templates, PacManSprites spriteStore, long seed) {
+        this(templates, spriteStore);
+        levelFactory.setSeed(seed);
     }
 
     /**
@@ -81,9 +135,13 @@ public abstract class Game implements LevelObserver {
             if (!isInProgress()) {
                 return;
             }
-            if (service != null) {
-                currentMoveTask.setFinished();
+            if (inputService != null) {
+                inputService.shutdownNow();
+                inputService = null;
             }
+            // a move already running on the service stops with its input
+            inputs.values().forEach(PlayerInput::clear);
+            inputs.clear();
             inProgress = false;
             getLevel().stop();
         }
@@ -131,24 +189,59 @@ public abstract class Game implements LevelObserver {
     protected abstract void setLevel(AILevel level);
 
     /**
-     * Moves the specified player until the next cross in the given direction.
+     * Makes the specified player keep moving in the given direction, from
+     * the first square he can go that way from. The player moves once every
+     * interval, in the last direction asked for.
      *
      * @param player    The player to move.
      * @param direction The direction to move in.
      */
     public void continousMovement(IdentifiedPlayer player, Direction direction) {
-        if (isInProgress()) {
-            final Square location = player.getSquare();
-            final Square destination = location.getSquareAt(direction);
-            if (destination.isAccessibleTo()) {
-                if (service == null) {
-                    this.service = Executors.newSingleThreadScheduledExecutor();
-                } else {
-                    this.currentMoveTask.setFinished();
+        PlayerInput input = inputs.get(player);
+        if (input == null) {
+            input = startInput(player);
+        }
+        if (input != null) {
+            input.request(direction);
+        }
+    }
+
+    /**
+     * Starts moving a human player once every interval, until the game
+     * stops.
+     *
+     * @param player The player to move.
+     * @return The directions asked for by the player, or <code>null</code>
+     * if the game is not in progress.
+     */
+    private PlayerInput startInput(IdentifiedPlayer player) {
+        synchronized (progressLock) {
+            if (!isInProgress()) {
+                return null;
+            }
+            PlayerInput input = inputs.get(player);
+            if (input == null) {
+                if (inputService == null) {
+                    inputService = Executors.newSingleThreadScheduledExecutor();
                 }
-                this.currentMoveTask = new PlayerMoveTask(service, player, direction);
-                service.schedule(currentMoveTask, player.getInterval(), TimeUnit.MILLISECONDS);
+                final PlayerInput created = new PlayerInput();
+                inputService.scheduleAtFixedRate(() -> moveByInput(player, created),
+                        player.getInterval(), player.getInterval(), TimeUnit.MILLISECONDS);
+                inputs.put(player, created);
+                input = created;
             }
+            return input;
+        }
+    }
+
+    private void moveByInput(IdentifiedPlayer player, PlayerInput input) {
+        final Square location = player.getSquare();
+        if (location == null) {
+            return;
+        }
+        final Direction direction = input.next(location);
+        if (direction != null) {
+            getLevel().move(player, direction);
         }
     }
 
@@ -211,25 +304,19 @@ public abstract class Game implements LevelObserver {
     public abstract void reset();
 
     /**
-     * Creates a new level. Uses the map parser to
-     * parse the desired board file.
+     * Creates a new level from the cached template of the desired level, so
+     * that the level file is only read and parsed the first time.
      *
      * @param id The id of the level we want to load.
-     * @return A new level.
+     * @return A new level, or null if there is no such level.
      */
     protected AILevel makeLevel(final int id) {
-        final MapParser parser = getMapParser();
-        final String file = "/board" + id + ".txt";
-        try (InputStream boardStream = Launcher.class
-                .getResourceAsStream(file)) {
-            if (boardStream == null) {
-                return null;
-            }
-            currentLevel = id;
-            return parser.parseMap(boardStream);
-        } catch (IOException e) {
-            throw new PacmanConfigurationException("Unable to create level.", e);
+        final LevelTemplate template = levelTemplates.get(id);
+        if (template == null) {
+            return null;
         }
+        currentLevel = id;
+        return template.instantiate(getMapParser());
     }
 
     /**
@@ -239,22 +326,19 @@ public abstract class Game implements LevelObserver {
      * @return true if available, false otherwise.
      */
     private boolean isAvailable(final int id) {
-        final String file = "/board" + id + ".txt";
-        try (InputStream boardStream = Launcher.class
-                .getResourceAsStream(file)) {
-            return boardStream != null;
-        } catch (IOException e) {
-            throw new PacmanConfigurationException("Unable to create level.", e);
-        }
+        return levelTemplates.isAvailable(id);
     }
 
 
     /**
-     * @return A new map parser object using the factories from.
-     * {@link Launcher#getLevelFactory()} and {@link Launcher#getBoardFactory()}.
+     * @return A new map parser object using the level factory and the board
+     * factory of this game, which are only created once.
      */
     private MapParser getMapParser() {
-        return new MapParser(Launcher.getLevelFactory(), Launcher.getBoardFactory());
+        if (boardFactory == null) {
+            boardFactory = new BoardFactory(sprites);
+        }
+        return new MapParser(levelFactory, boardFactory);
     }
 
     /**
@@ -296,72 +380,4 @@ public abstract class Game implements LevelObserver {
         this.strategy = strategy;
     }
 
-
-    /**
-     * Class representing the timer and methods to apply during the timer.
-     */
-    private final class PlayerMoveTask implements Runnable {
-
-        /**
-         * The service executing the task.
-         */
-        private final ScheduledExecutorService scheduledExecutorService;
-
-
-        /**
-         * The player to move.
-         */
-        private final IdentifiedPlayer player;
-        /**
-         * The direction to follow by the player.
-         */
-        private final Direction dir;
-        /**
-         * A boolean to know if the current task is finished or not.
-         */
-        private boolean finished;
-
-        /**
-         * Creates a new task.
-         *
-         * @param s         The service that executes the task.
-         * @param p         The player to move.
-         * @param direction The direction to follow
-         */
-        PlayerMoveTask(ScheduledExecutorService s, IdentifiedPlayer p, Direction direction) {
-            this.scheduledExecutorService = s;
-            this.player = p;
-            this.dir = direction;
-        }
-
-        /**
-         * The run method to apply periodically.
-         */
-        @Override
-        public void run() {
-            if (!isFinished()) {
-                getLevel().move(player, dir);
-                scheduledExecutorService.schedule(this,
-                        player.getInterval(), TimeUnit.MILLISECONDS);
-            }
-        }
-
-        /**
-         * Boolean to finish the task for the thread.
-         */
-        public void setFinished() {
-            this.finished = true;
-        }
-
-
-        /**
-         * Get the boolean to know if the task is finish or not.
-         *
-         * @return true if the task is finished, false otherwise.
-         */
-        public boolean isFinished() {
-            return finished;
-        }
-
-    }
 }
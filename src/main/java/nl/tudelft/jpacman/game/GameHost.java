@@ -0,0 +1,251 @@
+package nl.tudelft.jpacman.game;
+
+import com.google.common.collect.ImmutableList;
+import nl.tudelft.jpacman.level.AILevel;
+import nl.tudelft.jpacman.level.LevelTemplateCache;
+import nl.tudelft.jpacman.level.PlayerFactory;
+import nl.tudelft.jpacman.sprite.PacManSprites;
+import nl.tudelft.jpacman.strategy.AIStrategy;
+import nl.tudelft.jpacman.strategy.PacManhattanAI;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Runs many independent games played by the AI in one JVM, without a user
+ * interface.
+ * <p>
+ * The ticks of all games are run by one scheduler with a fixed number of
+ * threads, and the moves of a tick are decided on one shared pool, so the
+ * number of threads does not grow with the number of games. The number of
+ * games is bounded: {@link #admit()} refuses new games when the host is
+ * full. The games share the level templates and sprites, which never
+ * change, but nothing else.
+ */
+public class GameHost implements AutoCloseable {
+
+    /**
+     * The templates of the levels played.
+     */
+    private final LevelTemplateCache levelTemplates;
+
+    /**
+     * The sprites of the units and squares.
+     */
+    private final PacManSprites sprites;
+
+    /**
+     * The scheduler running the ticks of all games.
+     */
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    /**
+     * The pool deciding the moves of all games.
+     */
+    private final ForkJoinPool deciders;
+
+    /**
+     * The time a tick takes, in milliseconds.
+     */
+    private final long tickLength;
+
+    /**
+     * The maximum number of games running at once.
+     */
+    private final int capacity;
+
+    /**
+     * The games running.
+     */
+    private final Set<HostedGame> games = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The number of games running or being created.
+     */
+    private final AtomicInteger admitted = new AtomicInteger();
+
+    /**
+     * <code>true</code> once this host has been closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * The lock that keeps games from being admitted while the host closes.
+     * Admissions share its read lock, closing takes its write lock.
+     */
+    private final ReentrantReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+    /**
+     * Creates the strategy playing a level of a game.
+     */
+    private volatile Function<? super Game, ? extends AIStrategy> strategies =
+            PacManhattanAI::new;
+
+    /**
+     * Creates a new host.
+     *
+     * @param templates    The templates of the levels played.
+     * @param spriteStore  The sprites of the units and squares.
+     * @param threads      The number of threads running ticks and deciding moves.
+     * @param maximumGames The maximum number of games running at once.
+     * @param length       The time a tick takes, in milliseconds.
+     */
+    public GameHost(LevelTemplateCache templates, PacManSprites spriteStore, int threads,
+                    int maximumGames, long length) {
+        assert threads > 0 && maximumGames > 0 && length > 0;
+        this.levelTemplates = templates;
+        this.sprites = spriteStore;
+        this.scheduler = new ScheduledThreadPoolExecutor(threads);
+        this.scheduler.setRemoveOnCancelPolicy(true);
+        this.deciders = new ForkJoinPool(threads);
+        this.capacity = maximumGames;
+        this.tickLength = length;
+    }
+
+    /**
+     * Creates and starts a new game with a random seed, if there is room for
+     * it.
+     *
+     * @return The new game, or <code>null</code> if the host is full or
+     * closed.
+     */
+    public HostedGame admit() {
+        return admit(ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Creates and starts a new game, if there is room for it. Games admitted
+     * with the same seed and strategy play the same way.
+     *
+     * @param seed The seed of the random choices of the levels of the game.
+     * @return The new game, or <code>null</code> if the host is full or
+     * closed.
+     */
+    public HostedGame admit(long seed) {
+        final Lock admission = closeLock.readLock();
+        admission.lock();
+        try {
+            if (closed) {
+                return null;
+            }
+            return startGame(seed);
+        } finally {
+            admission.unlock();
+        }
+    }
+
+    private HostedGame startGame(long seed) {
+        if (admitted.incrementAndGet() > capacity) {
+            admitted.decrementAndGet();
+            return null;
+        }
+        final HostedGame game;
+        try {
+            game = new HostedGame(this, new PlayerFactory(sprites).createPacMan(), seed);
+        } catch (RuntimeException e) {
+            admitted.decrementAndGet();
+            throw e;
+        }
+        games.add(game);
+        game.start();
+        return game;
+    }
+
+    /**
+     * Sets the strategy playing the levels of the games admitted from now
+     * on, {@link PacManhattanAI} by default.
+     *
+     * @param factory Creates the strategy playing the current level of a game.
+     */
+    public void setStrategies(Function<? super Game, ? extends AIStrategy> factory) {
+        assert factory != null;
+        strategies = factory;
+    }
+
+    /**
+     * Stops a game and frees its place.
+     *
+     * @param game The game to stop.
+     */
+    public void release(HostedGame game) {
+        if (games.remove(game)) {
+            game.stop();
+            admitted.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return The games running.
+     */
+    public List<HostedGame> getGames() {
+        return ImmutableList.copyOf(games);
+    }
+
+    /**
+     * @return The maximum number of games running at once.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Stops all games and the threads of this host. Once admissions being
+     * made have finished, no more games are admitted.
+     */
+    @Override
+    public void close() {
+        final Lock closing = closeLock.writeLock();
+        closing.lock();
+        try {
+            closed = true;
+        } finally {
+            closing.unlock();
+        }
+        for (HostedGame game : games) {
+            release(game);
+        }
+        scheduler.shutdownNow();
+        deciders.shutdownNow();
+    }
+
+    /**
+     * Makes a level advance in the ticks of this host.
+     *
+     * @param level The level, which must be stopped.
+     */
+    void useTicks(AILevel level) {
+        level.useTicks(deciders, tickLength, scheduler);
+    }
+
+    /**
+     * Creates the strategy playing the current level of a game.
+     *
+     * @param game The game.
+     * @return The new strategy.
+     */
+    AIStrategy createStrategy(Game game) {
+        return strategies.apply(game);
+    }
+
+    /**
+     * @return The templates of the levels played.
+     */
+    LevelTemplateCache getLevelTemplates() {
+        return levelTemplates;
+    }
+
+    /**
+     * @return The sprites of the units and squares.
+     */
+    PacManSprites getSprites() {
+        return sprites;
+    }
+}
@@ -0,0 +1,137 @@
+package nl.tudelft.jpacman.game;
+
+import com.google.common.collect.ImmutableList;
+import nl.tudelft.jpacman.level.AILevel;
+import nl.tudelft.jpacman.level.IdentifiedPlayer;
+
+import java.util.List;
+
+/**
+ * A single player game played by the AI on a {@link GameHost}, without a
+ * user interface. Its levels advance in ticks on the scheduler of the host,
+ * and it neither shows nor saves anything when a level is won or lost.
+ */
+public class HostedGame extends Game {
+
+    /**
+     * The host running this game.
+     */
+    private final GameHost host;
+
+    /**
+     * The player of this game.
+     */
+    private final IdentifiedPlayer player;
+
+    /**
+     * The level of this game.
+     */
+    private AILevel level;
+
+    /**
+     * The number of ticks made on the previous levels.
+     */
+    private long pastTicks;
+
+    /**
+     * The time the ticks of the previous levels took, in nanoseconds.
+     */
+    private long pastTickNanos;
+
+    /**
+     * <code>true</code> once the player has lost.
+     */
+    private volatile boolean over;
+
+    /**
+     * Creates a new game on the first level of the host.
+     *
+     * @param gameHost The host running the game.
+     * @param p        The player.
+     * @param seed     The seed of the random choices of the levels.
+     */
+    HostedGame(GameHost gameHost, IdentifiedPlayer p, long seed) {
+        super(gameHost.getLevelTemplates(), gameHost.getSprites(), seed);
+        this.host = gameHost;
+        this.player = p;
+        setLevel(makeLevel(1));
+        setStrategy(host.createStrategy(this));
+    }
+
+    @Override
+    public List<IdentifiedPlayer> getPlayers() {
+        return ImmutableList.of(player);
+    }
+
+    @Override
+    public AILevel getLevel() {
+        return level;
+    }
+
+    /**
+     * Sets the current level, which advances in the ticks of the host.
+     *
+     * @param next The level that is to be played.
+     */
+    @Override
+    protected void setLevel(final AILevel next) {
+        if (level != null) {
+            pastTicks += level.getTickCount();
+            pastTickNanos += level.getTickNanos();
+            player.unregister(level);
+        }
+        next.registerPlayer(player);
+        host.useTicks(next);
+        this.level = next;
+    }
+
+    /**
+     * Moves on to the next level and keeps playing.
+     */
+    @Override
+    public void levelWon() {
+        stop();
+        setLevel(nextLevel());
+        setStrategy(host.createStrategy(this));
+        start();
+    }
+
+    /**
+     * Ends the game, freeing its place on the host.
+     */
+    @Override
+    public void levelLost() {
+        stop();
+        over = true;
+        host.release(this);
+    }
+
+    @Override
+    public void reset() {
+        stop();
+        player.resetScore();
+        player.setLives(SinglePlayerGame.STARTING_LIVES);
+    }
+
+    /**
+     * @return <code>true</code> once the player has lost.
+     */
+    public boolean isOver() {
+        return over;
+    }
+
+    /**
+     * @return The number of ticks made in this game.
+     */
+    public long getTickCount() {
+        return pastTicks + level.getTickCount();
+    }
+
+    /**
+     * @return The total time the ticks of this game took to compute, in
+     * nanoseconds.
+     */
+    public long getTickNanos() {
+        return pastTickNanos + level.getTickNanos();
+    }
+}
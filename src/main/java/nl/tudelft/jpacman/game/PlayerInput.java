@@ -0,0 +1,65 @@
+package nl.tudelft.jpacman.game;
+
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The directions a human player asked for, waiting for the next move of
+ * his player.
+ * <p>
+ * Key presses never block and never pile up: only the last direction asked
+ * for is kept. It is taken as soon as the player can go that way, and until
+ * then the player keeps going the way he was, so a turn asked for in a
+ * corridor is made at the next intersection.
+ */
+final class PlayerInput {
+
+    /**
+     * The last direction asked for that has not been taken yet, or
+     * <code>null</code>.
+     */
+    private final AtomicReference<Direction> turn = new AtomicReference<>();
+
+    /**
+     * The direction the player is going, or <code>null</code> if he stands
+     * still.
+     */
+    private volatile Direction heading;
+
+    /**
+     * Asks for the player to go in a direction, replacing any direction asked
+     * for before that was not taken yet.
+     *
+     * @param direction The direction.
+     */
+    void request(Direction direction) {
+        turn.set(direction);
+    }
+
+    /**
+     * Returns the direction of the next move of the player, taking the
+     * direction asked for if the player can go that way.
+     *
+     * @param location The square the player is on.
+     * @return The direction to move in, or <code>null</code> if the player
+     * stands still.
+     */
+    Direction next(Square location) {
+        final Direction asked = turn.get();
+        if (asked != null && location.getSquareAt(asked).isAccessibleTo()
+                && turn.compareAndSet(asked, null)) {
+            heading = asked;
+        }
+        return heading;
+    }
+
+    /**
+     * Stops the player and forgets the direction asked for.
+     */
+    void clear() {
+        turn.set(null);
+        heading = null;
+    }
+}
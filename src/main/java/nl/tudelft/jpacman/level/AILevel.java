@@ -3,40 +3,122 @@ package nl.tudelft.jpacman.level;
 import nl.tudelft.jpacman.board.Board;
 import nl.tudelft.jpacman.board.Direction;
 import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.metrics.Metrics;
+import nl.tudelft.jpacman.metrics.Operation;
 import nl.tudelft.jpacman.npc.NPC;
 import nl.tudelft.jpacman.npc.ghost.Ghost;
 import nl.tudelft.jpacman.strategy.AIStrategy;
 import nl.tudelft.jpacman.strategy.PacmanStrategy;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.SplittableRandom;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
 
 /**
  * A level of Pac-Man. A level consists of the board with the players and the
  * AIs on it. Enables management of AI during a level (Pacman and ghosts).
+ * <p>
+ * By default every NPC decides and makes its moves on its own schedule, in a
+ * loop on a virtual thread of its own or, without virtual threads, in tasks on
+ * a scheduler shared by all levels (see {@link UnitThreads}). With
+ * {@link #useTicks(ForkJoinPool, long)}, the level advances in ticks instead:
+ * the NPCs and AI strategy that are due all decide in parallel while the
+ * board cannot change, after which their moves are made one by one in a
+ * fixed order.
  */
 public class AILevel extends Level {
     /**
-     * The NPCs of this level and, if they are running, their schedules.
+     * The NPCs of this level and, if they are running, what moves them.
      */
-    private final Map<NPC, ScheduledExecutorService> npcs;
+    private final Map<NPC, UnitMover> npcs;
     /**
      * The lock that ensures starting and stopping can't interfere with each
      * other.
      */
     private final Object startStopLock = new Object();
     /**
-     * The service for the thread.
+     * What moves the player for the AI strategy, if it is running.
      */
-    private ScheduledExecutorService serviceAI;
+    private UnitMover playerMover;
+    /**
+     * The factory of the threads moving the units on their own schedules, or
+     * <code>null</code> to move them on the {@link UnitThreads#scheduler()
+     * shared scheduler}.
+     */
+    private ThreadFactory unitThreads = UnitThreads.virtual();
+    /**
+     * Whether the units started last should keep moving.
+     */
+    private AtomicBoolean running = new AtomicBoolean();
     /**
      * The chosen strategy by the player.
      */
     private PacmanStrategy strategy;
+    /**
+     * The NPCs of this level, in the order their moves are made in a tick.
+     */
+    private final List<NPC> npcOrder;
+    /**
+     * The pool deciding the moves of a tick, or <code>null</code> if the NPCs
+     * move on their own schedules.
+     */
+    private ForkJoinPool tickPool;
+    /**
+     * The time a tick takes, in milliseconds.
+     */
+    private long tickLength;
+    /**
+     * The time of the last tick, counted from the first one.
+     */
+    private long clock;
+    /**
+     * The time every NPC makes its next move in a tick.
+     */
+    private final Map<NPC, Long> dueTimes = new HashMap<>();
+    /**
+     * The time the AI player makes its next move in a tick.
+     */
+    private long playerDueTime;
+    /**
+     * The last move the AI strategy chose in a tick.
+     */
+    private Direction playerMove;
+    /**
+     * The service running the ticks while the level is in progress.
+     */
+    private ScheduledExecutorService tickService;
+    /**
+     * The scheduler shared with other levels that runs the ticks, or
+     * <code>null</code> if this level runs them on a thread of its own.
+     */
+    private ScheduledExecutorService tickScheduler;
+    /**
+     * The scheduled ticks while the level is in progress.
+     */
+    private ScheduledFuture<?> tickTask;
+    /**
+     * The number of ticks made.
+     */
+    private volatile long tickCount;
+    /**
+     * The total time the ticks took to compute, in nanoseconds.
+     */
+    private volatile long tickNanos;
+    /**
+     * The longest time a tick took to compute, in nanoseconds.
+     */
+    private volatile long maxTickNanos;
 
     /**
      * Creates a new level for the board.
@@ -48,8 +130,24 @@ public class AILevel extends Level {
      */
     public AILevel(Board b, List<NPC> ghosts,
                    List<Square> startPositions, CollisionMap collisionMap) {
-        super(b, ghosts, startPositions, collisionMap);
+        this(b, ghosts, startPositions, collisionMap, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Creates a new level for the board whose random choices all follow from
+     * a seed.
+     *
+     * @param b              The board for the level.
+     * @param ghosts         The ghosts on the board.
+     * @param startPositions The squares on which players start on this board.
+     * @param collisionMap   The collection of collisions that should be handled.
+     * @param seed           The seed of all random choices on this level.
+     */
+    public AILevel(Board b, List<NPC> ghosts, List<Square> startPositions,
+                   CollisionMap collisionMap, long seed) {
+        super(b, ghosts, startPositions, collisionMap, seed);
         this.npcs = new HashMap<>();
+        this.npcOrder = new ArrayList<>(ghosts);
         for (NPC g : ghosts) {
             npcs.put(g, null);
             if (g instanceof Ghost) {
@@ -58,16 +156,269 @@ public class AILevel extends Level {
         }
     }
 
+    /**
+     * Makes this level advance in ticks of the given length, instead of
+     * letting every NPC move on its own schedule. This can only be changed
+     * while the level is stopped.
+     *
+     * @param pool   The pool deciding the moves of the NPCs and AI strategy in
+     *               parallel.
+     * @param length The time a tick takes, in milliseconds.
+     */
+    public void useTicks(ForkJoinPool pool, long length) {
+        useTicks(pool, length, null);
+    }
+
+    /**
+     * Makes this level advance in ticks run by a scheduler shared with other
+     * levels, so that many levels can run on a few threads.
+     *
+     * @param pool      The pool deciding the moves of the NPCs and AI strategy
+     *                  in parallel.
+     * @param length    The time a tick takes, in milliseconds.
+     * @param scheduler The scheduler running the ticks, or <code>null</code>
+     *                  to run them on a thread of this level.
+     */
+    public void useTicks(ForkJoinPool pool, long length, ScheduledExecutorService scheduler) {
+        assert pool != null && length > 0;
+        synchronized (startStopLock) {
+            assert !isInProgress();
+            tickPool = pool;
+            tickLength = length;
+            tickScheduler = scheduler;
+            for (NPC npc : npcOrder) {
+                dueTimes.put(npc, clock + npc.getInterval() / 2);
+            }
+            if (hasPlayer()) {
+                playerDueTime = clock + getPlayer().getInterval() / 2;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This includes the clock of the ticks and when every unit moves next.
+     */
+    @Override
+    void writeState(ByteBuffer out) {
+        runExclusively(() -> {
+            super.writeState(out);
+            out.putLong(clock).putLong(playerDueTime);
+            byte move = -1;
+            if (playerMove != null) {
+                move = (byte) playerMove.ordinal();
+            }
+            out.put(move);
+            for (NPC npc : npcOrder) {
+                out.putLong(dueTimes.getOrDefault(npc, 0L));
+            }
+        });
+    }
+
+    @Override
+    void readState(ByteBuffer in) {
+        runExclusively(() -> {
+            super.readState(in);
+            clock = in.getLong();
+            playerDueTime = in.getLong();
+            final byte move = in.get();
+            playerMove = null;
+            if (move >= 0) {
+                playerMove = Direction.values()[move];
+            }
+            for (NPC npc : npcOrder) {
+                dueTimes.put(npc, in.getLong());
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * In tick mode, this is the time on the clock of the ticks, so that a
+     * recording does not depend on how fast the ticks were computed.
+     */
+    @Override
+    protected long currentTime() {
+        if (tickPool != null) {
+            return clock;
+        }
+        return super.currentTime();
+    }
+
+    /**
+     * Advances this level by one tick, if it advances in ticks and is in
+     * progress.
+     * <p>
+     * First, every NPC whose move is due, and the AI strategy if the player's
+     * move is due, decide on their move in parallel. No moves can be made
+     * meanwhile, so they all decide on the same board. Then the player moves,
+     * followed by the NPCs in the order they were given to this level.
+     */
+    public void tick() {
+        if (tickPool == null || !isInProgress()) {
+            return;
+        }
+        runExclusively(() -> {
+            final long start = System.nanoTime();
+            advance();
+            final long time = System.nanoTime() - start;
+            tickCount++;
+            tickNanos += time;
+            maxTickNanos = Math.max(maxTickNanos, time);
+        });
+    }
+
+    /**
+     * @return The number of ticks made on this level.
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * @return The total time the ticks took to compute, in nanoseconds.
+     */
+    public long getTickNanos() {
+        return tickNanos;
+    }
+
+    /**
+     * @return The longest time a tick took to compute, in nanoseconds.
+     */
+    public long getMaxTickNanos() {
+        return maxTickNanos;
+    }
+
+    /**
+     * Decides and makes the moves of one tick, while no other moves can be made.
+     */
+    private void advance() {
+        // take the first snapshot now, as the deciders cannot while this thread moves
+        getSnapshot();
+        clock += tickLength;
+        final List<NPC> movers = new ArrayList<>();
+        for (NPC npc : npcOrder) {
+            if (dueTimes.get(npc) <= clock) {
+                movers.add(npc);
+            }
+        }
+        final boolean playerDue = strategy != null
+                && strategy.getTypeStrategy() == PacmanStrategy.Type.AI
+                && hasPlayer() && playerDueTime <= clock;
+        final Direction[] moves = decide(movers, playerDue);
+        if (playerDue) {
+            final IdentifiedPlayer player = getPlayer();
+            playerMove = moves[movers.size()];
+            if (player.getSquare().getSquareAt(playerMove).isAccessibleTo()) {
+                move(player, playerMove);
+            }
+            playerDueTime += player.getInterval();
+        }
+        for (int i = 0; i < movers.size(); i++) {
+            final NPC npc = movers.get(i);
+            if (moves[i] != null) {
+                move(npc, moves[i]);
+            }
+            dueTimes.put(npc, dueTimes.get(npc) + npc.getInterval());
+        }
+    }
+
+    /**
+     * Lets the given NPCs, and the AI strategy, decide on their moves in parallel.
+     *
+     * @param movers    The NPCs to decide.
+     * @param playerDue Whether the AI strategy decides too.
+     * @return The moves of the NPCs, followed by the move of the player if
+     * the AI strategy decided.
+     */
+    private Direction[] decide(List<NPC> movers, boolean playerDue) {
+        final Direction[] moves = new Direction[movers.size() + 1];
+        final int deciders;
+        if (playerDue) {
+            deciders = moves.length;
+        } else {
+            deciders = movers.size();
+        }
+        tickPool.submit(() -> IntStream.range(0, deciders).parallel().forEach(i -> {
+            if (i < movers.size()) {
+                moves[i] = nextNpcMove(movers.get(i));
+            } else {
+                moves[i] = nextPlayerMove((AIStrategy) strategy, getPlayer(), playerMove);
+            }
+        })).join();
+        return moves;
+    }
+
+    /**
+     * Returns the next move of a player controlled by an AI strategy, which
+     * only reconsiders its last move at intersections.
+     *
+     * @param ai       The strategy.
+     * @param player   The player.
+     * @param lastMove The last move of the player, or <code>null</code>.
+     * @return The next move.
+     */
+    private static Direction nextPlayerMove(AIStrategy ai, IdentifiedPlayer player,
+                                            Direction lastMove) {
+        if (lastMove == null || isIntersection(player, lastMove)) {
+            final long start = Metrics.start();
+            final Direction move = ai.nextMove();
+            Metrics.record(Operation.AI_DECISION, ai.getClass(), start);
+            return move;
+        }
+        return lastMove;
+    }
+
+    /**
+     * Returns the next move of an NPC.
+     *
+     * @param npc The NPC.
+     * @return The direction it decided on, or <code>null</code>.
+     */
+    private static Direction nextNpcMove(NPC npc) {
+        final long start = Metrics.start();
+        final Direction move = npc.nextMove();
+        Metrics.record(Operation.NPC_DECISION, npc.getClass(), start);
+        return move;
+    }
+
+    /**
+     * Test if the player is at an intersection in the game.
+     *
+     * @param player    the player of the game.
+     * @param direction the current direction.
+     * @return true if the player is in a intersection, false otherwise.
+     */
+    private static boolean isIntersection(IdentifiedPlayer player, Direction direction) {
+        if (direction.equals(Direction.NORTH) || direction.equals(Direction.SOUTH)) {
+            return player.getSquare().getSquareAt(Direction.EAST).isAccessibleTo()
+                    || player.getSquare().getSquareAt(Direction.WEST).isAccessibleTo();
+        } else {
+            return player.getSquare().getSquareAt(Direction.NORTH).isAccessibleTo()
+                    || player.getSquare().getSquareAt(Direction.SOUTH).isAccessibleTo();
+        }
+    }
+
     /**
      * Starts all NPC movement scheduling.
      */
     private void startNPCs() {
+        if (tickPool != null) {
+            ScheduledExecutorService scheduler = tickScheduler;
+            if (scheduler == null) {
+                tickService = Executors.newSingleThreadScheduledExecutor();
+                scheduler = tickService;
+            }
+            tickTask = scheduler.scheduleAtFixedRate(this::tick, tickLength, tickLength,
+                    TimeUnit.MILLISECONDS);
+            return;
+        }
         for (final NPC npc : npcs.keySet()) {
-            ScheduledExecutorService service = Executors
-                    .newSingleThreadScheduledExecutor();
-            service.schedule(new NpcMoveTask(service, npc),
-                    npc.getInterval() / 2, TimeUnit.MILLISECONDS);
-            npcs.put(npc, service);
+            final UnitMover mover = new NpcMover(npc, running);
+            npcs.put(npc, mover);
+            mover.start(unitThreads);
         }
     }
 
@@ -76,30 +427,57 @@ public class AILevel extends Level {
      * executed.
      */
     private void stopNPCs() {
-        for (Map.Entry<NPC, ScheduledExecutorService> e : npcs.entrySet()) {
-            e.getValue().shutdownNow();
+        if (tickTask != null) {
+            tickTask.cancel(false);
+            tickTask = null;
+        }
+        if (tickService != null) {
+            tickService.shutdownNow();
+            tickService = null;
+        }
+        for (Map.Entry<NPC, UnitMover> e : npcs.entrySet()) {
+            if (e.getValue() == null) {
+                continue;
+            }
+            e.getValue().cancel();
+            e.setValue(null);
         }
     }
 
 
     /**
-     * Start or create a thread for the AI.
+     * Starts moving the player for the AI.
      */
     private void startAIStrategy() {
-        //Start the main thread for the AI
-        serviceAI = Executors.newSingleThreadScheduledExecutor();
-        serviceAI.schedule(new PlayerMoveTask(serviceAI, (AIStrategy) strategy, getPlayer()),
-                getPlayer().getInterval() / 2, TimeUnit.MILLISECONDS);
+        playerMover = new PlayerMover((AIStrategy) strategy, getPlayer(), running);
+        playerMover.start(unitThreads);
     }
 
     /**
-     * Shutdown the thread.
+     * Stops moving the player for the AI.
      */
     private void stopAIStrategy() {
-        if (serviceAI != null) {
-            serviceAI.shutdown();
+        if (playerMover != null) {
+            playerMover.cancel();
+            playerMover = null;
         }
+    }
 
+    /**
+     * Sets the factory of the threads that move every unit on its own
+     * schedule, when the level does not advance in ticks. By default, these
+     * are virtual threads if the JVM supports them, and otherwise the moves
+     * are tasks on the {@link UnitThreads#scheduler() shared scheduler}. This
+     * can only be changed while the level is stopped.
+     *
+     * @param factory The factory, for example from {@link UnitThreads}, or
+     *                <code>null</code> to use the shared scheduler.
+     */
+    public void setUnitThreads(ThreadFactory factory) {
+        synchronized (startStopLock) {
+            assert !isInProgress();
+            unitThreads = factory;
+        }
     }
 
     /**
@@ -111,9 +489,12 @@ public class AILevel extends Level {
             if (isInProgress()) {
                 return;
             }
+            running = new AtomicBoolean(true);
             if (strategy != null) {
                 if (strategy.getTypeStrategy() == PacmanStrategy.Type.AI) {
-                    startAIStrategy();
+                    if (tickPool == null) {
+                        startAIStrategy();
+                    }
                 } else {
                     strategy.executeStrategy();
                 }
@@ -133,6 +514,7 @@ public class AILevel extends Level {
             if (!isInProgress()) {
                 return;
             }
+            running.set(false);
             stopNPCs();
             if (strategy != null && strategy.getTypeStrategy() == PacmanStrategy.Type.AI) {
                 stopAIStrategy();
@@ -151,77 +533,169 @@ public class AILevel extends Level {
     }
 
     /**
-     * A task that moves the player used by a AI.
+     * Waits before the next move of a unit.
+     *
+     * @param millis  The time to wait, in milliseconds.
+     * @param running Whether the unit should keep moving.
+     * @return <code>true</code> iff the unit should make its next move.
      */
-    private final class PlayerMoveTask implements Runnable {
+    private static boolean pause(long millis, AtomicBoolean running) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            return false;
+        }
+        return running.get();
+    }
+
+    /**
+     * Moves a unit on its own schedule: in a loop sleeping between the moves
+     * on a thread of its own or, without a thread factory, in a task that
+     * reschedules itself on the shared scheduler after every move.
+     */
+    private abstract static class UnitMover implements Runnable {
+
         /**
-         * The service executing the task.
+         * Whether the unit should keep moving.
          */
-        private final ScheduledExecutorService service;
+        private final AtomicBoolean running;
 
         /**
-         * The Player to move.
+         * The scheduler running the moves, or <code>null</code> if the unit
+         * has a thread of its own.
          */
-        private final AIStrategy strategy;
-        private final IdentifiedPlayer player;
-        private Direction nextMove;
+        private ScheduledExecutorService scheduler;
 
         /**
-         * Creates a new task.
+         * The thread of the unit, if it has one.
+         */
+        private Thread thread;
+
+        /**
+         * The next scheduled move, if the unit moves on the scheduler.
+         */
+        private volatile ScheduledFuture<?> pending;
+
+        /**
+         * Creates a new mover.
          *
-         * @param s        The service that executes the task.
-         * @param strategy The chosen strategy by the player.
-         * @param p        The player of the game.
+         * @param keepOn Whether the unit should keep moving.
          */
-        PlayerMoveTask(ScheduledExecutorService s, AIStrategy strategy, IdentifiedPlayer p) {
-            this.service = s;
-            this.strategy = strategy;
-            this.player = p;
+        UnitMover(AtomicBoolean keepOn) {
+            this.running = keepOn;
         }
 
         /**
-         * The run method called periodically.
+         * @return The time until the first move, in milliseconds.
          */
-        @Override
-        public void run() {
-            if (nextMove == null || isIntersection(player, nextMove)) {
-                nextMove = strategy.nextMove();
+        abstract long firstDelay();
+
+        /**
+         * Makes the next move.
+         *
+         * @return The time until the move after it, in milliseconds.
+         */
+        abstract long step();
+
+        /**
+         * Starts moving the unit.
+         *
+         * @param threads The factory of the thread of the unit, or
+         *                <code>null</code> to use the shared scheduler.
+         */
+        final void start(ThreadFactory threads) {
+            if (threads == null) {
+                scheduler = UnitThreads.scheduler();
+                pending = scheduler.schedule(this, firstDelay(), TimeUnit.MILLISECONDS);
+            } else {
+                thread = threads.newThread(this);
+                thread.start();
             }
-            if (player.getSquare().getSquareAt(nextMove).isAccessibleTo()) {
-                move(player, nextMove);
+        }
+
+        /**
+         * Stops moving the unit, after its current move if it is moving.
+         */
+        final void cancel() {
+            if (thread != null) {
+                thread.interrupt();
+            }
+            final ScheduledFuture<?> next = pending;
+            if (next != null) {
+                next.cancel(false);
+            }
+        }
+
+        @Override
+        public final void run() {
+            if (scheduler == null) {
+                long delay = firstDelay();
+                while (pause(delay, running)) {
+                    delay = step();
+                }
+            } else if (running.get()) {
+                final long delay = step();
+                if (running.get()) {
+                    pending = scheduler.schedule(this, delay, TimeUnit.MILLISECONDS);
+                }
             }
-            service.schedule(this, player.getInterval(), TimeUnit.MILLISECONDS);
         }
+    }
+
+    /**
+     * Moves the player for an AI strategy.
+     */
+    private final class PlayerMover extends UnitMover {
+
+        /**
+         * The strategy deciding the moves.
+         */
+        private final AIStrategy strategy;
 
         /**
-         * Test if the player is at an intersection in the game.
+         * The player to move.
+         */
+        private final IdentifiedPlayer player;
+
+        /**
+         * The last move of the player, or <code>null</code>.
+         */
+        private Direction nextMove;
+
+        /**
+         * Creates a new mover.
          *
-         * @param player    the player of the game.
-         * @param direction the current direction.
-         * @return true if the player is in a intersection, false otherwise.
+         * @param ai     The chosen strategy by the player.
+         * @param p      The player of the game.
+         * @param keepOn Whether the player should keep moving.
          */
-        public boolean isIntersection(IdentifiedPlayer player, Direction direction) {
-            if (direction.equals(Direction.NORTH) || direction.equals(Direction.SOUTH)) {
-                return player.getSquare().getSquareAt(Direction.EAST).isAccessibleTo()
-                        || player.getSquare().getSquareAt(Direction.WEST).isAccessibleTo();
-            } else {
-                return player.getSquare().getSquareAt(Direction.NORTH).isAccessibleTo()
-                        || player.getSquare().getSquareAt(Direction.SOUTH).isAccessibleTo();
+        private PlayerMover(AIStrategy ai, IdentifiedPlayer p, AtomicBoolean keepOn) {
+            super(keepOn);
+            this.strategy = ai;
+            this.player = p;
+        }
+
+        @Override
+        long firstDelay() {
+            return player.getInterval() / 2;
+        }
+
+        @Override
+        long step() {
+            nextMove = nextPlayerMove(strategy, player, nextMove);
+            if (player.getSquare().getSquareAt(nextMove).isAccessibleTo()) {
+                move(player, nextMove);
             }
+            return player.getInterval();
         }
     }
 
     /**
-     * A task that moves an NPC and reschedules itself after it finished.
+     * Moves an NPC.
      *
      * @author Jeroen Roosen
      */
-    private final class NpcMoveTask implements Runnable {
-
-        /**
-         * The service executing the task.
-         */
-        private final ScheduledExecutorService service;
+    private final class NpcMover extends UnitMover {
 
         /**
          * The NPC to move.
@@ -229,26 +703,28 @@ public class AILevel extends Level {
         private final NPC npc;
 
         /**
-         * Creates a new task.
+         * Creates a new mover.
          *
-         * @param s The service that executes the task.
-         * @param n The NPC to move.
+         * @param n      The NPC to move.
+         * @param keepOn Whether the NPC should keep moving.
          */
-        private NpcMoveTask(ScheduledExecutorService s, NPC n) {
-            this.service = s;
+        private NpcMover(NPC n, AtomicBoolean keepOn) {
+            super(keepOn);
             this.npc = n;
         }
 
-        /**
-         * The run method called periodically.
-         */
         @Override
-        public void run() {
-            Direction nextMove = npc.nextMove();
+        long firstDelay() {
+            return npc.getInterval() / 2;
+        }
+
+        @Override
+        long step() {
+            final Direction nextMove = nextNpcMove(npc);
             if (nextMove != null) {
                 move(npc, nextMove);
             }
-            service.schedule(this, npc.getInterval(), TimeUnit.MILLISECONDS);
+            return npc.getInterval();
         }
     }
 }
@@ -0,0 +1,365 @@
+package nl.tudelft.jpacman.level;
+
+import com.google.common.collect.ImmutableList;
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
+
+import java.util.List;
+
+/**
+ * An immutable view of the pellets and moving units of a level at one
+ * moment, published by {@link Level#getSnapshot()} after every move.
+ * <p>
+ * Snapshots can be read from any thread without locking, and always show
+ * the state between two moves: a move only reads the squares and units it
+ * holds the locks of, and changes its unit and the pellet of its destination
+ * in one step. The pellets are stored as a bit per square and the positions
+ * and directions of the units as a slot per unit, both split into chunks
+ * that are shared with the previous snapshot, so a move only copies the
+ * chunks of the pellet and units it changed.
+ */
+public final class BoardSnapshot {
+
+    /**
+     * The cell of a unit that is not on the board.
+     */
+    public static final int OFF_BOARD = -1;
+
+    /**
+     * The direction of a unit that is not facing any direction.
+     */
+    private static final byte NO_DIRECTION = -1;
+
+    /**
+     * The number of bits of a cell id that select a bit within a chunk.
+     */
+    private static final int CHUNK_SHIFT = 12;
+
+    /**
+     * The number of bits of a cell id that select a bit within a word.
+     */
+    private static final int WORD_SHIFT = 6;
+
+    /**
+     * The number of words in a chunk.
+     */
+    private static final int CHUNK_WORDS = 1 << (CHUNK_SHIFT - WORD_SHIFT);
+
+    /**
+     * The mask of the bits of a cell id within a chunk.
+     */
+    private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+    /**
+     * The number of bits of a unit index that select a slot within a chunk.
+     */
+    private static final int UNIT_SHIFT = 5;
+
+    /**
+     * The number of slots in a chunk of units.
+     */
+    private static final int UNIT_CHUNK = 1 << UNIT_SHIFT;
+
+    /**
+     * The mask of the bits of a unit index within a chunk.
+     */
+    private static final int UNIT_MASK = UNIT_CHUNK - 1;
+
+    /**
+     * The number of this snapshot, which increases with every move.
+     */
+    private final long version;
+
+    /**
+     * The width of the board.
+     */
+    private final int width;
+
+    /**
+     * The height of the board.
+     */
+    private final int height;
+
+    /**
+     * The squares with a pellet, a bit per cell (<code>y * width + x</code>),
+     * in chunks that may be shared with other snapshots and are never changed.
+     */
+    private final long[][] pellets;
+
+    /**
+     * The number of pellets on the board.
+     */
+    private final int pelletCount;
+
+    /**
+     * The players and NPCs of the level.
+     */
+    private final ImmutableList<Unit> units;
+
+    /**
+     * The cell of every unit, or {@link #OFF_BOARD}, in chunks that may be
+     * shared with other snapshots and are never changed.
+     */
+    private final int[][] cells;
+
+    /**
+     * The ordinal of the direction of every unit, or {@link #NO_DIRECTION},
+     * in chunks like {@link #cells}.
+     */
+    private final byte[][] directions;
+
+    private BoardSnapshot(long version, int width, int height, long[][] pellets,
+                          int pelletCount, ImmutableList<Unit> units,
+                          int[][] cells, byte[][] directions) {
+        this.version = version;
+        this.width = width;
+        this.height = height;
+        this.pellets = pellets;
+        this.pelletCount = pelletCount;
+        this.units = units;
+        this.cells = cells;
+        this.directions = directions;
+    }
+
+    /**
+     * Takes a first snapshot of a board, looking at all its pellets and units.
+     *
+     * @param board The board.
+     * @param units The players and NPCs to follow.
+     * @return The snapshot, with version 0.
+     */
+    static BoardSnapshot of(Board board, List<? extends Unit> units) {
+        return of(board, units, 0);
+    }
+
+    /**
+     * Takes a snapshot of a board, looking at all its pellets and units.
+     *
+     * @param board   The board.
+     * @param units   The players and NPCs to follow.
+     * @param version The number of the snapshot.
+     * @return The snapshot.
+     */
+    static BoardSnapshot of(Board board, List<? extends Unit> units, long version) {
+        final int width = board.getWidth(), height = board.getHeight();
+        final long[][] pellets = new long[(width * height + CHUNK_MASK) >>> CHUNK_SHIFT][];
+        int count = 0;
+        for (Pellet pellet : board.occupantsOf(Pellet.class)) {
+            final Square square = pellet.getSquare();
+            final int cell = square.getY() * width + square.getX();
+            long[] chunk = pellets[chunk(cell)];
+            if (chunk == null) {
+                chunk = new long[CHUNK_WORDS];
+                pellets[chunk(cell)] = chunk;
+            }
+            if ((chunk[word(cell)] & 1L << cell) == 0) {
+                chunk[word(cell)] |= 1L << cell;
+                count++;
+            }
+        }
+        final int chunks = (units.size() + UNIT_CHUNK - 1) >>> UNIT_SHIFT;
+        final BoardSnapshot result = new BoardSnapshot(version, width, height, pellets, count,
+                ImmutableList.copyOf(units), new int[chunks][UNIT_CHUNK],
+                new byte[chunks][UNIT_CHUNK]);
+        for (int i = 0; i < units.size(); i++) {
+            result.record(i);
+        }
+        return result;
+    }
+
+    /**
+     * Takes the snapshot after a move. Only the changed square and units are
+     * read, the rest is shared with this snapshot.
+     *
+     * @param changed The only square whose pellet may have changed since this
+     *                snapshot, or <code>null</code> if none did.
+     * @param moved   The indices in {@link #getUnits()} of the units that may
+     *                have moved, or -1 for units that are not followed.
+     * @return The next snapshot, sharing what did not change with this one.
+     */
+    BoardSnapshot next(Square changed, int... moved) {
+        long[][] nextPellets = pellets;
+        int nextCount = pelletCount;
+        if (changed != null && changed.getX() < width && changed.getY() < height) {
+            final int cell = changed.getY() * width + changed.getX();
+            final boolean pellet = hasPellet(changed);
+            if (pellet != hasPellet(cell)) {
+                nextPellets = pellets.clone();
+                final long[] chunk = pellets[chunk(cell)];
+                if (chunk == null) {
+                    nextPellets[chunk(cell)] = new long[CHUNK_WORDS];
+                } else {
+                    nextPellets[chunk(cell)] = chunk.clone();
+                }
+                nextPellets[chunk(cell)][word(cell)] ^= 1L << cell;
+                if (pellet) {
+                    nextCount++;
+                } else {
+                    nextCount--;
+                }
+            }
+        }
+        int[][] nextCells = cells;
+        byte[][] nextDirections = directions;
+        if (moved.length > 0) {
+            nextCells = cells.clone();
+            nextDirections = directions.clone();
+            for (int index : moved) {
+                if (index < 0) {
+                    continue;
+                }
+                final int chunk = index >>> UNIT_SHIFT;
+                if (nextCells[chunk] == cells[chunk]) {
+                    nextCells[chunk] = cells[chunk].clone();
+                    nextDirections[chunk] = directions[chunk].clone();
+                }
+            }
+        }
+        final BoardSnapshot result = new BoardSnapshot(version + 1, width, height,
+                nextPellets, nextCount, units, nextCells, nextDirections);
+        for (int index : moved) {
+            if (index >= 0) {
+                result.record(index);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes the square and direction of a unit into its slot, which must not
+     * be shared with another snapshot.
+     *
+     * @param index The index of the unit in {@link #getUnits()}.
+     */
+    private void record(int index) {
+        final Unit unit = units.get(index);
+        final Square square = unit.getSquare();
+        int cell = OFF_BOARD;
+        if (square != null && square.getX() < width && square.getY() < height) {
+            cell = square.getY() * width + square.getX();
+        }
+        byte direction = NO_DIRECTION;
+        if (unit.getDirection() != null) {
+            direction = (byte) unit.getDirection().ordinal();
+        }
+        cells[index >>> UNIT_SHIFT][index & UNIT_MASK] = cell;
+        directions[index >>> UNIT_SHIFT][index & UNIT_MASK] = direction;
+    }
+
+    private int cellOf(int index) {
+        return cells[index >>> UNIT_SHIFT][index & UNIT_MASK];
+    }
+
+    private static boolean hasPellet(Square square) {
+        for (Unit unit : square.getOccupants()) {
+            if (unit instanceof Pellet) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int chunk(int cell) {
+        return cell >>> CHUNK_SHIFT;
+    }
+
+    private static int word(int cell) {
+        return (cell & CHUNK_MASK) >>> WORD_SHIFT;
+    }
+
+    private boolean hasPellet(int cell) {
+        final long[] chunk = pellets[chunk(cell)];
+        return chunk != null && (chunk[word(cell)] & 1L << cell) != 0;
+    }
+
+    /**
+     * @return The number of this snapshot, which increases with every move.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return The width of the board.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return The height of the board.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Determines whether there was a pellet on a square.
+     *
+     * @param x The column of the square.
+     * @param y The row of the square.
+     * @return <code>true</code> iff there was a pellet on the square.
+     */
+    public boolean hasPellet(int x, int y) {
+        assert x >= 0 && x < width && y >= 0 && y < height;
+        return hasPellet(y * width + x);
+    }
+
+    /**
+     * @return The number of pellets on the board.
+     */
+    public int getPelletCount() {
+        return pelletCount;
+    }
+
+    /**
+     * @return The players and NPCs of the level.
+     */
+    public List<Unit> getUnits() {
+        return units;
+    }
+
+    /**
+     * Returns the column of a unit.
+     *
+     * @param index The index of the unit in {@link #getUnits()}.
+     * @return The column the unit was in, or {@link #OFF_BOARD}.
+     */
+    public int getX(int index) {
+        final int cell = cellOf(index);
+        if (cell == OFF_BOARD) {
+            return OFF_BOARD;
+        }
+        return cell % width;
+    }
+
+    /**
+     * Returns the row of a unit.
+     *
+     * @param index The index of the unit in {@link #getUnits()}.
+     * @return The row the unit was in, or {@link #OFF_BOARD}.
+     */
+    public int getY(int index) {
+        final int cell = cellOf(index);
+        if (cell == OFF_BOARD) {
+            return OFF_BOARD;
+        }
+        return cell / width;
+    }
+
+    /**
+     * Returns the direction of a unit.
+     *
+     * @param index The index of the unit in {@link #getUnits()}.
+     * @return The direction the unit was facing, or <code>null</code>.
+     */
+    public Direction getDirection(int index) {
+        final byte direction = directions[index >>> UNIT_SHIFT][index & UNIT_MASK];
+        if (direction == NO_DIRECTION) {
+            return null;
+        }
+        return Direction.values()[direction];
+    }
+}
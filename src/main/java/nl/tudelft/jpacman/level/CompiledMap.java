@@ -0,0 +1,348 @@
+package nl.tudelft.jpacman.level;
+
+import nl.tudelft.jpacman.PacmanConfigurationException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * A compact, binary representation of a map, as produced by the {@link MapCompiler}.
+ * <p>
+ * The cells are stored as one byte per square in row-major order, i.e. the
+ * square at position x,y has the cell id <code>y * width + x</code>. Spawn
+ * lists hold cell ids in the order {@link MapParser#parseMap(char[][])} visits
+ * them (column by column), so that ghosts are created in the same order as
+ * when parsing the text version of the map.
+ * <p>
+ * The file layout (big-endian) is: magic, version, width, height, ghost count,
+ * player count, the cell grid, the ghost spawns, the player spawns and finally
+ * a CRC32 checksum of everything that precedes it.
+ */
+public final class CompiledMap {
+
+    /**
+     * Cell type of an empty square.
+     */
+    public static final byte EMPTY = 0;
+    /**
+     * Cell type of a wall.
+     */
+    public static final byte WALL = 1;
+    /**
+     * Cell type of a square with a pellet.
+     */
+    public static final byte PELLET = 2;
+    /**
+     * Cell type of a square with a ghost.
+     */
+    public static final byte GHOST = 3;
+    /**
+     * Cell type of a starting square for players.
+     */
+    public static final byte PLAYER = 4;
+
+    /**
+     * The characters of the text format, indexed by cell type.
+     */
+    private static final char[] CHARACTERS = {' ', '#', '.', 'G', 'P'};
+
+    /**
+     * "JPMB", the first four bytes of every compiled map.
+     */
+    private static final int MAGIC = 0x4A504D42;
+    /**
+     * The version of the file layout.
+     */
+    private static final int VERSION = 1;
+    /**
+     * The size of the fixed header, in bytes.
+     */
+    private static final int HEADER_SIZE = 6 * Integer.BYTES;
+
+    /**
+     * The width of the map.
+     */
+    private final int width;
+    /**
+     * The height of the map.
+     */
+    private final int height;
+    /**
+     * The read-only cell grid, one byte per cell, in row-major order.
+     */
+    private final ByteBuffer cells;
+    /**
+     * The cell ids of the ghosts.
+     */
+    private final int[] ghostSpawns;
+    /**
+     * The cell ids of the player starting squares.
+     */
+    private final int[] playerSpawns;
+
+    /**
+     * Creates a new compiled map. The arrays are not copied.
+     *
+     * @param width        The width of the map.
+     * @param height       The height of the map.
+     * @param cells        The cell grid, in row-major order.
+     * @param ghostSpawns  The cell ids of the ghosts.
+     * @param playerSpawns The cell ids of the player starting squares.
+     */
+    CompiledMap(int width, int height, ByteBuffer cells,
+                int[] ghostSpawns, int[] playerSpawns) {
+        assert cells.remaining() == width * height;
+        this.width = width;
+        this.height = height;
+        this.cells = cells.slice().asReadOnlyBuffer();
+        this.ghostSpawns = ghostSpawns;
+        this.playerSpawns = playerSpawns;
+    }
+
+    /**
+     * Returns the type to use for the given character of the text format.
+     *
+     * @param c The character to convert.
+     * @return The corresponding cell type, or -1 if the character is not supported.
+     */
+    static byte typeOf(char c) {
+        for (byte type = 0; type < CHARACTERS.length; type++) {
+            if (CHARACTERS[type] == c) {
+                return type;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the character representing the given cell type in the text format.
+     *
+     * @param type The cell type.
+     * @return The corresponding character.
+     */
+    static char characterOf(byte type) {
+        return CHARACTERS[type];
+    }
+
+    /**
+     * @return The width of this map.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return The height of this map.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the type of the cell at the given position.
+     *
+     * @param x The column of the cell.
+     * @param y The row of the cell.
+     * @return One of {@link #EMPTY}, {@link #WALL}, {@link #PELLET},
+     * {@link #GHOST} or {@link #PLAYER}.
+     */
+    public byte cellAt(int x, int y) {
+        return cells.get(y * width + x);
+    }
+
+    /**
+     * @return The number of ghosts on this map.
+     */
+    public int getGhostCount() {
+        return ghostSpawns.length;
+    }
+
+    /**
+     * @return The number of player starting squares on this map.
+     */
+    public int getPlayerCount() {
+        return playerSpawns.length;
+    }
+
+    /**
+     * Returns the cell id of a ghost on this map.
+     *
+     * @param index The index of the ghost, in parsing order.
+     * @return The cell id of the square the ghost starts on.
+     */
+    public int getGhostSpawn(int index) {
+        return ghostSpawns[index];
+    }
+
+    /**
+     * Returns the cell id of a player starting square on this map.
+     *
+     * @param index The index of the starting square, in parsing order.
+     * @return The cell id of the starting square.
+     */
+    public int getPlayerSpawn(int index) {
+        return playerSpawns[index];
+    }
+
+    /**
+     * Converts this map back to the character grid accepted by
+     * {@link MapParser#parseMap(char[][])}.
+     *
+     * @return The map as map[x][y] characters.
+     */
+    public char[][] toCharMap() {
+        final char[][] map = new char[width][height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                map[x][y] = characterOf(cellAt(x, y));
+            }
+        }
+        return map;
+    }
+
+    /**
+     * @return The number of bytes {@link #writeTo(ByteBuffer)} needs.
+     */
+    int byteSize() {
+        return HEADER_SIZE + width * height
+                + (ghostSpawns.length + playerSpawns.length + 1) * Integer.BYTES;
+    }
+
+    /**
+     * Writes this map, including its checksum, to the given buffer.
+     *
+     * @param out The buffer to write to, which needs {@link #byteSize()} remaining bytes.
+     */
+    void writeTo(ByteBuffer out) {
+        final int start = out.position();
+        out.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height)
+                .putInt(ghostSpawns.length).putInt(playerSpawns.length);
+        out.put(cells.duplicate());
+        for (int id : ghostSpawns) {
+            out.putInt(id);
+        }
+        for (int id : playerSpawns) {
+            out.putInt(id);
+        }
+        final ByteBuffer written = out.duplicate();
+        written.flip();
+        written.position(start);
+        out.putInt(checksum(written));
+    }
+
+    /**
+     * Writes this map to a file, replacing it if it exists.
+     *
+     * @param file The file to write.
+     * @throws IOException If the file could not be written.
+     */
+    public void write(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            writeTo(channel.map(FileChannel.MapMode.READ_WRITE, 0, byteSize()));
+        }
+    }
+
+    /**
+     * Loads a compiled map by mapping the file into memory. The cells are not
+     * copied: the returned map reads them straight from the mapped file.
+     *
+     * @param file The file to load.
+     * @return The compiled map stored in the file.
+     * @throws IOException If the file could not be read.
+     * @throws PacmanConfigurationException If the file is not a valid compiled map.
+     */
+    public static CompiledMap load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Reads a compiled map from the given buffer, verifying its checksum.
+     *
+     * @param in The buffer containing the compiled map, from its current position.
+     * @return The compiled map.
+     * @throws PacmanConfigurationException If the buffer does not contain a valid compiled map.
+     */
+    public static CompiledMap read(ByteBuffer in) {
+        final int start = in.position();
+        if (in.remaining() < HEADER_SIZE || in.getInt() != MAGIC) {
+            throw new PacmanConfigurationException("Not a compiled map.");
+        }
+        final int version = in.getInt();
+        if (version != VERSION) {
+            throw new PacmanConfigurationException(
+                    "Unsupported compiled map version: " + version);
+        }
+        final int width = in.getInt(), height = in.getInt();
+        final int ghosts = in.getInt(), players = in.getInt();
+        final long cellCount = (long) width * height;
+        if (width <= 0 || height <= 0 || ghosts < 0 || players < 0
+                || in.remaining() != cellCount + (ghosts + players + 1L) * Integer.BYTES) {
+            throw new PacmanConfigurationException("Corrupt compiled map header.");
+        }
+
+        final ByteBuffer body = in.duplicate();
+        body.position(start);
+        body.limit(in.limit() - Integer.BYTES);
+        final int expected = in.getInt(in.limit() - Integer.BYTES);
+        if (checksum(body) != expected) {
+            throw new PacmanConfigurationException("Compiled map checksum mismatch.");
+        }
+
+        final ByteBuffer cells = in.duplicate();
+        cells.limit(in.position() + (int) cellCount);
+        in.position(cells.limit());
+        final int[] ghostSpawns = readIds(in, ghosts), playerSpawns = readIds(in, players);
+        return new CompiledMap(width, height, cells, ghostSpawns, playerSpawns);
+    }
+
+    /**
+     * Visits the cells of this map in the order used by
+     * {@link MapParser#parseMap(char[][])}, i.e. column by column.
+     *
+     * @param visitor The visitor to call for each cell.
+     */
+    void forEachCell(CellVisitor visitor) {
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                visitor.visit(x, y, cellAt(x, y));
+            }
+        }
+    }
+
+    private static int[] readIds(ByteBuffer in, int count) {
+        final int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = in.getInt();
+        }
+        return ids;
+    }
+
+    private static int checksum(ByteBuffer data) {
+        final CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Callback for {@link #forEachCell(CellVisitor)}.
+     */
+    interface CellVisitor {
+
+        /**
+         * Visits one cell.
+         *
+         * @param x    The column of the cell.
+         * @param y    The row of the cell.
+         * @param type The type of the cell.
+         */
+        void visit(int x, int y, byte type);
+    }
+}
@@ -1,16 +1,34 @@
 package nl.tudelft.jpacman.level;
 
+import nl.tudelft.jpacman.GameRandom;
 import nl.tudelft.jpacman.PacmanConfigurationException;
 import nl.tudelft.jpacman.board.Board;
 import nl.tudelft.jpacman.board.Direction;
 import nl.tudelft.jpacman.board.Square;
 import nl.tudelft.jpacman.board.Unit;
+import nl.tudelft.jpacman.board.UnitRegistry;
+import nl.tudelft.jpacman.metrics.Counter;
+import nl.tudelft.jpacman.metrics.Metrics;
+import nl.tudelft.jpacman.metrics.Operation;
 import nl.tudelft.jpacman.npc.NPC;
 import nl.tudelft.jpacman.npc.ghost.Ghost;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 
 /**
@@ -26,6 +44,14 @@ public abstract class Level implements PlayerListener {
      * If true, picking up 13 pellets is enough to win a level.
      */
     private static final boolean QUICK_WIN = false;
+    /**
+     * The width and height of the regions locked by moves, in squares.
+     */
+    private static final int REGION_SIZE = 8;
+    /**
+     * The number of events kept by the event ring of a level.
+     */
+    private static final int EVENT_CAPACITY = 4096;
     /**
      * The players on this level.
      */
@@ -39,9 +65,44 @@ public abstract class Level implements PlayerListener {
      */
     private final Board board;
     /**
-     * The lock that ensures moves are executed sequential.
+     * The lock that ensures moves are executed sequential. Moves take its
+     * write lock, unless moves lock regions, in which case they share its
+     * read lock and only changes to the whole level take the write lock.
+     */
+    private final ReentrantReadWriteLock moveLock = new ReentrantReadWriteLock();
+    /**
+     * The monitors of the regions of the board, or <code>null</code> if
+     * every move locks the whole level.
+     */
+    private volatile Object[] regionLocks;
+    /**
+     * The number of regions in a row of the board.
+     */
+    private int regionColumns;
+    /**
+     * The executor notifying the observers when moves lock regions.
+     */
+    private Executor observerExecutor;
+    /**
+     * <code>true</code> while a notification of the observers is waiting to
+     * be run by the observer executor.
+     */
+    private final AtomicBoolean notificationPending = new AtomicBoolean();
+    /**
+     * The players that lost a life during a move that locked regions, and
+     * still have to be moved to a safe square. They collide with nothing
+     * until then.
+     */
+    private final Queue<IdentifiedPlayer> respawns = new ConcurrentLinkedQueue<>();
+    /**
+     * The ring the events of this level are published in, or
+     * <code>null</code> until it is first asked for.
      */
-    private final Object moveLock = new Object();
+    private final AtomicReference<LevelEventRing> events = new AtomicReference<>();
+    /**
+     * <code>true</code> once the level has been won or lost.
+     */
+    private final AtomicBoolean ended = new AtomicBoolean();
     /**
      * The squares from which players can start this game.
      */
@@ -51,9 +112,54 @@ public abstract class Level implements PlayerListener {
      */
     private final CollisionMap collisions;
     /**
-     * The objects observing this level.
+     * The objects observing this level. Observers can be added while the
+     * observers are notified on another thread.
+     */
+    private final CopyOnWriteArrayList<LevelObserver> observers;
+    /**
+     * The players and NPCs on the board, by type.
+     */
+    private final UnitRegistry units;
+    /**
+     * The NPCs of this level.
+     */
+    private final List<NPC> npcs;
+    /**
+     * The state of the board after the last move, or <code>null</code> until
+     * it is first asked for. Moves replace it by compare-and-set, so moves in
+     * different regions do not wait for each other to publish.
+     */
+    private final AtomicReference<BoardSnapshot> snapshot = new AtomicReference<>();
+    /**
+     * The id of every NPC and player, as given by {@link #idOf(Unit)}. Only
+     * changed while holding the write lock of the moves.
+     */
+    private final Map<Unit, Integer> ids = new IdentityHashMap<>();
+    /**
+     * The number of pellets left on the board.
+     */
+    private final AtomicInteger pelletsLeft = new AtomicInteger();
+    /**
+     * The seed of all random choices made on this level.
+     */
+    private final long seed;
+    /**
+     * The source of the random choices of the level itself, such as where
+     * players respawn.
      */
-    private final List<LevelObserver> observers;
+    private final GameRandom random;
+    /**
+     * The recorder of the moves on this level, or <code>null</code>.
+     */
+    private ReplayRecorder recorder;
+    /**
+     * The pellets on the board when the level was created.
+     */
+    private final List<Pellet> pellets = new ArrayList<>();
+    /**
+     * The square of every pellet when the level was created.
+     */
+    private final List<Square> pelletSquares = new ArrayList<>();
     /**
      * <code>true</code> iff this level is currently in progress, i.e. players
      * and NPCs can move.
@@ -80,6 +186,23 @@ public abstract class Level implements PlayerListener {
      */
     public Level(Board b, List<NPC> ghosts, List<Square> startPositions,
                  CollisionMap collisionMap) {
+        this(b, ghosts, startPositions, collisionMap, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Creates a new level for the board whose random choices all follow from
+     * a seed. Every NPC gets its own random, split off in the order of the
+     * given list, so a level created again with the same seed makes the same
+     * choices.
+     *
+     * @param b              The board for the level.
+     * @param ghosts         The ghosts on the board.
+     * @param startPositions The squares on which players start on this board.
+     * @param collisionMap   The collection of collisions that should be handled.
+     * @param seed           The seed of all random choices on this level.
+     */
+    public Level(Board b, List<NPC> ghosts, List<Square> startPositions,
+                 CollisionMap collisionMap, long seed) {
         assert b != null;
         assert ghosts != null;
         assert startPositions != null;
@@ -91,7 +214,18 @@ public abstract class Level implements PlayerListener {
         this.startSquareIndex = 0;
         this.players = new ArrayList<>();
         this.collisions = collisionMap;
-        this.observers = new ArrayList<>();
+        this.observers = new CopyOnWriteArrayList<>();
+        this.units = new UnitRegistry(b);
+        this.npcs = new ArrayList<>(ghosts);
+        this.seed = seed;
+        this.random = new GameRandom(seed);
+        for (NPC ghost : ghosts) {
+            ghost.setRegistry(units);
+            ghost.setRandom(random.split());
+            ids.put(ghost, ids.size());
+        }
+        collectPellets();
+        pelletsLeft.set(pellets.size());
         if (QUICK_WIN) {
             System.out.println("Warning: QUICK_WIN mode activated, the level will be "
                     + "considered complete if 13 pellets are picked up.\n"
@@ -100,16 +234,29 @@ public abstract class Level implements PlayerListener {
         }
     }
 
+    private void collectPellets() {
+        for (Pellet pellet : board.occupantsOf(Pellet.class)) {
+            pellets.add(pellet);
+            pelletSquares.add(pellet.getSquare());
+        }
+    }
+
     /**
      * Adds an observer that will be notified when the level is won or lost.
      *
      * @param observer The observer that will be notified.
      */
     public void addObserver(LevelObserver observer) {
-        if (observers.contains(observer)) {
-            return;
-        }
-        observers.add(observer);
+        observers.addIfAbsent(observer);
+    }
+
+    /**
+     * Removes an observer, which will no longer be notified.
+     *
+     * @param observer The observer to remove.
+     */
+    public void removeObserver(LevelObserver observer) {
+        observers.remove(observer);
     }
 
     /**
@@ -123,15 +270,23 @@ public abstract class Level implements PlayerListener {
         assert p != null;
         assert !startSquares.isEmpty();
 
-        if (players.contains(p)) {
-            return;
-        }
-        players.add(p);
-        final Square square = startSquares.get(startSquareIndex);
-        p.register(this);
-        p.occupy(square);
-        startSquareIndex++;
-        startSquareIndex %= startSquares.size();
+        runExclusively(() -> {
+            if (players.contains(p)) {
+                return;
+            }
+            players.add(p);
+            ids.put(p, ids.size());
+            final Square square = startSquares.get(startSquareIndex);
+            p.register(this);
+            p.setRegistry(units);
+            p.occupy(square);
+            startSquareIndex++;
+            startSquareIndex %= startSquares.size();
+            if (recorder != null) {
+                recorder.recordRegistration(idOf(p), currentTime());
+            }
+            rebuildSnapshot();
+        });
     }
 
     /**
@@ -143,6 +298,15 @@ public abstract class Level implements PlayerListener {
         return board;
     }
 
+    /**
+     * Returns the registry of the players and NPCs on this level.
+     *
+     * @return The players and NPCs on the board, by type.
+     */
+    public UnitRegistry getUnits() {
+        return units;
+    }
+
     /**
      * Moves the unit into the given direction if possible and handles all
      * collisions.
@@ -158,22 +322,480 @@ public abstract class Level implements PlayerListener {
             return;
         }
 
-        synchronized (moveLock) {
-            unit.setDirection(direction);
-            final Square location = unit.getSquare();
-            final Square destination = location.getSquareAt(direction);
+        final long start = Metrics.start();
+        final Object[] regions = regionLocks;
+        if (regions == null) {
+            moveExclusively(unit, direction, start);
+        } else {
+            moveShared(unit, direction, regions, start);
+        }
+        Metrics.record(Operation.MOVE, unit.getClass(), start);
+    }
+
+    /**
+     * Makes a move while no other move can be made.
+     */
+    private void moveExclusively(Unit unit, Direction direction, long start) {
+        final Lock exclusive = moveLock.writeLock();
+        exclusive.lock();
+        try {
+            Metrics.record(Operation.LOCK_WAIT, unit.getClass(), start);
+            makeMove(unit, direction);
+            updateObservers();
+        } finally {
+            exclusive.unlock();
+        }
+    }
+
+    /**
+     * Makes a move while other moves can be made in other regions.
+     */
+    private void moveShared(Unit unit, Direction direction, Object[] regions, long start) {
+        final Lock shared = moveLock.readLock();
+        shared.lock();
+        try {
+            Metrics.record(Operation.LOCK_WAIT, unit.getClass(), start);
+            moveInRegions(unit, direction, regions);
+        } finally {
+            shared.unlock();
+        }
+        respawnPlayers();
+        notifyObservers();
+    }
+
+    /**
+     * Makes a move while holding the locks of its source and destination
+     * squares. The monitors are always taken in the order of their region,
+     * so two moves never wait for each other's region.
+     */
+    private void moveInRegions(Unit unit, Direction direction, Object[] regions) {
+        final Square location = unit.getSquare();
+        int first = regionOf(location);
+        int second = regionOf(location.getSquareAt(direction));
+        if (first > second) {
+            final int swap = first;
+            first = second;
+            second = swap;
+        }
+        synchronized (regions[first]) {
+            synchronized (regions[second]) {
+                if (unit.getSquare() == location) {
+                    makeMove(unit, direction);
+                }
+            }
+        }
+    }
+
+    private int regionOf(Square square) {
+        return square.getY() / REGION_SIZE * regionColumns + square.getX() / REGION_SIZE;
+    }
 
-            if (destination.isAccessibleTo()) {
-                List<Unit> occupants = destination.getOccupants();
-                unit.occupy(destination);
-                for (Unit occupant : occupants) {
-                    collisions.collide(unit, occupant);
+    private void makeMove(Unit unit, Direction direction) {
+        if (recorder != null) {
+            recorder.recordMove(idOf(unit), direction, currentTime());
+        }
+        unit.setDirection(direction);
+        final Square destination = unit.getSquare().getSquareAt(direction);
+
+        if (destination.isAccessibleTo()) {
+            List<Unit> occupants = destination.getOccupants();
+            unit.occupy(destination);
+            Metrics.count(Counter.MOVES);
+            publishEvent(LevelEvent.UNIT_MOVED, unit, destination);
+            for (Unit occupant : occupants) {
+                if (respawns.contains(unit) || respawns.contains(occupant)) {
+                    continue;
+                }
+                final long start = Metrics.start();
+                collisions.collide(unit, occupant);
+                Metrics.record(Operation.COLLISION, unit.getClass(), start);
+                Metrics.count(Counter.COLLISIONS);
+                if (occupant instanceof Pellet && occupant.getSquare() == null) {
+                    pelletsLeft.decrementAndGet();
+                    Metrics.count(Counter.PELLETS_EATEN);
+                    publishEvent(LevelEvent.PELLET_EATEN, unit, destination);
                 }
             }
-            updateObservers();
+            publish(destination, unit, occupants);
+        } else {
+            publish(null, unit, Collections.emptyList());
+        }
+    }
+
+    /**
+     * Returns the ring the events of this level are published in. Nothing
+     * is published until the ring is first asked for.
+     *
+     * @return The event ring of this level.
+     */
+    public LevelEventRing getEvents() {
+        final LevelEventRing result = events.get();
+        if (result != null) {
+            return result;
+        }
+        events.compareAndSet(null, new LevelEventRing(EVENT_CAPACITY));
+        return events.get();
+    }
+
+    private void publishEvent(LevelEvent event, Unit unit, Square square) {
+        final LevelEventRing ring = events.get();
+        if (ring != null) {
+            int cell = -1;
+            if (square != null) {
+                cell = square.getY() * board.getWidth() + square.getX();
+            }
+            ring.publish(event, idOf(unit), cell);
+        }
+    }
+
+    /**
+     * Marks the level as won or lost, unless it already was.
+     *
+     * @param outcome The event ending the level.
+     * @return <code>true</code> iff the level had not ended yet.
+     */
+    private boolean end(LevelEvent outcome) {
+        if (!ended.compareAndSet(false, true)) {
+            return false;
+        }
+        final LevelEventRing ring = events.get();
+        if (ring != null) {
+            ring.publish(outcome, -1, -1);
+        }
+        return true;
+    }
+
+    /**
+     * Makes moves lock only the regions of the board holding the squares
+     * they leave and enter, so units far apart move in parallel. Changes to
+     * the whole level, such as moving a player that lost a life to a safe
+     * square, wait until no move is being made. The observers are notified
+     * by the given executor, after the moves that may have ended the level.
+     * Must be called while the level is stopped.
+     *
+     * @param executor The executor notifying the observers, or
+     *                 <code>null</code> to make every move lock the whole
+     *                 level again.
+     */
+    public void useRegionLocks(Executor executor) {
+        runExclusively(() -> {
+            observerExecutor = executor;
+            regionLocks = null;
+            if (executor != null) {
+                regionColumns = (board.getWidth() + REGION_SIZE - 1) / REGION_SIZE;
+                final int rows = (board.getHeight() + REGION_SIZE - 1) / REGION_SIZE;
+                final Object[] regions = new Object[regionColumns * rows];
+                for (int i = 0; i < regions.length; i++) {
+                    regions[i] = new Object();
+                }
+                regionLocks = regions;
+            }
+        });
+    }
+
+    /**
+     * Moves the players that lost a life during a move to safe squares.
+     */
+    private void respawnPlayers() {
+        if (respawns.isEmpty()) {
+            return;
+        }
+        runExclusively(() -> {
+            IdentifiedPlayer p = respawns.poll();
+            while (p != null) {
+                respawn(p);
+                publish(null, p, Collections.emptyList());
+                p = respawns.poll();
+            }
+        });
+    }
+
+    /**
+     * Has the observer executor notify the observers, unless a notification
+     * is already waiting to be run.
+     */
+    private void notifyObservers() {
+        if (notificationPending.compareAndSet(false, true)) {
+            observerExecutor.execute(() -> {
+                notificationPending.set(false);
+                synchronized (observers) {
+                    updateObservers();
+                }
+            });
+        }
+    }
+
+    /**
+     * Records the players registered and the moves made on this level from
+     * now on.
+     *
+     * @param replayRecorder The recorder, or <code>null</code> to stop recording.
+     */
+    public void setRecorder(ReplayRecorder replayRecorder) {
+        runExclusively(() -> this.recorder = replayRecorder);
+    }
+
+    /**
+     * Returns the time of a move for the recorder.
+     *
+     * @return The current time in milliseconds.
+     */
+    protected long currentTime() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Returns the id of a unit in a recording: the NPCs are numbered in the
+     * order the level was created with, followed by the players in the
+     * order they were registered.
+     *
+     * @param unit A player or NPC of this level.
+     * @return The id of the unit, or -1 if it is not a player or NPC of this
+     * level.
+     */
+    int idOf(Unit unit) {
+        final Integer id = ids.get(unit);
+        if (id == null) {
+            return -1;
+        }
+        return id;
+    }
+
+    /**
+     * Returns the unit with an id given by {@link #idOf(Unit)}.
+     *
+     * @param id The id of the unit.
+     * @return The player or NPC with that id.
+     */
+    Unit unitWithId(int id) {
+        if (id < npcs.size()) {
+            return npcs.get(id);
+        }
+        return players.get(id - npcs.size());
+    }
+
+    /**
+     * Writes what changes during a game on this level: the pellets left, the
+     * positions and directions of the units, the scores and lives of the
+     * players and the state of all randoms. Can be read back into any level
+     * created from the same map with the same number of players by
+     * {@link #readState(ByteBuffer)}.
+     *
+     * @param out The buffer to write to.
+     */
+    void writeState(ByteBuffer out) {
+        runExclusively(() -> {
+            out.putInt(board.getLayout().hashCode()).putInt(npcs.size())
+                    .putInt(players.size()).putInt(pellets.size());
+            out.putInt(startSquareIndex).putInt(initialPelletCount).put(toByte(finished));
+            out.putLong(random.getSeed()).putLong(random.getGamma());
+            for (int i = 0; i < pellets.size(); i += Long.SIZE) {
+                long word = 0;
+                for (int bit = 0; bit < Long.SIZE && i + bit < pellets.size(); bit++) {
+                    if (pellets.get(i + bit).getSquare() != null) {
+                        word |= 1L << bit;
+                    }
+                }
+                out.putLong(word);
+            }
+            for (NPC npc : npcs) {
+                writeUnit(npc, out);
+                out.putLong(npc.getRandom().getSeed()).putLong(npc.getRandom().getGamma());
+            }
+            for (IdentifiedPlayer player : players) {
+                writeUnit(player, out);
+                out.putInt(player.getScore()).putInt(player.getLives())
+                        .put(toByte(player.isAlive()));
+            }
+        });
+    }
+
+    /**
+     * Restores the state written by {@link #writeState(ByteBuffer)}.
+     *
+     * @param in The buffer to read from.
+     * @throws PacmanConfigurationException If the state was written by a level
+     *                                      of another map or number of players.
+     */
+    void readState(ByteBuffer in) {
+        runExclusively(() -> {
+            if (in.getInt() != board.getLayout().hashCode() || in.getInt() != npcs.size()
+                    || in.getInt() != players.size() || in.getInt() != pellets.size()) {
+                throw new PacmanConfigurationException(
+                        "The saved state does not belong to this level.");
+            }
+            startSquareIndex = in.getInt();
+            initialPelletCount = in.getInt();
+            finished = in.get() != 0;
+            random.setState(in.getLong(), in.getLong());
+            long word = 0;
+            for (int i = 0; i < pellets.size(); i++) {
+                if (i % Long.SIZE == 0) {
+                    word = in.getLong();
+                }
+                placeUnit(pellets.get(i), pelletSquares.get(i), (word & 1L << i) != 0);
+            }
+            for (NPC npc : npcs) {
+                readUnit(npc, in);
+                npc.getRandom().setState(in.getLong(), in.getLong());
+            }
+            for (IdentifiedPlayer player : players) {
+                readUnit(player, in);
+                player.setScore(in.getInt());
+                player.setLives(in.getInt());
+                final boolean alive = in.get() != 0;
+                if (player.isAlive() != alive) {
+                    player.setAlive(alive);
+                }
+            }
+            int left = 0;
+            for (Pellet pellet : pellets) {
+                if (pellet.getSquare() != null) {
+                    left++;
+                }
+            }
+            pelletsLeft.set(left);
+            rebuildSnapshot();
+            ended.set(false);
+        });
+    }
+
+    private void writeUnit(Unit unit, ByteBuffer out) {
+        final Square square = unit.getSquare();
+        int cell = BoardSnapshot.OFF_BOARD;
+        if (square != null) {
+            cell = square.getY() * board.getWidth() + square.getX();
+        }
+        byte direction = -1;
+        if (unit.getDirection() != null) {
+            direction = (byte) unit.getDirection().ordinal();
+        }
+        out.putInt(cell).put(direction);
+    }
+
+    private void readUnit(Unit unit, ByteBuffer in) {
+        final int cell = in.getInt();
+        final byte direction = in.get();
+        Square target = null;
+        if (cell != BoardSnapshot.OFF_BOARD) {
+            target = board.squareAt(cell % board.getWidth(), cell / board.getWidth());
+        }
+        placeUnit(unit, target, target != null);
+        unit.setDirection(null);
+        if (direction >= 0) {
+            unit.setDirection(Direction.values()[direction]);
+        }
+    }
+
+    private static void placeUnit(Unit unit, Square target, boolean onBoard) {
+        if (!onBoard) {
+            unit.leaveSquare();
+        } else if (unit.getSquare() != target) {
+            unit.occupy(target);
+        }
+    }
+
+    private static byte toByte(boolean flag) {
+        if (flag) {
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Runs an action while no other thread can make a move. Moves made by the
+     * action itself are allowed.
+     *
+     * @param action The action to run.
+     */
+    protected void runExclusively(Runnable action) {
+        final Lock exclusive = moveLock.writeLock();
+        exclusive.lock();
+        try {
+            action.run();
+        } finally {
+            exclusive.unlock();
+        }
+    }
+
+    /**
+     * Returns the state of the board after the last move. The snapshot never
+     * changes, so it can be read from any thread without locking. The first
+     * snapshot is taken while no move is made, so it must not be asked for
+     * while making a move.
+     *
+     * @return The pellets and the positions of the players and NPCs.
+     */
+    public BoardSnapshot getSnapshot() {
+        BoardSnapshot result = snapshot.get();
+        if (result == null) {
+            runExclusively(() -> snapshot.compareAndSet(null,
+                    BoardSnapshot.of(board, snapshotUnits())));
+            result = snapshot.get();
+        }
+        return result;
+    }
+
+    /**
+     * Takes the snapshot again from the whole board, if snapshots are being
+     * read. Must be called while holding the write lock of the moves.
+     */
+    private void rebuildSnapshot() {
+        final BoardSnapshot last = snapshot.get();
+        if (last != null) {
+            snapshot.set(BoardSnapshot.of(board, snapshotUnits(), last.getVersion() + 1));
+        }
+    }
+
+    /**
+     * Publishes the snapshot after a move, reading only the changed square
+     * and the units that may have moved. Must be called while holding the
+     * move lock, or the lock of the region of the changed square and units.
+     *
+     * @param changed  The only square whose pellet may have been eaten, or
+     *                 <code>null</code>.
+     * @param unit     The unit that moved.
+     * @param collided The units it collided with, which may have moved too.
+     */
+    private void publish(Square changed, Unit unit, List<Unit> collided) {
+        if (snapshot.get() == null) {
+            return;
+        }
+        final int[] moved = new int[collided.size() + 1];
+        moved[0] = slotOf(unit);
+        for (int i = 0; i < collided.size(); i++) {
+            moved[i + 1] = slotOf(collided.get(i));
+        }
+        BoardSnapshot last = snapshot.get();
+        while (last != null && !snapshot.compareAndSet(last, last.next(changed, moved))) {
+            last = snapshot.get();
         }
     }
 
+    /**
+     * Returns the index of a unit in the snapshots, in which the players come
+     * before the NPCs.
+     *
+     * @param unit A unit on the board.
+     * @return The index of the unit, or -1 if it is not a player or NPC.
+     */
+    private int slotOf(Unit unit) {
+        final int id = idOf(unit);
+        if (id < 0) {
+            return -1;
+        }
+        if (id < npcs.size()) {
+            return players.size() + id;
+        }
+        return id - npcs.size();
+    }
+
+    private List<Unit> snapshotUnits() {
+        final List<Unit> result = new ArrayList<>(players);
+        result.addAll(npcs);
+        return result;
+    }
+
     /**
      * Returns whether this level is in progress, i.e. whether moves can be made
      * on the board.
@@ -194,18 +816,20 @@ public abstract class Level implements PlayerListener {
     }
 
     /**
-     * Updates the observers about the state of this level.
+     * Updates the observers about the state of this level. They are told the
+     * level was won or lost only once.
      */
     public void updateObservers() {
         if (initialPelletCount == -1) {
             initialPelletCount = remainingPellets();
         }
-        if (!isAnyPlayerAlive()) {
+        if (!isAnyPlayerAlive() && end(LevelEvent.LEVEL_LOST)) {
             observers.forEach(LevelObserver::levelLost);
         }
-        if (remainingPellets() == 0
+        if ((remainingPellets() == 0
                 || QUICK_WIN
-                && initialPelletCount - remainingPellets() == QUICK_WIN_NEEDED_PELLETS) {
+                && initialPelletCount - remainingPellets() == QUICK_WIN_NEEDED_PELLETS)
+                && end(LevelEvent.LEVEL_WON)) {
             observers.forEach(LevelObserver::levelWon);
             observers.clear(); //make sure the observers do not get called multiple times
         }
@@ -235,41 +859,65 @@ public abstract class Level implements PlayerListener {
         if (finished) {
             return 0;
         }
-        Board b = getBoard();
-        int pellets = 0;
-        for (int x = 0; x < b.getWidth(); x++) {
-            for (int y = 0; y < b.getHeight(); y++) {
-                for (Unit u : b.squareAt(x, y).getOccupants()) {
-                    if (u instanceof Pellet) {
-                        pellets++;
-                    }
-                }
-            }
-        }
-        return pellets;
+        return pelletsLeft.get();
     }
 
     /**
      * Called when a player that has registered this Level loses one life.
      * If he has some more lives, he is moved on the board (away from ghosts)
      * so that he can keep on playing from a safer place.
+     * When moves lock regions, he is moved once the move that cost the life
+     * has released its regions, and collides with nothing until then.
      *
      * @param p The Player that just lost one life.
      */
     @Override
     public void onPlayerLoseLife(final IdentifiedPlayer p) {
+        publishEvent(LevelEvent.LIFE_LOST, p, p.getSquare());
+        if (regionLocks != null) {
+            respawns.add(p);
+            return;
+        }
+        respawn(p);
+    }
+
+    /**
+     * Called when a player that has registered this Level loses his last
+     * life.
+     *
+     * @param p The Player that just died.
+     */
+    @Override
+    public void onPlayerDeath(IdentifiedPlayer p) {
+        publishEvent(LevelEvent.LIFE_LOST, p, p.getSquare());
+        publishEvent(LevelEvent.PLAYER_DIED, p, p.getSquare());
+    }
+
+    private void respawn(IdentifiedPlayer p) {
         if (p.getLives() > 0) {
-            final List<Square> possibleSquares = getPossibleSquares();
-            if (possibleSquares.isEmpty()) {
+            final Square target = board.randomSafeSquare(units.unitsOf(Ghost.class),
+                    random);
+            if (target == null) {
                 throw new PacmanConfigurationException("There is no safe square.");
-            } else {
-                final Random r = new Random();
-                final int targetSquareIndex = r.nextInt(possibleSquares.size());
-                p.occupy(possibleSquares.get(targetSquareIndex));
             }
+            p.occupy(target);
         }
     }
 
+    /**
+     * @return The seed of all random choices made on this level.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return <code>true</code> iff a player has been registered on this level.
+     */
+    boolean hasPlayer() {
+        return !players.isEmpty();
+    }
+
     /**
      * Get the player of the game.
      *
@@ -298,18 +946,6 @@ public abstract class Level implements PlayerListener {
         ghostList.add(g);
     }
 
-    /**
-     * Calls {@link Board#getPossibleSquares()}
-     * to get the list of squares the player can move onto.
-     * (such squares are accessible & have no ghost that are too close to them).
-     *
-     * @return An ArrayList of Squares the player can move onto.
-     */
-    private List<Square> getPossibleSquares() {
-        assert players.get(0) != null;
-        return board.getPossibleSquares();
-    }
-
     /**
      * Simple setter for the 'finished' field that allows a level.
      * to be considered finished for testing purposes.
@@ -0,0 +1,45 @@
+package nl.tudelft.jpacman.level;
+
+/**
+ * The kinds of events a {@link Level} publishes in its
+ * {@link LevelEventRing}.
+ */
+public enum LevelEvent {
+
+    /**
+     * A unit moved to another square.
+     */
+    UNIT_MOVED,
+
+    /**
+     * A unit ate a pellet.
+     */
+    PELLET_EATEN,
+
+    /**
+     * A player lost a life.
+     */
+    LIFE_LOST,
+
+    /**
+     * A player lost his last life.
+     */
+    PLAYER_DIED,
+
+    /**
+     * The level has been won.
+     */
+    LEVEL_WON,
+
+    /**
+     * The level has been lost.
+     */
+    LEVEL_LOST;
+
+    /**
+     * @return <code>true</code> iff this event ends the level.
+     */
+    public boolean isTerminal() {
+        return this == LEVEL_WON || this == LEVEL_LOST;
+    }
+}
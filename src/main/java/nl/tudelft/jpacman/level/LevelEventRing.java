@@ -0,0 +1,262 @@
+package nl.tudelft.jpacman.level;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A preallocated ring of the events of a level, which consumers read on
+ * their own threads.
+ * <p>
+ * Every event is packed with its sequence number into a single long, so
+ * publishing one claims a sequence number and writes one slot: producers
+ * never wait and never allocate. Consumers poll the ring through a
+ * {@link Cursor} of their own and handle the events of a poll as a batch.
+ * A consumer that falls behind by more than the capacity of the ring skips
+ * the events that have been overwritten and counts them as missed, but the
+ * event that ended the level is always delivered, exactly once.
+ */
+public final class LevelEventRing {
+
+    /**
+     * The value of a slot no event has been written to.
+     */
+    private static final long EMPTY = -1L;
+
+    /**
+     * The number of bits of the cell of an event.
+     */
+    private static final int CELL_BITS = 21;
+
+    /**
+     * The number of bits of the unit of an event.
+     */
+    private static final int UNIT_BITS = 12;
+
+    /**
+     * The number of bits of the kind of an event.
+     */
+    private static final int TYPE_BITS = 3;
+
+    /**
+     * The shift of the unit of an event.
+     */
+    private static final int UNIT_SHIFT = CELL_BITS;
+
+    /**
+     * The shift of the kind of an event.
+     */
+    private static final int TYPE_SHIFT = UNIT_SHIFT + UNIT_BITS;
+
+    /**
+     * The shift of the low bits of the sequence number of an event.
+     */
+    private static final int SEQUENCE_SHIFT = TYPE_SHIFT + TYPE_BITS;
+
+    /**
+     * The largest capacity, far below the sequence numbers a slot can tell
+     * apart.
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << (Long.SIZE - SEQUENCE_SHIFT - 1);
+
+    /**
+     * The kinds of events, by ordinal.
+     */
+    private static final LevelEvent[] EVENTS = LevelEvent.values();
+
+    /**
+     * The events, packed with their sequence numbers.
+     */
+    private final AtomicLongArray slots;
+
+    /**
+     * The mask giving the slot of a sequence number.
+     */
+    private final int mask;
+
+    /**
+     * The sequence number of the next event.
+     */
+    private final AtomicLong claimed = new AtomicLong();
+
+    /**
+     * The sequence number of the last event that ended the level, or -1.
+     */
+    private volatile long terminalSequence = -1;
+
+    /**
+     * The last event that ended the level, or <code>null</code>.
+     */
+    private volatile LevelEvent terminalEvent;
+
+    /**
+     * Creates a new ring.
+     *
+     * @param capacity The number of events kept, a power of two.
+     */
+    public LevelEventRing(int capacity) {
+        assert Integer.bitCount(capacity) == 1 && capacity <= MAXIMUM_CAPACITY;
+        this.slots = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            slots.set(i, EMPTY);
+        }
+    }
+
+    /**
+     * Publishes an event.
+     *
+     * @param event The kind of event.
+     * @param unit  The id of the unit involved, or -1 if there is none or it
+     *              does not fit.
+     * @param cell  The index of the square involved, or -1 if there is none
+     *              or it does not fit.
+     */
+    void publish(LevelEvent event, int unit, int cell) {
+        final long sequence = claimed.getAndIncrement();
+        if (event.isTerminal()) {
+            terminalEvent = event;
+            terminalSequence = sequence;
+        }
+        slots.lazySet((int) sequence & mask, pack(sequence, event, unit, cell));
+    }
+
+    /**
+     * @return The number of events published so far.
+     */
+    public long getPublished() {
+        return claimed.get();
+    }
+
+    /**
+     * Creates a cursor that reads the events published from now on.
+     *
+     * @return The new cursor.
+     */
+    public Cursor subscribe() {
+        return new Cursor(claimed.get());
+    }
+
+    private static long pack(long sequence, LevelEvent event, int unit, int cell) {
+        return (sequence & sequenceMask()) << SEQUENCE_SHIFT
+                | (long) event.ordinal() << TYPE_SHIFT
+                | (long) field(unit, UNIT_BITS) << UNIT_SHIFT
+                | field(cell, CELL_BITS);
+    }
+
+    private static int field(int value, int bits) {
+        if (value < 0 || value + 1 >= 1 << bits) {
+            return 0;
+        }
+        return value + 1;
+    }
+
+    private static int unpack(long slot, int shift, int bits) {
+        return (int) (slot >>> shift & (1L << bits) - 1) - 1;
+    }
+
+    private static long sequenceMask() {
+        return (1L << (Long.SIZE - SEQUENCE_SHIFT)) - 1;
+    }
+
+    /**
+     * Handles the events a cursor reads.
+     */
+    public interface Handler {
+
+        /**
+         * Handles an event.
+         *
+         * @param event The kind of event.
+         * @param unit  The id of the unit involved, as given by the replay
+         *              recorder, or -1.
+         * @param cell  The index <code>y * width + x</code> of the square
+         *              involved, or -1.
+         */
+        void onEvent(LevelEvent event, int unit, int cell);
+
+        /**
+         * Called after the last event of a poll, for instance to flush the
+         * work of the batch.
+         */
+        default void onBatchEnd() {
+        }
+    }
+
+    /**
+     * The position of one consumer in the ring. A cursor must only be
+     * polled by one thread at a time.
+     */
+    public final class Cursor {
+
+        /**
+         * The sequence number of the next event to read.
+         */
+        private long next;
+
+        /**
+         * The number of events overwritten before they were read.
+         */
+        private long missed;
+
+        private Cursor(long start) {
+            this.next = start;
+        }
+
+        /**
+         * Hands the events published since the last poll to a handler, in
+         * the order they were published.
+         *
+         * @param handler  The handler of the events.
+         * @param maxBatch The maximum number of events handled.
+         * @return The number of events handled.
+         */
+        public int poll(Handler handler, int maxBatch) {
+            int count = 0;
+            while (count < maxBatch) {
+                final long slot = slots.get((int) next & mask);
+                if (slot >>> SEQUENCE_SHIFT != (next & sequenceMask())) {
+                    final long oldest = claimed.get() - slots.length();
+                    if (oldest <= next) {
+                        break;
+                    }
+                    count += skipTo(oldest, handler);
+                    continue;
+                }
+                handler.onEvent(EVENTS[unpack(slot, TYPE_SHIFT, TYPE_BITS) + 1],
+                        unpack(slot, UNIT_SHIFT, UNIT_BITS), unpack(slot, 0, CELL_BITS));
+                next++;
+                count++;
+            }
+            if (count > 0) {
+                handler.onBatchEnd();
+            }
+            return count;
+        }
+
+        /**
+         * Skips the events that have been overwritten, handing the event
+         * that ended the level to the handler if it was one of them.
+         */
+        private int skipTo(long oldest, Handler handler) {
+            final long terminal = terminalSequence;
+            final LevelEvent event = terminalEvent;
+            missed += oldest - next;
+            final boolean ended = terminal >= next && terminal < oldest;
+            next = oldest;
+            if (ended) {
+                missed--;
+                handler.onEvent(event, -1, -1);
+                return 1;
+            }
+            return 0;
+        }
+
+        /**
+         * @return The number of events overwritten before this cursor read
+         * them.
+         */
+        public long getMissed() {
+            return missed;
+        }
+    }
+}
@@ -12,6 +12,7 @@ import nl.tudelft.jpacman.sprite.Sprite;
 
 import java.util.List;
 import java.util.Map;
+import java.util.SplittableRandom;
 
 /**
  * Factory that creates levels and units.
@@ -64,6 +65,10 @@ public class LevelFactory {
      * Used to cycle through the various ghost types.
      */
     private int ghostIndex;
+    /**
+     * The source of the seeds of the levels created.
+     */
+    private SplittableRandom seeds = new SplittableRandom();
 
     /**
      * Creates a new level factory.
@@ -77,6 +82,16 @@ public class LevelFactory {
         this.ghostFact = ghostFactory;
     }
 
+    /**
+     * Seeds the levels created from now on, so that the same sequence of
+     * levels makes the same random choices every time it is played.
+     *
+     * @param seed The seed of the sequence of levels.
+     */
+    public void setSeed(long seed) {
+        this.seeds = new SplittableRandom(seed);
+    }
+
     /**
      * Creates a new level from the provided data.
      *
@@ -89,7 +104,8 @@ public class LevelFactory {
                                List<Square> startPositions) {
 
         // We'll adopt the simple collision map for now.
-        return new AILevel(board, ghosts, startPositions, new PlayerCollisions());
+        return new AILevel(board, ghosts, startPositions, new PlayerCollisions(),
+                seeds.nextLong());
     }
 
     /**
@@ -0,0 +1,98 @@
+package nl.tudelft.jpacman.level;
+
+import nl.tudelft.jpacman.PacmanConfigurationException;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Supplier;
+
+/**
+ * Keeps stopped levels of one map, with their players registered, to restore
+ * saved {@link LevelState}s into. Forking a game for a lookahead or taking
+ * over a game from another host then neither parses the map nor creates any
+ * unit: a level is taken from the pool, the state is restored into it, and
+ * the level is given back when it is no longer needed.
+ */
+public final class LevelPool {
+
+    /**
+     * Creates the levels when no idle one is left.
+     */
+    private final Supplier<AILevel> factory;
+
+    /**
+     * The largest number of idle levels kept.
+     */
+    private final int capacity;
+
+    /**
+     * The idle levels, the most recently released first.
+     */
+    private final Deque<AILevel> idle;
+
+    /**
+     * Creates a new, empty pool.
+     *
+     * @param levels   Creates a level of the map, with as many players
+     *                 registered as the states restored will have.
+     * @param capacity The largest number of idle levels kept.
+     */
+    public LevelPool(Supplier<AILevel> levels, int capacity) {
+        assert levels != null;
+        assert capacity >= 0;
+        this.factory = levels;
+        this.capacity = capacity;
+        this.idle = new ArrayDeque<>();
+    }
+
+    /**
+     * Restores a saved state into an idle level of this pool, or into a new
+     * level if none is idle.
+     *
+     * @param state The buffer written by {@link LevelState#save(Level, ByteBuffer)}.
+     * @return The level in the saved state, not started.
+     * @throws PacmanConfigurationException If the state is not a saved state
+     *                                      of a level of this pool.
+     */
+    public AILevel restore(ByteBuffer state) {
+        AILevel level;
+        synchronized (this) {
+            level = idle.pollFirst();
+        }
+        if (level == null) {
+            level = factory.get();
+        }
+        try {
+            LevelState.restore(state, level);
+        } catch (PacmanConfigurationException e) {
+            release(level);
+            throw e;
+        }
+        return level;
+    }
+
+    /**
+     * Stops a level restored by this pool and keeps it to restore another
+     * state into, unless enough levels are idle already. The level must not
+     * be used after it is released, and observers added to it should be
+     * removed first.
+     *
+     * @param level The level to give back.
+     */
+    public void release(AILevel level) {
+        level.stop();
+        synchronized (this) {
+            if (idle.size() < capacity && !idle.contains(level)) {
+                idle.addFirst(level);
+            }
+        }
+    }
+
+    /**
+     * @return The number of levels ready to restore a state into.
+     */
+    public synchronized int idleCount() {
+        return idle.size();
+    }
+}
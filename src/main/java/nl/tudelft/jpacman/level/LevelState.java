@@ -0,0 +1,65 @@
+package nl.tudelft.jpacman.level;
+
+import nl.tudelft.jpacman.PacmanConfigurationException;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Saves the state of a level in a binary form and restores it into another
+ * level created from the same map, without parsing the map again. This can
+ * be used to save games, or to try moves on a copy of a level and go back.
+ * <p>
+ * The state holds a hash of the layout of the board, the pellets that are
+ * left as a bitmap, the position and direction of every unit, the score,
+ * lives and whether every player is alive, the state of all randoms and, for
+ * an {@link AILevel}, the clock of its ticks. The players must have been
+ * registered on the level restored into, since they are not created. A
+ * {@link LevelPool} keeps such levels to restore into.
+ */
+public final class LevelState {
+
+    /**
+     * The first four bytes of a saved state, "JPST".
+     */
+    private static final int MAGIC = 0x4A505354;
+
+    /**
+     * The version of the format.
+     */
+    private static final byte VERSION = 1;
+
+    private LevelState() {
+    }
+
+    /**
+     * Writes the state of a level.
+     *
+     * @param level The level.
+     * @param out   The buffer to write to, which can be reused for every save.
+     */
+    public static void save(Level level, ByteBuffer out) {
+        out.putInt(MAGIC).put(VERSION);
+        level.writeState(out);
+    }
+
+    /**
+     * Restores the state of a level.
+     *
+     * @param in    The buffer written by {@link #save(Level, ByteBuffer)}.
+     * @param level A level created from the same map and with as many players
+     *              registered as the saved level.
+     * @throws PacmanConfigurationException If the state is not a saved state
+     *                                      of a level like the given one.
+     */
+    public static void restore(ByteBuffer in, Level level) {
+        try {
+            if (in.getInt() != MAGIC || in.get() != VERSION) {
+                throw new PacmanConfigurationException("Not a saved level state.");
+            }
+            level.readState(in);
+        } catch (BufferUnderflowException e) {
+            throw new PacmanConfigurationException("The saved level state is incomplete.", e);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package nl.tudelft.jpacman.level;
+
+import nl.tudelft.jpacman.board.BoardFactory;
+
+import java.util.Arrays;
+
+/**
+ * The parsed, immutable layout of a level, from which any number of fresh
+ * {@link AILevel}s can be created without reading or parsing the level file
+ * again. The map is decoded once into arrays of cells, links and units.
+ */
+public final class LevelTemplate {
+
+    /**
+     * The id of the level.
+     */
+    private final int id;
+
+    /**
+     * The compact representation of the level.
+     */
+    private final CompiledMap map;
+
+    /**
+     * Whether each cell (<code>y * width + x</code>) is a wall.
+     */
+    private final boolean[] walls;
+
+    /**
+     * The links of the cells, as computed by {@link BoardFactory#linksOf(int, int)}.
+     */
+    private final int[] links;
+
+    /**
+     * The cells with a pellet.
+     */
+    private final int[] pellets;
+
+    /**
+     * The cells a ghost starts on, in parsing order.
+     */
+    private final int[] ghosts;
+
+    /**
+     * The starting cells of the players, in parsing order.
+     */
+    private final int[] players;
+
+    /**
+     * Creates a new level template.
+     *
+     * @param id  The id of the level.
+     * @param map The compact representation of the level.
+     */
+    public LevelTemplate(int id, CompiledMap map) {
+        assert map != null;
+        this.id = id;
+        this.map = map;
+        final int width = map.getWidth();
+        this.walls = new boolean[width * map.getHeight()];
+        final int[] found = new int[walls.length];
+        int pelletCount = 0;
+        for (int cell = 0; cell < walls.length; cell++) {
+            final byte type = map.cellAt(cell % width, cell / width);
+            walls[cell] = type == CompiledMap.WALL;
+            if (type == CompiledMap.PELLET) {
+                found[pelletCount++] = cell;
+            }
+        }
+        this.pellets = Arrays.copyOf(found, pelletCount);
+        this.links = BoardFactory.linksOf(width, map.getHeight());
+        this.ghosts = new int[map.getGhostCount()];
+        for (int i = 0; i < ghosts.length; i++) {
+            ghosts[i] = map.getGhostSpawn(i);
+        }
+        this.players = new int[map.getPlayerCount()];
+        for (int i = 0; i < players.length; i++) {
+            players[i] = map.getPlayerSpawn(i);
+        }
+    }
+
+    /**
+     * @return The id of the level.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return The compact representation of the level.
+     */
+    public CompiledMap getMap() {
+        return map;
+    }
+
+    /**
+     * Creates a new level, in its initial state, from this template.
+     *
+     * @param parser The parser providing the factories for the squares, units and level.
+     * @return A new level.
+     */
+    public AILevel instantiate(MapParser parser) {
+        return parser.parseTemplate(this);
+    }
+
+    /**
+     * @return The width of the level.
+     */
+    int getWidth() {
+        return map.getWidth();
+    }
+
+    /**
+     * @return The height of the level.
+     */
+    int getHeight() {
+        return map.getHeight();
+    }
+
+    /**
+     * @param cell The cell, <code>y * width + x</code>.
+     * @return true iff the cell is a wall.
+     */
+    boolean isWall(int cell) {
+        return walls[cell];
+    }
+
+    /**
+     * @return The links of the cells. The array must not be modified.
+     */
+    int[] getLinks() {
+        return links;
+    }
+
+    /**
+     * @return The cells with a pellet. The array must not be modified.
+     */
+    int[] getPellets() {
+        return pellets;
+    }
+
+    /**
+     * @return The cells a ghost starts on. The array must not be modified.
+     */
+    int[] getGhosts() {
+        return ghosts;
+    }
+
+    /**
+     * @return The starting cells of the players. The array must not be modified.
+     */
+    int[] getPlayers() {
+        return players;
+    }
+}
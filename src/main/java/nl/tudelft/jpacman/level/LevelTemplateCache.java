@@ -0,0 +1,212 @@
+package nl.tudelft.jpacman.level;
+
+import com.google.common.io.ByteStreams;
+import nl.tudelft.jpacman.PacmanConfigurationException;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded cache of {@link LevelTemplate}s, loaded from the level resources
+ * (<code>boardN.lvl</code>, <code>boardN.txt</code> or <code>N.png</code>) the first time they
+ * are needed. When the cache is full, the least recently used template is
+ * evicted.
+ */
+public class LevelTemplateCache {
+
+    /**
+     * The class whose resources contain the levels.
+     */
+    private final Class<?> resources;
+
+    /**
+     * The templates, from least to most recently used.
+     */
+    private final Map<Integer, LevelTemplate> templates;
+
+    /**
+     * Creates a new, empty cache.
+     *
+     * @param resources The class whose resources contain the level files.
+     * @param capacity  The maximum number of templates kept in the cache.
+     */
+    public LevelTemplateCache(Class<?> resources, final int capacity) {
+        assert capacity > 0;
+        this.resources = resources;
+        this.templates = new LinkedHashMap<Integer, LevelTemplate>(capacity + 1, 1f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, LevelTemplate> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the template of a level, loading it if it is not in the cache.
+     *
+     * @param id The id of the level.
+     * @return The template of the level, or null if there is no such level.
+     * @throws PacmanConfigurationException If the level could not be read.
+     */
+    public synchronized LevelTemplate get(int id) {
+        LevelTemplate template = templates.get(id);
+        if (template == null) {
+            final CompiledMap map = load(id);
+            if (map == null) {
+                return null;
+            }
+            template = new LevelTemplate(id, map);
+            templates.put(id, template);
+        }
+        return template;
+    }
+
+    /**
+     * Determines whether a level exists, without loading it.
+     *
+     * @param id The id of the level.
+     * @return true iff there is a level file for that id.
+     */
+    public synchronized boolean isAvailable(int id) {
+        return templates.containsKey(id)
+                || resources.getResource(textResource(id)) != null
+                || resources.getResource(imageResource(id)) != null
+                || resources.getResource(compiledResource(id)) != null;
+    }
+
+    /**
+     * @return The number of templates currently in the cache.
+     */
+    public synchronized int size() {
+        return templates.size();
+    }
+
+    /**
+     * Determines whether the template of a level is currently cached.
+     *
+     * @param id The id of the level.
+     * @return true iff the template is in the cache.
+     */
+    public synchronized boolean contains(int id) {
+        return templates.containsKey(id);
+    }
+
+    /**
+     * Removes all templates from the cache, e.g. after the level files changed.
+     */
+    public synchronized void clear() {
+        templates.clear();
+    }
+
+    /**
+     * Loads a level, preferring an up-to-date compiled version, then the text
+     * version and then the image version, like the {@link MapCompiler}.
+     *
+     * @param id The id of the level.
+     * @return The level, or null if there is no such level.
+     */
+    private CompiledMap load(int id) {
+        final CompiledMap compiled = loadCompiled(id);
+        if (compiled != null) {
+            return compiled;
+        }
+        try (InputStream boardStream = resources.getResourceAsStream(textResource(id))) {
+            if (boardStream != null) {
+                return MapCompiler.compile(readLines(boardStream));
+            }
+        } catch (IOException e) {
+            throw new PacmanConfigurationException("Unable to create level.", e);
+        }
+        return loadImage(id);
+    }
+
+    /**
+     * Compiles the image version of a level.
+     *
+     * @param id The id of the level.
+     * @return The level, or null if there is no image version.
+     */
+    private CompiledMap loadImage(int id) {
+        try (InputStream imageStream = resources.getResourceAsStream(imageResource(id))) {
+            if (imageStream == null) {
+                return null;
+            }
+            final BufferedImage image = ImageIO.read(imageStream);
+            if (image == null) {
+                throw new IOException("Error loading image " + imageResource(id));
+            }
+            return MapCompiler.compile(image);
+        } catch (IOException e) {
+            throw new PacmanConfigurationException("Unable to create level.", e);
+        }
+    }
+
+    /**
+     * Loads the compiled version of a level. Files on disk are memory-mapped,
+     * other resources (e.g. inside a jar) are read into memory.
+     *
+     * @param id The id of the level.
+     * @return The compiled level, or null if there is none, if it is older
+     * than the file it was compiled from or if it could not be read.
+     */
+    private CompiledMap loadCompiled(int id) {
+        final URL url = resources.getResource(compiledResource(id));
+        if (url == null) {
+            return null;
+        }
+        try {
+            if ("file".equals(url.getProtocol())) {
+                final Path file = Paths.get(url.toURI());
+                final Path source = MapCompiler.sourceOf(file);
+                if (source != null && Files.getLastModifiedTime(source)
+                        .compareTo(Files.getLastModifiedTime(file)) > 0) {
+                    return null;
+                }
+                return CompiledMap.load(file);
+            }
+            try (InputStream in = url.openStream()) {
+                return CompiledMap.read(ByteBuffer.wrap(ByteStreams.toByteArray(in)));
+            }
+        } catch (IOException | URISyntaxException | PacmanConfigurationException e) {
+            System.err.println("Using the source of level " + id + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static List<String> readLines(InputStream source) throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(source, "UTF-8"));
+        final List<String> lines = new ArrayList<>();
+        String line = reader.readLine();
+        while (line != null) {
+            lines.add(line);
+            line = reader.readLine();
+        }
+        return lines;
+    }
+
+    private static String textResource(int id) {
+        return "/board" + id + ".txt";
+    }
+
+    private static String imageResource(int id) {
+        return "/" + id + ".png";
+    }
+
+    private static String compiledResource(int id) {
+        return "/board" + id + MapCompiler.EXTENSION;
+    }
+}
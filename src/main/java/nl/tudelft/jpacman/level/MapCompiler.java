@@ -0,0 +1,221 @@
+package nl.tudelft.jpacman.level;
+
+import nl.tudelft.jpacman.PacmanConfigurationException;
+import nl.tudelft.jpacman.board.BoardFactory;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles maps in the text (<code>boardN.txt</code>) or image
+ * (<code>N.png</code>) format into {@link CompiledMap}s, which can be stored
+ * as <code>boardN.lvl</code> and loaded without parsing.
+ */
+public final class MapCompiler {
+
+    /**
+     * The extension of compiled map files.
+     */
+    public static final String EXTENSION = ".lvl";
+
+    /**
+     * The name of a text level, e.g. board1.txt.
+     */
+    private static final Pattern TEXT_LEVEL = Pattern.compile("board(\\d+)\\.txt");
+
+    /**
+     * The name of an image level, e.g. 1.png.
+     */
+    private static final Pattern IMAGE_LEVEL = Pattern.compile("(\\d+)\\.png");
+
+    /**
+     * The name of a compiled level, e.g. board1.lvl.
+     */
+    private static final Pattern COMPILED_LEVEL = Pattern.compile("board(\\d+)\\.lvl");
+
+    private MapCompiler() {
+    }
+
+    /**
+     * Compiles a map given as map[x][y] characters, using the alphabet of
+     * {@link MapParser#parseMap(char[][])}.
+     *
+     * @param map The text representation of the board.
+     * @return The compiled map.
+     * @throws PacmanConfigurationException If the map contains an unsupported character.
+     */
+    public static CompiledMap compile(char[][] map) {
+        final int width = map.length, height = map[0].length;
+        final byte[] cells = new byte[width * height];
+        final List<Integer> ghosts = new ArrayList<>(), players = new ArrayList<>();
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                final int id = y * width + x;
+                cells[id] = compileCell(map[x][y], x, y);
+                if (cells[id] == CompiledMap.GHOST) {
+                    ghosts.add(id);
+                } else if (cells[id] == CompiledMap.PLAYER) {
+                    players.add(id);
+                }
+            }
+        }
+        return new CompiledMap(width, height, ByteBuffer.wrap(cells),
+                toArray(ghosts), toArray(players));
+    }
+
+    /**
+     * Compiles a map given as text lines, with every entry in the list being
+     * an equally sized row of squares and the first element being the top row.
+     *
+     * @param text The text representation of the board.
+     * @return The compiled map.
+     * @throws PacmanConfigurationException If the lines are not properly formatted.
+     */
+    public static CompiledMap compile(List<String> text) {
+        MapParser.checkMapFormat(text);
+        final int height = text.size(), width = text.get(0).length();
+        final char[][] map = new char[width][height];
+        for (int y = 0; y < height; y++) {
+            final String line = text.get(y);
+            for (int x = 0; x < width; x++) {
+                map[x][y] = line.charAt(x);
+            }
+        }
+        return compile(map);
+    }
+
+    /**
+     * Compiles a map given as an image, using the colours of
+     * {@link nl.tudelft.jpacman.board.ItemsColor}.
+     *
+     * @param image The image representation of the board.
+     * @return The compiled map.
+     * @throws PacmanConfigurationException If the image is not a valid map.
+     */
+    public static CompiledMap compile(BufferedImage image) {
+        return compile(BoardFactory.imageToLines(image));
+    }
+
+    /**
+     * Compiles a <code>boardN.txt</code> or <code>N.png</code> file into a
+     * <code>boardN.lvl</code> file in the same directory.
+     *
+     * @param source The text or image file to compile.
+     * @return The compiled file.
+     * @throws IOException If the source could not be read or the target not written.
+     */
+    public static Path compileFile(Path source) throws IOException {
+        final String name = source.getFileName().toString();
+        final Matcher text = TEXT_LEVEL.matcher(name), image = IMAGE_LEVEL.matcher(name);
+        final CompiledMap map;
+        final String level;
+        if (text.matches()) {
+            map = compile(Files.readAllLines(source, Charset.forName("UTF-8")));
+            level = text.group(1);
+        } else if (image.matches()) {
+            final BufferedImage img = ImageIO.read(source.toFile());
+            if (img == null) {
+                throw new IOException("Error loading image " + name);
+            }
+            map = compile(img);
+            level = image.group(1);
+        } else {
+            throw new IOException("Not a level file: " + name);
+        }
+        final Path target = source.resolveSibling("board" + level + EXTENSION);
+        map.write(target);
+        return target;
+    }
+
+    /**
+     * Compiles the given level files, or every level file found in the given
+     * directories.
+     *
+     * @param args The files or directories to compile.
+     * @throws IOException If a file could not be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        for (String arg : args) {
+            final File file = new File(arg);
+            File[] sources = {file};
+            if (file.isDirectory()) {
+                sources = file.listFiles();
+            }
+            if (sources == null) {
+                continue;
+            }
+            for (File source : sources) {
+                if (isSource(source)) {
+                    System.out.println("Compiled " + compileFile(Paths.get(source.getPath())));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the file a compiled level was compiled from: its text version if
+     * there is one in the same directory, otherwise its image version.
+     *
+     * @param compiled The <code>boardN.lvl</code> file.
+     * @return The <code>boardN.txt</code> or <code>N.png</code> file, or null
+     * if there is neither.
+     */
+    public static Path sourceOf(Path compiled) {
+        final Matcher level = COMPILED_LEVEL.matcher(compiled.getFileName().toString());
+        if (!level.matches()) {
+            return null;
+        }
+        final Path text = compiled.resolveSibling("board" + level.group(1) + ".txt");
+        if (Files.exists(text)) {
+            return text;
+        }
+        final Path image = compiled.resolveSibling(level.group(1) + ".png");
+        if (Files.exists(image)) {
+            return image;
+        }
+        return null;
+    }
+
+    /**
+     * Determines whether a file is a level to compile. Like the
+     * {@link BoardFactory}, a text level is preferred over an image level.
+     *
+     * @param file The candidate file.
+     * @return true iff the file is a text level, or an image level without text version.
+     */
+    private static boolean isSource(File file) {
+        final Matcher image = IMAGE_LEVEL.matcher(file.getName());
+        if (image.matches()) {
+            return !new File(file.getParentFile(), "board" + image.group(1) + ".txt").exists();
+        }
+        return TEXT_LEVEL.matcher(file.getName()).matches();
+    }
+
+    private static byte compileCell(char c, int x, int y) {
+        final byte type = CompiledMap.typeOf(c);
+        if (type < 0) {
+            throw new PacmanConfigurationException("Invalid character at "
+                    + x + "," + y + ": " + c);
+        }
+        return type;
+    }
+
+    private static int[] toArray(List<Integer> ids) {
+        final int[] result = new int[ids.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ids.get(i);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,506 @@
+package nl.tudelft.jpacman.level;
+
+import nl.tudelft.jpacman.PacmanConfigurationException;
+import nl.tudelft.jpacman.board.Direction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates random maps in the alphabet of {@link MapParser}, e.g. to test the
+ * game on boards much larger than the hand-made levels.
+ * <p>
+ * Generated maps are surrounded by walls and all of their accessible squares
+ * are connected: squares that cannot be reached from the largest accessible
+ * area are turned into walls. The same seed and settings always produce the
+ * same map. A generator is not thread-safe.
+ */
+public class MapGenerator {
+
+    /**
+     * The layout of the corridors of a generated map.
+     */
+    public enum Style {
+        /**
+         * Narrow corridors carved as a random maze.
+         */
+        MAZE,
+        /**
+         * An open area with scattered walls.
+         */
+        ARENA,
+        /**
+         * A maze whose right half mirrors its left half, like the classic
+         * Pac-Man levels.
+         */
+        MIRRORED
+    }
+
+    /**
+     * The smallest supported width and height, leaving one accessible square
+     * inside the surrounding walls.
+     */
+    private static final int MINIMUM_SIZE = 3;
+
+    /**
+     * The default width and height.
+     */
+    private static final int DEFAULT_SIZE = 32;
+
+    /**
+     * The default fraction of walls inside the surrounding walls.
+     */
+    private static final double DEFAULT_WALL_DENSITY = 0.3;
+
+    /**
+     * The default fraction of empty squares that get a pellet.
+     */
+    private static final double DEFAULT_PELLET_DENSITY = 0.9;
+
+    /**
+     * The default number of ghosts.
+     */
+    private static final int DEFAULT_GHOSTS = 4;
+
+    /**
+     * All directions, in declaration order.
+     */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * The seed of every map generated.
+     */
+    private final long seed;
+
+    /**
+     * The width of the generated maps.
+     */
+    private int width = DEFAULT_SIZE;
+
+    /**
+     * The height of the generated maps.
+     */
+    private int height = DEFAULT_SIZE;
+
+    /**
+     * The layout of the corridors.
+     */
+    private Style style = Style.MAZE;
+
+    /**
+     * The fraction of walls inside the surrounding walls.
+     */
+    private double wallDensity = DEFAULT_WALL_DENSITY;
+
+    /**
+     * The fraction of empty squares that get a pellet.
+     */
+    private double pelletDensity = DEFAULT_PELLET_DENSITY;
+
+    /**
+     * The number of ghosts.
+     */
+    private int ghosts = DEFAULT_GHOSTS;
+
+    /**
+     * The number of player starting squares.
+     */
+    private int players = 1;
+
+    /**
+     * The random generator of the map being generated.
+     */
+    private Random random;
+
+    /**
+     * The cells of the map being generated, in row-major order, using the
+     * cell types of {@link CompiledMap}.
+     */
+    private byte[] cells;
+
+    /**
+     * Creates a new generator of 32x32 mazes with 4 ghosts and 1 player.
+     *
+     * @param seed The seed determining the generated maps.
+     */
+    public MapGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @param mapWidth  The width of the generated maps, including the surrounding walls.
+     * @param mapHeight The height of the generated maps, including the surrounding walls.
+     * @return This generator.
+     */
+    public MapGenerator withSize(int mapWidth, int mapHeight) {
+        assert mapWidth >= MINIMUM_SIZE && mapHeight >= MINIMUM_SIZE;
+        this.width = mapWidth;
+        this.height = mapHeight;
+        return this;
+    }
+
+    /**
+     * @param corridors The layout of the corridors.
+     * @return This generator.
+     */
+    public MapGenerator withStyle(Style corridors) {
+        assert corridors != null;
+        this.style = corridors;
+        return this;
+    }
+
+    /**
+     * Sets the fraction of walls inside the surrounding walls. A maze can
+     * have fewer walls than a perfect maze, but not more.
+     *
+     * @param density The fraction of walls, between 0 and 1.
+     * @return This generator.
+     */
+    public MapGenerator withWallDensity(double density) {
+        assert density >= 0 && density <= 1;
+        this.wallDensity = density;
+        return this;
+    }
+
+    /**
+     * @param density The fraction of empty squares that get a pellet, between 0 and 1.
+     * @return This generator.
+     */
+    public MapGenerator withPelletDensity(double density) {
+        assert density >= 0 && density <= 1;
+        this.pelletDensity = density;
+        return this;
+    }
+
+    /**
+     * @param count The number of ghosts.
+     * @return This generator.
+     */
+    public MapGenerator withGhosts(int count) {
+        assert count >= 0;
+        this.ghosts = count;
+        return this;
+    }
+
+    /**
+     * @param count The number of player starting squares.
+     * @return This generator.
+     */
+    public MapGenerator withPlayers(int count) {
+        assert count >= 0;
+        this.players = count;
+        return this;
+    }
+
+    /**
+     * Generates a map that can be passed to {@link MapParser#parseMap(char[][])}.
+     *
+     * @return The map, with map[x][y] representing the square at position x,y.
+     * @throws PacmanConfigurationException If the map has too few accessible
+     *                                      squares for all ghosts and players.
+     */
+    public char[][] generate() {
+        final byte[] map = generateCells();
+        final char[][] result = new char[width][height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                result[x][y] = CompiledMap.characterOf(map[y * width + x]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Generates a map that can be passed to {@link MapParser#parseMap(List)}.
+     *
+     * @return The rows of the map, from top to bottom.
+     * @throws PacmanConfigurationException If the map has too few accessible
+     *                                      squares for all ghosts and players.
+     */
+    public List<String> generateLines() {
+        final byte[] map = generateCells();
+        final List<String> lines = new ArrayList<>(height);
+        final char[] line = new char[width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                line[x] = CompiledMap.characterOf(map[y * width + x]);
+            }
+            lines.add(new String(line));
+        }
+        return lines;
+    }
+
+    private byte[] generateCells() {
+        random = new Random(seed);
+        cells = new byte[width * height];
+        Arrays.fill(cells, CompiledMap.WALL);
+        switch (style) {
+            case ARENA:
+                scatterWalls();
+                break;
+            case MIRRORED:
+                carveMirrored();
+                break;
+            default:
+                carveMaze(width - 2);
+                lowerWallDensity(width - 2);
+                break;
+        }
+        final int accessible = connect();
+        placeUnits(accessible);
+        final byte[] result = cells;
+        cells = null;
+        random = null;
+        return result;
+    }
+
+    /**
+     * Carves a maze with a randomised depth-first search. The rooms of the
+     * maze are the squares with odd coordinates, connected by opening the
+     * wall between them.
+     *
+     * @param maxX The largest column the maze may use.
+     */
+    private void carveMaze(int maxX) {
+        final IntDeque stack = new IntDeque();
+        cells[id(1, 1)] = CompiledMap.EMPTY;
+        stack.addLast(id(1, 1));
+        final Direction[] candidates = new Direction[DIRECTIONS.length];
+        while (!stack.isEmpty()) {
+            final int room = stack.peekLast(), x = room % width, y = room / width;
+            int count = 0;
+            for (Direction dir : DIRECTIONS) {
+                final int nx = x + 2 * dir.getDeltaX(), ny = y + 2 * dir.getDeltaY();
+                if (nx >= 1 && nx <= maxX && ny >= 1 && ny <= height - 2
+                        && cells[id(nx, ny)] == CompiledMap.WALL) {
+                    candidates[count++] = dir;
+                }
+            }
+            if (count == 0) {
+                stack.pollLast();
+            } else {
+                final Direction dir = candidates[random.nextInt(count)];
+                cells[id(x + dir.getDeltaX(), y + dir.getDeltaY())] = CompiledMap.EMPTY;
+                final int next = id(x + 2 * dir.getDeltaX(), y + 2 * dir.getDeltaY());
+                cells[next] = CompiledMap.EMPTY;
+                stack.addLast(next);
+            }
+        }
+    }
+
+    /**
+     * Opens random walls between columns 1 and maxX until, on average, the
+     * wall density is reached.
+     *
+     * @param maxX The largest column to open walls in.
+     */
+    private void lowerWallDensity(int maxX) {
+        int walls = 0;
+        for (int y = 1; y < height - 1; y++) {
+            for (int x = 1; x <= maxX; x++) {
+                if (cells[id(x, y)] == CompiledMap.WALL) {
+                    walls++;
+                }
+            }
+        }
+        final double target = wallDensity * maxX * (height - 2);
+        if (walls <= target) {
+            return;
+        }
+        final double opening = (walls - target) / walls;
+        for (int y = 1; y < height - 1; y++) {
+            for (int x = 1; x <= maxX; x++) {
+                if (cells[id(x, y)] == CompiledMap.WALL && random.nextDouble() < opening) {
+                    cells[id(x, y)] = CompiledMap.EMPTY;
+                }
+            }
+        }
+    }
+
+    private void scatterWalls() {
+        for (int y = 1; y < height - 1; y++) {
+            for (int x = 1; x < width - 1; x++) {
+                if (random.nextDouble() >= wallDensity) {
+                    cells[id(x, y)] = CompiledMap.EMPTY;
+                }
+            }
+        }
+    }
+
+    /**
+     * Carves a maze in the left half of the map, opens a corridor from its
+     * last rooms to the middle of the map and mirrors it to the right half.
+     */
+    private void carveMirrored() {
+        final int half = (width + 1) / 2;
+        carveMaze(half - 1);
+        lowerWallDensity(half - 1);
+
+        final int row = 2 * random.nextInt((height - 1) / 2) + 1;
+        for (int x = half - 1 - half % 2; x < half; x++) {
+            cells[id(x, row)] = CompiledMap.EMPTY;
+        }
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < half; x++) {
+                cells[id(width - 1 - x, y)] = cells[id(x, y)];
+            }
+        }
+    }
+
+    /**
+     * Keeps the largest area of connected accessible squares and turns all
+     * other accessible squares into walls.
+     *
+     * @return The number of accessible squares left.
+     */
+    private int connect() {
+        final BitSet seen = new BitSet(cells.length);
+        final IntDeque queue = new IntDeque();
+        int largest = -1, largestSize = 0;
+        for (int id = seen.nextClearBit(0); id < cells.length; id = seen.nextClearBit(id + 1)) {
+            if (cells[id] != CompiledMap.WALL) {
+                final int size = flood(id, seen, queue);
+                if (size > largestSize) {
+                    largest = id;
+                    largestSize = size;
+                }
+            }
+        }
+        if (largest < 0) {
+            throw new PacmanConfigurationException("The generated map has no accessible squares.");
+        }
+
+        final BitSet reachable = new BitSet(cells.length);
+        flood(largest, reachable, queue);
+        for (int id = reachable.nextClearBit(0); id < cells.length;
+             id = reachable.nextClearBit(id + 1)) {
+            cells[id] = CompiledMap.WALL;
+        }
+        return largestSize;
+    }
+
+    /**
+     * Marks all accessible squares connected to the given one. Since the map
+     * is surrounded by walls, the search never leaves the map.
+     *
+     * @param start The id of the accessible square to start from.
+     * @param seen  The squares found so far, to which the connected squares are added.
+     * @param queue An empty queue to use.
+     * @return The number of squares marked.
+     */
+    private int flood(int start, BitSet seen, IntDeque queue) {
+        seen.set(start);
+        queue.addLast(start);
+        int size = 0;
+        while (!queue.isEmpty()) {
+            final int id = queue.pollFirst();
+            size++;
+            for (Direction dir : DIRECTIONS) {
+                final int next = id + dir.getDeltaY() * width + dir.getDeltaX();
+                if (cells[next] != CompiledMap.WALL && !seen.get(next)) {
+                    seen.set(next);
+                    queue.addLast(next);
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Places the players and ghosts on random accessible squares and pellets
+     * on the remaining ones.
+     *
+     * @param accessible The number of accessible squares.
+     */
+    private void placeUnits(int accessible) {
+        if ((long) players + ghosts > accessible) {
+            throw new PacmanConfigurationException("The generated map has only " + accessible
+                    + " accessible squares for " + (players + ghosts) + " units.");
+        }
+        place(CompiledMap.PLAYER, players);
+        place(CompiledMap.GHOST, ghosts);
+        for (int id = 0; id < cells.length; id++) {
+            if (cells[id] == CompiledMap.EMPTY && random.nextDouble() < pelletDensity) {
+                cells[id] = CompiledMap.PELLET;
+            }
+        }
+    }
+
+    private void place(byte type, int count) {
+        int placed = 0;
+        while (placed < count) {
+            final int id = random.nextInt(cells.length);
+            if (cells[id] == CompiledMap.EMPTY) {
+                cells[id] = type;
+                placed++;
+            }
+        }
+    }
+
+    private int id(int x, int y) {
+        return y * width + x;
+    }
+
+    /**
+     * A growable double-ended queue of ints, avoiding the boxing of
+     * {@link java.util.ArrayDeque} on maps with millions of squares.
+     */
+    private static final class IntDeque {
+
+        /**
+         * The initial capacity.
+         */
+        private static final int INITIAL_CAPACITY = 64;
+
+        /**
+         * The elements, as a circular buffer whose length is a power of two.
+         */
+        private int[] elements = new int[INITIAL_CAPACITY];
+
+        /**
+         * The index of the first element.
+         */
+        private int head;
+
+        /**
+         * The number of elements.
+         */
+        private int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void addLast(int value) {
+            if (size == elements.length) {
+                final int[] grown = new int[elements.length * 2];
+                for (int i = 0; i < size; i++) {
+                    grown[i] = elements[(head + i) & (elements.length - 1)];
+                }
+                elements = grown;
+                head = 0;
+            }
+            elements[(head + size) & (elements.length - 1)] = value;
+            size++;
+        }
+
+        int pollFirst() {
+            final int value = elements[head];
+            head = (head + 1) & (elements.length - 1);
+            size--;
+            return value;
+        }
+
+        int peekLast() {
+            return elements[(head + size - 1) & (elements.length - 1)];
+        }
+
+        int pollLast() {
+            size--;
+            return elements[(head + size) & (elements.length - 1)];
+        }
+    }
+}
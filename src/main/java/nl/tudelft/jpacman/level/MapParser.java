@@ -10,7 +10,13 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -20,6 +26,13 @@ import java.util.List;
  */
 public class MapParser {
 
+    /**
+     * The number of cells above which the levels of templates are created on
+     * a compact board, which needs a few bytes per square instead of an
+     * object per square.
+     */
+    private static final int COMPACT_CELLS = 1 << 16;
+
     /**
      * The factory that creates the levels.
      */
@@ -81,43 +94,152 @@ public class MapParser {
 
     private void addSquare(Square[][] grid, List<NPC> ghosts,
                            List<Square> startPositions, int x, int y, char c) {
-        switch (c) {
-            case ' ':
-                grid[x][y] = boardCreator.createGround();
-                break;
-            case '#':
-                grid[x][y] = boardCreator.createWall();
-                break;
-            case '.':
-                Square pelletSquare = boardCreator.createGround();
-                grid[x][y] = pelletSquare;
+        final byte type = CompiledMap.typeOf(c);
+        if (type < 0) {
+            throw new PacmanConfigurationException("Invalid character at "
+                    + x + "," + y + ": " + c);
+        }
+        grid[x][y] = makeSquare(type, ghosts, startPositions);
+    }
+
+    private Square makeSquare(byte type, List<NPC> ghosts, List<Square> startPositions) {
+        switch (type) {
+            case CompiledMap.WALL:
+                return boardCreator.createWall();
+            case CompiledMap.PELLET:
+                final Square pelletSquare = boardCreator.createGround();
                 levelCreator.createPellet().occupy(pelletSquare);
-                break;
-            case 'G':
-                grid[x][y] = makeGhostSquare(ghosts);
-                break;
-            case 'P':
-                Square playerSquare = boardCreator.createGround();
-                grid[x][y] = playerSquare;
+                return pelletSquare;
+            case CompiledMap.GHOST:
+                return makeGhostSquare(ghosts);
+            case CompiledMap.PLAYER:
+                final Square playerSquare = boardCreator.createGround();
                 startPositions.add(playerSquare);
-                break;
+                return playerSquare;
             default:
-                throw new PacmanConfigurationException("Invalid character at "
-                        + x + "," + y + ": " + c);
+                return boardCreator.createGround();
         }
     }
 
     private Square makeGhostSquare(List<NPC> ghosts) {
         final Square ghostSquare = boardCreator.createGround();
+        addGhost(ghostSquare, ghosts);
+        return ghostSquare;
+    }
+
+    private void addGhost(Square ghostSquare, List<NPC> ghosts) {
         final NPC ghost = levelCreator.createGhost();
         ghosts.add(ghost);
         ghost.occupy(ghostSquare);
-        return ghostSquare;
     }
 
     /**
-     * Parses the list of strings into a 2-dimensional character array and
-     * passes it on to {@link #parseMap(char[][])}.
+     * Creates the level stored in a compiled map, without going through its
+     * text representation.
+     *
+     * @param map The compiled map, as produced by the {@link MapCompiler}.
+     * @return The level as represented by the compiled map.
+     */
+    public AILevel parseMap(CompiledMap map) {
+        final Square[][] grid = new Square[map.getWidth()][map.getHeight()];
+        final List<NPC> ghosts = new ArrayList<>(map.getGhostCount());
+        final List<Square> startPositions = new ArrayList<>(map.getPlayerCount());
+
+        map.forEachCell((x, y, type) -> grid[x][y] = makeSquare(type, ghosts, startPositions));
+
+        final Board board = boardCreator.createBoard(grid);
+        return levelCreator.createLevel(board, ghosts, startPositions);
+    }
+
+    /**
+     * Creates a level in its initial state from the cells, links and units of
+     * a template, without decoding its map again.
+     *
+     * @param template The template of the level.
+     * @return A new level.
+     */
+    AILevel parseTemplate(LevelTemplate template) {
+        final Board board = createBoard(template);
+        for (int cell : template.getPellets()) {
+            levelCreator.createPellet().occupy(squareOf(board, cell));
+        }
+        final List<NPC> ghosts = new ArrayList<>(template.getGhosts().length);
+        for (int cell : template.getGhosts()) {
+            addGhost(squareOf(board, cell), ghosts);
+        }
+        final List<Square> startPositions = new ArrayList<>(template.getPlayers().length);
+        for (int cell : template.getPlayers()) {
+            startPositions.add(squareOf(board, cell));
+        }
+        return levelCreator.createLevel(board, ghosts, startPositions);
+    }
+
+    /**
+     * Creates the board of a template, on a {@link
+     * nl.tudelft.jpacman.board.CompactBoard} if it has more than
+     * {@value #COMPACT_CELLS} cells.
+     */
+    private Board createBoard(LevelTemplate template) {
+        final int width = template.getWidth(), height = template.getHeight();
+        if (width * height > COMPACT_CELLS) {
+            final byte[] types = new byte[width * height];
+            for (int cell = 0; cell < types.length; cell++) {
+                if (template.isWall(cell)) {
+                    types[cell] = BoardFactory.WALL_TYPE;
+                }
+            }
+            return boardCreator.createCompactBoard(width, height, types);
+        }
+        final Square[][] grid = new Square[width][height];
+        for (int cell = 0; cell < width * height; cell++) {
+            grid[cell % width][cell / width] = template.isWall(cell)
+                    ? boardCreator.createWall() : boardCreator.createGround();
+        }
+        return boardCreator.createBoard(grid, template.getLinks());
+    }
+
+    /**
+     * Creates the level stored in a compiled map on a {@link
+     * nl.tudelft.jpacman.board.CompactBoard}, which needs only a few bytes per
+     * square instead of one object per square.
+     *
+     * @param map The compiled map, as produced by the {@link MapCompiler}.
+     * @return The level as represented by the compiled map.
+     */
+    public AILevel parseCompactMap(CompiledMap map) {
+        final int width = map.getWidth(), height = map.getHeight();
+        final byte[] types = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (map.cellAt(x, y) == CompiledMap.WALL) {
+                    types[y * width + x] = BoardFactory.WALL_TYPE;
+                }
+            }
+        }
+        final Board board = boardCreator.createCompactBoard(width, height, types);
+
+        map.forEachCell((x, y, type) -> {
+            if (type == CompiledMap.PELLET) {
+                levelCreator.createPellet().occupy(board.squareAt(x, y));
+            }
+        });
+        final List<NPC> ghosts = new ArrayList<>(map.getGhostCount());
+        for (int i = 0; i < map.getGhostCount(); i++) {
+            addGhost(squareOf(board, map.getGhostSpawn(i)), ghosts);
+        }
+        final List<Square> startPositions = new ArrayList<>(map.getPlayerCount());
+        for (int i = 0; i < map.getPlayerCount(); i++) {
+            startPositions.add(squareOf(board, map.getPlayerSpawn(i)));
+        }
+        return levelCreator.createLevel(board, ghosts, startPositions);
+    }
+
+    private static Square squareOf(Board board, int cell) {
+        return board.squareAt(cell % board.getWidth(), cell / board.getWidth());
+    }
+
+    /**
+     * Parses the list of strings into a level, one row at a time.
      *
      * @param text The plain text, with every entry in the list being a equally
      *             sized row of squares on the board and the first element being
@@ -126,16 +248,13 @@ public class MapParser {
      * @throws PacmanConfigurationException If text lines are not properly formatted.
      */
     public AILevel parseMap(List<String> text) {
-        final int height = text.size(), width = text.get(0).length();
         checkMapFormat(text);
 
-        char[][] map = new char[width][height];
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                map[x][y] = text.get(y).charAt(x);
-            }
+        final GridBuilder builder = new GridBuilder();
+        for (String line : text) {
+            builder.addRow(line);
         }
-        return parseMap(map);
+        return builder.build();
     }
 
     /**
@@ -144,7 +263,7 @@ public class MapParser {
      * @param text Map to be checked.
      * @throws PacmanConfigurationException if map is not OK.
      */
-    private void checkMapFormat(List<String> text) {
+    static void checkMapFormat(List<String> text) {
         if (text == null) {
             throw new PacmanConfigurationException(
                     "Input text cannot be null.");
@@ -171,21 +290,169 @@ public class MapParser {
     }
 
     /**
-     * Parses the provided input stream as a character stream and passes it
-     * result to {@link #parseMap(List)}.
+     * Parses the provided input stream as a character stream, building the
+     * squares of every line as soon as it is read.
      *
      * @param source The input stream that will be read.
      * @return The parsed level as represented by the text on the input stream.
      * @throws IOException when the source could not be read.
+     * @throws PacmanConfigurationException If text lines are not properly formatted.
      */
     public AILevel parseMap(InputStream source) throws IOException {
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(
                 source, "UTF-8"))) {
-            List<String> lines = new ArrayList<>();
-            while (reader.ready()) {
-                lines.add(reader.readLine());
+            return parseMap(reader);
+        }
+    }
+
+    /**
+     * Parses the text read from the provided channel, building the squares of
+     * every line as soon as it is read.
+     *
+     * @param source The channel that will be read.
+     * @return The parsed level as represented by the text on the channel.
+     * @throws IOException when the source could not be read.
+     * @throws PacmanConfigurationException If text lines are not properly formatted.
+     */
+    public AILevel parseMap(ReadableByteChannel source) throws IOException {
+        try (BufferedReader reader = new BufferedReader(Channels.newReader(source, "UTF-8"))) {
+            return parseMap(reader);
+        }
+    }
+
+    /**
+     * Parses the text file at the given path, building the squares of every
+     * line as soon as it is read.
+     *
+     * @param file The text file containing the map.
+     * @return The parsed level as represented by the file.
+     * @throws IOException when the file could not be read.
+     * @throws PacmanConfigurationException If text lines are not properly formatted.
+     */
+    public AILevel parseMap(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, Charset.forName("UTF-8"))) {
+            return parseMap(reader);
+        }
+    }
+
+    private AILevel parseMap(BufferedReader reader) throws IOException {
+        final GridBuilder builder = new GridBuilder();
+        String line = reader.readLine();
+        while (line != null) {
+            builder.addRow(line);
+            line = reader.readLine();
+        }
+        return builder.build();
+    }
+
+    /**
+     * Builds the squares of a map one row at a time, so that the text of the
+     * map never has to be held in memory. The ghosts are only created once all
+     * rows are known, in the same (column by column) order as
+     * {@link #parseMap(char[][])}.
+     */
+    private final class GridBuilder {
+
+        /**
+         * The squares of the rows read so far, from top to bottom.
+         */
+        private final List<Square[]> rows = new ArrayList<>();
+
+        /**
+         * The cell ids (<code>y * width + x</code>) of the ghosts.
+         */
+        private final List<Integer> ghostCells = new ArrayList<>();
+
+        /**
+         * The cell ids (<code>y * width + x</code>) of the player starting squares.
+         */
+        private final List<Integer> playerCells = new ArrayList<>();
+
+        /**
+         * The width of the map, as given by its first row.
+         */
+        private int width;
+
+        /**
+         * Creates the squares of the next row of the map.
+         *
+         * @param line The text representation of the row.
+         * @throws PacmanConfigurationException If the row is empty, not as wide
+         *                                      as the first one or contains an invalid character.
+         */
+        void addRow(String line) {
+            final int y = rows.size();
+            if (y == 0) {
+                if (line.isEmpty()) {
+                    throw new PacmanConfigurationException(
+                            "Input text lines cannot be empty.");
+                }
+                width = line.length();
+            } else if (line.length() != width) {
+                throw new PacmanConfigurationException(
+                        "Input text lines are not of equal width (thrown at line " + y + ").");
+            }
+
+            final Square[] row = new Square[width];
+            for (int x = 0; x < width; x++) {
+                row[x] = makeCell(line.charAt(x), x, y);
+            }
+            rows.add(row);
+        }
+
+        private Square makeCell(char c, int x, int y) {
+            final byte type = CompiledMap.typeOf(c);
+            if (type < 0) {
+                throw new PacmanConfigurationException("Invalid character at "
+                        + x + "," + y + ": " + c);
             }
-            return parseMap(lines);
+            if (type == CompiledMap.GHOST) {
+                ghostCells.add(y * width + x);
+                return boardCreator.createGround();
+            } else if (type == CompiledMap.PLAYER) {
+                playerCells.add(y * width + x);
+                return boardCreator.createGround();
+            }
+            return makeSquare(type, null, null);
+        }
+
+        /**
+         * Creates the level from the rows added so far.
+         *
+         * @return The level as represented by the rows.
+         * @throws PacmanConfigurationException If no row was added.
+         */
+        AILevel build() {
+            if (rows.isEmpty()) {
+                throw new PacmanConfigurationException(
+                        "Input text must consist of at least 1 row.");
+            }
+            final int height = rows.size();
+            final Square[][] grid = new Square[width][height];
+            for (int y = 0; y < height; y++) {
+                final Square[] row = rows.set(y, null);
+                for (int x = 0; x < width; x++) {
+                    grid[x][y] = row[x];
+                }
+            }
+
+            final List<NPC> ghosts = new ArrayList<>(ghostCells.size());
+            for (int id : columnByColumn(ghostCells)) {
+                addGhost(grid[id % width][id / width], ghosts);
+            }
+            final List<Square> startPositions = new ArrayList<>(playerCells.size());
+            for (int id : columnByColumn(playerCells)) {
+                startPositions.add(grid[id % width][id / width]);
+            }
+
+            final Board board = boardCreator.createBoard(grid);
+            return levelCreator.createLevel(board, ghosts, startPositions);
+        }
+
+        private List<Integer> columnByColumn(List<Integer> cells) {
+            cells.sort(Comparator.<Integer>comparingInt(id -> id % width)
+                    .thenComparingInt(id -> id / width));
+            return cells;
         }
     }
 }
@@ -163,6 +163,7 @@ public class Player extends Unit {
         lives--;
         if (lives == 0) {
             setAlive(false);
+            listeners.forEach(l -> l.onPlayerDeath((IdentifiedPlayer) this));
         } else {
             //call the associated listeners (can only be one Level?)
             listeners.forEach(l -> l.onPlayerLoseLife((IdentifiedPlayer) this));
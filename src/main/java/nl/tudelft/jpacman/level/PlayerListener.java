@@ -11,4 +11,11 @@ interface PlayerListener {
      * @param p The Player that just lost one life.
      */
     void onPlayerLoseLife(IdentifiedPlayer p);
+
+    /**
+     * Called when a player loses his last life.
+     *
+     * @param p The Player that just died.
+     */
+    void onPlayerDeath(IdentifiedPlayer p);
 }
@@ -0,0 +1,117 @@
+package nl.tudelft.jpacman.level;
+
+import nl.tudelft.jpacman.PacmanConfigurationException;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Unit;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Supplier;
+
+/**
+ * A game recorded by a {@link ReplayRecorder}, which can be played again on
+ * a new level created from the same map and seed.
+ */
+public final class Replay {
+
+    /**
+     * The seed of the recorded level.
+     */
+    private final long seed;
+
+    /**
+     * The recorded events, after the header.
+     */
+    private final ByteBuffer events;
+
+    private Replay(long seed, ByteBuffer events) {
+        this.seed = seed;
+        this.events = events;
+    }
+
+    /**
+     * Reads a recorded game.
+     *
+     * @param file The file written by a {@link ReplayRecorder}.
+     * @return The recorded game.
+     * @throws IOException If the file could not be read or is not a replay.
+     */
+    public static Replay load(Path file) throws IOException {
+        final ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+        try {
+            if (data.getInt() != ReplayRecorder.MAGIC
+                    || data.get() != ReplayRecorder.VERSION) {
+                throw new IOException("Not a replay: " + file);
+            }
+            return new Replay(data.getLong(), data.slice());
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Not a replay: " + file, e);
+        }
+    }
+
+    /**
+     * @return The seed of the recorded level.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Plays the recorded game again by making its moves on a level. The level
+     * should be in progress, but its NPCs and AI should not have been started,
+     * since all their moves are in the recording.
+     *
+     * @param level    A level created from the recorded map and seed.
+     * @param players  The source of the players to register when the recorded
+     *                 players were registered.
+     * @param realTime Whether to wait between moves as long as in the recorded
+     *                 game, instead of making them as fast as possible.
+     * @throws PacmanConfigurationException If the level has another seed.
+     */
+    public void play(Level level, Supplier<? extends IdentifiedPlayer> players,
+                     boolean realTime) {
+        if (level.getSeed() != seed) {
+            throw new PacmanConfigurationException("The replay was recorded with seed "
+                    + seed + ", not " + level.getSeed() + ".");
+        }
+        final ByteBuffer data = events.duplicate();
+        while (data.hasRemaining()) {
+            final long delta = getVarint(data);
+            final int code = (int) getVarint(data);
+            if (realTime && delta > 0 && !sleep(delta)) {
+                return;
+            }
+            if ((code & ReplayRecorder.REGISTER) != 0) {
+                level.registerPlayer(players.get());
+            } else {
+                final Unit unit = level.unitWithId(code >>> ReplayRecorder.ID_SHIFT);
+                level.move(unit, Direction.values()[code & (ReplayRecorder.REGISTER - 1)]);
+            }
+        }
+    }
+
+    private static long getVarint(ByteBuffer data) {
+        long value = 0;
+        int shift = 0;
+        byte next;
+        do {
+            next = data.get();
+            value |= (long) (next & ReplayRecorder.VARINT_BITS) << shift;
+            shift += ReplayRecorder.VARINT_SHIFT;
+        } while ((next & ReplayRecorder.VARINT_MORE) != 0);
+        return value;
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package nl.tudelft.jpacman.level;
+
+import nl.tudelft.jpacman.board.Direction;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes the moves of a level to a file, so that the game can be played
+ * again with {@link Replay}.
+ * <p>
+ * The file starts with a header holding the seed of the level, followed by
+ * an event for every registered player and every move. An event is the time
+ * since the previous event and a code, both written as variable length
+ * integers of seven bits per byte. The code holds the id of the unit shifted
+ * left by three bits, and either {@link #REGISTER} or the ordinal of the
+ * direction of the move in the lower bits. Most events take two bytes.
+ * <p>
+ * Events are collected in a buffer and only written to the file when it is
+ * full, so recording a move hardly takes more than storing a few bytes.
+ */
+public final class ReplayRecorder implements Closeable {
+
+    /**
+     * The first four bytes of a replay file, "JPRP".
+     */
+    static final int MAGIC = 0x4A505250;
+
+    /**
+     * The version of the file format.
+     */
+    static final byte VERSION = 1;
+
+    /**
+     * The code bit of an event registering a player.
+     */
+    static final int REGISTER = 4;
+
+    /**
+     * The number of bits of a code below the id of the unit.
+     */
+    static final int ID_SHIFT = 3;
+
+    /**
+     * The bits of a variable length integer byte holding data.
+     */
+    static final int VARINT_BITS = 0x7F;
+
+    /**
+     * The bit of a variable length integer byte that marks more bytes follow.
+     */
+    static final int VARINT_MORE = 0x80;
+
+    /**
+     * The number of data bits in a variable length integer byte.
+     */
+    static final int VARINT_SHIFT = 7;
+
+    /**
+     * The size of the buffer of events not yet written.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The maximum number of bytes an event takes.
+     */
+    private static final int MAX_EVENT_SIZE = 20;
+
+    /**
+     * The file written to.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The events not yet written to the file.
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /**
+     * The time of the last event, or <code>-1</code> before the first one.
+     */
+    private long lastTime = -1;
+
+    /**
+     * Whether events are still recorded, which stops when the file cannot be
+     * written.
+     */
+    private boolean recording = true;
+
+    private ReplayRecorder(FileChannel channel, long seed) {
+        this.channel = channel;
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        buffer.putLong(seed);
+    }
+
+    /**
+     * Creates a new recording, replacing the file if it exists.
+     *
+     * @param file The file to record to.
+     * @param seed The seed of the level recorded.
+     * @return The new recorder.
+     * @throws IOException If the file could not be created.
+     */
+    public static ReplayRecorder open(Path file, long seed) throws IOException {
+        return new ReplayRecorder(FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), seed);
+    }
+
+    /**
+     * Records that a player was registered on the level.
+     *
+     * @param id   The id of the player on the level.
+     * @param time The time of the registration in milliseconds.
+     */
+    synchronized void recordRegistration(int id, long time) {
+        record(id << ID_SHIFT | REGISTER, time);
+    }
+
+    /**
+     * Records a move.
+     *
+     * @param id        The id of the unit on the level.
+     * @param direction The direction of the move.
+     * @param time      The time of the move in milliseconds.
+     */
+    synchronized void recordMove(int id, Direction direction, long time) {
+        record(id << ID_SHIFT | direction.ordinal(), time);
+    }
+
+    private void record(int code, long time) {
+        if (!recording) {
+            return;
+        }
+        if (buffer.remaining() < MAX_EVENT_SIZE) {
+            flush();
+        }
+        long delta = 0;
+        if (lastTime >= 0) {
+            delta = Math.max(0, time - lastTime);
+        }
+        lastTime = time;
+        putVarint(delta);
+        putVarint(code);
+    }
+
+    private void putVarint(long value) {
+        long rest = value;
+        while ((rest & ~VARINT_BITS) != 0) {
+            buffer.put((byte) (rest & VARINT_BITS | VARINT_MORE));
+            rest >>>= VARINT_SHIFT;
+        }
+        buffer.put((byte) rest);
+    }
+
+    private void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            System.err.println("Unable to record the replay: " + e.getMessage());
+            recording = false;
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes the remaining events and closes the file.
+     *
+     * @throws IOException If the file could not be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (recording) {
+            flush();
+            recording = false;
+        }
+        channel.close();
+    }
+}
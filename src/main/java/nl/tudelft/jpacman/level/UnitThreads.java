@@ -0,0 +1,94 @@
+package nl.tudelft.jpacman.level;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * The threads an {@link AILevel} moves its units on, when every unit moves on
+ * its own schedule.
+ * <p>
+ * On Java 21 and later every unit gets a virtual thread running a simple
+ * loop, which sleeps between its moves, so even hundreds of thousands of units
+ * only take a few platform threads. Since the game is built for Java 8,
+ * virtual threads are looked up when the game starts. When the JVM does not
+ * have them, the moves of all units are scheduled as tasks on one
+ * {@link #scheduler() shared scheduler} instead, as a platform thread per
+ * unit would not scale.
+ */
+public final class UnitThreads {
+
+    /**
+     * The factory of virtual threads, or <code>null</code> if the JVM does
+     * not support them.
+     */
+    private static final ThreadFactory VIRTUAL = findVirtual();
+
+    /**
+     * The scheduler moving the units of all levels without virtual threads,
+     * or <code>null</code> if it has not been needed yet.
+     */
+    private static ScheduledExecutorService scheduler;
+
+    private UnitThreads() {
+    }
+
+    /**
+     * @return A factory of virtual threads, or <code>null</code> if the JVM
+     * does not support them.
+     */
+    public static ThreadFactory virtual() {
+        return VIRTUAL;
+    }
+
+    /**
+     * @return A factory of ordinary platform threads.
+     */
+    public static ThreadFactory platform() {
+        return Executors.defaultThreadFactory();
+    }
+
+    /**
+     * @return A factory of virtual threads if the JVM supports them, or of
+     * platform threads otherwise.
+     */
+    public static ThreadFactory preferred() {
+        if (VIRTUAL != null) {
+            return VIRTUAL;
+        }
+        return platform();
+    }
+
+    /**
+     * Returns the scheduler shared by all levels whose units do not have
+     * threads of their own. It has a daemon thread per processor, which
+     * lives as long as the JVM.
+     *
+     * @return The shared scheduler.
+     */
+    public static synchronized ScheduledExecutorService scheduler() {
+        if (scheduler == null) {
+            final ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(
+                    Runtime.getRuntime().availableProcessors(), task -> {
+                        final Thread thread = new Thread(task, "jpacman-units");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            pool.setRemoveOnCancelPolicy(true);
+            scheduler = pool;
+        }
+        return scheduler;
+    }
+
+    private static ThreadFactory findVirtual() {
+        try {
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            final Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
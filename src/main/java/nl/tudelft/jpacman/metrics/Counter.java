@@ -0,0 +1,32 @@
+package nl.tudelft.jpacman.metrics;
+
+/**
+ * The events that are counted.
+ */
+public enum Counter {
+
+    /**
+     * A unit moving to another square.
+     */
+    MOVES,
+
+    /**
+     * A moving unit colliding with an occupant of the square it moved to.
+     */
+    COLLISIONS,
+
+    /**
+     * A player eating a pellet.
+     */
+    PELLETS_EATEN,
+
+    /**
+     * A search for a shortest path.
+     */
+    PATH_QUERIES,
+
+    /**
+     * A node expanded by a path search, or by the search of an AI strategy.
+     */
+    NODES_EXPANDED
+}
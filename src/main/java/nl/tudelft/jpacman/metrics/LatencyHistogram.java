@@ -0,0 +1,202 @@
+package nl.tudelft.jpacman.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations that many threads record into without locking.
+ * <p>
+ * Like an HDR histogram, the buckets grow exponentially: every power of two
+ * is split into {@value #SUB_BUCKETS} buckets of equal width, so a value is
+ * known to within 1/{@value #SUB_BUCKETS} of itself, from a nanosecond up to
+ * centuries, in under a thousand counters. Recording a value is a single
+ * atomic increment of its bucket, plus one of the total.
+ */
+public final class LatencyHistogram implements LatencyMXBean {
+
+    /**
+     * The number of bits of a value that pick its bucket within its power of two.
+     */
+    private static final int SUB_BITS = 4;
+
+    /**
+     * The number of buckets every power of two is split into.
+     */
+    static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    /**
+     * The number of buckets, enough for every positive long.
+     */
+    static final int BUCKETS = (Long.SIZE - SUB_BITS) * SUB_BUCKETS;
+
+    /**
+     * The percentage of the median.
+     */
+    private static final double MEDIAN = 50;
+
+    /**
+     * The percentage of the 99th percentile.
+     */
+    private static final double P99 = 99;
+
+    /**
+     * The percentage of the 99.9th percentile.
+     */
+    private static final double P999 = 99.9;
+
+    /**
+     * The number of values recorded in every bucket.
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * The sum of the values recorded, in nanoseconds.
+     */
+    private final LongAdder total = new LongAdder();
+
+    /**
+     * The largest value recorded, in nanoseconds.
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos The duration, in nanoseconds. Negative durations count as 0.
+     */
+    public void record(long nanos) {
+        final long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        total.add(value);
+        long largest = max.get();
+        while (value > largest && !max.compareAndSet(largest, value)) {
+            largest = max.get();
+        }
+    }
+
+    /**
+     * Returns the bucket a value is counted in.
+     *
+     * @param value A value that is not negative.
+     * @return The index of its bucket.
+     */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        final int sub = (int) (value >>> exponent - SUB_BITS) & SUB_BUCKETS - 1;
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Returns the smallest value counted in a bucket.
+     *
+     * @param bucket The index of the bucket.
+     * @return The smallest value of the bucket.
+     */
+    static long lowestOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        final long sub = SUB_BUCKETS + bucket % SUB_BUCKETS;
+        return sub << exponent - SUB_BITS;
+    }
+
+    /**
+     * Returns the largest value counted in a bucket.
+     *
+     * @param bucket The index of the bucket.
+     * @return The largest value of the bucket.
+     */
+    static long highestOf(int bucket) {
+        if (bucket == BUCKETS - 1) {
+            return Long.MAX_VALUE;
+        }
+        return lowestOf(bucket + 1) - 1;
+    }
+
+    /**
+     * Returns a value that a percentage of the durations recorded do not
+     * exceed. It is the largest value of the bucket it is in, and at most the
+     * largest duration recorded.
+     *
+     * @param percentile The percentage, from 0 to 100.
+     * @return The value, in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        final long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestOf(i), max.get());
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    @Override
+    public long getTotalNanos() {
+        return total.sum();
+    }
+
+    @Override
+    public long getMeanNanos() {
+        final long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        return getTotalNanos() / count;
+    }
+
+    @Override
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    @Override
+    public long getMedianNanos() {
+        return getValueAtPercentile(MEDIAN);
+    }
+
+    @Override
+    public long getP99Nanos() {
+        return getValueAtPercentile(P99);
+    }
+
+    @Override
+    public long getP999Nanos() {
+        return getValueAtPercentile(P999);
+    }
+
+    /**
+     * Forgets the durations recorded. Durations recorded meanwhile may be
+     * partly forgotten.
+     */
+    @Override
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        total.reset();
+        max.set(0);
+    }
+}
@@ -0,0 +1,48 @@
+package nl.tudelft.jpacman.metrics;
+
+/**
+ * The management interface of a {@link LatencyHistogram}, as exported over
+ * JMX. All durations are in nanoseconds.
+ */
+public interface LatencyMXBean {
+
+    /**
+     * @return The number of durations recorded.
+     */
+    long getCount();
+
+    /**
+     * @return The sum of the durations recorded.
+     */
+    long getTotalNanos();
+
+    /**
+     * @return The mean duration, or 0 if nothing was recorded.
+     */
+    long getMeanNanos();
+
+    /**
+     * @return The longest duration recorded.
+     */
+    long getMaxNanos();
+
+    /**
+     * @return The median duration.
+     */
+    long getMedianNanos();
+
+    /**
+     * @return The duration that 99% of the durations do not exceed.
+     */
+    long getP99Nanos();
+
+    /**
+     * @return The duration that 99.9% of the durations do not exceed.
+     */
+    long getP999Nanos();
+
+    /**
+     * Forgets the durations recorded.
+     */
+    void reset();
+}
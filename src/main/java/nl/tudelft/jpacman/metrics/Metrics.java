@@ -0,0 +1,365 @@
+package nl.tudelft.jpacman.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The durations of the operations of the game, in a {@link LatencyHistogram}
+ * per operation and type of unit, and the counts of the events of the game.
+ * <p>
+ * Nothing is recorded until the metrics are enabled, and while they are not,
+ * timing an operation costs a single read of a volatile field. Once enabled,
+ * the metrics are exported over JMX, under the domain {@value #DOMAIN}, and
+ * can be dumped as text. Setting the system property
+ * <code>jpacman.metrics</code> to a number of seconds enables them from the
+ * start and dumps them to the standard output that often, or never if it is
+ * 0.
+ * <p>
+ * An operation is timed as follows:
+ * <pre>
+ * final long start = Metrics.start();
+ * ...
+ * Metrics.record(Operation.MOVE, unit.getClass(), start);
+ * </pre>
+ */
+public final class Metrics {
+
+    /**
+     * The JMX domain of the metrics.
+     */
+    public static final String DOMAIN = "nl.tudelft.jpacman";
+
+    /**
+     * The start of an operation that is not timed.
+     */
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+
+    /**
+     * The number of nanoseconds in a microsecond.
+     */
+    private static final double MICROS = 1000.0;
+
+    /**
+     * Whether the metrics are recorded.
+     */
+    private static volatile boolean enabled;
+
+    /**
+     * The histograms of every operation, by type of unit.
+     */
+    private static final Map<Operation, ConcurrentMap<Class<?>, LatencyHistogram>> HISTOGRAMS =
+            new EnumMap<>(Operation.class);
+
+    /**
+     * The count of every event, by ordinal.
+     */
+    private static final LongAdder[] COUNTERS = new LongAdder[Counter.values().length];
+
+    /**
+     * Whether the metrics were exported over JMX.
+     */
+    private static final AtomicBoolean EXPORTED = new AtomicBoolean();
+
+    /**
+     * The thread dumping the metrics periodically, created when first needed.
+     */
+    private static ScheduledExecutorService dumper;
+
+    static {
+        for (Operation operation : Operation.values()) {
+            HISTOGRAMS.put(operation, new ConcurrentHashMap<>());
+        }
+        for (int i = 0; i < COUNTERS.length; i++) {
+            COUNTERS[i] = new LongAdder();
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * Enables the metrics if the system property <code>jpacman.metrics</code>
+     * is set, and dumps them periodically if it is more than 0 seconds.
+     */
+    public static void enableFromProperty() {
+        final String property = System.getProperty("jpacman.metrics");
+        if (property == null || property.isEmpty()) {
+            return;
+        }
+        enable();
+        final long seconds = Long.parseLong(property);
+        if (seconds > 0) {
+            dumpEvery(seconds, TimeUnit.SECONDS, System.out);
+        }
+    }
+
+    /**
+     * Starts recording the metrics, and exports them over JMX.
+     */
+    public static void enable() {
+        export();
+        enabled = true;
+    }
+
+    /**
+     * Stops recording the metrics. The metrics recorded so far are kept.
+     */
+    public static void disable() {
+        enabled = false;
+    }
+
+    /**
+     * @return <code>true</code> iff the metrics are recorded.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the start of an operation, to be passed to
+     * {@link #record(Operation, Class, long)} once it is done.
+     *
+     * @return The current time in nanoseconds, or a value telling the
+     * operation is not timed if the metrics are not recorded.
+     */
+    public static long start() {
+        if (enabled) {
+            return System.nanoTime();
+        }
+        return NOT_TIMED;
+    }
+
+    /**
+     * Records the duration of an operation, if it was timed.
+     *
+     * @param operation The operation.
+     * @param type      The type of the unit it was done by or for.
+     * @param start     The start of the operation, as returned by {@link #start()}.
+     */
+    public static void record(Operation operation, Class<?> type, long start) {
+        if (start != NOT_TIMED) {
+            histogram(operation, type).record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Counts an event, if the metrics are recorded.
+     *
+     * @param counter The event.
+     */
+    public static void count(Counter counter) {
+        if (enabled) {
+            COUNTERS[counter.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Counts a number of events, if the metrics are recorded.
+     *
+     * @param counter The event.
+     * @param amount  The number of times it happened.
+     */
+    public static void count(Counter counter, long amount) {
+        if (enabled) {
+            COUNTERS[counter.ordinal()].add(amount);
+        }
+    }
+
+    /**
+     * @param counter An event.
+     * @return The number of times it was counted.
+     */
+    public static long getCount(Counter counter) {
+        return COUNTERS[counter.ordinal()].sum();
+    }
+
+    /**
+     * Returns the histogram of an operation for a type of unit, creating it
+     * if there is none yet.
+     *
+     * @param operation The operation.
+     * @param type      The type of unit.
+     * @return The histogram of the durations of the operation.
+     */
+    public static LatencyHistogram histogram(Operation operation, Class<?> type) {
+        final ConcurrentMap<Class<?>, LatencyHistogram> byType = HISTOGRAMS.get(operation);
+        LatencyHistogram histogram = byType.get(type);
+        if (histogram == null) {
+            histogram = byType.computeIfAbsent(type, t -> new LatencyHistogram());
+            if (EXPORTED.get()) {
+                export(operation, type, histogram);
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Sets the counters to 0 and forgets the durations recorded.
+     */
+    public static void reset() {
+        for (LongAdder counter : COUNTERS) {
+            counter.reset();
+        }
+        for (Map<Class<?>, LatencyHistogram> byType : HISTOGRAMS.values()) {
+            byType.values().forEach(LatencyHistogram::reset);
+        }
+    }
+
+    /**
+     * Dumps the metrics periodically, on a thread of their own.
+     *
+     * @param period The time between the dumps.
+     * @param unit   The unit of the period.
+     * @param out    The stream to dump the metrics to.
+     * @return The scheduled dumps, to cancel them.
+     */
+    public static synchronized ScheduledFuture<?> dumpEvery(long period, TimeUnit unit,
+                                                            PrintStream out) {
+        if (dumper == null) {
+            dumper = Executors.newSingleThreadScheduledExecutor(task -> {
+                final Thread thread = new Thread(task, "jpacman-metrics");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return dumper.scheduleAtFixedRate(() -> out.print(dump()), period, period, unit);
+    }
+
+    /**
+     * Returns the counters, and the count, mean, median, 99th and 99.9th
+     * percentile and maximum of every histogram in microseconds, as a table.
+     *
+     * @return The metrics, as text.
+     */
+    public static String dump() {
+        final StringBuilder text = new StringBuilder();
+        for (Counter counter : Counter.values()) {
+            text.append(String.format("%-14s %12d%n", counter, getCount(counter)));
+        }
+        text.append(String.format("%-13s %-24s %10s %10s %10s %10s %10s %10s%n", "operation",
+                "unit", "count", "mean", "p50", "p99", "p99.9", "max"));
+        for (Operation operation : Operation.values()) {
+            final Map<String, LatencyHistogram> byName = new TreeMap<>();
+            HISTOGRAMS.get(operation).forEach((type, h) -> byName.put(nameOf(type), h));
+            byName.forEach((name, h) -> text.append(String.format(
+                    "%-13s %-24s %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n", operation, name,
+                    h.getCount(), h.getMeanNanos() / MICROS, h.getMedianNanos() / MICROS,
+                    h.getP99Nanos() / MICROS, h.getP999Nanos() / MICROS,
+                    h.getMaxNanos() / MICROS)));
+        }
+        return text.toString();
+    }
+
+    private static String nameOf(Class<?> type) {
+        if (type.getSimpleName().isEmpty()) {
+            return type.getName();
+        }
+        return type.getSimpleName();
+    }
+
+    /**
+     * Exports the metrics and the histograms so far over JMX, once.
+     */
+    private static void export() {
+        if (!EXPORTED.compareAndSet(false, true)) {
+            return;
+        }
+        register(new Bean(), DOMAIN + ":type=Metrics");
+        HISTOGRAMS.forEach((operation, byType) ->
+                byType.forEach((type, histogram) -> export(operation, type, histogram)));
+    }
+
+    private static void export(Operation operation, Class<?> type, LatencyHistogram histogram) {
+        register(histogram, DOMAIN + ":type=Latency,operation=" + operation
+                + ",unit=" + ObjectName.quote(nameOf(type)));
+    }
+
+    /**
+     * Registers a bean with the platform MBean server, unless a bean of the
+     * same name was registered before.
+     */
+    private static void register(Object bean, String name) {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            final ObjectName objectName = new ObjectName(name);
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(bean, objectName);
+            }
+        } catch (InstanceAlreadyExistsException e) {
+            // registered by another thread meanwhile
+            return;
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The metrics as exported over JMX.
+     */
+    private static final class Bean implements MetricsMXBean {
+
+        @Override
+        public boolean isEnabled() {
+            return Metrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enable) {
+            if (enable) {
+                enable();
+            } else {
+                disable();
+            }
+        }
+
+        @Override
+        public long getMoves() {
+            return getCount(Counter.MOVES);
+        }
+
+        @Override
+        public long getCollisions() {
+            return getCount(Counter.COLLISIONS);
+        }
+
+        @Override
+        public long getPelletsEaten() {
+            return getCount(Counter.PELLETS_EATEN);
+        }
+
+        @Override
+        public long getPathQueries() {
+            return getCount(Counter.PATH_QUERIES);
+        }
+
+        @Override
+        public long getNodesExpanded() {
+            return getCount(Counter.NODES_EXPANDED);
+        }
+
+        @Override
+        public String dump() {
+            return Metrics.dump();
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package nl.tudelft.jpacman.metrics;
+
+/**
+ * The management interface of the {@link Metrics}, as exported over JMX.
+ * The histograms of the durations are exported as {@link LatencyMXBean}s of
+ * their own.
+ */
+public interface MetricsMXBean {
+
+    /**
+     * @return <code>true</code> iff the metrics are recorded.
+     */
+    boolean isEnabled();
+
+    /**
+     * Starts or stops recording the metrics.
+     *
+     * @param enabled Whether to record the metrics.
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * @return The number of moves made.
+     */
+    long getMoves();
+
+    /**
+     * @return The number of collisions handled.
+     */
+    long getCollisions();
+
+    /**
+     * @return The number of pellets eaten.
+     */
+    long getPelletsEaten();
+
+    /**
+     * @return The number of shortest paths searched for.
+     */
+    long getPathQueries();
+
+    /**
+     * @return The number of nodes expanded by searches.
+     */
+    long getNodesExpanded();
+
+    /**
+     * @return The counters and histograms, as a table of text.
+     */
+    String dump();
+
+    /**
+     * Sets the counters to 0 and forgets the durations recorded.
+     */
+    void reset();
+}
@@ -0,0 +1,39 @@
+package nl.tudelft.jpacman.metrics;
+
+/**
+ * The operations whose durations are recorded, by type of unit.
+ */
+public enum Operation {
+
+    /**
+     * An NPC deciding on its next move.
+     */
+    NPC_DECISION,
+
+    /**
+     * An AI strategy deciding on the next move of its player.
+     */
+    AI_DECISION,
+
+    /**
+     * A move on a level, from asking for it to having made it, including
+     * the wait for the lock of the level.
+     */
+    MOVE,
+
+    /**
+     * Waiting for the lock of a level to make a move.
+     */
+    LOCK_WAIT,
+
+    /**
+     * Handling the collision of a moving unit with an occupant of the square
+     * it moved to.
+     */
+    COLLISION,
+
+    /**
+     * Painting the board.
+     */
+    PAINT
+}
@@ -1,8 +1,10 @@
 package nl.tudelft.jpacman.npc;
 
+import nl.tudelft.jpacman.GameRandom;
 import nl.tudelft.jpacman.board.Direction;
 import nl.tudelft.jpacman.board.Unit;
 
+
 /**
  * A non-player unit.
  *
@@ -10,6 +12,31 @@ import nl.tudelft.jpacman.board.Unit;
  */
 public abstract class NPC extends Unit {
 
+    /**
+     * The source of the random choices of this unit, which is only used by
+     * the thread moving it.
+     */
+    private GameRandom random = new GameRandom();
+
+    /**
+     * @return The source of the random choices of this unit.
+     */
+    public GameRandom getRandom() {
+        return random;
+    }
+
+    /**
+     * Sets the source of the random choices of this unit, usually split off
+     * the random of its level so that a game can be played again from its
+     * seed.
+     *
+     * @param source The new source of randomness.
+     */
+    public void setRandom(GameRandom source) {
+        assert source != null;
+        this.random = source;
+    }
+
     /**
      * The time that should be taken between moves.
      *
@@ -5,9 +5,7 @@ import nl.tudelft.jpacman.board.Square;
 import nl.tudelft.jpacman.level.IdentifiedPlayer;
 import nl.tudelft.jpacman.sprite.Sprite;
 
-import java.util.List;
 import java.util.Map;
-import java.util.Random;
 
 /**
  * <p>
@@ -63,7 +61,7 @@ public class Blinky extends Ghost {
     public long getInterval() {
         // TODO Blinky should speed up when there are a few pellets left, but he
         // has no way to find out how many there are.
-        return MOVE_INTERVAL + new Random().nextInt(INTERVAL_VARIATION);
+        return MOVE_INTERVAL + getRandom().nextInt(INTERVAL_VARIATION);
     }
 
     /**
@@ -82,17 +80,16 @@ public class Blinky extends Ghost {
     public Direction nextMove() {
         // TODO Blinky should patrol his corner every once in a while
         // TODO Implement his actual behaviour instead of simply chasing.
-        final Square target = Navigation.findNearest(IdentifiedPlayer.class, getSquare())
+        final Square target = findNearest(IdentifiedPlayer.class)
                 .getSquare();
 
         if (target == null) {
             return randomMove();
         }
 
-        List<Direction> path = Navigation.shortestPath(getSquare(), target,
-                this);
-        if (path != null && !path.isEmpty()) {
-            return path.get(0);
+        final Direction move = moveTowards(target, Navigation.SearchMode.BIDIRECTIONAL);
+        if (move != null) {
+            return move;
         }
         return randomMove();
     }
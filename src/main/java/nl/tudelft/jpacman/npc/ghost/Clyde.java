@@ -8,7 +8,6 @@ import nl.tudelft.jpacman.sprite.Sprite;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
 
 /**
  * <p>
@@ -80,7 +79,7 @@ public class Clyde extends Ghost {
 
     @Override
     public long getInterval() {
-        return MOVE_INTERVAL + new Random().nextInt(INTERVAL_VARIATION);
+        return MOVE_INTERVAL + getRandom().nextInt(INTERVAL_VARIATION);
     }
 
     /**
@@ -101,14 +100,14 @@ public class Clyde extends Ghost {
      */
     @Override
     public Direction nextMove() {
-        final Square target = Navigation.findNearest(IdentifiedPlayer.class, getSquare())
+        final Square target = findNearest(IdentifiedPlayer.class)
                 .getSquare();
         if (target == null) {
             return randomMove();
         }
 
         List<Direction> path = Navigation.shortestPath(getSquare(), target,
-                this);
+                this, Navigation.SearchMode.BIDIRECTIONAL);
         if (path != null && !path.isEmpty()) {
             Direction d = path.get(0);
             if (path.size() <= SHYNESS) {
@@ -1,14 +1,16 @@
 package nl.tudelft.jpacman.npc.ghost;
 
+import nl.tudelft.jpacman.board.Board;
 import nl.tudelft.jpacman.board.Direction;
 import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
+import nl.tudelft.jpacman.board.UnitRegistry;
 import nl.tudelft.jpacman.npc.NPC;
 import nl.tudelft.jpacman.sprite.Sprite;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
 
 /**
  * An antagonist in the game of Pac-Man, a ghost.
@@ -22,6 +24,12 @@ public abstract class Ghost extends NPC {
      */
     private static final int VALUE = 10;
 
+    /**
+     * The number of squares from which a board is searched with its
+     * {@link HierarchicalPathfinder} instead of square by square.
+     */
+    private static final int HIERARCHICAL_SQUARES = 1 << 14;
+
     /**
      * The identity of the ghost (as defined by its colour).
      */
@@ -65,7 +73,50 @@ public abstract class Ghost extends NPC {
         if (directions.isEmpty()) {
             return null;
         }
-        return directions.get(new Random().nextInt(directions.size()));
+        return directions.get(getRandom().nextInt(directions.size()));
+    }
+
+    /**
+     * Finds the nearest unit of the given type, from the registry of the
+     * level if this ghost is listed in one, or by searching the board from
+     * the square of this ghost otherwise.
+     *
+     * @param type The type of unit to search for.
+     * @return The nearest unit of the given type, or <code>null</code> if
+     * no such unit could be found.
+     */
+    protected Unit findNearest(Class<? extends Unit> type) {
+        final UnitRegistry registry = getRegistry();
+        if (registry != null) {
+            return registry.nearest(type, getSquare());
+        }
+        return Navigation.findNearest(type, getSquare());
+    }
+
+    /**
+     * Determines the first move towards a square. On a large board of a level,
+     * that is the move of the path found by the {@link HierarchicalPathfinder}
+     * of the board, which only searches the sectors on the way. Otherwise it
+     * is the first move of the shortest path found with the given mode.
+     *
+     * @param target The square to head for.
+     * @param mode   The way to search for the shortest path on small boards.
+     * @return The first move, or <code>null</code> if the target is this
+     * square or cannot be reached.
+     */
+    protected Direction moveTowards(Square target, Navigation.SearchMode mode) {
+        final UnitRegistry registry = getRegistry();
+        if (registry != null) {
+            final Board board = registry.getBoard();
+            if (board.getWidth() * board.getHeight() >= HIERARCHICAL_SQUARES) {
+                return HierarchicalPathfinder.forBoard(board).nextMove(getSquare(), target);
+            }
+        }
+        final List<Direction> path = Navigation.shortestPath(getSquare(), target, this, mode);
+        if (path == null || path.isEmpty()) {
+            return null;
+        }
+        return path.get(0);
     }
 
     /**
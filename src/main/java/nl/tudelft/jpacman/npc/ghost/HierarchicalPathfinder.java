@@ -0,0 +1,624 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import com.google.common.cache.CacheBuilder;
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.BoardLayout;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.metrics.Counter;
+import nl.tudelft.jpacman.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Finds paths on large boards with hierarchical path-finding (HPA*).
+ * <p>
+ * The board is divided into square sectors. Where accessible squares of two
+ * sectors touch, the middle of every stretch of such squares (or both ends of
+ * a long stretch) becomes an entrance. The distances between the entrances of
+ * a sector are computed once, which gives a small abstract graph of the whole
+ * board. A query connects the start and destination to the entrances of their
+ * sectors, searches the abstract graph with A*, and only works out the
+ * concrete moves in the first sector.
+ * <p>
+ * Paths found this way are not always the shortest ones, but are close to
+ * them, and the time a query takes grows with the number of sectors on the
+ * way rather than with the number of squares. The abstraction assumes that
+ * squares are linked both ways, as {@link nl.tudelft.jpacman.board.BoardFactory}
+ * links them, and is shared by all boards with the same layout.
+ */
+public final class HierarchicalPathfinder {
+
+    /**
+     * The default width and height of a sector.
+     */
+    public static final int DEFAULT_SECTOR_SIZE = 16;
+
+    /**
+     * The length from which a stretch of touching squares gets two entrances.
+     */
+    private static final int LONG_ENTRANCE = 6;
+
+    /**
+     * The number of layouts whose abstractions are kept at most.
+     */
+    private static final int SHARED_LAYOUTS = 16;
+
+    /**
+     * The abstractions of the most recently used layouts, by layout hash. They are
+     * softly referenced, so they are dropped when memory runs low.
+     */
+    private static final ConcurrentMap<String, HierarchicalPathfinder> SHARED =
+            CacheBuilder.newBuilder().maximumSize(SHARED_LAYOUTS).softValues()
+                    .<String, HierarchicalPathfinder>build().asMap();
+
+    /**
+     * The layout of the boards this abstraction is for.
+     */
+    private final BoardLayout layout;
+
+    /**
+     * The width and height of a sector.
+     */
+    private final int sectorSize;
+
+    /**
+     * The number of sectors in a row.
+     */
+    private final int sectorColumns;
+
+    /**
+     * The abstract node of every node, or {@link BoardLayout#NONE} if it is not an entrance.
+     */
+    private final int[] entranceOf;
+
+    /**
+     * The node of every entrance.
+     */
+    private final int[] entrances;
+
+    /**
+     * The entrances of every sector.
+     */
+    private final int[][] sectorEntrances;
+
+    /**
+     * The index in {@link #edgeTargets} of the first edge of every entrance,
+     * followed by the number of edges.
+     */
+    private final int[] edgeStart;
+
+    /**
+     * The entrance every edge leads to.
+     */
+    private final int[] edgeTargets;
+
+    /**
+     * The length of every edge.
+     */
+    private final int[] edgeCosts;
+
+    /**
+     * Builds the abstraction of a layout.
+     *
+     * @param layout     The layout.
+     * @param sectorSize The width and height of a sector.
+     */
+    HierarchicalPathfinder(BoardLayout layout, int sectorSize) {
+        assert sectorSize > 1;
+        this.layout = layout;
+        this.sectorSize = sectorSize;
+        this.sectorColumns = (layout.getWidth() + sectorSize - 1) / sectorSize;
+        final int sectorRows = (layout.getHeight() + sectorSize - 1) / sectorSize;
+
+        this.entranceOf = new int[layout.getNodeCount()];
+        Arrays.fill(entranceOf, BoardLayout.NONE);
+        final List<int[]> crossings = findCrossings();
+        final List<Integer> found = new ArrayList<>();
+        for (int[] crossing : crossings) {
+            addEntrance(crossing[0], found);
+            addEntrance(layout.neighbour(crossing[0], crossing[1]), found);
+        }
+        this.entrances = toArray(found);
+
+        final List<List<Integer>> bySector = new ArrayList<>();
+        for (int i = 0; i < sectorColumns * sectorRows; i++) {
+            bySector.add(new ArrayList<>());
+        }
+        for (int entrance = 0; entrance < entrances.length; entrance++) {
+            bySector.get(sectorOf(entrances[entrance])).add(entrance);
+        }
+        this.sectorEntrances = new int[bySector.size()][];
+        for (int i = 0; i < sectorEntrances.length; i++) {
+            sectorEntrances[i] = toArray(bySector.get(i));
+        }
+
+        final int[][] edges = connectEntrances(crossings);
+        this.edgeStart = edges[0];
+        this.edgeTargets = edges[1];
+        this.edgeCosts = edges[2];
+    }
+
+    /**
+     * Returns the abstraction of the layout of the given board, building it
+     * if no board with that layout was used recently. Concurrent first calls
+     * may both build it, only one of the results is kept.
+     *
+     * @param board The board.
+     * @return The abstraction of the board.
+     */
+    public static HierarchicalPathfinder forBoard(Board board) {
+        final BoardLayout layout = board.getLayout();
+        final HierarchicalPathfinder shared = SHARED.get(layout.getHash());
+        if (shared != null) {
+            return shared;
+        }
+        final HierarchicalPathfinder created =
+                new HierarchicalPathfinder(layout, DEFAULT_SECTOR_SIZE);
+        final HierarchicalPathfinder raced = SHARED.putIfAbsent(layout.getHash(), created);
+        if (raced != null) {
+            return raced;
+        }
+        return created;
+    }
+
+    /**
+     * @return The number of entrances of the abstract graph.
+     */
+    public int getEntranceCount() {
+        return entrances.length;
+    }
+
+    /**
+     * Returns the first move towards a destination.
+     *
+     * @param from The square to start from.
+     * @param to   The destination.
+     * @return The first move, or null if the squares are the same, not
+     * connected or not accessible.
+     */
+    public Direction nextMove(Square from, Square to) {
+        final Query query = query(layout.nodeOf(from), layout.nodeOf(to));
+        if (query == null || query.run() == null) {
+            return null;
+        }
+        return query.firstMove();
+    }
+
+    /**
+     * Returns the length of the path this pathfinder would follow between two squares.
+     *
+     * @param from The square to start from.
+     * @param to   The destination.
+     * @return The number of moves, which is at least the length of the
+     * shortest path, or -1 if the squares are not connected or not accessible.
+     */
+    public int distance(Square from, Square to) {
+        final int source = layout.nodeOf(from), target = layout.nodeOf(to);
+        if (source != BoardLayout.NONE && source == target) {
+            Metrics.count(Counter.PATH_QUERIES);
+            return 0;
+        }
+        final Query query = query(source, target);
+        if (query == null) {
+            return -1;
+        }
+        final int[] path = query.run();
+        if (path == null) {
+            return -1;
+        }
+        return path[0];
+    }
+
+    /**
+     * Prepares a search of the abstract graph, extended with the start and
+     * destination.
+     *
+     * @param source The node to start from.
+     * @param target The destination node.
+     * @return The search, or null if there is nothing to search because the
+     * nodes are the same or not accessible.
+     */
+    private Query query(int source, int target) {
+        Metrics.count(Counter.PATH_QUERIES);
+        if (source == BoardLayout.NONE || target == BoardLayout.NONE || source == target) {
+            return null;
+        }
+        return new Query(source, target);
+    }
+
+    private int sectorOf(int node) {
+        return (layout.getY(node) / sectorSize) * sectorColumns + layout.getX(node) / sectorSize;
+    }
+
+    private void addEntrance(int node, List<Integer> found) {
+        if (entranceOf[node] == BoardLayout.NONE) {
+            entranceOf[node] = found.size();
+            found.add(node);
+        }
+    }
+
+    /**
+     * Finds the edges chosen to cross from one sector into another: for every
+     * sector and direction, the edges leaving the sector are grouped into
+     * stretches of adjacent squares, of which the middle edge (or both end
+     * edges of a long stretch) is chosen.
+     *
+     * @return The chosen edges, as pairs of a node and a direction ordinal.
+     */
+    private List<int[]> findCrossings() {
+        final Map<Long, List<Integer>> borders = new HashMap<>();
+        for (int node = 0; node < layout.getNodeCount(); node++) {
+            for (Direction direction : Direction.values()) {
+                final int next = layout.neighbour(node, direction);
+                if (next != BoardLayout.NONE && sectorOf(next) != sectorOf(node)) {
+                    final long border = (long) sectorOf(node) * Direction.values().length
+                            + direction.ordinal();
+                    borders.computeIfAbsent(border, key -> new ArrayList<>()).add(node);
+                }
+            }
+        }
+        final List<int[]> crossings = new ArrayList<>();
+        for (Map.Entry<Long, List<Integer>> border : borders.entrySet()) {
+            final int direction = (int) (border.getKey() % Direction.values().length);
+            chooseCrossings(border.getValue(), direction, crossings);
+        }
+        return crossings;
+    }
+
+    private void chooseCrossings(List<Integer> nodes, int direction, List<int[]> crossings) {
+        final boolean vertical = Direction.values()[direction].getDeltaX() == 0;
+        nodes.sort((a, b) -> Integer.compare(along(a, vertical), along(b, vertical)));
+        int start = 0;
+        for (int i = 1; i <= nodes.size(); i++) {
+            if (i == nodes.size()
+                    || along(nodes.get(i), vertical) != along(nodes.get(i - 1), vertical) + 1) {
+                if (i - start >= LONG_ENTRANCE) {
+                    crossings.add(new int[]{nodes.get(start), direction});
+                    crossings.add(new int[]{nodes.get(i - 1), direction});
+                } else {
+                    crossings.add(new int[]{nodes.get((start + i - 1) / 2), direction});
+                }
+                start = i;
+            }
+        }
+    }
+
+    /**
+     * @param node     A node.
+     * @param vertical Whether the border runs horizontally, i.e. is crossed vertically.
+     * @return The position of the node along the border.
+     */
+    private int along(int node, boolean vertical) {
+        if (vertical) {
+            return layout.getX(node);
+        }
+        return layout.getY(node);
+    }
+
+    /**
+     * Computes the edges of the abstract graph: the crossings between
+     * sectors, and the distances between the entrances of each sector.
+     *
+     * @param crossings The chosen crossings.
+     * @return The start of the edges of every entrance, their targets and their costs.
+     */
+    private int[][] connectEntrances(List<int[]> crossings) {
+        final List<List<int[]>> edges = new ArrayList<>();
+        for (int i = 0; i < entrances.length; i++) {
+            edges.add(new ArrayList<>());
+        }
+        for (int[] crossing : crossings) {
+            final int from = entranceOf[crossing[0]];
+            final int to = entranceOf[layout.neighbour(crossing[0], crossing[1])];
+            edges.get(from).add(new int[]{to, 1});
+        }
+        for (int[] inSector : sectorEntrances) {
+            for (int from : inSector) {
+                final SectorSearch search = new SectorSearch(entrances[from]);
+                for (int to : inSector) {
+                    final int cost = search.distanceTo(entrances[to]);
+                    if (to != from && cost > 0) {
+                        edges.get(from).add(new int[]{to, cost});
+                    }
+                }
+            }
+        }
+        final int[] start = new int[entrances.length + 1];
+        for (int i = 0; i < entrances.length; i++) {
+            start[i + 1] = start[i] + edges.get(i).size();
+        }
+        final int[] targets = new int[start[entrances.length]];
+        final int[] costs = new int[targets.length];
+        for (int i = 0; i < entrances.length; i++) {
+            for (int j = 0; j < edges.get(i).size(); j++) {
+                targets[start[i] + j] = edges.get(i).get(j)[0];
+                costs[start[i] + j] = edges.get(i).get(j)[1];
+            }
+        }
+        return new int[][]{start, targets, costs};
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        final int[] result = new int[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * A breadth-first search that stays within the sector of its start.
+     */
+    private final class SectorSearch {
+
+        /**
+         * The sector searched.
+         */
+        private final int sector;
+
+        /**
+         * The column of the top-left square of the sector.
+         */
+        private final int left;
+
+        /**
+         * The row of the top-left square of the sector.
+         */
+        private final int top;
+
+        /**
+         * The distance from the start to every square of the sector, or -1.
+         */
+        private final int[] dist;
+
+        /**
+         * The ordinal of the first move towards every square of the sector.
+         */
+        private final int[] firstMoves;
+
+        /**
+         * Searches all squares of the sector reachable from the start.
+         *
+         * @param start The node to start from.
+         */
+        private SectorSearch(int start) {
+            this.sector = sectorOf(start);
+            this.left = (sector % sectorColumns) * sectorSize;
+            this.top = (sector / sectorColumns) * sectorSize;
+            this.dist = new int[sectorSize * sectorSize];
+            this.firstMoves = new int[dist.length];
+            Arrays.fill(dist, -1);
+            final int[] queue = new int[dist.length];
+            dist[local(start)] = 0;
+            queue[0] = start;
+            int head = 0, tail = 1;
+            while (head < tail) {
+                final int node = queue[head++];
+                for (int direction = 0; direction < Direction.values().length; direction++) {
+                    final int next = layout.neighbour(node, direction);
+                    if (next != BoardLayout.NONE && sectorOf(next) == sector
+                            && dist[local(next)] < 0) {
+                        dist[local(next)] = dist[local(node)] + 1;
+                        firstMoves[local(next)] = inheritedMove(node, start, direction);
+                        queue[tail++] = next;
+                    }
+                }
+            }
+        }
+
+        private int inheritedMove(int node, int start, int direction) {
+            if (node == start) {
+                return direction;
+            }
+            return firstMoves[local(node)];
+        }
+
+        private int local(int node) {
+            return (layout.getY(node) - top) * sectorSize + layout.getX(node) - left;
+        }
+
+        /**
+         * @param node A node.
+         * @return The distance to the node, or -1 if it is not reachable within the sector.
+         */
+        private int distanceTo(int node) {
+            if (sectorOf(node) != sector) {
+                return -1;
+            }
+            return dist[local(node)];
+        }
+
+        /**
+         * @param node A node reachable within the sector, other than the start.
+         * @return The first move towards the node.
+         */
+        private Direction firstMove(int node) {
+            return Direction.values()[firstMoves[local(node)]];
+        }
+    }
+
+    /**
+     * An A* search over the abstract graph, extended with a start node
+     * connected to the entrances of the sector of the source and a goal node
+     * connected to the entrances of the sector of the target.
+     */
+    private final class Query {
+
+        /**
+         * The node to start from.
+         */
+        private final int source;
+
+        /**
+         * The destination node.
+         */
+        private final int target;
+
+        /**
+         * The abstract id of the start.
+         */
+        private final int start = entrances.length;
+
+        /**
+         * The abstract id of the goal.
+         */
+        private final int goal = entrances.length + 1;
+
+        /**
+         * The squares reachable from the source within its sector.
+         */
+        private final SectorSearch fromSource;
+
+        /**
+         * The squares reachable from the target within its sector.
+         */
+        private final SectorSearch fromTarget;
+
+        /**
+         * The best known cost of every abstract node reached.
+         */
+        private final Map<Integer, Integer> cost = new HashMap<>();
+
+        /**
+         * The predecessor of every abstract node reached.
+         */
+        private final Map<Integer, Integer> parent = new HashMap<>();
+
+        /**
+         * The abstract nodes to expand, by estimated total cost.
+         */
+        private final PriorityQueue<Long> open = new PriorityQueue<>();
+
+        /**
+         * The length of the path found followed by its nodes, or null.
+         */
+        private int[] found;
+
+        private Query(int source, int target) {
+            this.source = source;
+            this.target = target;
+            this.fromSource = new SectorSearch(source);
+            this.fromTarget = new SectorSearch(target);
+        }
+
+        /**
+         * @return The length of the path followed by its nodes, or null if there is none.
+         */
+        private int[] run() {
+            cost.put(start, 0);
+            open.add(key(estimate(source), start));
+            while (!open.isEmpty()) {
+                final long entry = open.poll();
+                final int node = (int) entry, known = cost.get(node);
+                if ((int) (entry >>> Integer.SIZE) == known + estimate(nodeOf(node))) {
+                    if (node == goal) {
+                        found = path();
+                        return found;
+                    }
+                    expand(node, known);
+                }
+            }
+            return null;
+        }
+
+        private void expand(int node, int known) {
+            if (node == start) {
+                for (int entrance : sectorEntrances[sectorOf(source)]) {
+                    relax(node, entrance, known + fromSource.distanceTo(entrances[entrance]));
+                }
+                relax(node, goal, known + fromSource.distanceTo(target));
+                return;
+            }
+            for (int edge = edgeStart[node]; edge < edgeStart[node + 1]; edge++) {
+                relax(node, edgeTargets[edge], known + edgeCosts[edge]);
+            }
+            relax(node, goal, known + fromTarget.distanceTo(entrances[node]));
+        }
+
+        /**
+         * Records a path to a node if it is shorter than the known one.
+         *
+         * @param from    The node the path comes from.
+         * @param to      The node reached.
+         * @param reached The length of the path, or less than the length of the
+         *                path to <code>from</code> if there is no such edge.
+         */
+        private void relax(int from, int to, int reached) {
+            final Integer known = cost.get(to);
+            if (reached >= cost.get(from) && (known == null || reached < known)) {
+                cost.put(to, reached);
+                parent.put(to, from);
+                open.add(key(reached + estimate(nodeOf(to)), to));
+            }
+        }
+
+        private int nodeOf(int abstractNode) {
+            if (abstractNode == start) {
+                return source;
+            }
+            if (abstractNode == goal) {
+                return target;
+            }
+            return entrances[abstractNode];
+        }
+
+        /**
+         * Estimates the distance to the target by the Manhattan distance,
+         * taking into account that the board wraps around.
+         *
+         * @param node The node to estimate the distance from.
+         * @return A lower bound on the distance.
+         */
+        private int estimate(int node) {
+            final int dx = Math.abs(layout.getX(node) - layout.getX(target));
+            final int dy = Math.abs(layout.getY(node) - layout.getY(target));
+            return Math.min(dx, layout.getWidth() - dx) + Math.min(dy, layout.getHeight() - dy);
+        }
+
+        private int[] path() {
+            final List<Integer> nodes = new ArrayList<>();
+            for (Integer node = goal; node != null; node = parent.get(node)) {
+                nodes.add(0, nodeOf(node));
+            }
+            final int[] result = new int[nodes.size() + 1];
+            result[0] = cost.get(goal);
+            for (int i = 0; i < nodes.size(); i++) {
+                result[i + 1] = nodes.get(i);
+            }
+            return result;
+        }
+
+        /**
+         * Returns the first move of the path found, towards its first waypoint
+         * other than the source. That waypoint is a neighbour of the source
+         * or lies in its sector, where the search from the source already
+         * knows the first move towards it.
+         *
+         * @return The first move.
+         */
+        private Direction firstMove() {
+            int next = 1;
+            while (found[next] == source) {
+                next++;
+            }
+            final int waypoint = found[next];
+            for (Direction direction : Direction.values()) {
+                if (layout.neighbour(source, direction) == waypoint) {
+                    return direction;
+                }
+            }
+            return fromSource.firstMove(waypoint);
+        }
+
+        private long key(int estimate, int node) {
+            return ((long) estimate << Integer.SIZE) | node;
+        }
+    }
+}
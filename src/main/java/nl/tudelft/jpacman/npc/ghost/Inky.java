@@ -8,7 +8,6 @@ import nl.tudelft.jpacman.sprite.Sprite;
 
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
 
 /**
  * <p>
@@ -66,7 +65,7 @@ public class Inky extends Ghost {
 
     @Override
     public long getInterval() {
-        return MOVE_INTERVAL + new Random().nextInt(INTERVAL_VARIATION);
+        return MOVE_INTERVAL + getRandom().nextInt(INTERVAL_VARIATION);
     }
 
     /**
@@ -96,12 +95,12 @@ public class Inky extends Ghost {
     // CHECKSTYLE:OFF To keep this more readable.
     @Override
     public Direction nextMove() {
-        final Unit blinky = Navigation.findNearest(Blinky.class, getSquare());
+        final Unit blinky = findNearest(Blinky.class);
         if (blinky == null) {
             return randomMove();
         }
 
-        Unit player = Navigation.findNearest(IdentifiedPlayer.class, getSquare());
+        Unit player = findNearest(IdentifiedPlayer.class);
         if (player == null) {
             return randomMove();
         }
@@ -123,10 +122,9 @@ public class Inky extends Ghost {
             destination = playerDestination.getSquareAt(d);
         }
 
-        List<Direction> path = Navigation.shortestPath(getSquare(),
-                destination, this);
-        if (path != null && !path.isEmpty()) {
-            return path.get(0);
+        final Direction move = moveTowards(destination, Navigation.SearchMode.BREADTH_FIRST);
+        if (move != null) {
+            return move;
         }
         return randomMove();
     }
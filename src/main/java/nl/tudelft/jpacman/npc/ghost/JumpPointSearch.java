@@ -0,0 +1,307 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Jump point search on the four-connected grid of a board, for the shortest
+ * path between two squares when every move costs the same.
+ * <p>
+ * Of all the shortest paths, only those that turn from a vertical move into
+ * a horizontal one whenever they can are considered. A vertical scan
+ * therefore looks sideways at every square it passes, while a horizontal
+ * scan only stops where a wall behind it forces a vertical turn. Only the
+ * squares where a scan stops are put in the queue, so the large open areas
+ * of arena maps are crossed without queueing every square on the way.
+ * <p>
+ * Scans follow the links of the squares, so they wrap around the borders like
+ * {@link nl.tudelft.jpacman.board.BoardFactory} links them. Squares that are
+ * linked in any other way than as a grid may make the paths longer than the
+ * shortest ones.
+ */
+final class JumpPointSearch {
+
+    /**
+     * The destination.
+     */
+    private final Square goal;
+
+    /**
+     * Whether walls are ignored, as when no traveller is given.
+     */
+    private final boolean ignoreTerrain;
+
+    /**
+     * The lowest number of moves found so far to every jump point.
+     */
+    private final Map<Square, Integer> costs = new HashMap<>();
+
+    /**
+     * The square the last successful scan stopped at.
+     */
+    private Square found;
+
+    /**
+     * The number of jump points expanded so far.
+     */
+    private int expanded;
+
+    /**
+     * Creates a new search.
+     *
+     * @param goal          The destination.
+     * @param ignoreTerrain Whether walls are ignored.
+     */
+    JumpPointSearch(Square goal, boolean ignoreTerrain) {
+        this.goal = goal;
+        this.ignoreTerrain = ignoreTerrain;
+    }
+
+    /**
+     * @return The number of jump points expanded so far.
+     */
+    int getExpanded() {
+        return expanded;
+    }
+
+    /**
+     * Finds a shortest path to the destination.
+     *
+     * @param from The starting square.
+     * @return The moves of the path, or <code>null</code> if the destination
+     * cannot be reached.
+     */
+    List<Direction> search(Square from) {
+        final PriorityQueue<JumpPoint> open = new PriorityQueue<>();
+        open.add(new JumpPoint(from, null, 0, null, 0));
+        costs.put(from, 0);
+        long order = 1;
+        while (!open.isEmpty()) {
+            final JumpPoint point = open.poll();
+            if (point.square == goal) {
+                return point.getPath();
+            }
+            if (point.cost > costs.get(point.square)) {
+                continue;
+            }
+            expanded++;
+            for (Direction direction : successors(point)) {
+                final int length = jump(point.square, direction);
+                if (length > 0 && improves(found, point.cost + length)) {
+                    open.add(new JumpPoint(found, direction, length, point, order++));
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean improves(Square square, int cost) {
+        final Integer best = costs.get(square);
+        if (best != null && best <= cost) {
+            return false;
+        }
+        costs.put(square, cost);
+        return true;
+    }
+
+    /**
+     * Returns the directions worth scanning from a jump point.
+     *
+     * @param point The jump point.
+     * @return The directions to scan in.
+     */
+    private List<Direction> successors(JumpPoint point) {
+        final Direction direction = point.direction;
+        if (direction == null) {
+            return Arrays.asList(Direction.values());
+        }
+        final List<Direction> result = new ArrayList<>();
+        result.add(direction);
+        if (isVertical(direction)) {
+            result.add(Direction.WEST);
+            result.add(Direction.EAST);
+        } else {
+            final Square behind = point.square.getSquareAt(opposite(direction));
+            for (Direction turn : new Direction[]{Direction.NORTH, Direction.SOUTH}) {
+                if (isForced(behind, point.square, turn)) {
+                    result.add(turn);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Scans from a square until a jump point is found.
+     *
+     * @param start     The square to scan from.
+     * @param direction The direction to scan in.
+     * @return The number of moves to the jump point, which is stored in
+     * {@link #found}, or 0 if the scan did not find one.
+     */
+    private int jump(Square start, Direction direction) {
+        if (isVertical(direction)) {
+            return jumpVertically(start, direction);
+        }
+        return jumpHorizontally(start, direction);
+    }
+
+    private int jumpVertically(Square start, Direction direction) {
+        Square current = start.getSquareAt(direction);
+        int length = 1;
+        while (isOpen(current) && current != start) {
+            if (current == goal || jumpHorizontally(current, Direction.WEST) > 0
+                    || jumpHorizontally(current, Direction.EAST) > 0) {
+                found = current;
+                return length;
+            }
+            current = current.getSquareAt(direction);
+            length++;
+        }
+        return 0;
+    }
+
+    private int jumpHorizontally(Square start, Direction direction) {
+        Square previous = start;
+        Square current = start.getSquareAt(direction);
+        int length = 1;
+        while (isOpen(current) && current != start) {
+            if (current == goal || isForced(previous, current, Direction.NORTH)
+                    || isForced(previous, current, Direction.SOUTH)) {
+                found = current;
+                return length;
+            }
+            previous = current;
+            current = current.getSquareAt(direction);
+            length++;
+        }
+        return 0;
+    }
+
+    /**
+     * Determines whether a horizontal scan has to turn at a square, because
+     * the square it came from could not have turned instead.
+     *
+     * @param previous The square the scan came from.
+     * @param current  The square the scan reached.
+     * @param turn     The vertical direction to turn in.
+     * @return <code>true</code> iff the scan has to turn.
+     */
+    private boolean isForced(Square previous, Square current, Direction turn) {
+        return isOpen(current.getSquareAt(turn))
+                && (previous == null || !isOpen(previous.getSquareAt(turn)));
+    }
+
+    private boolean isOpen(Square square) {
+        return square != null && (ignoreTerrain || square.isAccessibleTo());
+    }
+
+    private static boolean isVertical(Direction direction) {
+        return direction.getDeltaX() == 0;
+    }
+
+    /**
+     * @param direction A direction.
+     * @return The direction pointing the other way.
+     */
+    static Direction opposite(Direction direction) {
+        for (Direction other : Direction.values()) {
+            if (other.getDeltaX() == -direction.getDeltaX()
+                    && other.getDeltaY() == -direction.getDeltaY()) {
+                return other;
+            }
+        }
+        throw new IllegalArgumentException("No opposite of " + direction);
+    }
+
+    /**
+     * A square where a scan stopped, with the way it was reached.
+     */
+    private static final class JumpPoint implements Comparable<JumpPoint> {
+
+        /**
+         * The square.
+         */
+        private final Square square;
+
+        /**
+         * The direction of the scan that reached the square, which is
+         * <code>null</code> for the starting square.
+         */
+        private final Direction direction;
+
+        /**
+         * The number of moves of the scan.
+         */
+        private final int length;
+
+        /**
+         * The jump point the scan started from, which is <code>null</code>
+         * for the starting square.
+         */
+        private final JumpPoint parent;
+
+        /**
+         * The number of moves from the starting square.
+         */
+        private final int cost;
+
+        /**
+         * The order in which the jump points were found, to break ties.
+         */
+        private final long order;
+
+        private JumpPoint(Square square, Direction direction, int length,
+                          JumpPoint parent, long order) {
+            this.square = square;
+            this.direction = direction;
+            this.length = length;
+            this.parent = parent;
+            this.order = order;
+            if (parent == null) {
+                this.cost = length;
+            } else {
+                this.cost = parent.cost + length;
+            }
+        }
+
+        /**
+         * @return The moves from the starting square to this jump point.
+         */
+        private List<Direction> getPath() {
+            final Direction[] moves = new Direction[cost];
+            int index = cost;
+            for (JumpPoint point = this; point.parent != null; point = point.parent) {
+                for (int i = 0; i < point.length; i++) {
+                    moves[--index] = point.direction;
+                }
+            }
+            return new ArrayList<>(Arrays.asList(moves));
+        }
+
+        @Override
+        public int compareTo(JumpPoint other) {
+            if (cost != other.cost) {
+                return Integer.compare(cost, other.cost);
+            }
+            return Long.compare(order, other.order);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return this == other;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
+    }
+}
@@ -3,10 +3,14 @@ package nl.tudelft.jpacman.npc.ghost;
 import nl.tudelft.jpacman.board.Direction;
 import nl.tudelft.jpacman.board.Square;
 import nl.tudelft.jpacman.board.Unit;
+import nl.tudelft.jpacman.metrics.Counter;
+import nl.tudelft.jpacman.metrics.Metrics;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Queue;
 import java.util.Set;
 
 /**
@@ -16,9 +20,104 @@ import java.util.Set;
  */
 public final class Navigation {
 
+    /**
+     * The number of squares expanded by the last search of each thread.
+     */
+    private static final ThreadLocal<int[]> EXPANDED = ThreadLocal.withInitial(() -> new int[1]);
+
+    /**
+     * The ways in which a shortest path can be searched for.
+     */
+    public enum SearchMode {
+
+        /**
+         * Breadth-first search, which expands every square closer than the
+         * destination. It works for squares linked in any way.
+         */
+        BREADTH_FIRST,
+
+        /**
+         * Breadth-first search from both ends at once, which expands about
+         * half as many squares on long paths. It assumes that squares are
+         * linked both ways.
+         */
+        BIDIRECTIONAL,
+
+        /**
+         * Jump point search, which only expands the squares where the path
+         * may have to turn. It is much faster on open maps, but assumes that
+         * every move costs the same and that squares are linked as a grid.
+         */
+        JUMP_POINT
+    }
+
     private Navigation() {
     }
 
+    /**
+     * Returns the number of squares expanded by the last call to
+     * {@link #shortestPath(Square, Square, Unit, SearchMode)} on the current
+     * thread, to compare the search modes.
+     *
+     * @return The number of squares taken from the queue and expanded.
+     */
+    public static int getExpandedNodes() {
+        return EXPANDED.get()[0];
+    }
+
+    /**
+     * Calculates the shortest path with the given search mode. This search
+     * ensures the traveller is allowed to occupy the squares on the way, or
+     * returns the shortest path to the square regardless of terrain if no
+     * traveller is specified.
+     *
+     * @param from      The starting square.
+     * @param to        The destination.
+     * @param traveller The traveller attempting to reach the destination, or
+     *                  <code>null</code> to ignore terrain.
+     * @param mode      The way to search for the path.
+     * @return The shortest path to the destination or <code>null</code> if no
+     * such path could be found. When the destination is the current
+     * square, an empty list is returned.
+     */
+    public static List<Direction> shortestPath(Square from, Square to,
+                                               Unit traveller, SearchMode mode) {
+        final List<Direction> path;
+        if (mode == SearchMode.BREADTH_FIRST) {
+            path = breadthFirst(from, to, traveller);
+        } else {
+            path = search(from, to, traveller, mode);
+        }
+        countQuery();
+        return path;
+    }
+
+    private static List<Direction> search(Square from, Square to, Unit traveller,
+                                          SearchMode mode) {
+        EXPANDED.get()[0] = 0;
+        if (from == to) {
+            return new ArrayList<>();
+        }
+        if (mode == SearchMode.BIDIRECTIONAL) {
+            final BidirectionalSearch search = new BidirectionalSearch(traveller == null);
+            final List<Direction> path = search.search(from, to);
+            EXPANDED.get()[0] = search.getExpanded();
+            return path;
+        }
+        final JumpPointSearch search = new JumpPointSearch(to, traveller == null);
+        final List<Direction> path = search.search(from);
+        EXPANDED.get()[0] = search.getExpanded();
+        return path;
+    }
+
+    /**
+     * Counts a search for a shortest path, and the squares it expanded.
+     */
+    private static void countQuery() {
+        Metrics.count(Counter.PATH_QUERIES);
+        Metrics.count(Counter.NODES_EXPANDED, getExpandedNodes());
+    }
+
     /**
      * Calculates the shortest path. This is done by BFS. This search ensures
      * the traveller is allowed to occupy the squares on the way, or returns the
@@ -37,32 +136,42 @@ public final class Navigation {
      */
     public static List<Direction> shortestPath(Square from, Square to,
                                                Unit traveller) {
+        final List<Direction> path = breadthFirst(from, to, traveller);
+        countQuery();
+        return path;
+    }
+
+    private static List<Direction> breadthFirst(Square from, Square to, Unit traveller) {
+        final int[] expanded = EXPANDED.get();
+        expanded[0] = 0;
         if (from == to) {
             return new ArrayList<>();
         }
 
-        List<Node> targets = new ArrayList<>();
+        Queue<Node> targets = new ArrayDeque<>();
         Set<Square> visited = new HashSet<>();
         targets.add(new Node(null, from, null));
+        visited.add(from);
         while (!targets.isEmpty()) {
-            final Node n = targets.remove(0);
+            final Node n = targets.remove();
             final Square s = n.getSquare();
             if (s == to) {
                 return n.getPath();
             }
-            visited.add(s);
+            expanded[0]++;
             addNewTargets(traveller, targets, visited, n, s);
         }
         return null;
     }
 
-    private static void addNewTargets(Unit traveller, List<Node> targets,
+    private static void addNewTargets(Unit traveller, Queue<Node> targets,
                                       Set<Square> visited, Node n, Square s) {
         for (Direction d : Direction.values()) {
             final Square target = s.getSquareAt(d);
             if (!visited.contains(target)
                     && (traveller == null || target
                     .isAccessibleTo())) {
+                visited.add(target);
                 targets.add(new Node(d, target, n));
             }
         }
@@ -71,7 +180,9 @@ public final class Navigation {
     /**
      * Finds the nearest unit of the given type and returns its location. This
      * method will perform a breadth first search starting from the given
-     * square.
+     * square, ignoring walls. Units listed in a
+     * {@link nl.tudelft.jpacman.board.UnitRegistry} can be found faster with
+     * {@link nl.tudelft.jpacman.board.UnitRegistry#nearest(Class, Square)}.
      *
      * @param type            The type of unit to search for.
      * @param currentLocation The starting location for the search.
@@ -80,21 +191,21 @@ public final class Navigation {
      */
     public static Unit findNearest(Class<? extends Unit> type,
                                    Square currentLocation) {
-        List<Square> toDo = new ArrayList<>();
+        Queue<Square> toDo = new ArrayDeque<>();
         Set<Square> visited = new HashSet<>();
 
         toDo.add(currentLocation);
+        visited.add(currentLocation);
 
         while (!toDo.isEmpty()) {
-            final Square square = toDo.remove(0);
+            final Square square = toDo.remove();
             final Unit unit = findUnit(type, square);
             if (unit != null) {
                 return unit;
             }
-            visited.add(square);
             for (Direction d : Direction.values()) {
                 final Square newTarget = square.getSquareAt(d);
-                if (!visited.contains(newTarget) && !toDo.contains(newTarget)) {
+                if (visited.add(newTarget)) {
                     toDo.add(newTarget);
                 }
             }
@@ -6,9 +6,7 @@ import nl.tudelft.jpacman.board.Unit;
 import nl.tudelft.jpacman.level.IdentifiedPlayer;
 import nl.tudelft.jpacman.sprite.Sprite;
 
-import java.util.List;
 import java.util.Map;
-import java.util.Random;
 
 /**
  * <p>
@@ -72,7 +70,7 @@ public class Pinky extends Ghost {
 
     @Override
     public long getInterval() {
-        return MOVE_INTERVAL + new Random().nextInt(INTERVAL_VARIATION);
+        return MOVE_INTERVAL + getRandom().nextInt(INTERVAL_VARIATION);
     }
 
     /**
@@ -90,7 +88,7 @@ public class Pinky extends Ghost {
      */
     @Override
     public Direction nextMove() {
-        final Unit player = Navigation.findNearest(IdentifiedPlayer.class, getSquare());
+        final Unit player = findNearest(IdentifiedPlayer.class);
         if (player == null) {
             return randomMove();
         }
@@ -100,10 +98,9 @@ public class Pinky extends Ghost {
             destination = destination.getSquareAt(player.getDirection());
         }
 
-        List<Direction> path = Navigation.shortestPath(getSquare(),
-                destination, this);
-        if (path != null && !path.isEmpty()) {
-            return path.get(0);
+        final Direction move = moveTowards(destination, Navigation.SearchMode.BIDIRECTIONAL);
+        if (move != null) {
+            return move;
         }
         return randomMove();
     }
@@ -17,6 +17,9 @@ package nl.tudelft.jpacman.strategy;
  * with this program; if not, see <http://www.gnu.org/licenses/>.
  */
 
+import nl.tudelft.jpacman.metrics.Counter;
+import nl.tudelft.jpacman.metrics.Metrics;
+
 import java.util.*;
 
 /**
@@ -117,6 +120,7 @@ public abstract class AStar<T> {
             return;
         }
 
+        Metrics.count(Counter.NODES_EXPANDED);
         final T p = path.getPoint();
         final List<T> successors = generateSuccessors(p);
 
@@ -146,6 +150,7 @@ public abstract class AStar<T> {
      * <code>null</code> if a path doesn't exist.
      */
     public List<T> compute(final T start) {
+        Metrics.count(Counter.PATH_QUERIES);
 
         final Path root = new Path();
         root.setPoint(start);
@@ -0,0 +1,139 @@
+package nl.tudelft.jpacman.strategy;
+
+import nl.tudelft.jpacman.board.BoardLayout;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.DistanceOracle;
+import nl.tudelft.jpacman.game.Game;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A strategy that chooses the moves of Pac-Man by a deterministic expectimax
+ * search, deepened until the time budget of a move runs out, 20 ms by
+ * default. Unlike {@link MonteCarloAI} it does not sample: the moves of the
+ * ghosts near Pac-Man are weighed by their chances.
+ * <p>
+ * Boards of more than {@value ExpectimaxSearch#MAX_NODES} accessible squares
+ * are not searched, Pac-Man then keeps going the way he was.
+ */
+public class ExpectimaxAI extends AIStrategy {
+
+    /**
+     * The default time budget of a move, in milliseconds.
+     */
+    private static final long DEFAULT_BUDGET = 20;
+
+    /**
+     * The pacman game.
+     */
+    private final Game game;
+
+    /**
+     * The accessible squares of the board.
+     */
+    private final BoardLayout layout;
+
+    /**
+     * The distances between the accessible squares.
+     */
+    private final DistanceOracle oracle;
+
+    /**
+     * The search choosing the moves, or <code>null</code> if the board is too
+     * large.
+     */
+    private final ExpectimaxSearch search;
+
+    /**
+     * The time budget of a move, in nanoseconds.
+     */
+    private volatile long budget = TimeUnit.MILLISECONDS.toNanos(DEFAULT_BUDGET);
+
+    /**
+     * The depth the search for the last move finished.
+     */
+    private volatile int lastDepth;
+
+    /**
+     * The number of nodes per second the search for the last move visited.
+     */
+    private volatile long lastNodesPerSecond;
+
+    /**
+     * Creates a strategy.
+     *
+     * @param game the current game.
+     */
+    public ExpectimaxAI(final Game game) {
+        super(game);
+        this.game = game;
+        this.layout = getBoard().getLayout();
+        this.oracle = DistanceOracle.forBoard(getBoard());
+        ExpectimaxSearch boardSearch = null;
+        if (layout.getNodeCount() <= ExpectimaxSearch.MAX_NODES) {
+            boardSearch = new ExpectimaxSearch(layout, oracle, game.getLevel().getSeed());
+        }
+        this.search = boardSearch;
+    }
+
+    /**
+     * Sets the time a move may take to decide.
+     *
+     * @param millis The time budget of a move, in milliseconds.
+     */
+    public void setBudget(long millis) {
+        assert millis > 0;
+        budget = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * Searches for the best move until the time budget runs out.
+     *
+     * @return the best move.
+     */
+    @Override
+    public Direction nextMove() {
+        final ForwardModel root = ForwardModel.of(game.getLevel().getSnapshot(), getPlayer(),
+                getPlayer().getInterval(), layout, oracle);
+        if (search == null || root == null || root.legalMoves() == 0) {
+            return fallbackMove();
+        }
+        final Direction best = search.search(root, budget);
+        lastDepth = search.getDepth();
+        lastNodesPerSecond = search.getNodes() * TimeUnit.SECONDS.toNanos(1)
+                / Math.max(1, search.getNanos());
+        if (best == null) {
+            return fallbackMove();
+        }
+        return best;
+    }
+
+    private Direction fallbackMove() {
+        if (getPlayer().getDirection() != null) {
+            return getPlayer().getDirection();
+        }
+        return Direction.NORTH;
+    }
+
+    /**
+     * @return The depth, in moves of Pac-Man, the search for the last move
+     * finished, 0 if there was only one way to go.
+     */
+    public int getLastDepth() {
+        return lastDepth;
+    }
+
+    /**
+     * @return The number of states per second the search for the last move
+     * visited.
+     */
+    public long getLastNodesPerSecond() {
+        return lastNodesPerSecond;
+    }
+
+    /**
+     * Does nothing, the moves are asked for by the level.
+     */
+    @Override
+    public void executeStrategy() { /**/ }
+}
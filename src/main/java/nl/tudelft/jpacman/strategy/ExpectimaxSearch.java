@@ -0,0 +1,705 @@
+package nl.tudelft.jpacman.strategy;
+
+import nl.tudelft.jpacman.GameRandom;
+import nl.tudelft.jpacman.board.BoardLayout;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.DistanceOracle;
+import nl.tudelft.jpacman.metrics.Counter;
+import nl.tudelft.jpacman.metrics.Metrics;
+
+/**
+ * A depth-limited expectimax search over the moves of Pac-Man. The moves of
+ * the ghosts near him are chance nodes: a ghost moves with the chance that it
+ * is as fast as Pac-Man, and then makes the move of its {@link GhostPolicy},
+ * or one of its possible moves at random. Ghosts further away simply follow
+ * their policy. Like the player of an AI strategy, Pac-Man is asked for his
+ * move and then only chooses where he can turn, going on along corridors.
+ * <p>
+ * The search deepens iteratively until its time budget runs out, and tries
+ * the best move found before first. A state is the node of Pac-Man, the
+ * direction he last moved in and the nodes of up to four ghosts, packed in a
+ * long, together with a pellet bitmap that is changed and restored in place.
+ * The values of states are kept in a transposition table keyed on their
+ * Zobrist hash, so once created a search allocates nothing per node.
+ */
+final class ExpectimaxSearch {
+
+    /**
+     * The number of bits a node takes in a packed state.
+     */
+    private static final int NODE_BITS = 12;
+
+    /**
+     * The largest number of accessible squares of a board that can be searched.
+     */
+    static final int MAX_NODES = 1 << NODE_BITS;
+
+    /**
+     * The largest number of ghosts in a state, the ones nearest to Pac-Man.
+     */
+    static final int MAX_GHOSTS = 4;
+
+    /**
+     * The mask of a node in a packed state.
+     */
+    private static final long NODE_MASK = MAX_NODES - 1;
+
+    /**
+     * The position of the direction of Pac-Man in a packed state.
+     */
+    private static final int HEADING_SHIFT = NODE_BITS;
+
+    /**
+     * The mask of the direction of Pac-Man, plus one, in a packed state.
+     */
+    private static final long HEADING_MASK = 7;
+
+    /**
+     * The position of the first ghost in a packed state.
+     */
+    private static final int GHOST_SHIFT = HEADING_SHIFT + 3;
+
+    /**
+     * The number of entries of the transposition table, as a power of two.
+     */
+    private static final int TABLE_BITS = 16;
+
+    /**
+     * The deepest search, in moves of Pac-Man.
+     */
+    private static final int MAX_DEPTH = 64;
+
+    /**
+     * The distance to Pac-Man within which the moves of a ghost are chances.
+     */
+    private static final int NEAR = 6;
+
+    /**
+     * The time is checked once every this many nodes, plus one.
+     */
+    private static final int CHECK_MASK = 1023;
+
+    /**
+     * The factor by which the value of the next move counts less.
+     */
+    private static final double DISCOUNT = 0.95;
+
+    /**
+     * The value of eating a pellet.
+     */
+    private static final double PELLET_VALUE = 1;
+
+    /**
+     * The value of eating the last pellet.
+     */
+    private static final double WIN_VALUE = 20;
+
+    /**
+     * The value of being caught.
+     */
+    private static final double DEATH_VALUE = -200;
+
+    /**
+     * The largest value of being close to a pellet when the search stops.
+     */
+    private static final double PROXIMITY_VALUE = 0.5;
+
+    /**
+     * The largest cost of a ghost being close when the search stops.
+     */
+    private static final double FEAR = 4;
+
+    /**
+     * The share of the moves of a ghost that are random.
+     */
+    private static final double RANDOM_SHARE = 1.0 / GhostPolicy.RANDOM_MOVE;
+
+    /**
+     * The number of directions.
+     */
+    private static final int DIRECTIONS = Direction.values().length;
+
+    /**
+     * The directions north and south, as a bit per ordinal.
+     */
+    private static final int VERTICAL =
+            1 << Direction.NORTH.ordinal() | 1 << Direction.SOUTH.ordinal();
+
+    /**
+     * The directions west and east, as a bit per ordinal.
+     */
+    private static final int HORIZONTAL =
+            1 << Direction.WEST.ordinal() | 1 << Direction.EAST.ordinal();
+
+    /**
+     * No move.
+     */
+    private static final int NO_MOVE = -1;
+
+    /**
+     * The accessible squares of the board and their neighbours.
+     */
+    private final BoardLayout layout;
+
+    /**
+     * The distances between the accessible squares.
+     */
+    private final DistanceOracle oracle;
+
+    /**
+     * The policies of the ghosts.
+     */
+    private final GhostPolicy policy;
+
+    /**
+     * The number of nodes of the board.
+     */
+    private final int nodeCount;
+
+    /**
+     * The Zobrist key of Pac-Man on every node.
+     */
+    private final long[] pacmanKeys;
+
+    /**
+     * The Zobrist key of every direction of Pac-Man, plus one.
+     */
+    private final long[] headingKeys;
+
+    /**
+     * The Zobrist key of every ghost on every node, by ghost first.
+     */
+    private final long[] ghostKeys;
+
+    /**
+     * The Zobrist key of a pellet on every node.
+     */
+    private final long[] pelletKeys;
+
+    /**
+     * The hash of the state of every entry of the transposition table.
+     */
+    private final long[] tableKeys;
+
+    /**
+     * The value of every entry of the transposition table.
+     */
+    private final double[] tableValues;
+
+    /**
+     * The depth every entry of the transposition table was searched to.
+     */
+    private final byte[] tableDepths;
+
+    /**
+     * The best move of every entry of the transposition table.
+     */
+    private final byte[] tableMoves;
+
+    /**
+     * The search every entry of the transposition table was stored by.
+     */
+    private final int[] tableAges;
+
+    /**
+     * The nodes that have a pellet, one bit per node.
+     */
+    private final long[] pellets;
+
+    /**
+     * The kind of every ghost searched.
+     */
+    private final int[] kinds = new int[MAX_GHOSTS];
+
+    /**
+     * The chance that every ghost searched moves when Pac-Man moves.
+     */
+    private final double[] speeds = new double[MAX_GHOSTS];
+
+    /**
+     * The number of ghosts searched.
+     */
+    private int ghostCount;
+
+    /**
+     * The number of pellets left.
+     */
+    private int pelletsLeft;
+
+    /**
+     * The Zobrist hash of the pellets left.
+     */
+    private long pelletHash;
+
+    /**
+     * The number of searches so far, which tells apart the entries of the
+     * transposition table stored by the current search.
+     */
+    private int age;
+
+    /**
+     * The best move at the root of the last search that was finished.
+     */
+    private int rootMove;
+
+    /**
+     * The best move of the state searched last.
+     */
+    private int chosen;
+
+    /**
+     * The time at which the search has to stop, in nanoseconds.
+     */
+    private long deadline;
+
+    /**
+     * <code>true</code> once the time of the search ran out.
+     */
+    private boolean aborted;
+
+    /**
+     * The number of states of Pac-Man to move visited by the last search.
+     */
+    private long nodes;
+
+    /**
+     * The depth the last search finished.
+     */
+    private int depth;
+
+    /**
+     * The time the last search took, in nanoseconds.
+     */
+    private long nanos;
+
+    /**
+     * Creates a search for a board of at most {@link #MAX_NODES} accessible
+     * squares.
+     *
+     * @param boardLayout The accessible squares of the board.
+     * @param distances   The distances between them.
+     * @param seed        The seed of the Zobrist keys.
+     */
+    ExpectimaxSearch(BoardLayout boardLayout, DistanceOracle distances, long seed) {
+        assert boardLayout.getNodeCount() <= MAX_NODES;
+        this.layout = boardLayout;
+        this.oracle = distances;
+        this.policy = new GhostPolicy(boardLayout, distances);
+        this.nodeCount = boardLayout.getNodeCount();
+        final GameRandom random = new GameRandom(seed);
+        this.pacmanKeys = keys(random, nodeCount);
+        this.headingKeys = keys(random, DIRECTIONS + 1);
+        this.ghostKeys = keys(random, MAX_GHOSTS * nodeCount);
+        this.pelletKeys = keys(random, nodeCount);
+        this.tableKeys = new long[1 << TABLE_BITS];
+        this.tableValues = new double[1 << TABLE_BITS];
+        this.tableDepths = new byte[1 << TABLE_BITS];
+        this.tableMoves = new byte[1 << TABLE_BITS];
+        this.tableAges = new int[1 << TABLE_BITS];
+        this.pellets = new long[(nodeCount + Long.SIZE - 1) / Long.SIZE];
+    }
+
+    private static long[] keys(GameRandom random, int count) {
+        final long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = random.nextLong();
+        }
+        return keys;
+    }
+
+    /**
+     * Searches for the best move of Pac-Man, deeper and deeper, until the
+     * time budget runs out.
+     *
+     * @param root        The model of the level as it is now.
+     * @param budgetNanos The time budget, in nanoseconds.
+     * @return The best move found, or <code>null</code> if not even the
+     * shallowest search could be finished in time.
+     */
+    Direction search(ForwardModel root, long budgetNanos) {
+        final long start = System.nanoTime();
+        deadline = start + budgetNanos;
+        aborted = false;
+        nodes = 0;
+        depth = 0;
+        age++;
+        final long units = load(root);
+        final int moves = policy.movesFrom(root.getPacman());
+        int best = NO_MOVE;
+        if (Integer.bitCount(moves) == 1) {
+            best = Integer.numberOfTrailingZeros(moves);
+        } else if (moves != 0) {
+            best = deepen(units);
+        }
+        nanos = System.nanoTime() - start;
+        Metrics.count(Counter.NODES_EXPANDED, nodes);
+        if (best == NO_MOVE) {
+            return null;
+        }
+        return Direction.values()[best];
+    }
+
+    /**
+     * Searches one move deeper at a time until the time budget runs out.
+     *
+     * @return The best move of the deepest search finished, or -1.
+     */
+    private int deepen(long units) {
+        int best = NO_MOVE;
+        for (int d = 1; d <= MAX_DEPTH; d++) {
+            maxNode(units, d, true);
+            if (aborted) {
+                break;
+            }
+            best = rootMove;
+            depth = d;
+        }
+        return best;
+    }
+
+    /**
+     * Loads the pellets and ghosts of a model.
+     *
+     * @return The packed state of Pac-Man and the ghosts.
+     */
+    private long load(ForwardModel root) {
+        pelletsLeft = 0;
+        pelletHash = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            if (root.hasPellet(node)) {
+                pellets[node / Long.SIZE] |= 1L << node;
+                pelletHash ^= pelletKeys[node];
+                pelletsLeft++;
+            } else {
+                pellets[node / Long.SIZE] &= ~(1L << node);
+            }
+        }
+        long units = withPacman(0, root.getPacman(), root.getHeading());
+        ghostCount = 0;
+        long chosen = 0;
+        while (ghostCount < MAX_GHOSTS) {
+            final int g = nearestGhost(root, chosen);
+            if (g < 0) {
+                break;
+            }
+            chosen |= 1L << g;
+            kinds[ghostCount] = root.getKind(g);
+            speeds[ghostCount] = root.getSpeed(g) / (double) ForwardModel.CHANCE_PARTS;
+            units = withGhost(units, ghostCount, root.getGhost(g));
+            ghostCount++;
+        }
+        return units;
+    }
+
+    /**
+     * Returns the ghost of a model nearest to Pac-Man that was not chosen
+     * yet, or -1.
+     */
+    private int nearestGhost(ForwardModel root, long chosen) {
+        int nearest = -1;
+        int nearestDistance = Integer.MAX_VALUE;
+        for (int g = 0; g < Math.min(root.getGhostCount(), Long.SIZE); g++) {
+            int distance = oracle.lowerBound(root.getGhost(g), root.getPacman());
+            if (distance == DistanceOracle.UNREACHABLE) {
+                distance = Integer.MAX_VALUE - 1;
+            }
+            if ((chosen & 1L << g) == 0 && distance < nearestDistance) {
+                nearest = g;
+                nearestDistance = distance;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Returns the value of a state with Pac-Man to move, searched to a depth.
+     */
+    private double maxNode(long units, int remaining, boolean root) {
+        if (outOfTime()) {
+            return 0;
+        }
+        if (remaining == 0) {
+            return evaluate(units);
+        }
+        final long key = hash(units);
+        final int slot = (int) key & (1 << TABLE_BITS) - 1;
+        final boolean hit = tableAges[slot] == age && tableKeys[slot] == key;
+        if (hit && !root && tableDepths[slot] >= remaining) {
+            return tableValues[slot];
+        }
+        int moves = pacmanMoves(units);
+        if (root) {
+            moves = policy.movesFrom(pacmanOf(units));
+        }
+        int first = NO_MOVE;
+        if (hit && (moves & 1 << tableMoves[slot]) != 0) {
+            first = tableMoves[slot];
+        }
+        final double best = bestMove(units, moves, first, remaining);
+        if (aborted || chosen == NO_MOVE) {
+            return evaluate(units);
+        }
+        store(slot, key, best, remaining, chosen);
+        if (root) {
+            rootMove = chosen;
+        }
+        return best;
+    }
+
+    /**
+     * Returns the value of the best of a set of moves of Pac-Man, trying a
+     * given one first, and leaves the move in {@link #chosen}.
+     */
+    private double bestMove(long units, int moves, int first, int remaining) {
+        int bestMove = first;
+        double best = Double.NEGATIVE_INFINITY;
+        if (first != NO_MOVE) {
+            best = moveValue(units, first, remaining);
+        }
+        for (int d = 0; d < DIRECTIONS; d++) {
+            if ((moves & 1 << d) == 0 || d == first) {
+                continue;
+            }
+            final double value = moveValue(units, d, remaining);
+            if (value > best) {
+                best = value;
+                bestMove = d;
+            }
+        }
+        chosen = bestMove;
+        return best;
+    }
+
+    private void store(int slot, long key, double value, int remaining, int move) {
+        tableKeys[slot] = key;
+        tableValues[slot] = value;
+        tableDepths[slot] = (byte) remaining;
+        tableMoves[slot] = (byte) move;
+        tableAges[slot] = age;
+    }
+
+    /**
+     * Returns the value of Pac-Man moving in a direction from a state.
+     */
+    private double moveValue(long units, int direction, int remaining) {
+        final int to = layout.neighbour(pacmanOf(units), direction);
+        if (hasGhost(units, to)) {
+            return DEATH_VALUE;
+        }
+        final boolean eats = hasPellet(to);
+        if (eats) {
+            togglePellet(to, -1);
+        }
+        double value = WIN_VALUE;
+        if (pelletsLeft > 0) {
+            value = DISCOUNT * chanceNode(withPacman(units, to, direction), 0, remaining);
+        }
+        if (eats) {
+            togglePellet(to, 1);
+            value += PELLET_VALUE;
+        }
+        return value;
+    }
+
+    /**
+     * Returns the expected value of a state after Pac-Man moved, in which
+     * the ghosts from a given one on have yet to move.
+     */
+    private double chanceNode(long units, int ghost, int remaining) {
+        if (ghost == ghostCount) {
+            return maxNode(units, remaining - 1, false);
+        }
+        final int pacman = pacmanOf(units);
+        final int node = ghostOf(units, ghost);
+        final int target = policy.target(kinds[ghost], node, pacman, headingOf(units),
+                blinky(units));
+        final int distance = oracle.lowerBound(node, pacman);
+        final int moves = policy.movesFrom(node);
+        if (distance == DistanceOracle.UNREACHABLE || distance > NEAR || moves == 0) {
+            return ghostOutcome(units, ghost, target, remaining);
+        }
+        return ghostChances(units, ghost, target, remaining);
+    }
+
+    /**
+     * Returns the expected value over the moves a ghost near Pac-Man may
+     * make, or not make.
+     */
+    private double ghostChances(long units, int ghost, int target, int remaining) {
+        final int node = ghostOf(units, ghost);
+        final int moves = policy.movesFrom(node);
+        final double speed = speeds[ghost];
+        final double random = speed * RANDOM_SHARE / Integer.bitCount(moves);
+        final double targeted = speed * (1 - RANDOM_SHARE);
+        double stay = 1 - speed;
+        if (target == node) {
+            stay += targeted;
+        }
+        double value = 0;
+        if (stay > 0) {
+            value += stay * chanceNode(units, ghost + 1, remaining);
+        }
+        for (int d = 0; d < DIRECTIONS; d++) {
+            final int next = layout.neighbour(node, d);
+            if ((moves & 1 << d) != 0) {
+                final double chance = random + (next == target ? targeted : 0);
+                value += chance * ghostOutcome(units, ghost, next, remaining);
+            }
+        }
+        return value;
+    }
+
+    private double ghostOutcome(long units, int ghost, int node, int remaining) {
+        if (node == pacmanOf(units)) {
+            return DEATH_VALUE;
+        }
+        return chanceNode(withGhost(units, ghost, node), ghost + 1, remaining);
+    }
+
+    /**
+     * Rates a state at which the search stops by the distances from Pac-Man
+     * to the nearest pellet and to the ghosts near him.
+     */
+    private double evaluate(long units) {
+        final int pacman = pacmanOf(units);
+        double value = PROXIMITY_VALUE / (1.0 + nearestPellet(pacman));
+        for (int g = 0; g < ghostCount; g++) {
+            final int distance = oracle.lowerBound(ghostOf(units, g), pacman);
+            if (distance >= 0 && distance <= NEAR) {
+                value -= FEAR / (1.0 + distance);
+            }
+        }
+        return value;
+    }
+
+    private int nearestPellet(int pacman) {
+        int nearest = Integer.MAX_VALUE;
+        for (int word = 0; word < pellets.length; word++) {
+            long bits = pellets[word];
+            while (bits != 0) {
+                final int node = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                final int distance = oracle.lowerBound(pacman, node);
+                if (distance >= 0 && distance < nearest) {
+                    nearest = distance;
+                }
+                bits &= bits - 1;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Counts a node, and tells whether the time of the search ran out.
+     */
+    private boolean outOfTime() {
+        if ((++nodes & CHECK_MASK) == 0 && System.nanoTime() > deadline) {
+            aborted = true;
+        }
+        return aborted;
+    }
+
+    /**
+     * Returns the directions Pac-Man can choose from in a state: only the
+     * direction he is going in if he is in a corridor.
+     */
+    private int pacmanMoves(long units) {
+        final int moves = policy.movesFrom(pacmanOf(units));
+        final int heading = headingOf(units);
+        if (heading < 0 || (moves & 1 << heading) == 0) {
+            return moves;
+        }
+        int sideways = HORIZONTAL;
+        if ((HORIZONTAL & 1 << heading) != 0) {
+            sideways = VERTICAL;
+        }
+        if ((moves & sideways) == 0) {
+            return 1 << heading;
+        }
+        return moves;
+    }
+
+    private long hash(long units) {
+        long key = pelletHash ^ pacmanKeys[pacmanOf(units)] ^ headingKeys[headingOf(units) + 1];
+        for (int g = 0; g < ghostCount; g++) {
+            key ^= ghostKeys[g * nodeCount + ghostOf(units, g)];
+        }
+        return key;
+    }
+
+    private boolean hasGhost(long units, int node) {
+        for (int g = 0; g < ghostCount; g++) {
+            if (ghostOf(units, g) == node) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The node of the first ghost chasing Pac-Man, or -1.
+     */
+    private int blinky(long units) {
+        for (int g = 0; g < ghostCount; g++) {
+            if (kinds[g] == GhostPolicy.BLINKY) {
+                return ghostOf(units, g);
+            }
+        }
+        return -1;
+    }
+
+    private boolean hasPellet(int node) {
+        return (pellets[node / Long.SIZE] & 1L << node) != 0;
+    }
+
+    /**
+     * Eats or restores the pellet on a node.
+     */
+    private void togglePellet(int node, int change) {
+        pellets[node / Long.SIZE] ^= 1L << node;
+        pelletHash ^= pelletKeys[node];
+        pelletsLeft += change;
+    }
+
+    private static int pacmanOf(long units) {
+        return (int) (units & NODE_MASK);
+    }
+
+    private static int headingOf(long units) {
+        return (int) (units >>> HEADING_SHIFT & HEADING_MASK) - 1;
+    }
+
+    private static int ghostOf(long units, int ghost) {
+        return (int) (units >>> GHOST_SHIFT + ghost * NODE_BITS & NODE_MASK);
+    }
+
+    private static long withPacman(long units, int node, int heading) {
+        return units & -1L << GHOST_SHIFT | node | (long) (heading + 1) << HEADING_SHIFT;
+    }
+
+    private static long withGhost(long units, int ghost, int node) {
+        final int shift = GHOST_SHIFT + ghost * NODE_BITS;
+        return units & ~(NODE_MASK << shift) | (long) node << shift;
+    }
+
+    /**
+     * @return The number of states of Pac-Man to move visited by the last
+     * search.
+     */
+    long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return The depth, in moves of Pac-Man, the last search finished.
+     */
+    int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return The time the last search took, in nanoseconds.
+     */
+    long getNanos() {
+        return nanos;
+    }
+}
@@ -0,0 +1,567 @@
+package nl.tudelft.jpacman.strategy;
+
+import nl.tudelft.jpacman.GameRandom;
+import nl.tudelft.jpacman.board.BoardLayout;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.DistanceOracle;
+import nl.tudelft.jpacman.board.Unit;
+import nl.tudelft.jpacman.level.BoardSnapshot;
+import nl.tudelft.jpacman.npc.ghost.Ghost;
+import nl.tudelft.jpacman.npc.ghost.Pinky;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A lightweight model of a level that the Monte Carlo search plays forward:
+ * a pellet bitmap over the nodes of the {@link BoardLayout}, the node of
+ * Pac-Man and the nodes of the ghosts.
+ * <p>
+ * The ghosts follow the simplified policies of Blinky, Pinky, Inky and
+ * Clyde of the {@link GhostPolicy}. Each step of the model is one move of
+ * Pac-Man, and every ghost moves in a step with the chance that it is as
+ * fast as Pac-Man. Once created, a model never allocates, so it can be
+ * played forward thousands of times per move.
+ */
+final class ForwardModel {
+
+    /**
+     * The chances are expressed in this many parts.
+     */
+    static final int CHANCE_PARTS = 1000;
+
+    /**
+     * The average time between the moves of Pinky, in milliseconds.
+     */
+    private static final int PINKY_INTERVAL = 225;
+
+    /**
+     * The average time between the moves of the other ghosts, in milliseconds.
+     */
+    private static final int GHOST_INTERVAL = 275;
+
+    /**
+     * The chance in a thousand that a rollout goes for a pellet next to
+     * Pac-Man rather than a random direction.
+     */
+    private static final int PELLET_PREFERENCE = 750;
+
+    /**
+     * The number of pellets eaten in a search that counts as doing well.
+     */
+    private static final double PELLET_NORM = 10;
+
+    /**
+     * The value of surviving without eating anything.
+     */
+    private static final double SURVIVAL_VALUE = 0.3;
+
+    /**
+     * The largest value of being close to a pellet when a rollout ends.
+     */
+    private static final double PROXIMITY_VALUE = 0.1;
+
+    /**
+     * The largest value of dying, given when dying as late as possible.
+     */
+    private static final double DEATH_VALUE = 0.2;
+
+    /**
+     * The number of directions.
+     */
+    private static final int DIRECTIONS = Direction.values().length;
+
+    /**
+     * The accessible squares of the board and their neighbours.
+     */
+    private final BoardLayout layout;
+
+    /**
+     * The distances between the accessible squares.
+     */
+    private final DistanceOracle oracle;
+
+    /**
+     * The policies of the ghosts.
+     */
+    private final GhostPolicy policy;
+
+    /**
+     * The kind of every ghost.
+     */
+    private final int[] kinds;
+
+    /**
+     * The chance in a thousand that every ghost moves in a step.
+     */
+    private final int[] speeds;
+
+    /**
+     * The nodes that have a pellet, one bit per node.
+     */
+    private final long[] pellets;
+
+    /**
+     * The node of every ghost.
+     */
+    private final int[] ghosts;
+
+    /**
+     * The number of pellets left.
+     */
+    private int pelletsLeft;
+
+    /**
+     * The node of Pac-Man.
+     */
+    private int pacman;
+
+    /**
+     * The ordinal of the direction Pac-Man last moved in, or -1.
+     */
+    private int heading;
+
+    /**
+     * The number of pellets eaten since the model was copied.
+     */
+    private int eaten;
+
+    /**
+     * The number of steps made since the model was copied.
+     */
+    private int steps;
+
+    /**
+     * <code>true</code> once a ghost caught Pac-Man.
+     */
+    private boolean dead;
+
+    /**
+     * The source of the random choices of the ghosts.
+     */
+    private GameRandom ghostRandom;
+
+    /**
+     * Creates a model without pellets, with every unit on node 0.
+     *
+     * @param boardLayout The accessible squares of the board.
+     * @param distances   The distances between them.
+     * @param ghostKinds  The kind of every ghost.
+     * @param ghostSpeeds The chance in a thousand that every ghost moves in a step.
+     */
+    ForwardModel(BoardLayout boardLayout, DistanceOracle distances, int[] ghostKinds,
+                 int[] ghostSpeeds) {
+        this.layout = boardLayout;
+        this.oracle = distances;
+        this.policy = new GhostPolicy(boardLayout, distances);
+        this.kinds = ghostKinds;
+        this.speeds = ghostSpeeds;
+        this.pellets = new long[(boardLayout.getNodeCount() + Long.SIZE - 1) / Long.SIZE];
+        this.ghosts = new int[ghostKinds.length];
+    }
+
+    /**
+     * Builds the model of a level as it is in a snapshot.
+     *
+     * @param snapshot    The snapshot of the level.
+     * @param player      The unit of Pac-Man.
+     * @param interval    The time between the moves of Pac-Man, in milliseconds.
+     * @param boardLayout The accessible squares of the board.
+     * @param distances   The distances between them.
+     * @return The model, or <code>null</code> if Pac-Man is not on the board.
+     */
+    static ForwardModel of(BoardSnapshot snapshot, Unit player, long interval,
+                           BoardLayout boardLayout, DistanceOracle distances) {
+        final List<Unit> units = snapshot.getUnits();
+        final List<Integer> ghostUnits = new ArrayList<>();
+        int pacman = -1;
+        for (int i = 0; i < units.size(); i++) {
+            if (snapshot.getX(i) == BoardSnapshot.OFF_BOARD) {
+                continue;
+            }
+            if (units.get(i) instanceof Ghost) {
+                ghostUnits.add(i);
+            } else if (units.get(i) == player) {
+                pacman = i;
+            }
+        }
+        if (pacman < 0) {
+            return null;
+        }
+        final int[] kinds = new int[ghostUnits.size()];
+        final int[] speeds = new int[ghostUnits.size()];
+        for (int g = 0; g < kinds.length; g++) {
+            final Unit ghost = units.get(ghostUnits.get(g));
+            kinds[g] = GhostPolicy.kindOf(ghost);
+            int ghostInterval = GHOST_INTERVAL;
+            if (ghost instanceof Pinky) {
+                ghostInterval = PINKY_INTERVAL;
+            }
+            speeds[g] = (int) Math.min(CHANCE_PARTS, CHANCE_PARTS * interval / ghostInterval);
+        }
+        final ForwardModel model = new ForwardModel(boardLayout, distances, kinds, speeds);
+        model.placePacman(nodeOf(snapshot, pacman, boardLayout), snapshot.getDirection(pacman));
+        for (int g = 0; g < kinds.length; g++) {
+            model.placeGhost(g, nodeOf(snapshot, ghostUnits.get(g), boardLayout));
+        }
+        for (int node = 0; node < boardLayout.getNodeCount(); node++) {
+            if (snapshot.hasPellet(boardLayout.getX(node), boardLayout.getY(node))) {
+                model.addPellet(node);
+            }
+        }
+        return model;
+    }
+
+    private static int nodeOf(BoardSnapshot snapshot, int unit, BoardLayout boardLayout) {
+        return boardLayout.nodeAt(snapshot.getX(unit), snapshot.getY(unit));
+    }
+
+    /**
+     * Creates an empty model of the same board and ghosts, to copy states into.
+     *
+     * @return The new model.
+     */
+    ForwardModel blank() {
+        return new ForwardModel(layout, oracle, kinds, speeds);
+    }
+
+    /**
+     * Puts a pellet on a node.
+     *
+     * @param node The node.
+     */
+    void addPellet(int node) {
+        if (!hasPellet(node)) {
+            pellets[node / Long.SIZE] |= 1L << node;
+            pelletsLeft++;
+        }
+    }
+
+    /**
+     * Places Pac-Man.
+     *
+     * @param node      His node.
+     * @param direction The direction he faces, or <code>null</code>.
+     */
+    void placePacman(int node, Direction direction) {
+        pacman = node;
+        heading = -1;
+        if (direction != null) {
+            heading = direction.ordinal();
+        }
+    }
+
+    /**
+     * Places a ghost.
+     *
+     * @param ghost The index of the ghost.
+     * @param node  Its node.
+     */
+    void placeGhost(int ghost, int node) {
+        ghosts[ghost] = node;
+    }
+
+    /**
+     * Makes this model a copy of another model of the same board, and starts
+     * counting the pellets eaten and steps made anew.
+     *
+     * @param other The model to copy.
+     */
+    void copyFrom(ForwardModel other) {
+        System.arraycopy(other.pellets, 0, pellets, 0, pellets.length);
+        System.arraycopy(other.ghosts, 0, ghosts, 0, ghosts.length);
+        pelletsLeft = other.pelletsLeft;
+        pacman = other.pacman;
+        heading = other.heading;
+        dead = other.dead;
+        eaten = 0;
+        steps = 0;
+    }
+
+    /**
+     * Sets the source of the random choices of the ghosts, which must be set
+     * before the model is played forward.
+     *
+     * @param random The source.
+     */
+    void setRandom(GameRandom random) {
+        this.ghostRandom = random;
+    }
+
+    /**
+     * @return <code>true</code> iff Pac-Man died or ate all pellets.
+     */
+    boolean isOver() {
+        return dead || pelletsLeft == 0;
+    }
+
+    /**
+     * @return The directions Pac-Man can move in, as a bit per ordinal.
+     */
+    int legalMoves() {
+        return movesFrom(pacman);
+    }
+
+    /**
+     * Moves Pac-Man in a direction, and then on along the corridor he is in
+     * until he reaches an intersection, like the player is moved for an AI
+     * strategy.
+     *
+     * @param direction The ordinal of a direction Pac-Man can move in.
+     * @param maxSteps  The largest number of steps made.
+     */
+    void act(int direction, int maxSteps) {
+        step(direction);
+        int made = 1;
+        while (!isOver() && made < maxSteps && inCorridor()) {
+            step(heading);
+            made++;
+        }
+    }
+
+    private boolean inCorridor() {
+        if (heading < 0 || layout.neighbour(pacman, heading) == BoardLayout.NONE) {
+            return false;
+        }
+        final Direction direction = Direction.values()[heading];
+        if (direction == Direction.NORTH || direction == Direction.SOUTH) {
+            return layout.neighbour(pacman, Direction.EAST) == BoardLayout.NONE
+                    && layout.neighbour(pacman, Direction.WEST) == BoardLayout.NONE;
+        }
+        return layout.neighbour(pacman, Direction.NORTH) == BoardLayout.NONE
+                && layout.neighbour(pacman, Direction.SOUTH) == BoardLayout.NONE;
+    }
+
+    /**
+     * Plays on with a simple policy that avoids ghosts, prefers pellets and
+     * does not turn back, and rates the result.
+     *
+     * @param random   The source of the random choices.
+     * @param maxSteps The number of steps to play at most.
+     * @return How well Pac-Man did since the model was copied, from 0 for
+     * dying at once to 1 for eating all pellets.
+     */
+    double rollout(GameRandom random, int maxSteps) {
+        while (!isOver() && steps < maxSteps) {
+            step(rolloutMove(random));
+        }
+        if (dead) {
+            return DEATH_VALUE * Math.min(1, steps / (double) maxSteps);
+        }
+        if (pelletsLeft == 0) {
+            return 1;
+        }
+        return SURVIVAL_VALUE + PROXIMITY_VALUE / (1.0 + nearestPellet())
+                + (1 - SURVIVAL_VALUE - PROXIMITY_VALUE) * Math.min(1, eaten / PELLET_NORM);
+    }
+
+    /**
+     * @return The distance from Pac-Man to the nearest pellet, as far as the
+     * distance oracle can tell in constant time per pellet.
+     */
+    private int nearestPellet() {
+        int nearest = Integer.MAX_VALUE;
+        for (int word = 0; word < pellets.length; word++) {
+            long bits = pellets[word];
+            while (bits != 0) {
+                final int node = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                final int distance = oracle.lowerBound(pacman, node);
+                if (distance >= 0 && distance < nearest) {
+                    nearest = distance;
+                }
+                bits &= bits - 1;
+            }
+        }
+        return nearest;
+    }
+
+    private int rolloutMove(GameRandom random) {
+        int options = legalMoves();
+        if (heading >= 0 && Integer.bitCount(options) > 1) {
+            options &= ~(1 << opposite(heading));
+        }
+        int withPellet = 0;
+        int safe = 0;
+        for (int d = 0; d < DIRECTIONS; d++) {
+            if ((options & 1 << d) == 0 || hasGhost(layout.neighbour(pacman, d))) {
+                continue;
+            }
+            safe |= 1 << d;
+            if (hasPellet(layout.neighbour(pacman, d))) {
+                withPellet |= 1 << d;
+            }
+        }
+        if (safe != 0) {
+            options = safe;
+        }
+        if (withPellet != 0 && random.nextInt(CHANCE_PARTS) < PELLET_PREFERENCE) {
+            options = withPellet;
+        }
+        return pick(options, random);
+    }
+
+    /**
+     * Moves Pac-Man one square, eats the pellet there, and moves the ghosts.
+     */
+    private void step(int direction) {
+        int to = BoardLayout.NONE;
+        if (direction >= 0) {
+            to = layout.neighbour(pacman, direction);
+        }
+        steps++;
+        if (to == BoardLayout.NONE) {
+            moveGhosts(pacman);
+            return;
+        }
+        pacman = to;
+        heading = direction;
+        if (hasPellet(to)) {
+            pellets[to / Long.SIZE] &= ~(1L << to);
+            pelletsLeft--;
+            eaten++;
+        }
+        moveGhosts(to);
+    }
+
+    /**
+     * Moves the ghosts, after Pac-Man moved to a node. Pac-Man dies if a
+     * ghost was on that node or moves onto it.
+     */
+    private void moveGhosts(int to) {
+        for (int g = 0; g < ghosts.length; g++) {
+            if (ghosts[g] == to) {
+                dead = true;
+            }
+            if (ghostRandom.nextInt(CHANCE_PARTS) < speeds[g]) {
+                ghosts[g] = ghostMove(g);
+            }
+            if (ghosts[g] == to) {
+                dead = true;
+            }
+        }
+    }
+
+    private int ghostMove(int g) {
+        final int node = ghosts[g];
+        final int moves = movesFrom(node);
+        if (moves == 0) {
+            return node;
+        }
+        if (ghostRandom.nextInt(GhostPolicy.RANDOM_MOVE) == 0) {
+            return layout.neighbour(node, pick(moves, ghostRandom));
+        }
+        return policy.target(kinds[g], node, pacman, heading, blinky());
+    }
+
+    /**
+     * @return The node of the first ghost chasing Pac-Man, or -1.
+     */
+    private int blinky() {
+        for (int g = 0; g < ghosts.length; g++) {
+            if (kinds[g] == GhostPolicy.BLINKY) {
+                return ghosts[g];
+            }
+        }
+        return -1;
+    }
+
+    private int movesFrom(int node) {
+        return policy.movesFrom(node);
+    }
+
+    private boolean hasGhost(int node) {
+        for (int ghost : ghosts) {
+            if (ghost == node) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param node A node.
+     * @return <code>true</code> iff the node has a pellet.
+     */
+    boolean hasPellet(int node) {
+        return (pellets[node / Long.SIZE] & 1L << node) != 0;
+    }
+
+    /**
+     * Picks one of the directions of a set at random.
+     */
+    private static int pick(int directions, GameRandom random) {
+        if (directions == 0) {
+            return -1;
+        }
+        int skip = random.nextInt(Integer.bitCount(directions));
+        for (int d = 0; d < DIRECTIONS; d++) {
+            if ((directions & 1 << d) != 0 && skip-- == 0) {
+                return d;
+            }
+        }
+        return -1;
+    }
+
+    private static int opposite(int direction) {
+        return direction ^ 1;
+    }
+
+    /**
+     * @return The node of Pac-Man.
+     */
+    int getPacman() {
+        return pacman;
+    }
+
+    /**
+     * @return The number of pellets left.
+     */
+    int getPelletsLeft() {
+        return pelletsLeft;
+    }
+
+    /**
+     * @return <code>true</code> iff a ghost caught Pac-Man.
+     */
+    boolean isDead() {
+        return dead;
+    }
+
+    /**
+     * @return The ordinal of the direction Pac-Man last moved in, or -1.
+     */
+    int getHeading() {
+        return heading;
+    }
+
+    /**
+     * @return The number of ghosts.
+     */
+    int getGhostCount() {
+        return ghosts.length;
+    }
+
+    /**
+     * @param ghost The index of a ghost.
+     * @return Its node.
+     */
+    int getGhost(int ghost) {
+        return ghosts[ghost];
+    }
+
+    /**
+     * @param ghost The index of a ghost.
+     * @return Its kind.
+     */
+    int getKind(int ghost) {
+        return kinds[ghost];
+    }
+
+    /**
+     * @param ghost The index of a ghost.
+     * @return The chance in a thousand that it moves in a step.
+     */
+    int getSpeed(int ghost) {
+        return speeds[ghost];
+    }
+}
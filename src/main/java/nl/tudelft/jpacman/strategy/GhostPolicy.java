@@ -0,0 +1,209 @@
+package nl.tudelft.jpacman.strategy;
+
+import nl.tudelft.jpacman.board.BoardLayout;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.DistanceOracle;
+import nl.tudelft.jpacman.board.Unit;
+import nl.tudelft.jpacman.npc.ghost.Clyde;
+import nl.tudelft.jpacman.npc.ghost.Inky;
+import nl.tudelft.jpacman.npc.ghost.Pinky;
+
+/**
+ * The simplified policies of Blinky, Pinky, Inky and Clyde that the searches
+ * of the strategies assume the ghosts follow, steering by the
+ * {@link DistanceOracle} of the board. A ghost makes the move its policy
+ * targets, except for one move in {@link #RANDOM_MOVE} that is uniformly
+ * random, like the random moves of the ghosts of the game.
+ */
+final class GhostPolicy {
+
+    /**
+     * The kind of a ghost that chases Pac-Man, like Blinky.
+     */
+    static final int BLINKY = 0;
+
+    /**
+     * The kind of a ghost that heads for the squares ahead of Pac-Man.
+     */
+    static final int PINKY = 1;
+
+    /**
+     * The kind of a ghost that cuts Pac-Man off together with Blinky.
+     */
+    static final int INKY = 2;
+
+    /**
+     * The kind of a ghost that flees when Pac-Man is near.
+     */
+    static final int CLYDE = 3;
+
+    /**
+     * One in this many ghost moves is random.
+     */
+    static final int RANDOM_MOVE = 10;
+
+    /**
+     * The number of squares ahead of Pac-Man Pinky heads for.
+     */
+    private static final int PINKY_AHEAD = 4;
+
+    /**
+     * The number of squares ahead of Pac-Man Inky draws his line through.
+     */
+    private static final int INKY_AHEAD = 2;
+
+    /**
+     * The distance to Pac-Man within which Clyde flees.
+     */
+    private static final int SHYNESS = 8;
+
+    /**
+     * The number of directions.
+     */
+    private static final int DIRECTIONS = Direction.values().length;
+
+    /**
+     * The accessible squares of the board and their neighbours.
+     */
+    private final BoardLayout layout;
+
+    /**
+     * The distances between the accessible squares.
+     */
+    private final DistanceOracle oracle;
+
+    /**
+     * Creates the policies for a board.
+     *
+     * @param boardLayout The accessible squares of the board.
+     * @param distances   The distances between them.
+     */
+    GhostPolicy(BoardLayout boardLayout, DistanceOracle distances) {
+        this.layout = boardLayout;
+        this.oracle = distances;
+    }
+
+    /**
+     * Returns the kind of a ghost. Blinky, and any ghost of another type,
+     * chases Pac-Man.
+     *
+     * @param ghost The ghost.
+     * @return Its kind.
+     */
+    static int kindOf(Unit ghost) {
+        if (ghost instanceof Pinky) {
+            return PINKY;
+        }
+        if (ghost instanceof Inky) {
+            return INKY;
+        }
+        if (ghost instanceof Clyde) {
+            return CLYDE;
+        }
+        return BLINKY;
+    }
+
+    /**
+     * Returns the node the policy of a ghost moves it to, leaving out the
+     * random moves.
+     *
+     * @param kind    The kind of the ghost.
+     * @param ghost   The node of the ghost.
+     * @param pacman  The node of Pac-Man.
+     * @param heading The ordinal of the direction Pac-Man last moved in, or -1.
+     * @param blinky  The node of a ghost chasing Pac-Man, or -1 if there is none.
+     * @return The node of the ghost after its move.
+     */
+    int target(int kind, int ghost, int pacman, int heading, int blinky) {
+        if (kind == CLYDE) {
+            final int distance = oracle.lowerBound(ghost, pacman);
+            if (distance != DistanceOracle.UNREACHABLE && distance <= SHYNESS) {
+                return stepTowards(ghost, pacman, false);
+            }
+        }
+        if (kind == PINKY) {
+            return stepTowards(ghost, ahead(pacman, heading, PINKY_AHEAD), true);
+        }
+        if (kind == INKY) {
+            return stepTowards(ghost, inkyTarget(pacman, heading, blinky), true);
+        }
+        return stepTowards(ghost, pacman, true);
+    }
+
+    /**
+     * Returns the directions in which a node has a neighbour.
+     *
+     * @param node The node.
+     * @return The directions, as a bit per ordinal.
+     */
+    int movesFrom(int node) {
+        int moves = 0;
+        for (int d = 0; d < DIRECTIONS; d++) {
+            if (layout.neighbour(node, d) != BoardLayout.NONE) {
+                moves |= 1 << d;
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Returns the node a number of squares ahead of Pac-Man, stopping at
+     * walls.
+     */
+    private int ahead(int pacman, int heading, int squares) {
+        int node = pacman;
+        for (int i = 0; i < squares && heading >= 0; i++) {
+            final int next = layout.neighbour(node, heading);
+            if (next == BoardLayout.NONE) {
+                break;
+            }
+            node = next;
+        }
+        return node;
+    }
+
+    /**
+     * Returns the node at twice the way from Blinky to the squares ahead of
+     * Pac-Man, or Pac-Man himself if that is no accessible square.
+     */
+    private int inkyTarget(int pacman, int heading, int blinky) {
+        final int pivot = ahead(pacman, heading, INKY_AHEAD);
+        if (blinky < 0) {
+            return pivot;
+        }
+        final int x = 2 * layout.getX(pivot) - layout.getX(blinky);
+        final int y = 2 * layout.getY(pivot) - layout.getY(blinky);
+        if (x < 0 || y < 0 || x >= layout.getWidth() || y >= layout.getHeight()
+                || layout.nodeAt(x, y) == BoardLayout.NONE) {
+            return pacman;
+        }
+        return layout.nodeAt(x, y);
+    }
+
+    /**
+     * Returns the neighbour of a node that is closest to, or furthest from,
+     * a target.
+     */
+    private int stepTowards(int node, int target, boolean closer) {
+        int best = node;
+        int bestScore = Integer.MIN_VALUE;
+        for (int d = 0; d < DIRECTIONS; d++) {
+            final int next = layout.neighbour(node, d);
+            if (next == BoardLayout.NONE) {
+                continue;
+            }
+            int score = oracle.lowerBound(next, target);
+            if (score == DistanceOracle.UNREACHABLE) {
+                score = Integer.MAX_VALUE / 2;
+            }
+            if (closer) {
+                score = -score;
+            }
+            if (score > bestScore) {
+                best = next;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+}
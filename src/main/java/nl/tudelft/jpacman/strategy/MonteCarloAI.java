@@ -0,0 +1,125 @@
+package nl.tudelft.jpacman.strategy;
+
+import nl.tudelft.jpacman.board.BoardLayout;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.DistanceOracle;
+import nl.tudelft.jpacman.game.Game;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A strategy that chooses the moves of Pac-Man by Monte Carlo tree search
+ * over a {@link ForwardModel} of the level, with rollouts in parallel on a
+ * pool of threads. Every move is given a fixed time budget, 20 ms by
+ * default, instead of the thresholds of {@link PacManhattanAI}.
+ */
+public class MonteCarloAI extends AIStrategy {
+
+    /**
+     * The default time budget of a move, in milliseconds.
+     */
+    private static final long DEFAULT_BUDGET = 20;
+
+    /**
+     * The pacman game.
+     */
+    private final Game game;
+
+    /**
+     * The search choosing the moves.
+     */
+    private final TreeSearch search;
+
+    /**
+     * The accessible squares of the board.
+     */
+    private final BoardLayout layout;
+
+    /**
+     * The distances between the accessible squares.
+     */
+    private final DistanceOracle oracle;
+
+    /**
+     * The time budget of a move, in nanoseconds.
+     */
+    private volatile long budget = TimeUnit.MILLISECONDS.toNanos(DEFAULT_BUDGET);
+
+    /**
+     * Creates a strategy searching on all cores, on the common pool.
+     *
+     * @param game the current game.
+     */
+    public MonteCarloAI(final Game game) {
+        this(game, ForkJoinPool.commonPool(), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a strategy.
+     *
+     * @param game        the current game.
+     * @param searchPool  The pool the searchers run on.
+     * @param parallelism The number of searchers.
+     */
+    public MonteCarloAI(final Game game, ExecutorService searchPool, int parallelism) {
+        super(game);
+        assert parallelism > 0;
+        this.game = game;
+        this.search = new TreeSearch(searchPool, parallelism, game.getLevel().getSeed());
+        this.layout = getBoard().getLayout();
+        this.oracle = DistanceOracle.forBoard(getBoard());
+    }
+
+    /**
+     * Sets the time a move may take to decide.
+     *
+     * @param millis The time budget of a move, in milliseconds.
+     */
+    public void setBudget(long millis) {
+        assert millis > 0;
+        budget = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * Searches for the best move until the time budget runs out.
+     *
+     * @return the best move.
+     */
+    @Override
+    public Direction nextMove() {
+        final ForwardModel root = rootModel();
+        if (root == null || root.legalMoves() == 0) {
+            return fallbackMove();
+        }
+        final Direction best = search.search(root, budget);
+        if (best == null) {
+            return fallbackMove();
+        }
+        return best;
+    }
+
+    private Direction fallbackMove() {
+        if (getPlayer().getDirection() != null) {
+            return getPlayer().getDirection();
+        }
+        return Direction.NORTH;
+    }
+
+    /**
+     * Builds the model of the level as it is now.
+     *
+     * @return The model, or <code>null</code> if Pac-Man is not on the board.
+     */
+    private ForwardModel rootModel() {
+        return ForwardModel.of(game.getLevel().getSnapshot(), getPlayer(),
+                getPlayer().getInterval(), layout, oracle);
+    }
+
+    /**
+     * Does nothing, the moves are asked for by the level.
+     */
+    @Override
+    public void executeStrategy() { /**/ }
+}
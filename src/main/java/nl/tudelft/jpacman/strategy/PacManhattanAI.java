@@ -40,8 +40,7 @@ public class PacManhattanAI extends AIStrategy {
     /**
      * The threshold distance between the player and a ghost.
      */
-    @SuppressWarnings("checkstyle:magicnumber")
-    private static int ghostDstThreshold = 14;
+    private int ghostDstThreshold = INITIAL_GHOST_DST;
     /**
      * The pacman game.
      */
@@ -75,7 +74,7 @@ public class PacManhattanAI extends AIStrategy {
      *
      * @param pelletNbr the pellets number remaining in the game.
      */
-    private static void updatePacmanBehaviour(final int pelletNbr) {
+    private void updatePacmanBehaviour(final int pelletNbr) {
         if (pelletNbr <= HIGH_PELLET_COUNT) {
             //Pacman must recover the last pellets to finish
             if (pelletNbr <= LOW_PELLET_COUNT) {
@@ -327,7 +326,7 @@ public class PacManhattanAI extends AIStrategy {
      *
      * @param ghostDst the new ghostDstThreshold.
      */
-    public static void setGhostDstThreshold(final int ghostDst) {
+    public void setGhostDstThreshold(final int ghostDst) {
         ghostDstThreshold = ghostDst;
     }
 }
@@ -0,0 +1,291 @@
+package nl.tudelft.jpacman.strategy;
+
+import com.google.common.collect.ImmutableList;
+import nl.tudelft.jpacman.GameRandom;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.metrics.Counter;
+import nl.tudelft.jpacman.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * The Monte Carlo tree search behind {@link MonteCarloAI}.
+ * <p>
+ * A number of searchers each grow a tree of their own on the threads of a
+ * pool, so they never wait for each other, until the time budget runs out.
+ * A tree holds the sequences of decisions Pac-Man makes at intersections;
+ * the ghosts are played forward anew on every pass, so a node stands for
+ * all the ways the ghosts may have moved meanwhile. The move visited most
+ * by all searchers together is chosen.
+ */
+final class TreeSearch {
+
+    /**
+     * The number of nodes of the tree of a searcher.
+     */
+    private static final int TREE_SIZE = 1 << 15;
+
+    /**
+     * The number of decisions a tree looks ahead at most.
+     */
+    private static final int MAX_DEPTH = 12;
+
+    /**
+     * The largest number of steps made along a corridor for one decision.
+     */
+    private static final int CORRIDOR_STEPS = 16;
+
+    /**
+     * The number of steps played forward in a pass, including those made
+     * in the tree.
+     */
+    private static final int HORIZON = 60;
+
+    /**
+     * The weight of exploring moves tried less often.
+     */
+    private static final double EXPLORATION = 0.25;
+
+    /**
+     * The number of directions.
+     */
+    private static final int DIRECTIONS = Direction.values().length;
+
+    /**
+     * The pool the searchers run on.
+     */
+    private final ExecutorService pool;
+
+    /**
+     * The searchers, one per thread of the pool used.
+     */
+    private final List<Searcher> searchers;
+
+    /**
+     * Creates a new search.
+     *
+     * @param searchPool  The pool the searchers run on.
+     * @param parallelism The number of searchers.
+     * @param seed        The seed of the random choices of the searchers.
+     */
+    TreeSearch(ExecutorService searchPool, int parallelism, long seed) {
+        this.pool = searchPool;
+        final GameRandom seeds = new GameRandom(seed);
+        final List<Searcher> created = new ArrayList<>();
+        for (int i = 0; i < parallelism; i++) {
+            created.add(new Searcher(seeds.split()));
+        }
+        this.searchers = ImmutableList.copyOf(created);
+    }
+
+    /**
+     * Searches for the best move of Pac-Man.
+     *
+     * @param root   The model of the level as it is now, in which Pac-Man
+     *               can move.
+     * @param budget The time the search may take, in nanoseconds.
+     * @return The best move, or <code>null</code> if the search was
+     * interrupted.
+     */
+    Direction search(ForwardModel root, long budget) {
+        final long deadline = System.nanoTime() + budget;
+        for (Searcher searcher : searchers) {
+            searcher.prepare(root, deadline);
+        }
+        try {
+            for (Future<Void> done : pool.invokeAll(searchers)) {
+                done.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        for (Searcher searcher : searchers) {
+            Metrics.count(Counter.NODES_EXPANDED, searcher.size);
+        }
+        return mostVisited(root.legalMoves());
+    }
+
+    private Direction mostVisited(int moves) {
+        int best = Integer.numberOfTrailingZeros(moves);
+        long bestVisits = -1;
+        for (int d = 0; d < DIRECTIONS; d++) {
+            long visits = 0;
+            for (Searcher searcher : searchers) {
+                visits += searcher.rootVisits(d);
+            }
+            if ((moves & 1 << d) != 0 && visits > bestVisits) {
+                best = d;
+                bestVisits = visits;
+            }
+        }
+        return Direction.values()[best];
+    }
+
+    /**
+     * A searcher growing one tree on one thread. The tree is stored in
+     * arrays allocated once, and reused for every move.
+     */
+    private static final class Searcher implements Callable<Void> {
+
+        /**
+         * The child of every node in every direction, or 0 if there is none.
+         */
+        private final int[] children = new int[TREE_SIZE * DIRECTIONS];
+
+        /**
+         * The number of passes through every node.
+         */
+        private final int[] visits = new int[TREE_SIZE];
+
+        /**
+         * The total value of the passes through every node.
+         */
+        private final double[] totals = new double[TREE_SIZE];
+
+        /**
+         * The nodes of the current pass.
+         */
+        private final int[] path = new int[MAX_DEPTH + 2];
+
+        /**
+         * The source of the random choices of this searcher.
+         */
+        private final GameRandom random;
+
+        /**
+         * The model of the level when the search started.
+         */
+        private ForwardModel root;
+
+        /**
+         * The model played forward in a pass.
+         */
+        private ForwardModel model;
+
+        /**
+         * The time the search ends, as given by {@link System#nanoTime()}.
+         */
+        private long deadline;
+
+        /**
+         * The number of nodes in the tree.
+         */
+        private int size;
+
+        private Searcher(GameRandom source) {
+            this.random = source;
+        }
+
+        /**
+         * Starts a new tree.
+         */
+        private void prepare(ForwardModel rootModel, long until) {
+            root = rootModel;
+            model = rootModel.blank();
+            model.setRandom(random);
+            deadline = until;
+            size = 0;
+            newNode();
+        }
+
+        @Override
+        public Void call() {
+            do {
+                pass();
+            } while (System.nanoTime() < deadline);
+            return null;
+        }
+
+        /**
+         * Descends the tree, adds one node, plays on from there and adds
+         * the value of the result to the nodes passed.
+         */
+        private void pass() {
+            model.copyFrom(root);
+            int node = 0;
+            int depth = 0;
+            path[depth++] = node;
+            while (depth <= MAX_DEPTH && !model.isOver()) {
+                final int moves = model.legalMoves();
+                int direction = untried(node, moves);
+                if (direction >= 0 && size == TREE_SIZE) {
+                    break;
+                }
+                if (direction >= 0) {
+                    final int child = newNode();
+                    children[node * DIRECTIONS + direction] = child;
+                    model.act(direction, CORRIDOR_STEPS);
+                    path[depth++] = child;
+                    break;
+                }
+                direction = bestChild(node, moves);
+                node = children[node * DIRECTIONS + direction];
+                model.act(direction, CORRIDOR_STEPS);
+                path[depth++] = node;
+            }
+            final double value = model.rollout(random, HORIZON);
+            for (int i = 0; i < depth; i++) {
+                visits[path[i]]++;
+                totals[path[i]] += value;
+            }
+        }
+
+        private int untried(int node, int moves) {
+            for (int d = 0; d < DIRECTIONS; d++) {
+                if ((moves & 1 << d) != 0 && children[node * DIRECTIONS + d] == 0) {
+                    return d;
+                }
+            }
+            return -1;
+        }
+
+        private int bestChild(int node, int moves) {
+            final double log = Math.log(visits[node]);
+            int best = -1;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int d = 0; d < DIRECTIONS; d++) {
+                if ((moves & 1 << d) == 0) {
+                    continue;
+                }
+                final int child = children[node * DIRECTIONS + d];
+                final double score = totals[child] / visits[child]
+                        + EXPLORATION * Math.sqrt(log / visits[child]);
+                if (score > bestScore) {
+                    best = d;
+                    bestScore = score;
+                }
+            }
+            return best;
+        }
+
+        private int newNode() {
+            final int node = size++;
+            for (int d = 0; d < DIRECTIONS; d++) {
+                children[node * DIRECTIONS + d] = 0;
+            }
+            visits[node] = 0;
+            totals[node] = 0;
+            return node;
+        }
+
+        /**
+         * @return The number of passes through the child of the root in a
+         * direction.
+         */
+        private int rootVisits(int direction) {
+            final int child = children[direction];
+            if (child == 0) {
+                return 0;
+            }
+            return visits[child];
+        }
+    }
+}
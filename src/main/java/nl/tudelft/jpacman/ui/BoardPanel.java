@@ -4,6 +4,8 @@ import nl.tudelft.jpacman.board.Board;
 import nl.tudelft.jpacman.board.Square;
 import nl.tudelft.jpacman.board.Unit;
 import nl.tudelft.jpacman.game.Game;
+import nl.tudelft.jpacman.metrics.Metrics;
+import nl.tudelft.jpacman.metrics.Operation;
 
 import javax.swing.*;
 import java.awt.*;
@@ -53,7 +55,9 @@ class BoardPanel extends JPanel {
     @Override
     public void paint(Graphics g) {
         assert g != null;
+        final long start = Metrics.start();
         render(game.getLevel().getBoard(), g, getSize());
+        Metrics.record(Operation.PAINT, getClass(), start);
     }
 
     /**
@@ -0,0 +1,44 @@
+package nl.tudelft.jpacman;
+
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the source of random choices in a game.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+public class GameRandomTest {
+
+    /**
+     * Verifies that the numbers are those of a {@link SplittableRandom} with
+     * the same seed, also after splitting.
+     */
+    @Test
+    public void sameAsSplittableRandom() {
+        final GameRandom random = new GameRandom(42);
+        final SplittableRandom expected = new SplittableRandom(42);
+        final GameRandom split = random.split();
+        final SplittableRandom expectedSplit = expected.split();
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(expected.nextInt(1 + i), random.nextInt(1 + i));
+            assertEquals(expectedSplit.nextLong(), split.nextLong());
+        }
+    }
+
+    /**
+     * Verifies that a restored random continues with the same numbers.
+     */
+    @Test
+    public void restoreState() {
+        final GameRandom random = new GameRandom();
+        random.nextLong();
+        final GameRandom copy = new GameRandom(0);
+        copy.setState(random.getSeed(), random.getGamma());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(random.nextInt(7), copy.nextInt(7));
+        }
+    }
+}
@@ -6,6 +6,8 @@ import org.junit.Before;
 import org.junit.Test;
 
 import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
@@ -20,6 +22,7 @@ import static org.mockito.Mockito.mock;
  *
  * @author Jeroen Roosen
  */
+@SuppressWarnings("checkstyle:magicnumber")
 public class BoardFactoryTest {
 
     /**
@@ -109,4 +112,28 @@ public class BoardFactoryTest {
                 Charset.forName("UTF-8"));
         assertEquals("Level 1 was not properly generated", imgContent, txtContent);
     }
+
+    /**
+     * Verifies that large images, whose lines are converted in parallel,
+     * keep their lines in order.
+     */
+    @Test
+    public void convertLargeImage() {
+        final Color[] colors = {Color.YELLOW, Color.RED, Color.BLUE, Color.BLACK, Color.WHITE};
+        final String letters = "PG# .";
+        final int size = 300;
+        final BufferedImage img = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                img.setRGB(x, y, Color.BLUE.getRGB());
+            }
+            img.setRGB(0, y, colors[y % colors.length].getRGB());
+        }
+        final List<String> lines = BoardFactory.imageToLines(img);
+        assertEquals(size, lines.size());
+        for (int y = 0; y < size; y++) {
+            assertEquals(size, lines.get(y).length());
+            assertEquals(letters.charAt(y % colors.length), lines.get(y).charAt(0));
+        }
+    }
 }
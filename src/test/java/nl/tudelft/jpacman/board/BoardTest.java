@@ -1,10 +1,20 @@
 package nl.tudelft.jpacman.board;
 
+import nl.tudelft.jpacman.GameRandom;
+import nl.tudelft.jpacman.level.Level;
+import nl.tudelft.jpacman.level.LevelFactory;
+import nl.tudelft.jpacman.level.MapGenerator;
+import nl.tudelft.jpacman.level.MapParser;
 import nl.tudelft.jpacman.npc.ghost.Ghost;
+import nl.tudelft.jpacman.npc.ghost.GhostFactory;
+import nl.tudelft.jpacman.sprite.PacManSprites;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.mock;
@@ -119,4 +129,38 @@ public class BoardTest {
 
         assertFalse("A normally unsafe square has been considered safe", board.isSafe(0, 1));
     }
+
+    /**
+     * Verifies that the safe squares found from the ghost positions are the
+     * accessible squares {@link Board#isSafe(int, int)} accepts, and that
+     * random safe squares are among them.
+     */
+    @Test
+    @SuppressWarnings("checkstyle:magicnumber")
+    public void possibleSquaresMatchIsSafe() {
+        final PacManSprites sprites = mock(PacManSprites.class);
+        final MapParser parser = new MapParser(new LevelFactory(sprites,
+                new GhostFactory(sprites)), new BoardFactory(sprites));
+        final Level level = parser.parseMap(new MapGenerator(8).withSize(40, 30)
+                .withGhosts(25).generate());
+        final Board generated = level.getBoard();
+        final Set<Square> expected = new HashSet<>();
+        for (int x = 0; x < generated.getWidth(); x++) {
+            for (int y = 0; y < generated.getHeight(); y++) {
+                if (generated.squareAt(x, y).isAccessibleTo() && generated.isSafe(x, y)) {
+                    expected.add(generated.squareAt(x, y));
+                }
+            }
+        }
+        final List<Square> possible = generated.getPossibleSquares();
+        assertEquals(expected, new HashSet<>(possible));
+        assertEquals(expected.size(), possible.size());
+        assertEquals(possible, generated.getPossibleSquares(level.getGhostList()));
+
+        final GameRandom random = new GameRandom(4);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(expected.contains(
+                    generated.randomSafeSquare(level.getGhostList(), random)));
+        }
+    }
 }
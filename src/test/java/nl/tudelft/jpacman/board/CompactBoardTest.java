@@ -0,0 +1,146 @@
+package nl.tudelft.jpacman.board;
+
+import nl.tudelft.jpacman.npc.ghost.Ghost;
+import nl.tudelft.jpacman.sprite.PacManSprites;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the squares and occupants of a board stored in flat arrays.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+public class CompactBoardTest {
+
+    /**
+     * A 3x2 board with a wall in the middle of the top row.
+     */
+    private Board board;
+
+    /**
+     * Creates the board under test.
+     */
+    @Before
+    public void setUp() {
+        final byte[] types = {
+            BoardFactory.GROUND_TYPE, BoardFactory.WALL_TYPE, BoardFactory.GROUND_TYPE,
+            BoardFactory.GROUND_TYPE, BoardFactory.GROUND_TYPE, BoardFactory.GROUND_TYPE};
+        board = new BoardFactory(mock(PacManSprites.class)).createCompactBoard(3, 2, types);
+    }
+
+    /**
+     * Verifies that every cell has exactly one square, at the right position.
+     */
+    @Test
+    public void canonicalSquares() {
+        assertEquals(3, board.getWidth());
+        assertEquals(2, board.getHeight());
+        final Square square = board.squareAt(2, 1);
+        assertSame(square, board.squareAt(2, 1));
+        assertEquals(2, square.getX());
+        assertEquals(1, square.getY());
+        assertFalse(board.squareAt(1, 0).isAccessibleTo());
+        assertTrue(square.isAccessibleTo());
+    }
+
+    /**
+     * Verifies that the squares are linked like the ones of a board created
+     * by {@link BoardFactory#createBoard(Square[][])}, wrapping around the borders.
+     */
+    @Test
+    public void neighboursWrap() {
+        final Square corner = board.squareAt(0, 0);
+        assertSame(board.squareAt(2, 0), corner.getSquareAt(Direction.WEST));
+        assertSame(board.squareAt(1, 0), corner.getSquareAt(Direction.EAST));
+        assertSame(board.squareAt(0, 1), corner.getSquareAt(Direction.NORTH));
+        assertSame(board.squareAt(0, 1), corner.getSquareAt(Direction.SOUTH));
+        assertEquals(4, corner.getNeighbours().size());
+    }
+
+    /**
+     * Verifies that explicit links replace the default neighbours.
+     */
+    @Test
+    public void explicitLink() {
+        final Square target = new BasicSquare();
+        board.squareAt(0, 0).link(target, Direction.EAST);
+        assertSame(target, board.squareAt(0, 0).getSquareAt(Direction.EAST));
+        assertSame(board.squareAt(2, 1), board.squareAt(1, 1).getSquareAt(Direction.EAST));
+    }
+
+    /**
+     * Verifies that occupants are kept in order of appearance and removed
+     * when they leave.
+     */
+    @Test
+    public void occupants() {
+        final Unit first = new BasicUnit(), second = new BasicUnit(), third = new BasicUnit();
+        final Square square = board.squareAt(0, 1);
+        first.occupy(square);
+        second.occupy(square);
+        third.occupy(board.squareAt(2, 1));
+        third.occupy(square);
+        assertEquals(3, square.getOccupants().size());
+        assertSame(third, square.getOccupants().get(2));
+        assertTrue(board.squareAt(2, 1).getOccupants().isEmpty());
+
+        second.leaveSquare();
+        assertEquals(2, square.getOccupants().size());
+        assertSame(first, square.getOccupants().get(0));
+        assertSame(third, square.getOccupants().get(1));
+        assertSame(square, first.getSquare());
+    }
+
+    /**
+     * Verifies that units entering and leaving cells from several threads at
+     * once are all kept track of.
+     *
+     * @throws InterruptedException If the test is interrupted.
+     */
+    @Test
+    public void concurrentOccupants() throws InterruptedException {
+        final Square square = board.squareAt(0, 1);
+        final Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final Square home = board.squareAt(t % 2 * 2, 1);
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    final Unit unit = new BasicUnit();
+                    unit.occupy(home);
+                    unit.occupy(square);
+                    unit.leaveSquare();
+                }
+                new BasicUnit().occupy(square);
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(threads.length, square.getOccupants().size());
+        assertTrue(board.squareAt(2, 1).getOccupants().isEmpty());
+    }
+
+    /**
+     * Verifies that scanning the board for units and walls gives the same
+     * answers as the squares, row by row.
+     */
+    @Test
+    public void scanWithoutSquares() {
+        final Unit second = new BasicUnit();
+        final Unit first = new BasicUnit();
+        second.occupy(board.squareAt(0, 1));
+        first.occupy(board.squareAt(2, 0));
+        assertEquals(Arrays.asList(first, second), board.occupantsOf(BasicUnit.class));
+        assertTrue(board.occupantsOf(Ghost.class).isEmpty());
+        assertFalse(board.isAccessible(1, 0));
+        assertTrue(board.isAccessible(1, 1));
+    }
+}
@@ -0,0 +1,174 @@
+package nl.tudelft.jpacman.board;
+
+import com.google.common.collect.Lists;
+import nl.tudelft.jpacman.level.MapGenerator;
+import nl.tudelft.jpacman.level.MapParser;
+import nl.tudelft.jpacman.level.TestLevels;
+import nl.tudelft.jpacman.npc.ghost.Navigation;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the distances given by the distance oracle against breadth-first search.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+public class DistanceOracleTest {
+
+    /**
+     * Directory for the cached tables.
+     */
+    @Rule
+    public final TemporaryFolder cache = new TemporaryFolder();
+
+    /**
+     * Map parser used to construct boards.
+     */
+    private MapParser parser;
+
+    /**
+     * Set up the map parser.
+     */
+    @Before
+    public void setUp() {
+        parser = TestLevels.parser();
+    }
+
+    /**
+     * Verifies that the stored distances and first steps are the ones of the
+     * shortest paths found by {@link Navigation}.
+     *
+     * @throws IOException If the board could not be read.
+     */
+    @Test
+    public void exactMatchesNavigation() throws IOException {
+        final Board board;
+        try (InputStream in = getClass().getResourceAsStream("/board1.txt")) {
+            board = parser.parseMap(in).getBoard();
+        }
+        final DistanceOracle oracle = DistanceOracle.create(board.getLayout(),
+                DistanceOracle.EXACT_LIMIT, cache.getRoot().toPath());
+        assertTrue(oracle.isExact());
+        final Unit traveller = new BasicUnit();
+        final List<Square> squares = accessibleSquares(board);
+        for (int i = 0; i < squares.size(); i += 7) {
+            for (int j = 0; j < squares.size(); j += 5) {
+                final Square from = squares.get(i), to = squares.get(j);
+                final List<Direction> path = Navigation.shortestPath(from, to, traveller);
+                assertEquals(path.size(), oracle.distance(from, to));
+                if (!path.isEmpty()) {
+                    assertEquals(path.get(0), oracle.nextStep(from, to));
+                }
+            }
+        }
+    }
+
+    /**
+     * Verifies that searching with landmarks finds the same distances as the
+     * full table, and that their bounds are never too high.
+     */
+    @Test
+    public void landmarksMatchTable() {
+        final Board board = parser.parseMap(new MapGenerator(5)
+                .withStyle(MapGenerator.Style.ARENA).withSize(40, 30).generate()).getBoard();
+        final BoardLayout layout = board.getLayout();
+        final DistanceOracle exact = DistanceOracle.create(layout, DistanceOracle.EXACT_LIMIT,
+                null);
+        final DistanceOracle landmarks = DistanceOracle.create(layout, 0, null);
+        assertFalse(landmarks.isExact());
+        for (int from = 0; from < layout.getNodeCount(); from += 13) {
+            for (int to = 0; to < layout.getNodeCount(); to += 3) {
+                final int distance = exact.distance(from, to);
+                assertEquals(distance, landmarks.distance(from, to));
+                assertTrue(landmarks.lowerBound(from, to) <= distance);
+            }
+        }
+    }
+
+    /**
+     * Verifies that searches on boards of different sizes, which share the
+     * state of the searches of a thread, still find the shortest paths.
+     */
+    @Test
+    public void searchesOfDifferentBoards() {
+        final BoardLayout large = parser.parseMap(new MapGenerator(7)
+                .withStyle(MapGenerator.Style.ARENA).withSize(40, 30).generate())
+                .getBoard().getLayout();
+        final BoardLayout small = parser.parseMap(new MapGenerator(3).withSize(15, 15)
+                .generate()).getBoard().getLayout();
+        final DistanceOracle[] exact = {DistanceOracle.create(large, DistanceOracle.EXACT_LIMIT,
+                null), DistanceOracle.create(small, DistanceOracle.EXACT_LIMIT, null)};
+        final DistanceOracle[] landmarks = {DistanceOracle.create(large, 0, null),
+                DistanceOracle.create(small, 0, null)};
+        for (int from = 0; from < small.getNodeCount(); from += 11) {
+            for (int to = 0; to < small.getNodeCount(); to += 7) {
+                for (int board = 0; board < exact.length; board++) {
+                    assertEquals(exact[board].distance(from, to),
+                            landmarks[board].distance(from, to));
+                }
+            }
+        }
+    }
+
+    /**
+     * Verifies that a table is stored in the cache directory and loaded from it.
+     */
+    @Test
+    public void cachedOnDisk() {
+        final Board board = parser.parseMap(new MapGenerator(2).withSize(25, 25).generate())
+                .getBoard();
+        final Path root = cache.getRoot().toPath();
+        final DistanceOracle computed = DistanceOracle.create(board.getLayout(),
+                DistanceOracle.EXACT_LIMIT, root);
+        final Path file = root.resolve(board.getLayout().getHash() + ".dist");
+        assertTrue(Files.isRegularFile(file));
+        final DistanceOracle loaded = DistanceOracle.create(board.getLayout(),
+                DistanceOracle.EXACT_LIMIT, root);
+        for (int node = 0; node < board.getLayout().getNodeCount(); node++) {
+            assertEquals(computed.distance(0, node), loaded.distance(0, node));
+        }
+    }
+
+    /**
+     * Verifies that squares in separate areas are reported as unreachable.
+     */
+    @Test
+    public void unreachable() {
+        final Board board = parser.parseMap(Lists.newArrayList(
+                "#####",
+                "#.#.#",
+                "#####")).getBoard();
+        for (int limit : new int[]{DistanceOracle.EXACT_LIMIT, 0}) {
+            final DistanceOracle oracle = DistanceOracle.create(board.getLayout(), limit, null);
+            assertEquals(DistanceOracle.UNREACHABLE,
+                    oracle.distance(board.squareAt(1, 1), board.squareAt(3, 1)));
+            assertNull(oracle.nextStep(board.squareAt(1, 1), board.squareAt(3, 1)));
+            assertEquals(DistanceOracle.UNREACHABLE,
+                    oracle.distance(board.squareAt(0, 0), board.squareAt(1, 1)));
+        }
+    }
+
+    private static List<Square> accessibleSquares(Board board) {
+        final List<Square> squares = Lists.newArrayList();
+        for (int y = 0; y < board.getHeight(); y++) {
+            for (int x = 0; x < board.getWidth(); x++) {
+                if (board.squareAt(x, y).isAccessibleTo()) {
+                    squares.add(board.squareAt(x, y));
+                }
+            }
+        }
+        return squares;
+    }
+}
@@ -25,4 +25,18 @@ public class ItemsColorTest {
         assertNull("A yellow colour should have returned the letter 'P' for pacman",
                 ItemsColor.getLetterByRGBValue(Color.CYAN.getRGB()));
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that letterOf finds the letter of every item, and no letter for
+     * an 'unknown' colour.
+     */
+    @Test
+    public void testLetterOf() {
+        assertEquals('P', ItemsColor.letterOf(Color.YELLOW.getRGB()));
+        assertEquals('G', ItemsColor.letterOf(Color.RED.getRGB()));
+        assertEquals('#', ItemsColor.letterOf(Color.BLUE.getRGB()));
+        assertEquals(' ', ItemsColor.letterOf(Color.BLACK.getRGB()));
+        assertEquals('.', ItemsColor.letterOf(Color.WHITE.getRGB()));
+        assertEquals(ItemsColor.NO_LETTER, ItemsColor.letterOf(Color.CYAN.getRGB()));
+    }
+}
@@ -0,0 +1,105 @@
+package nl.tudelft.jpacman.board;
+
+import nl.tudelft.jpacman.sprite.PacManSprites;
+import nl.tudelft.jpacman.sprite.Sprite;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests that units are listed in a {@link UnitRegistry} while they are on the
+ * board, and that the nearest one is found.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+public class UnitRegistryTest {
+
+    /**
+     * The board the units are placed on.
+     */
+    private Board board;
+
+    /**
+     * The registry under test.
+     */
+    private UnitRegistry registry;
+
+    /**
+     * Creates an empty 10x10 board and registry.
+     */
+    @Before
+    public void setUp() {
+        final Square[][] grid = new Square[10][10];
+        for (int x = 0; x < 10; x++) {
+            for (int y = 0; y < 10; y++) {
+                grid[x][y] = new BasicSquare();
+            }
+        }
+        board = new BoardFactory(mock(PacManSprites.class)).createBoard(grid);
+        registry = new UnitRegistry(board);
+    }
+
+    /**
+     * Verifies that units are only listed while they occupy a square.
+     */
+    @Test
+    public void listedWhileOnBoard() {
+        final Unit unit = new BasicUnit();
+        unit.setRegistry(registry);
+        assertTrue(registry.unitsOf(Unit.class).isEmpty());
+        unit.occupy(board.squareAt(1, 1));
+        unit.occupy(board.squareAt(2, 1));
+        assertEquals(1, registry.unitsOf(BasicUnit.class).size());
+        unit.leaveSquare();
+        assertTrue(registry.unitsOf(Unit.class).isEmpty());
+    }
+
+    /**
+     * Verifies that a unit already on the board is listed when it gets the
+     * registry, and no longer when it gets another one.
+     */
+    @Test
+    public void changeRegistry() {
+        final Unit unit = new BasicUnit();
+        unit.occupy(board.squareAt(1, 1));
+        unit.setRegistry(registry);
+        assertSame(unit, registry.nearest(Unit.class, board.squareAt(5, 5)));
+        unit.setRegistry(null);
+        assertNull(registry.nearest(Unit.class, board.squareAt(5, 5)));
+    }
+
+    /**
+     * Verifies that the nearest unit of a type is found, measuring around
+     * the borders of the board.
+     */
+    @Test
+    public void nearest() {
+        final Unit near = new BasicUnit();
+        final Unit far = new BasicUnit();
+        final Unit other = new OtherUnit();
+        near.setRegistry(registry);
+        far.setRegistry(registry);
+        other.setRegistry(registry);
+        far.occupy(board.squareAt(4, 0));
+        near.occupy(board.squareAt(9, 0));
+        other.occupy(board.squareAt(1, 0));
+        assertSame(near, registry.nearest(BasicUnit.class, board.squareAt(1, 0)));
+        assertSame(other, registry.nearest(Unit.class, board.squareAt(1, 0)));
+        assertEquals(2, registry.unitsOf(BasicUnit.class).size());
+        assertEquals(3, registry.unitsOf(Unit.class).size());
+    }
+
+    /**
+     * A unit of a different class.
+     */
+    private static final class OtherUnit extends Unit {
+        @Override
+        public Sprite getSprite() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package nl.tudelft.jpacman.game;
+
+import nl.tudelft.jpacman.level.LevelTemplateCache;
+import nl.tudelft.jpacman.level.TestLevels;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests running several games on one {@link GameHost}.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+public class GameHostTest {
+
+    /**
+     * The host under test, with room for three games.
+     */
+    private GameHost host;
+
+    /**
+     * Creates the host.
+     */
+    @Before
+    public void setUp() {
+        host = new GameHost(new LevelTemplateCache(GameHostTest.class, 4),
+                TestLevels.sprites(), 2, 3, 5);
+    }
+
+    /**
+     * Closes the host.
+     */
+    @After
+    public void tearDown() {
+        host.close();
+    }
+
+    /**
+     * Verifies that no more games are admitted than the host has room for,
+     * and that a released game makes room for another one.
+     */
+    @Test
+    public void admission() {
+        final HostedGame first = host.admit();
+        assertNotNull(first);
+        assertNotNull(host.admit());
+        assertNotNull(host.admit());
+        assertNull(host.admit());
+        host.release(first);
+        assertTrue(!first.isInProgress());
+        assertNotNull(host.admit());
+        assertEquals(3, host.getGames().size());
+    }
+
+    /**
+     * Verifies that all games advance on the shared threads, each on a level
+     * of its own.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    @Test
+    public void gamesAdvance() throws InterruptedException {
+        final HostedGame first = host.admit();
+        final HostedGame second = host.admit();
+        assertNotSame(first.getLevel(), second.getLevel());
+        final long deadline = System.currentTimeMillis() + 10000;
+        while ((first.getTickCount() < 20 || second.getTickCount() < 20)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(first.getTickCount() >= 20);
+        assertTrue(second.getTickCount() >= 20);
+        assertTrue(first.getTickNanos() > 0);
+    }
+
+    /**
+     * Verifies that closing the host stops all games.
+     */
+    @Test
+    public void close() {
+        final HostedGame game = host.admit();
+        host.close();
+        assertTrue(!game.isInProgress());
+        assertTrue(host.getGames().isEmpty());
+        assertNull(host.admit());
+    }
+
+    /**
+     * Verifies that games admitted while the host closes are either refused
+     * or stopped by the close, never left running.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    @Test
+    public void admitWhileClosing() throws InterruptedException {
+        final List<HostedGame> admitted = new CopyOnWriteArrayList<>();
+        final Thread admitter = new Thread(() -> {
+            HostedGame previous = null;
+            for (int i = 0; i < 200; i++) {
+                final HostedGame game = host.admit();
+                if (game != null) {
+                    admitted.add(game);
+                }
+                if (previous != null) {
+                    host.release(previous);
+                }
+                previous = game;
+            }
+        });
+        admitter.start();
+        Thread.sleep(5);
+        host.close();
+        admitter.join(10000);
+        assertTrue(host.getGames().isEmpty());
+        for (HostedGame game : admitted) {
+            assertTrue(!game.isInProgress());
+        }
+        assertNull(host.admit());
+    }
+
+    /**
+     * Verifies that games admitted with the same seed get levels that make
+     * the same random choices.
+     */
+    @Test
+    public void seededGames() {
+        final HostedGame first = host.admit(42);
+        final HostedGame second = host.admit(42);
+        assertEquals(first.getLevel().getSeed(), second.getLevel().getSeed());
+        assertEquals(first.nextLevel().getSeed(), second.nextLevel().getSeed());
+    }
+}
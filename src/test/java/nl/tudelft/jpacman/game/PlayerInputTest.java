@@ -0,0 +1,85 @@
+package nl.tudelft.jpacman.game;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.level.TestLevels;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests the directions asked for by a human player.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+public class PlayerInputTest {
+
+    /**
+     * A corridor with a side way at its east end.
+     */
+    private Board board;
+
+    /**
+     * The input under test.
+     */
+    private PlayerInput input;
+
+    /**
+     * Creates the board and the input.
+     */
+    @Before
+    public void setUp() {
+        board = TestLevels.board(
+                "#####",
+                "#   #",
+                "### #",
+                "#####");
+        input = new PlayerInput();
+    }
+
+    /**
+     * Verifies that a player stands still until he asks for a direction.
+     */
+    @Test
+    public void standStill() {
+        assertNull(input.next(board.squareAt(1, 1)));
+    }
+
+    /**
+     * Verifies that only the last direction asked for counts.
+     */
+    @Test
+    public void lastRequestWins() {
+        input.request(Direction.WEST);
+        input.request(Direction.NORTH);
+        input.request(Direction.EAST);
+        assertEquals(Direction.EAST, input.next(board.squareAt(1, 1)));
+        assertEquals(Direction.EAST, input.next(board.squareAt(2, 1)));
+    }
+
+    /**
+     * Verifies that a turn asked for in the corridor is made at the side
+     * way, and that the player keeps going the way he was until then.
+     */
+    @Test
+    public void turnAtIntersection() {
+        input.request(Direction.EAST);
+        assertEquals(Direction.EAST, input.next(board.squareAt(1, 1)));
+        input.request(Direction.SOUTH);
+        assertEquals(Direction.EAST, input.next(board.squareAt(2, 1)));
+        assertEquals(Direction.SOUTH, input.next(board.squareAt(3, 1)));
+        assertEquals(Direction.SOUTH, input.next(board.squareAt(3, 2)));
+    }
+
+    /**
+     * Verifies that clearing the input stops the player.
+     */
+    @Test
+    public void clear() {
+        input.request(Direction.EAST);
+        input.next(board.squareAt(1, 1));
+        input.clear();
+        assertNull(input.next(board.squareAt(2, 1)));
+    }
+}
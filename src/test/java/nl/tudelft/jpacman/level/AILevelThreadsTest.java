@@ -0,0 +1,123 @@
+package nl.tudelft.jpacman.level;
+
+import com.google.common.collect.Lists;
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.npc.NPC;
+import nl.tudelft.jpacman.sprite.Sprite;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the threads an {@link AILevel} moves its NPCs on.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+public class AILevelThreadsTest {
+
+    /**
+     * Verifies that every NPC moves on a thread of the given factory, and
+     * that its thread ends when the level stops.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    @Test
+    public void threadPerNpc() throws InterruptedException {
+        final Board board = TestLevels.board(
+                "    ",
+                "    ");
+        final Walker first = new Walker(board.squareAt(0, 0));
+        final Walker second = new Walker(board.squareAt(0, 1));
+        final AILevel level = new AILevel(board, Lists.newArrayList(first, second),
+                Lists.newArrayList(board.squareAt(3, 1)), new PlayerCollisions());
+        final List<Thread> threads = new ArrayList<>();
+        final ThreadFactory factory = runnable -> {
+            final Thread thread = UnitThreads.preferred().newThread(runnable);
+            threads.add(thread);
+            return thread;
+        };
+        level.setUnitThreads(factory);
+        level.start();
+        final long deadline = System.currentTimeMillis() + 5000;
+        while ((first.moves.get() < 3 || second.moves.get() < 3)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        level.stop();
+        assertEquals(2, threads.size());
+        assertTrue(first.moves.get() >= 3 && second.moves.get() >= 3);
+        for (Thread thread : threads) {
+            thread.join(5000);
+            assertFalse(thread.isAlive());
+        }
+    }
+
+    /**
+     * Verifies that without a thread factory the NPCs move in tasks on the
+     * shared scheduler, which no longer moves them once the level stops.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    @Test
+    public void sharedScheduler() throws InterruptedException {
+        final Board board = TestLevels.board(
+                "    ",
+                "    ");
+        final Walker first = new Walker(board.squareAt(0, 0));
+        final Walker second = new Walker(board.squareAt(0, 1));
+        final AILevel level = new AILevel(board, Lists.newArrayList(first, second),
+                Lists.newArrayList(board.squareAt(3, 1)), new PlayerCollisions());
+        level.setUnitThreads(null);
+        level.start();
+        final long deadline = System.currentTimeMillis() + 5000;
+        while ((first.moves.get() < 3 || second.moves.get() < 3)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        level.stop();
+        assertTrue(first.moves.get() >= 3 && second.moves.get() >= 3);
+        Thread.sleep(20);
+        final int moves = first.moves.get() + second.moves.get();
+        Thread.sleep(50);
+        assertEquals(moves, first.moves.get() + second.moves.get());
+    }
+
+    /**
+     * An NPC that walks east every few milliseconds.
+     */
+    private static final class Walker extends NPC {
+
+        /**
+         * The number of moves decided.
+         */
+        private final AtomicInteger moves = new AtomicInteger();
+
+        private Walker(Square start) {
+            occupy(start);
+        }
+
+        @Override
+        public long getInterval() {
+            return 2;
+        }
+
+        @Override
+        public Direction nextMove() {
+            moves.incrementAndGet();
+            return Direction.EAST;
+        }
+
+        @Override
+        public Sprite getSprite() {
+            return null;
+        }
+    }
+}
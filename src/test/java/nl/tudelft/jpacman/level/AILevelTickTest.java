@@ -0,0 +1,181 @@
+package nl.tudelft.jpacman.level;
+
+import com.google.common.collect.Lists;
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.npc.NPC;
+import nl.tudelft.jpacman.sprite.Sprite;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the ticks of an {@link AILevel}.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+public class AILevelTickTest {
+
+    /**
+     * The pool deciding the moves.
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * An empty board to move on.
+     */
+    private Board board;
+
+    /**
+     * Creates the pool and the board.
+     */
+    @Before
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+        board = TestLevels.board(
+                "          ",
+                "          ",
+                "          ",
+                "          ");
+    }
+
+    /**
+     * Shuts the pool down.
+     */
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Verifies that all NPCs decide on the same board, before any of them
+     * moves, and then move in order.
+     */
+    @Test
+    public void decideOnFrozenBoard() {
+        final List<NPC> npcs = new ArrayList<>();
+        for (int y = 0; y < 4; y++) {
+            npcs.add(new Walker(100, board.squareAt(0, y)));
+        }
+        final AILevel level = startTicking(npcs);
+        final long before = level.getSnapshot().getVersion();
+        level.tick();
+        for (NPC npc : npcs) {
+            assertEquals(before, ((Walker) npc).seenVersions.get(0).longValue());
+            assertEquals(1, npc.getSquare().getX());
+        }
+        assertEquals(before + npcs.size(), level.getSnapshot().getVersion());
+    }
+
+    /**
+     * Verifies that NPCs only decide when their interval has passed.
+     */
+    @Test
+    public void onlyDueNpcsMove() {
+        final Walker fast = new Walker(100, board.squareAt(0, 0));
+        final Walker slow = new Walker(200, board.squareAt(0, 1));
+        final AILevel level = startTicking(Lists.newArrayList(fast, slow));
+        for (int i = 0; i < 4; i++) {
+            level.tick();
+        }
+        assertEquals(4, fast.seenVersions.size());
+        assertEquals(2, slow.seenVersions.size());
+    }
+
+    /**
+     * Verifies that two levels created from the same seed make the same
+     * random moves.
+     */
+    @Test
+    public void sameSeedSameGame() {
+        assertEquals(playSeeded(42L), playSeeded(42L));
+    }
+
+    private List<String> playSeeded(long seed) {
+        final AILevel level = TestLevels.parser(seed).parseMap(Lists.newArrayList(
+                        "####################",
+                        "#G                G#",
+                        "#                  #",
+                        "#                  #",
+                        "#                  #",
+                        "#        P         #",
+                        "#                  #",
+                        "#                  #",
+                        "#                  #",
+                        "#G                G#",
+                        "####################"));
+        level.registerPlayer(TestLevels.pacMan());
+        level.useTicks(pool, 50);
+        level.setInProgress(true);
+        final List<String> positions = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            level.tick();
+            final BoardSnapshot snapshot = level.getSnapshot();
+            for (int unit = 0; unit < snapshot.getUnits().size(); unit++) {
+                positions.add(snapshot.getX(unit) + "," + snapshot.getY(unit));
+            }
+        }
+        return positions;
+    }
+
+    private AILevel startTicking(List<NPC> npcs) {
+        final AILevel level = new AILevel(board, npcs, Lists.newArrayList(board.squareAt(5, 3)),
+                new PlayerCollisions());
+        level.useTicks(pool, 100);
+        level.setInProgress(true);
+        for (NPC npc : npcs) {
+            ((Walker) npc).level = level;
+        }
+        return level;
+    }
+
+    /**
+     * An NPC that walks east and records the snapshot it decided on.
+     */
+    private static final class Walker extends NPC {
+
+        /**
+         * The versions of the snapshots seen while deciding.
+         */
+        private final List<Long> seenVersions = new ArrayList<>();
+
+        /**
+         * The time between moves.
+         */
+        private final long interval;
+
+        /**
+         * The level the walker is on.
+         */
+        private Level level;
+
+        private Walker(long interval, nl.tudelft.jpacman.board.Square start) {
+            this.interval = interval;
+            occupy(start);
+        }
+
+        @Override
+        public long getInterval() {
+            return interval;
+        }
+
+        @Override
+        public Direction nextMove() {
+            synchronized (seenVersions) {
+                seenVersions.add(level.getSnapshot().getVersion());
+            }
+            return Direction.EAST;
+        }
+
+        @Override
+        public Sprite getSprite() {
+            return null;
+        }
+    }
+}
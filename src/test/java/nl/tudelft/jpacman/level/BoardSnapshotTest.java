@@ -0,0 +1,125 @@
+package nl.tudelft.jpacman.level;
+
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Unit;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the snapshots a {@link Level} publishes after every move.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+public class BoardSnapshotTest {
+
+    /**
+     * The level under test, with a player registered.
+     */
+    private Level level;
+
+    /**
+     * The player of the level.
+     */
+    private IdentifiedPlayer player;
+
+    /**
+     * Creates a small level with pellets and a ghost, and starts it.
+     */
+    @Before
+    public void setUp() {
+        level = TestLevels.parse(
+                "#######",
+                "#P...G#",
+                "#######");
+        player = TestLevels.pacMan();
+        level.registerPlayer(player);
+        level.setInProgress(true);
+    }
+
+    /**
+     * Verifies the first snapshot describes the board.
+     */
+    @Test
+    public void firstSnapshot() {
+        final BoardSnapshot snapshot = level.getSnapshot();
+        assertEquals(7, snapshot.getWidth());
+        assertEquals(3, snapshot.getHeight());
+        assertEquals(3, snapshot.getPelletCount());
+        assertTrue(snapshot.hasPellet(2, 1));
+        assertFalse(snapshot.hasPellet(1, 1));
+        assertSame(player, snapshot.getUnits().get(0));
+        assertEquals(1, snapshot.getX(0));
+        assertEquals(1, snapshot.getY(0));
+        assertEquals(2, snapshot.getUnits().size());
+        assertEquals(5, snapshot.getX(1));
+    }
+
+    /**
+     * Verifies that a move publishes a new snapshot and leaves the old one
+     * unchanged.
+     */
+    @Test
+    public void moveEatsPellet() {
+        final BoardSnapshot before = level.getSnapshot();
+        level.move(player, Direction.EAST);
+        final BoardSnapshot after = level.getSnapshot();
+
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertEquals(3, before.getPelletCount());
+        assertTrue(before.hasPellet(2, 1));
+        assertEquals(1, before.getX(0));
+
+        assertEquals(2, after.getPelletCount());
+        assertFalse(after.hasPellet(2, 1));
+        assertTrue(after.hasPellet(3, 1));
+        assertEquals(2, after.getX(0));
+        assertEquals(Direction.EAST, after.getDirection(0));
+        assertEquals(2, level.remainingPellets());
+    }
+
+    /**
+     * Verifies that a blocked move still publishes the new direction.
+     */
+    @Test
+    public void blockedMove() {
+        final BoardSnapshot before = level.getSnapshot();
+        level.move(player, Direction.NORTH);
+        final BoardSnapshot after = level.getSnapshot();
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertEquals(Direction.NORTH, after.getDirection(0));
+        assertEquals(1, after.getY(0));
+        assertEquals(3, after.getPelletCount());
+    }
+
+    /**
+     * Verifies that a move only reads the unit that moved, so a unit placed
+     * on another square outside of a move keeps its last published square.
+     */
+    @Test
+    public void moveOnlyReadsMovedUnit() {
+        final Unit ghost = level.getSnapshot().getUnits().get(1);
+        ghost.occupy(level.getBoard().squareAt(4, 1));
+        level.move(player, Direction.EAST);
+        final BoardSnapshot after = level.getSnapshot();
+        assertEquals(2, after.getX(0));
+        assertEquals(5, after.getX(1));
+    }
+
+    /**
+     * Verifies that no snapshot is published until one is asked for, and
+     * that the first one shows the moves made before.
+     */
+    @Test
+    public void firstSnapshotTakenWhenRead() {
+        level.move(player, Direction.EAST);
+        final BoardSnapshot first = level.getSnapshot();
+        assertEquals(0, first.getVersion());
+        assertEquals(2, first.getX(0));
+        assertFalse(first.hasPellet(2, 1));
+        assertEquals(2, first.getPelletCount());
+    }
+}
@@ -0,0 +1,145 @@
+package nl.tudelft.jpacman.level;
+
+import com.google.common.collect.Lists;
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Direction;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests publishing the events of a level in a {@link LevelEventRing}.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+public class LevelEventRingTest {
+
+    /**
+     * Verifies that a cursor reads the events in the order they were
+     * published, as one batch per poll.
+     */
+    @Test
+    public void pollInOrder() {
+        final LevelEventRing ring = new LevelEventRing(8);
+        final LevelEventRing.Cursor cursor = ring.subscribe();
+        ring.publish(LevelEvent.UNIT_MOVED, 2, 17);
+        ring.publish(LevelEvent.PELLET_EATEN, 2, 17);
+        ring.publish(LevelEvent.LIFE_LOST, 3, -1);
+        final Collector collector = new Collector();
+        assertEquals(3, cursor.poll(collector, 10));
+        assertEquals(Lists.newArrayList("UNIT_MOVED 2 17", "PELLET_EATEN 2 17",
+                "LIFE_LOST 3 -1"), collector.events);
+        assertEquals(1, collector.batches);
+        assertEquals(0, cursor.poll(collector, 10));
+        assertEquals(1, collector.batches);
+    }
+
+    /**
+     * Verifies that a cursor that fell behind skips the overwritten events,
+     * but still reads the event that ended the level.
+     */
+    @Test
+    public void overrunKeepsTerminalEvent() {
+        final LevelEventRing ring = new LevelEventRing(4);
+        final LevelEventRing.Cursor cursor = ring.subscribe();
+        ring.publish(LevelEvent.LEVEL_LOST, -1, -1);
+        for (int i = 0; i < 10; i++) {
+            ring.publish(LevelEvent.UNIT_MOVED, 0, i);
+        }
+        final Collector collector = new Collector();
+        assertEquals(5, cursor.poll(collector, 100));
+        assertEquals(Lists.newArrayList("LEVEL_LOST -1 -1", "UNIT_MOVED 0 6",
+                "UNIT_MOVED 0 7", "UNIT_MOVED 0 8", "UNIT_MOVED 0 9"), collector.events);
+        assertEquals(6, cursor.getMissed());
+    }
+
+    /**
+     * Verifies that a consumer on another thread reads every event of
+     * several producers, in the order each producer published them.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    @Test
+    public void concurrentProducers() throws InterruptedException {
+        final LevelEventRing ring = new LevelEventRing(1 << 16);
+        final LevelEventRing.Cursor cursor = ring.subscribe();
+        final List<Thread> producers = new ArrayList<>();
+        for (int unit = 0; unit < 4; unit++) {
+            final int id = unit;
+            producers.add(new Thread(() -> {
+                for (int cell = 0; cell < 5000; cell++) {
+                    ring.publish(LevelEvent.UNIT_MOVED, id, cell);
+                }
+            }));
+        }
+        final int[] last = {-1, -1, -1, -1};
+        final int[] count = new int[1];
+        final Thread consumer = new Thread(() -> {
+            final long deadline = System.currentTimeMillis() + 10000;
+            while (count[0] < 20000 && System.currentTimeMillis() < deadline) {
+                count[0] += cursor.poll((event, unit, cell) -> {
+                    assertEquals(last[unit] + 1, cell);
+                    last[unit] = cell;
+                }, 256);
+            }
+        });
+        consumer.start();
+        producers.forEach(Thread::start);
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        consumer.join();
+        assertEquals(20000, count[0]);
+        assertEquals(0, cursor.getMissed());
+    }
+
+    /**
+     * Verifies that a level publishes the move eating its last pellet, and
+     * that it was won exactly once.
+     */
+    @Test
+    public void levelPublishesEvents() {
+        final Board board = TestLevels.board(" . ");
+        final AILevel level = new AILevel(board, new ArrayList<>(),
+                Lists.newArrayList(board.squareAt(0, 0)), new PlayerCollisions());
+        final IdentifiedPlayer player = TestLevels.pacMan();
+        level.registerPlayer(player);
+        final LevelEventRing.Cursor cursor = level.getEvents().subscribe();
+        level.start();
+        level.move(player, Direction.EAST);
+        level.updateObservers();
+        level.stop();
+        final Collector collector = new Collector();
+        cursor.poll(collector, 100);
+        assertEquals(Lists.newArrayList("UNIT_MOVED 0 1", "PELLET_EATEN 0 1",
+                "LEVEL_WON -1 -1"), collector.events);
+    }
+
+    /**
+     * A handler writing down the events it is given.
+     */
+    private static final class Collector implements LevelEventRing.Handler {
+
+        /**
+         * The events handled, as text.
+         */
+        private final List<String> events = new ArrayList<>();
+
+        /**
+         * The number of batches handled.
+         */
+        private int batches;
+
+        @Override
+        public void onEvent(LevelEvent event, int unit, int cell) {
+            events.add(event + " " + unit + " " + cell);
+        }
+
+        @Override
+        public void onBatchEnd() {
+            batches++;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package nl.tudelft.jpacman.level;
+
+import com.google.common.collect.Lists;
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
+import nl.tudelft.jpacman.npc.NPC;
+import nl.tudelft.jpacman.sprite.Sprite;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests moves that only lock the regions of the board they touch.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+public class LevelRegionLocksTest {
+
+    /**
+     * The executor notifying the observers.
+     */
+    private ExecutorService notifier;
+
+    /**
+     * Creates the executor.
+     */
+    @Before
+    public void setUp() {
+        notifier = Executors.newSingleThreadExecutor();
+    }
+
+    /**
+     * Stops the executor.
+     */
+    @After
+    public void tearDown() {
+        notifier.shutdownNow();
+    }
+
+    /**
+     * Verifies that many units moving at once on their own threads leave
+     * every unit on exactly one square, and that the snapshot keeps count of
+     * the pellets eaten.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    @Test
+    public void concurrentMovesStayConsistent() throws InterruptedException {
+        final Board board = TestLevels.parser().parseMap(Collections.nCopies(32,
+                new String(new char[32]).replace('\0', '.'))).getBoard();
+        final List<NPC> walkers = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            walkers.add(new Walker(board.squareAt(i % 32, i * 7 % 32), i));
+        }
+        final AtomicInteger eaten = new AtomicInteger();
+        final AILevel level = new AILevel(board, walkers,
+                Lists.newArrayList(board.squareAt(0, 0)), new CollisionMap() {
+            @Override
+            public <C1 extends Unit, C2 extends Unit> void collide(C1 collider, C2 collidee) {
+                if (collidee instanceof Pellet) {
+                    collidee.leaveSquare();
+                    eaten.incrementAndGet();
+                }
+            }
+        });
+        final int pellets = level.getSnapshot().getPelletCount();
+        final List<Thread> threads = new ArrayList<>();
+        final ThreadFactory factory = runnable -> {
+            final Thread thread = UnitThreads.platform().newThread(runnable);
+            threads.add(thread);
+            return thread;
+        };
+        level.setUnitThreads(factory);
+        level.useRegionLocks(notifier);
+        level.start();
+        Thread.sleep(300);
+        level.stop();
+        for (Thread thread : threads) {
+            thread.join(5000);
+            assertFalse(thread.isAlive());
+        }
+        assertTrue(eaten.get() > 0);
+        assertEquals(pellets - eaten.get(), level.getSnapshot().getPelletCount());
+        assertConsistent(board, walkers, pellets - eaten.get());
+    }
+
+    private static void assertConsistent(Board board, List<NPC> walkers, int pellets) {
+        int found = 0;
+        int placed = 0;
+        for (int x = 0; x < board.getWidth(); x++) {
+            for (int y = 0; y < board.getHeight(); y++) {
+                for (Unit unit : board.squareAt(x, y).getOccupants()) {
+                    assertEquals(board.squareAt(x, y), unit.getSquare());
+                    if (unit instanceof Pellet) {
+                        found++;
+                    } else {
+                        placed++;
+                    }
+                }
+            }
+        }
+        assertEquals(pellets, found);
+        assertEquals(walkers.size(), placed);
+    }
+
+    /**
+     * Verifies that the observers are told the level was won on the
+     * executor, not on the thread making the move.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    @Test
+    public void observersNotifiedOnExecutor() throws InterruptedException {
+        final Board board = TestLevels.board(" . ");
+        final AILevel level = new AILevel(board, new ArrayList<>(),
+                Lists.newArrayList(board.squareAt(0, 0)), new PlayerCollisions());
+        final IdentifiedPlayer player = TestLevels.pacMan();
+        level.registerPlayer(player);
+        final CountDownLatch won = new CountDownLatch(1);
+        final AtomicReference<Thread> notifiedOn = new AtomicReference<>();
+        level.addObserver(new Level.LevelObserver() {
+            @Override
+            public void levelWon() {
+                notifiedOn.set(Thread.currentThread());
+                won.countDown();
+            }
+
+            @Override
+            public void levelLost() {
+            }
+        });
+        level.useRegionLocks(notifier);
+        level.start();
+        level.move(player, Direction.EAST);
+        assertTrue(won.await(5, TimeUnit.SECONDS));
+        assertNotSame(Thread.currentThread(), notifiedOn.get());
+        level.stop();
+    }
+
+    /**
+     * Verifies that a player losing a life in a move that locked regions has
+     * been moved away from the ghost once the move returns, and that the
+     * snapshot shows where he went.
+     */
+    @Test
+    public void lostLifeRespawnsAfterMove() {
+        final AILevel level = TestLevels.parse(
+                "############",
+                "#GP        #",
+                "############");
+        final IdentifiedPlayer player = TestLevels.pacMan();
+        level.registerPlayer(player);
+        final int lives = player.getLives();
+        level.useRegionLocks(notifier);
+        level.setInProgress(true);
+        level.move(player, Direction.WEST);
+        assertEquals(lives - 1, player.getLives());
+        assertTrue(player.getSquare().getX() > 3);
+        final BoardSnapshot snapshot = level.getSnapshot();
+        assertEquals(player.getSquare().getX(), snapshot.getX(0));
+        assertEquals(player.getSquare().getY(), snapshot.getY(0));
+    }
+
+    /**
+     * An NPC that wanders in random directions every millisecond.
+     */
+    private static final class Walker extends NPC {
+
+        /**
+         * The source of the directions.
+         */
+        private final SplittableRandom directions;
+
+        private Walker(Square start, long seed) {
+            occupy(start);
+            directions = new SplittableRandom(seed);
+        }
+
+        @Override
+        public long getInterval() {
+            return 1;
+        }
+
+        @Override
+        public Direction nextMove() {
+            return Direction.values()[directions.nextInt(Direction.values().length)];
+        }
+
+        @Override
+        public Sprite getSprite() {
+            return null;
+        }
+    }
+}
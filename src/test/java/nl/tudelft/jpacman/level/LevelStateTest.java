@@ -0,0 +1,154 @@
+package nl.tudelft.jpacman.level;
+
+import com.google.common.collect.Lists;
+import nl.tudelft.jpacman.PacmanConfigurationException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests saving the state of a level and restoring it into another one.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+public class LevelStateTest {
+
+    /**
+     * The pool deciding the moves.
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * The parser of the maps.
+     */
+    private MapParser parser;
+
+    /**
+     * Creates the pool and the parser.
+     */
+    @Before
+    public void setUp() {
+        pool = new ForkJoinPool(2);
+        parser = TestLevels.parser();
+    }
+
+    /**
+     * Shuts the pool down.
+     */
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Verifies that a restored level is on the same board as the saved one,
+     * and keeps making the same moves.
+     *
+     * @throws IOException If the map could not be read.
+     */
+    @Test
+    public void restoreAndContinue() throws IOException {
+        final AILevel saved = startLevel();
+        final AILevel restored = startLevel();
+        tick(saved, 200);
+        final ByteBuffer buffer = ByteBuffer.allocate(4096);
+        LevelState.save(saved, buffer);
+        buffer.flip();
+        LevelState.restore(buffer, restored);
+
+        assertEquals(describe(saved), describe(restored));
+        tick(saved, 200);
+        tick(restored, 200);
+        assertEquals(describe(saved), describe(restored));
+    }
+
+    /**
+     * Verifies that a state cannot be restored into a level of another map.
+     *
+     * @throws IOException If the map could not be read.
+     */
+    @Test(expected = PacmanConfigurationException.class)
+    public void otherMap() throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(4096);
+        LevelState.save(startLevel(), buffer);
+        buffer.flip();
+        LevelState.restore(buffer, parser.parseMap(Lists.newArrayList("#P #", "#G #")));
+    }
+
+    /**
+     * Verifies that a pool restores states into the levels released to it,
+     * instead of creating new ones.
+     *
+     * @throws IOException If the map could not be read.
+     */
+    @Test
+    public void restoreIntoPooledLevel() throws IOException {
+        final AILevel saved = startLevel();
+        tick(saved, 100);
+        final ByteBuffer buffer = ByteBuffer.allocate(4096);
+        LevelState.save(saved, buffer);
+        buffer.flip();
+        final LevelPool pool = new LevelPool(this::createLevel, 1);
+
+        final AILevel first = pool.restore(buffer.duplicate());
+        assertEquals(describe(saved), describe(first));
+        tick(saved, 100);
+        pool.release(first);
+        assertEquals(1, pool.idleCount());
+
+        buffer.clear();
+        LevelState.save(saved, buffer);
+        buffer.flip();
+        final AILevel second = pool.restore(buffer);
+        assertSame(first, second);
+        assertEquals(0, pool.idleCount());
+        assertEquals(describe(saved), describe(second));
+    }
+
+    private AILevel startLevel() throws IOException {
+        final AILevel level = createLevel();
+        level.useTicks(pool, 50);
+        level.setInProgress(true);
+        return level;
+    }
+
+    private AILevel createLevel() {
+        final AILevel level;
+        try (InputStream in = getClass().getResourceAsStream("/board1.txt")) {
+            level = parser.parseMap(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        level.registerPlayer(TestLevels.pacMan());
+        return level;
+    }
+
+    private static void tick(AILevel level, int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            level.tick();
+        }
+    }
+
+    private static List<String> describe(Level level) {
+        final BoardSnapshot snapshot = level.getSnapshot();
+        final List<String> result = new ArrayList<>();
+        for (int unit = 0; unit < snapshot.getUnits().size(); unit++) {
+            result.add(snapshot.getX(unit) + "," + snapshot.getY(unit) + ","
+                    + snapshot.getDirection(unit));
+        }
+        result.add("pellets " + snapshot.getPelletCount());
+        result.add("score " + level.getPlayer().getScore());
+        result.add("lives " + level.getPlayer().getLives());
+        return result;
+    }
+}
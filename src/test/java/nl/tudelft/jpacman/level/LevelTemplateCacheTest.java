@@ -0,0 +1,117 @@
+package nl.tudelft.jpacman.level;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the caching of level templates and the levels created from them.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+public class LevelTemplateCacheTest {
+
+    /**
+     * The cache under test, holding at most two templates.
+     */
+    private LevelTemplateCache cache;
+
+    /**
+     * Map parser used to instantiate templates.
+     */
+    private MapParser parser;
+
+    /**
+     * Set up the cache and the map parser.
+     */
+    @Before
+    public void setUp() {
+        cache = new LevelTemplateCache(LevelTemplateCacheTest.class, 2);
+        parser = TestLevels.parser();
+    }
+
+    /**
+     * Verifies that a template is only loaded once.
+     */
+    @Test
+    public void cachedTemplate() {
+        final LevelTemplate template = cache.get(1);
+        assertEquals(1, template.getId());
+        assertSame(template, cache.get(1));
+        assertEquals(1, cache.size());
+    }
+
+    /**
+     * Verifies that the least recently used template is evicted.
+     */
+    @Test
+    public void leastRecentlyUsedEviction() {
+        cache.get(1);
+        cache.get(2);
+        cache.get(1);
+        cache.get(3);
+        assertEquals(2, cache.size());
+        assertTrue(cache.contains(1));
+        assertFalse(cache.contains(2));
+        assertTrue(cache.contains(3));
+    }
+
+    /**
+     * Verifies that missing levels are reported as such.
+     */
+    @Test
+    public void missingLevel() {
+        assertFalse(cache.isAvailable(999));
+        assertNull(cache.get(999));
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Verifies that every instantiation creates a new, independent level.
+     */
+    @Test
+    public void freshLevels() {
+        final LevelTemplate template = cache.get(1);
+        final Level first = template.instantiate(parser);
+        final Level second = template.instantiate(parser);
+        assertNotSame(first.getBoard(), second.getBoard());
+        assertNotSame(first.getGhostList().get(0), second.getGhostList().get(0));
+        assertEquals(first.remainingPellets(), second.remainingPellets());
+    }
+
+    /**
+     * Verifies that a level instantiated from the arrays of a template is the
+     * level parsed from its map.
+     */
+    @Test
+    public void instantiateLikeParsing() {
+        final LevelTemplate template = cache.get(1);
+        final Level instantiated = template.instantiate(parser);
+        final Level parsed = parser.parseMap(template.getMap());
+        final Board expected = parsed.getBoard(), actual = instantiated.getBoard();
+        for (int x = 0; x < expected.getWidth(); x++) {
+            for (int y = 0; y < expected.getHeight(); y++) {
+                final Square e = expected.squareAt(x, y), a = actual.squareAt(x, y);
+                assertEquals(e.isAccessibleTo(), a.isAccessibleTo());
+                assertEquals(e.getOccupants().size(), a.getOccupants().size());
+                for (Direction d : Direction.values()) {
+                    assertEquals(e.getSquareAt(d).getX(), a.getSquareAt(d).getX());
+                    assertEquals(e.getSquareAt(d).getY(), a.getSquareAt(d).getY());
+                }
+            }
+        }
+        for (int i = 0; i < parsed.getGhostList().size(); i++) {
+            assertEquals(parsed.getGhostList().get(i).getClass(),
+                    instantiated.getGhostList().get(i).getClass());
+        }
+        assertEquals(parsed.remainingPellets(), instantiated.remainingPellets());
+    }
+}
@@ -0,0 +1,170 @@
+package nl.tudelft.jpacman.level;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.CharStreams;
+import nl.tudelft.jpacman.PacmanConfigurationException;
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Square;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the compilation of maps to the binary format and their loading.
+ */
+@SuppressWarnings({"checkstyle:magicnumber", "PMD.AvoidDuplicateLiterals"})
+public class MapCompilerTest {
+
+    /**
+     * Map parser used to construct levels.
+     */
+    private MapParser parser;
+
+    /**
+     * Set up the map parser.
+     */
+    @Before
+    public void setUp() {
+        parser = TestLevels.parser();
+    }
+
+    /**
+     * Verifies that a compiled map contains the same cells as its text version.
+     */
+    @Test
+    public void compileText() {
+        final List<String> text = Lists.newArrayList("#####", "#.PG#", "#####");
+        final CompiledMap map = MapCompiler.compile(text);
+        assertEquals(5, map.getWidth());
+        assertEquals(3, map.getHeight());
+        assertEquals(CompiledMap.PELLET, map.cellAt(1, 1));
+        assertEquals(CompiledMap.PLAYER, map.cellAt(2, 1));
+        assertEquals(CompiledMap.GHOST, map.cellAt(3, 1));
+        assertEquals(1, map.getGhostCount());
+        assertEquals(1 * 5 + 3, map.getGhostSpawn(0));
+    }
+
+    /**
+     * Verifies that invalid characters are rejected like the map parser does.
+     */
+    @Test(expected = PacmanConfigurationException.class)
+    public void compileInvalidCharacter() {
+        MapCompiler.compile(Lists.newArrayList("#X#"));
+    }
+
+    /**
+     * Verifies that a compiled level written to disk and memory-mapped back
+     * is identical to the text level it was compiled from.
+     *
+     * @throws IOException If the temporary file could not be used.
+     */
+    @Test
+    public void writeAndLoad() throws IOException {
+        final List<String> text = readBoard1();
+        final Path file = Files.createTempFile("board", MapCompiler.EXTENSION);
+        try {
+            MapCompiler.compile(text).write(file);
+            final CompiledMap loaded = CompiledMap.load(file);
+            assertArrayEquals(MapCompiler.compile(text).toCharMap(), loaded.toCharMap());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Verifies that a compiled level is traced back to its text version if it
+     * has one, and to its image version otherwise.
+     *
+     * @throws IOException If the temporary files could not be used.
+     */
+    @Test
+    public void sourceOfCompiledLevel() throws IOException {
+        final Path dir = Files.createTempDirectory("levels");
+        final Path compiled = dir.resolve("board7" + MapCompiler.EXTENSION);
+        final Path image = Files.createFile(dir.resolve("7.png"));
+        try {
+            assertEquals(image, MapCompiler.sourceOf(compiled));
+            final Path text = Files.createFile(dir.resolve("board7.txt"));
+            assertEquals(text, MapCompiler.sourceOf(compiled));
+            Files.delete(text);
+        } finally {
+            Files.delete(image);
+            Files.delete(dir);
+        }
+    }
+
+    /**
+     * Verifies that a damaged compiled map is detected by its checksum.
+     */
+    @Test(expected = PacmanConfigurationException.class)
+    public void corruptedChecksum() {
+        final CompiledMap map = MapCompiler.compile(Lists.newArrayList("#.#"));
+        final ByteBuffer buffer = ByteBuffer.allocate(map.byteSize());
+        map.writeTo(buffer);
+        buffer.put(buffer.capacity() - 6, CompiledMap.WALL);
+        buffer.flip();
+        CompiledMap.read(buffer);
+    }
+
+    /**
+     * Verifies that the level created from a compiled map has the same
+     * squares, units and starting positions as the one parsed from text.
+     *
+     * @throws IOException If the board could not be read.
+     */
+    @Test
+    public void parseCompiledLevel() throws IOException {
+        final List<String> text = readBoard1();
+        final Level fromText = parser.parseMap(text);
+        final Level fromBinary = parser.parseMap(MapCompiler.compile(text));
+        assertSameLevel(fromText, fromBinary);
+    }
+
+    private static void assertSameLevel(Level expectedLevel, Level actualLevel) {
+        final Board expected = expectedLevel.getBoard(), actual = actualLevel.getBoard();
+        for (int x = 0; x < expected.getWidth(); x++) {
+            for (int y = 0; y < expected.getHeight(); y++) {
+                final Square e = expected.squareAt(x, y), a = actual.squareAt(x, y);
+                assertEquals(e.isAccessibleTo(), a.isAccessibleTo());
+                assertEquals(e.getOccupants().size(), a.getOccupants().size());
+                for (int i = 0; i < e.getOccupants().size(); i++) {
+                    assertEquals(e.getOccupants().get(i).getClass(),
+                            a.getOccupants().get(i).getClass());
+                }
+            }
+        }
+        assertEquals(expectedLevel.getGhostList().size(), actualLevel.getGhostList().size());
+        assertEquals(expectedLevel.remainingPellets(), actualLevel.remainingPellets());
+    }
+
+    /**
+     * Verifies that a level on a compact board has the same squares and
+     * units as the one parsed from text.
+     *
+     * @throws IOException If the board could not be read.
+     */
+    @Test
+    public void parseCompactLevel() throws IOException {
+        final List<String> text = readBoard1();
+        final Level fromText = parser.parseMap(text);
+        final Level compact = parser.parseCompactMap(MapCompiler.compile(text));
+        assertSameLevel(fromText, compact);
+    }
+
+    private List<String> readBoard1() throws IOException {
+        try (Reader in = new InputStreamReader(
+                getClass().getResourceAsStream("/board1.txt"), "UTF-8")) {
+            return CharStreams.readLines(in);
+        }
+    }
+}
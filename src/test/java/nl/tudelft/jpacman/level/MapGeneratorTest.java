@@ -0,0 +1,135 @@
+package nl.tudelft.jpacman.level;
+
+import nl.tudelft.jpacman.board.CompactBoard;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the generation of random maps.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+public class MapGeneratorTest {
+
+    /**
+     * Verifies that the same seed always generates the same map, and another
+     * seed a different one.
+     */
+    @Test
+    public void deterministic() {
+        for (MapGenerator.Style style : MapGenerator.Style.values()) {
+            final List<String> first = new MapGenerator(42).withStyle(style).generateLines();
+            assertEquals(first, new MapGenerator(42).withStyle(style).generateLines());
+            assertFalse(first.equals(new MapGenerator(43).withStyle(style).generateLines()));
+        }
+    }
+
+    /**
+     * Verifies that maps of every style are surrounded by walls, connected
+     * and contain the requested number of ghosts and players.
+     */
+    @Test
+    public void validMaps() {
+        for (MapGenerator.Style style : MapGenerator.Style.values()) {
+            for (long seed = 0; seed < 10; seed++) {
+                final char[][] map = new MapGenerator(seed).withStyle(style)
+                        .withSize(41 + (int) seed, 33).withGhosts(6).withPlayers(2)
+                        .withWallDensity(0.4).generate();
+                assertValid(map, 6, 2);
+            }
+        }
+    }
+
+    /**
+     * Verifies that the right half of a mirrored map mirrors its left half.
+     */
+    @Test
+    public void mirrored() {
+        final char[][] map = new MapGenerator(7).withStyle(MapGenerator.Style.MIRRORED)
+                .withSize(40, 31).withGhosts(0).withPlayers(0).withPelletDensity(0).generate();
+        for (int x = 0; x < map.length; x++) {
+            assertArrayEquals(map[x], map[map.length - 1 - x]);
+        }
+    }
+
+    /**
+     * Verifies that generated maps can be parsed into levels.
+     */
+    @Test
+    public void parseGenerated() {
+        final MapParser parser = TestLevels.parser();
+        final Level level = parser.parseMap(new MapGenerator(1)
+                .withStyle(MapGenerator.Style.ARENA).withSize(64, 48).generateLines());
+        assertEquals(64, level.getBoard().getWidth());
+        assertEquals(4, level.getGhostList().size());
+        assertTrue(level.remainingPellets() > 0);
+    }
+
+    /**
+     * Verifies that the levels of a large generated template are created on
+     * a compact board.
+     */
+    @Test
+    public void largeTemplateIsCompact() {
+        final MapParser parser = TestLevels.parser();
+        final LevelTemplate template = new LevelTemplate(1, MapCompiler.compile(
+                new MapGenerator(1).withSize(512, 256).generate()));
+        final Level level = template.instantiate(parser);
+        assertTrue(level.getBoard() instanceof CompactBoard);
+        assertEquals(4, level.getGhostList().size());
+        assertTrue(level.remainingPellets() > 0);
+    }
+
+    private static void assertValid(char[][] map, int ghosts, int players) {
+        final int width = map.length, height = map[0].length;
+        int open = 0, ghostCount = 0, playerCount = 0, startX = 0, startY = 0;
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (x == 0 || y == 0 || x == width - 1 || y == height - 1) {
+                    assertEquals('#', map[x][y]);
+                }
+                if (map[x][y] != '#') {
+                    open++;
+                    startX = x;
+                    startY = y;
+                }
+                if (map[x][y] == 'G') {
+                    ghostCount++;
+                } else if (map[x][y] == 'P') {
+                    playerCount++;
+                }
+            }
+        }
+        assertEquals(ghosts, ghostCount);
+        assertEquals(players, playerCount);
+        assertEquals(open, reachable(map, startX, startY));
+    }
+
+    private static int reachable(char[][] map, int startX, int startY) {
+        final boolean[][] seen = new boolean[map.length][map[0].length];
+        final Deque<int[]> queue = new ArrayDeque<>();
+        queue.add(new int[]{startX, startY});
+        seen[startX][startY] = true;
+        int count = 0;
+        while (!queue.isEmpty()) {
+            final int[] cell = queue.poll();
+            count++;
+            final int[][] next = {{cell[0] + 1, cell[1]}, {cell[0] - 1, cell[1]},
+                {cell[0], cell[1] + 1}, {cell[0], cell[1] - 1}};
+            for (int[] n : next) {
+                if (map[n[0]][n[1]] != '#' && !seen[n[0]][n[1]]) {
+                    seen[n[0]][n[1]] = true;
+                    queue.add(n);
+                }
+            }
+        }
+        return count;
+    }
+}
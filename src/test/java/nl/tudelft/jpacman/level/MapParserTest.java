@@ -0,0 +1,112 @@
+package nl.tudelft.jpacman.level;
+
+import com.google.common.collect.Lists;
+import nl.tudelft.jpacman.PacmanConfigurationException;
+import nl.tudelft.jpacman.npc.NPC;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the parsing of text maps into levels.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+public class MapParserTest {
+
+    /**
+     * A map with ghosts on several rows and columns.
+     */
+    private static final List<String> MAP = Lists.newArrayList(
+            "#######",
+            "#G.P.G#",
+            "#.G#G.#",
+            "#######");
+
+    /**
+     * Expected exceptions and their messages.
+     */
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    /**
+     * Verifies that parsing a list of lines creates the same ghosts, in the
+     * same order and on the same squares, as parsing the character grid.
+     */
+    @Test
+    public void rowsMatchGrid() {
+        final char[][] grid = new char[MAP.get(0).length()][MAP.size()];
+        for (int y = 0; y < MAP.size(); y++) {
+            for (int x = 0; x < grid.length; x++) {
+                grid[x][y] = MAP.get(y).charAt(x);
+            }
+        }
+        final Level expected = TestLevels.parser().parseMap(grid);
+        final Level actual = TestLevels.parser().parseMap(MAP);
+        assertEquals(expected.getGhostList().size(), actual.getGhostList().size());
+        for (int i = 0; i < expected.getGhostList().size(); i++) {
+            final NPC e = expected.getGhostList().get(i), a = actual.getGhostList().get(i);
+            assertEquals(e.getClass(), a.getClass());
+            assertEquals(e.getSquare().getX(), a.getSquare().getX());
+            assertEquals(e.getSquare().getY(), a.getSquare().getY());
+        }
+        assertEquals(expected.remainingPellets(), actual.remainingPellets());
+    }
+
+    /**
+     * Verifies that an input stream is read up to its very last line.
+     *
+     * @throws IOException If the stream could not be read.
+     */
+    @Test
+    public void parseStream() throws IOException {
+        final byte[] text = String.join("\n", MAP).getBytes(Charset.forName("UTF-8"));
+        final Level level = TestLevels.parser().parseMap(new ByteArrayInputStream(text));
+        assertEquals(7, level.getBoard().getWidth());
+        assertEquals(4, level.getBoard().getHeight());
+        assertEquals(4, level.getGhostList().size());
+    }
+
+    /**
+     * Verifies that files and channels are parsed like lists of lines.
+     *
+     * @throws IOException If the temporary file could not be used.
+     */
+    @Test
+    public void parseFileAndChannel() throws IOException {
+        final Path file = Files.createTempFile("board", ".txt");
+        try {
+            Files.write(file, MAP, Charset.forName("UTF-8"));
+            final Level fromFile = TestLevels.parser().parseMap(file);
+            final Level fromChannel = TestLevels.parser().parseMap(
+                    Channels.newChannel(Files.newInputStream(file)));
+            assertEquals(4, fromFile.getBoard().getHeight());
+            assertEquals(fromFile.remainingPellets(), fromChannel.remainingPellets());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Verifies that lines of different widths are rejected with the line
+     * at which the problem occurs.
+     *
+     * @throws IOException If the map could not be read.
+     */
+    @Test
+    public void unequalWidth() throws IOException {
+        thrown.expect(PacmanConfigurationException.class);
+        thrown.expectMessage("Input text lines are not of equal width (thrown at line 2).");
+        TestLevels.parser().parseMap(Channels.newChannel(new ByteArrayInputStream(
+                "###\n#.#\n##\n".getBytes(Charset.forName("UTF-8")))));
+    }
+}
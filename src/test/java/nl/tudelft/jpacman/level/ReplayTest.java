@@ -0,0 +1,113 @@
+package nl.tudelft.jpacman.level;
+
+import nl.tudelft.jpacman.PacmanConfigurationException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests recording a game and playing it again.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+public class ReplayTest {
+
+    /**
+     * The folder of the recordings.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The pool deciding the moves of the recorded game.
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * The map played.
+     */
+    private List<String> map;
+
+    /**
+     * Creates the pool and the map.
+     */
+    @Before
+    public void setUp() {
+        pool = new ForkJoinPool(2);
+        map = new MapGenerator(5).withSize(30, 20).withGhosts(4).withPlayers(1)
+                .generateLines();
+    }
+
+    /**
+     * Shuts the pool down.
+     */
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Verifies that a recorded game played again ends on the same board, and
+     * that the recording takes about two bytes per move.
+     *
+     * @throws IOException If the recording could not be written or read.
+     */
+    @Test
+    public void playAgain() throws IOException {
+        final Path file = folder.getRoot().toPath().resolve("game.replay");
+        final AILevel recorded = createLevel();
+        try (ReplayRecorder recorder = ReplayRecorder.open(file, recorded.getSeed())) {
+            recorded.setRecorder(recorder);
+            recorded.registerPlayer(TestLevels.pacMan());
+            recorded.useTicks(pool, 50);
+            recorded.setInProgress(true);
+            for (int i = 0; i < 500; i++) {
+                recorded.tick();
+            }
+        }
+        final BoardSnapshot expected = recorded.getSnapshot();
+        assertTrue(Files.size(file) < 20 + 3 * expected.getVersion());
+
+        final AILevel played = createLevel();
+        played.setInProgress(true);
+        Replay.load(file).play(played, TestLevels::pacMan, false);
+        assertEquals(positions(expected), positions(played.getSnapshot()));
+        assertEquals(expected.getPelletCount(), played.getSnapshot().getPelletCount());
+    }
+
+    /**
+     * Verifies that a recording cannot be played on a level with another seed.
+     *
+     * @throws IOException If the recording could not be written or read.
+     */
+    @Test(expected = PacmanConfigurationException.class)
+    public void otherSeed() throws IOException {
+        final Path file = folder.getRoot().toPath().resolve("other.replay");
+        ReplayRecorder.open(file, 1L).close();
+        Replay.load(file).play(createLevel(), TestLevels::pacMan, false);
+    }
+
+    private AILevel createLevel() {
+        return TestLevels.parser(42L).parseMap(map);
+    }
+
+    private static List<String> positions(BoardSnapshot snapshot) {
+        final List<String> result = new ArrayList<>();
+        for (int unit = 0; unit < snapshot.getUnits().size(); unit++) {
+            result.add(snapshot.getX(unit) + "," + snapshot.getY(unit) + ","
+                    + snapshot.getDirection(unit));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,77 @@
+package nl.tudelft.jpacman.level;
+
+import com.google.common.collect.Lists;
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.BoardFactory;
+import nl.tudelft.jpacman.npc.ghost.GhostFactory;
+import nl.tudelft.jpacman.sprite.AnimatedSprite;
+import nl.tudelft.jpacman.sprite.PacManSprites;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Creates the levels, boards and players of the tests, with mocked sprites.
+ */
+public final class TestLevels {
+
+    private TestLevels() {
+    }
+
+    /**
+     * @return Mocked sprites, including the death animation players need.
+     */
+    public static PacManSprites sprites() {
+        final PacManSprites sprites = mock(PacManSprites.class);
+        when(sprites.getPacManDeathAnimation()).thenReturn(mock(AnimatedSprite.class));
+        return sprites;
+    }
+
+    /**
+     * @return A map parser creating levels with mocked sprites.
+     */
+    public static MapParser parser() {
+        final PacManSprites sprites = sprites();
+        return new MapParser(new LevelFactory(sprites, new GhostFactory(sprites)),
+                new BoardFactory(sprites));
+    }
+
+    /**
+     * @param seed The seed of the random choices of the levels.
+     * @return A map parser creating seeded levels with mocked sprites.
+     */
+    public static MapParser parser(long seed) {
+        final PacManSprites sprites = sprites();
+        final LevelFactory factory = new LevelFactory(sprites, new GhostFactory(sprites));
+        factory.setSeed(seed);
+        return new MapParser(factory, new BoardFactory(sprites));
+    }
+
+    /**
+     * Parses a level from its rows, the first element being the top row.
+     *
+     * @param rows The rows of the level, in the text format of {@link MapParser}.
+     * @return The level.
+     */
+    public static AILevel parse(String... rows) {
+        return parser().parseMap(Lists.newArrayList(rows));
+    }
+
+    /**
+     * Parses the board of a level from its rows, the first element being the
+     * top row.
+     *
+     * @param rows The rows of the level, in the text format of {@link MapParser}.
+     * @return The board of the level.
+     */
+    public static Board board(String... rows) {
+        return parse(rows).getBoard();
+    }
+
+    /**
+     * @return A new Pac-Man, not on any board.
+     */
+    public static IdentifiedPlayer pacMan() {
+        return new PlayerFactory(sprites()).createPacMan();
+    }
+}
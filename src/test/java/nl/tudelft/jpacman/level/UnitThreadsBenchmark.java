@@ -0,0 +1,121 @@
+package nl.tudelft.jpacman.level;
+
+import com.google.common.collect.Lists;
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.npc.NPC;
+import nl.tudelft.jpacman.sprite.Sprite;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the ways an {@link AILevel} can move its units on their own
+ * schedules: a platform thread per unit, the shared scheduler and, if the JVM
+ * has them, a virtual thread per unit. Every unit decides a move every few
+ * milliseconds; the benchmark reports how many of the expected decisions
+ * were made, and how many threads the JVM needed at most.
+ * <p>
+ * Run with the number of units and the seconds to measure as arguments,
+ * 2000 units for 5 seconds by default.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+public final class UnitThreadsBenchmark {
+
+    /**
+     * The time between the decisions of a unit, in milliseconds.
+     */
+    private static final long INTERVAL = 10;
+
+    private UnitThreadsBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args The number of units and the seconds to measure, if given.
+     * @throws InterruptedException If interrupted while measuring.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        final int units = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        final long seconds = args.length > 1 ? Long.parseLong(args[1]) : 5;
+        System.out.println(System.getProperty("java.version") + ", "
+                + Runtime.getRuntime().availableProcessors() + " processors, "
+                + units + " units deciding every " + INTERVAL + " ms");
+        measure("platform threads", UnitThreads.platform(), units, seconds);
+        measure("shared scheduler", null, units, seconds);
+        if (UnitThreads.virtual() != null) {
+            measure("virtual threads", UnitThreads.virtual(), units, seconds);
+        }
+    }
+
+    private static void measure(String name, ThreadFactory threads, int units, long seconds)
+            throws InterruptedException {
+        final int width = (int) Math.ceil(Math.sqrt(units));
+        final String[] rows = new String[(units + width - 1) / width];
+        final char[] row = new char[width];
+        Arrays.fill(row, ' ');
+        Arrays.fill(rows, new String(row));
+        final Board board = TestLevels.board(rows);
+        final AtomicLong decisions = new AtomicLong();
+        final List<NPC> npcs = new ArrayList<>();
+        for (int i = 0; i < units; i++) {
+            npcs.add(new Idler(board.squareAt(i % width, i / width), decisions));
+        }
+        final AILevel level = new AILevel(board, npcs,
+                Lists.newArrayList(board.squareAt(0, 0)), new PlayerCollisions());
+        level.setUnitThreads(threads);
+        final ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+        mx.resetPeakThreadCount();
+        final long start = System.nanoTime();
+        level.start();
+        final long started = System.nanoTime() - start;
+        Thread.sleep(seconds * 1000);
+        level.stop();
+        final long elapsed = (System.nanoTime() - start) / 1_000_000;
+        final long expected = units * (elapsed / INTERVAL);
+        System.out.printf("%-17s start %5d ms, %8d decisions/s (%3d%% of expected), "
+                        + "peak %5d threads%n",
+                name, started / 1_000_000, decisions.get() * 1000 / elapsed,
+                decisions.get() * 100 / Math.max(1, expected), mx.getPeakThreadCount());
+        Thread.sleep(500);
+    }
+
+    /**
+     * An NPC that only counts its decisions and stays where it is.
+     */
+    private static final class Idler extends NPC {
+
+        /**
+         * The decisions of all units.
+         */
+        private final AtomicLong decisions;
+
+        private Idler(Square start, AtomicLong count) {
+            this.decisions = count;
+            occupy(start);
+        }
+
+        @Override
+        public long getInterval() {
+            return INTERVAL;
+        }
+
+        @Override
+        public Direction nextMove() {
+            decisions.incrementAndGet();
+            return null;
+        }
+
+        @Override
+        public Sprite getSprite() {
+            return null;
+        }
+    }
+}
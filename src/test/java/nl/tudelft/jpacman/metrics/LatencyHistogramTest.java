@@ -0,0 +1,83 @@
+package nl.tudelft.jpacman.metrics;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests recording durations in a {@link LatencyHistogram}.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+public class LatencyHistogramTest {
+
+    /**
+     * Verifies that the buckets follow each other without gaps, and that
+     * every value is counted in the bucket it falls in.
+     */
+    @Test
+    public void bucketsCoverAllValues() {
+        assertEquals(0, LatencyHistogram.lowestOf(0));
+        for (int bucket = 1; bucket < LatencyHistogram.BUCKETS; bucket++) {
+            final long lowest = LatencyHistogram.lowestOf(bucket);
+            assertEquals(LatencyHistogram.highestOf(bucket - 1) + 1, lowest);
+            assertEquals(bucket, LatencyHistogram.bucketOf(lowest));
+            assertEquals(bucket, LatencyHistogram.bucketOf(LatencyHistogram.highestOf(bucket)));
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    /**
+     * Verifies that percentiles are known to within the width of a bucket.
+     */
+    @Test
+    public void percentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10000; value++) {
+            histogram.record(value * 1000);
+        }
+        assertEquals(10000, histogram.getCount());
+        assertEquals(5000500, histogram.getMeanNanos());
+        assertEquals(10000000, histogram.getMaxNanos());
+        assertWithin(5000000, histogram.getMedianNanos());
+        assertWithin(9900000, histogram.getP99Nanos());
+        assertWithin(9990000, histogram.getP999Nanos());
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMedianNanos());
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(expected + " ~ " + actual, actual >= expected
+                && actual <= expected + expected / LatencyHistogram.SUB_BUCKETS);
+    }
+
+    /**
+     * Verifies that no duration recorded by several threads at once is lost.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    @Test
+    public void concurrentRecords() throws InterruptedException {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final long offset = t;
+            threads.add(new Thread(() -> {
+                for (long i = 0; i < 100000; i++) {
+                    histogram.record(i % 100 + offset);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(400000, histogram.getCount());
+        assertEquals(4 * 1000 * 4950 + 100000 * 6, histogram.getTotalNanos());
+        assertEquals(102, histogram.getMaxNanos());
+    }
+}
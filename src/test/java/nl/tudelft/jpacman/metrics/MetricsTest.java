@@ -0,0 +1,108 @@
+package nl.tudelft.jpacman.metrics;
+
+import com.google.common.collect.Lists;
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.level.AILevel;
+import nl.tudelft.jpacman.level.IdentifiedPlayer;
+import nl.tudelft.jpacman.level.PlayerCollisions;
+import nl.tudelft.jpacman.level.TestLevels;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests recording the metrics of a level.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+public class MetricsTest {
+
+    /**
+     * A level with a player and a pellet east of him, in progress.
+     */
+    private AILevel level;
+
+    /**
+     * The player.
+     */
+    private IdentifiedPlayer player;
+
+    /**
+     * Creates the level and starts with no metrics.
+     */
+    @Before
+    public void setUp() {
+        Metrics.disable();
+        Metrics.reset();
+        final Board board = TestLevels.board(" .  ");
+        level = new AILevel(board, new ArrayList<>(),
+                Lists.newArrayList(board.squareAt(0, 0)), new PlayerCollisions());
+        player = TestLevels.pacMan();
+        level.registerPlayer(player);
+        level.start();
+    }
+
+    /**
+     * Stops the level and the metrics.
+     */
+    @After
+    public void tearDown() {
+        level.stop();
+        Metrics.disable();
+        Metrics.reset();
+    }
+
+    /**
+     * Verifies that nothing is recorded while the metrics are disabled.
+     */
+    @Test
+    public void disabled() {
+        level.move(player, Direction.EAST);
+        assertEquals(0, Metrics.getCount(Counter.MOVES));
+        assertEquals(0, Metrics.histogram(Operation.MOVE, player.getClass()).getCount());
+    }
+
+    /**
+     * Verifies that the moves, collisions and pellets eaten are counted, and
+     * the moves are timed for the type of the player.
+     */
+    @Test
+    public void countsAndTimesMoves() {
+        Metrics.enable();
+        level.move(player, Direction.EAST);
+        level.move(player, Direction.EAST);
+        assertEquals(2, Metrics.getCount(Counter.MOVES));
+        assertEquals(1, Metrics.getCount(Counter.COLLISIONS));
+        assertEquals(1, Metrics.getCount(Counter.PELLETS_EATEN));
+        assertEquals(2, Metrics.histogram(Operation.MOVE, player.getClass()).getCount());
+        assertEquals(2, Metrics.histogram(Operation.LOCK_WAIT, player.getClass()).getCount());
+        assertEquals(1, Metrics.histogram(Operation.COLLISION, player.getClass()).getCount());
+        assertTrue(Metrics.dump().contains(player.getClass().getSimpleName()));
+    }
+
+    /**
+     * Verifies that the metrics and histograms are exported over JMX.
+     *
+     * @throws JMException If the beans cannot be read.
+     */
+    @Test
+    public void exportedOverJmx() throws JMException {
+        Metrics.enable();
+        level.move(player, Direction.EAST);
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertEquals(1L, server.getAttribute(
+                new ObjectName(Metrics.DOMAIN + ":type=Metrics"), "PelletsEaten"));
+        final ObjectName move = new ObjectName(Metrics.DOMAIN + ":type=Latency,operation=MOVE,unit="
+                + ObjectName.quote(player.getClass().getSimpleName()));
+        assertEquals(1L, server.getAttribute(move, "Count"));
+    }
+}
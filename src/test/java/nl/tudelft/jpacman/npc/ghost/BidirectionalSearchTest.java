@@ -0,0 +1,139 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import com.google.common.collect.Lists;
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
+import nl.tudelft.jpacman.level.MapGenerator;
+import nl.tudelft.jpacman.level.MapParser;
+import nl.tudelft.jpacman.level.TestLevels;
+import nl.tudelft.jpacman.npc.ghost.Navigation.SearchMode;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the paths found by bidirectional search against breadth-first search.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+public class BidirectionalSearchTest {
+
+    /**
+     * Map parser used to construct boards.
+     */
+    private MapParser parser;
+
+    /**
+     * Set up the map parser.
+     */
+    @Before
+    public void setUp() {
+        parser = TestLevels.parser();
+    }
+
+    /**
+     * Verifies that both searches find paths of the same length between
+     * random squares, including walls, of random maps of every style.
+     */
+    @Test
+    public void sameAsBreadthFirst() {
+        final Random random = new Random(13);
+        for (MapGenerator.Style style : MapGenerator.Style.values()) {
+            for (int seed = 0; seed < 5; seed++) {
+                final Board board = parser.parseMap(new MapGenerator(seed).withStyle(style)
+                        .withSize(30 + random.nextInt(30), 20 + random.nextInt(30))
+                        .generate()).getBoard();
+                for (int i = 0; i < 20; i++) {
+                    assertSameLength(randomSquare(board, random), randomSquare(board, random));
+                }
+            }
+        }
+    }
+
+    /**
+     * Verifies that the path to the same square is empty, also when terrain
+     * is ignored.
+     */
+    @Test
+    public void samePath() {
+        final Board board = parser.parseMap(Lists.newArrayList(" ")).getBoard();
+        final Square square = board.squareAt(0, 0);
+        assertTrue(Navigation.shortestPath(square, square, mock(Unit.class),
+                SearchMode.BIDIRECTIONAL).isEmpty());
+        assertTrue(Navigation.shortestPath(square, square, null,
+                SearchMode.BIDIRECTIONAL).isEmpty());
+    }
+
+    /**
+     * Verifies that unconnected squares have no path, unless terrain is ignored.
+     */
+    @Test
+    public void unreachable() {
+        final Board board = parser.parseMap(Lists.newArrayList(
+                "#####", "# # #", "#####")).getBoard();
+        final Square from = board.squareAt(1, 1), to = board.squareAt(3, 1);
+        assertNull(Navigation.shortestPath(from, to, mock(Unit.class),
+                SearchMode.BIDIRECTIONAL));
+        assertEquals(2, Navigation.shortestPath(from, to, null,
+                SearchMode.BIDIRECTIONAL).size());
+    }
+
+    /**
+     * Verifies that long paths in a large maze take little more than half
+     * the expansions of breadth-first search.
+     */
+    @Test
+    public void fewerExpansionsOnLongPaths() {
+        final Board board = parser.parseMap(new MapGenerator(21).withSize(300, 300)
+                .generate()).getBoard();
+        final Random random = new Random(2);
+        long breadthFirst = 0;
+        long bidirectional = 0;
+        int paths = 0;
+        while (paths < 10) {
+            final Square from = randomSquare(board, random);
+            final Square to = randomSquare(board, random);
+            final List<Direction> expected = Navigation.shortestPath(from, to,
+                    mock(Unit.class), SearchMode.BREADTH_FIRST);
+            if (expected != null && expected.size() > 60 && expected.size() < 120) {
+                breadthFirst += Navigation.getExpandedNodes();
+                Navigation.shortestPath(from, to, mock(Unit.class), SearchMode.BIDIRECTIONAL);
+                bidirectional += Navigation.getExpandedNodes();
+                paths++;
+            }
+        }
+        assertTrue(bidirectional * 5 < breadthFirst * 3);
+    }
+
+    private static void assertSameLength(Square from, Square to) {
+        final Unit traveller = mock(Unit.class);
+        final List<Direction> expected = Navigation.shortestPath(from, to, traveller);
+        final List<Direction> path = Navigation.shortestPath(from, to, traveller,
+                SearchMode.BIDIRECTIONAL);
+        if (expected == null) {
+            assertNull(path);
+            return;
+        }
+        assertEquals(expected.size(), path.size());
+        Square current = from;
+        for (Direction direction : path) {
+            current = current.getSquareAt(direction);
+            assertTrue(current.isAccessibleTo());
+        }
+        assertSame(to, current);
+    }
+
+    private static Square randomSquare(Board board, Random random) {
+        return board.squareAt(random.nextInt(board.getWidth()),
+                random.nextInt(board.getHeight()));
+    }
+}
@@ -0,0 +1,132 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import com.google.common.collect.Lists;
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.DistanceOracle;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.level.Level;
+import nl.tudelft.jpacman.level.MapGenerator;
+import nl.tudelft.jpacman.level.MapParser;
+import nl.tudelft.jpacman.level.TestLevels;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the paths found by hierarchical path-finding against the shortest paths.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+public class HierarchicalPathfinderTest {
+
+    /**
+     * Map parser used to construct boards.
+     */
+    private MapParser parser;
+
+    /**
+     * Set up the map parser.
+     */
+    @Before
+    public void setUp() {
+        parser = TestLevels.parser();
+    }
+
+    /**
+     * Verifies that following the moves of the pathfinder reaches the
+     * destination, in no more moves than it announced and no fewer than the
+     * shortest path, on every style of map.
+     */
+    @Test
+    public void followMoves() {
+        for (MapGenerator.Style style : MapGenerator.Style.values()) {
+            final Board board = parser.parseMap(new MapGenerator(11).withStyle(style)
+                    .withSize(70, 50).generate()).getBoard();
+            final HierarchicalPathfinder pathfinder = new HierarchicalPathfinder(
+                    board.getLayout(), 8);
+            assertTrue(pathfinder.getEntranceCount() > 0);
+            final DistanceOracle oracle = DistanceOracle.forBoard(board);
+            final List<Square> squares = accessibleSquares(board);
+            final Random random = new Random(3);
+            for (int i = 0; i < 20; i++) {
+                final Square from = squares.get(random.nextInt(squares.size()));
+                final Square to = squares.get(random.nextInt(squares.size()));
+                assertReaches(pathfinder, oracle, from, to);
+            }
+        }
+    }
+
+    /**
+     * Verifies that unconnected squares have no path.
+     */
+    @Test
+    public void unreachable() {
+        final Board board = parser.parseMap(Lists.newArrayList(
+                "#######",
+                "#..#..#",
+                "#######")).getBoard();
+        final HierarchicalPathfinder pathfinder = new HierarchicalPathfinder(
+                board.getLayout(), 2);
+        assertNull(pathfinder.nextMove(board.squareAt(1, 1), board.squareAt(5, 1)));
+        assertEquals(-1, pathfinder.distance(board.squareAt(1, 1), board.squareAt(5, 1)));
+        assertNull(pathfinder.nextMove(board.squareAt(1, 1), board.squareAt(1, 1)));
+    }
+
+    /**
+     * Verifies that boards with the same layout share the abstraction.
+     */
+    @Test
+    public void shared() {
+        final List<String> map = new MapGenerator(4).withSize(40, 40).generateLines();
+        assertSame(HierarchicalPathfinder.forBoard(parser.parseMap(map).getBoard()),
+                HierarchicalPathfinder.forBoard(parser.parseMap(map).getBoard()));
+    }
+
+    /**
+     * Verifies that ghosts on a large board of a level head for their target
+     * along the paths of the shared pathfinder of the board.
+     */
+    @Test
+    public void ghostsOnLargeBoards() {
+        final Level level = parser.parseMap(new MapGenerator(5).withSize(160, 120).generate());
+        final Board board = level.getBoard();
+        final HierarchicalPathfinder pathfinder = HierarchicalPathfinder.forBoard(board);
+        final List<Square> squares = accessibleSquares(board);
+        final Ghost ghost = level.getGhostList().get(0);
+        final Random random = new Random(7);
+        for (int i = 0; i < 10; i++) {
+            final Square to = squares.get(random.nextInt(squares.size()));
+            assertEquals(pathfinder.nextMove(ghost.getSquare(), to),
+                    ghost.moveTowards(to, Navigation.SearchMode.BIDIRECTIONAL));
+        }
+    }
+
+    private static void assertReaches(HierarchicalPathfinder pathfinder, DistanceOracle oracle,
+                                      Square from, Square to) {
+        final int announced = pathfinder.distance(from, to);
+        assertTrue(announced >= oracle.distance(from, to));
+        Square current = from;
+        for (int moves = 0; moves < announced; moves++) {
+            current = current.getSquareAt(pathfinder.nextMove(current, to));
+        }
+        assertSame(to, current);
+    }
+
+    private static List<Square> accessibleSquares(Board board) {
+        final List<Square> squares = Lists.newArrayList();
+        for (int y = 0; y < board.getHeight(); y++) {
+            for (int x = 0; x < board.getWidth(); x++) {
+                if (board.squareAt(x, y).isAccessibleTo()) {
+                    squares.add(board.squareAt(x, y));
+                }
+            }
+        }
+        return squares;
+    }
+}
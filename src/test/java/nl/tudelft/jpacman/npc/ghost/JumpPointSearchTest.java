@@ -0,0 +1,139 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import com.google.common.collect.Lists;
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.DistanceOracle;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
+import nl.tudelft.jpacman.level.MapGenerator;
+import nl.tudelft.jpacman.level.MapParser;
+import nl.tudelft.jpacman.level.TestLevels;
+import nl.tudelft.jpacman.npc.ghost.Navigation.SearchMode;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the paths found by jump point search against the shortest paths.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+public class JumpPointSearchTest {
+
+    /**
+     * Map parser used to construct boards.
+     */
+    private MapParser parser;
+
+    /**
+     * Set up the map parser.
+     */
+    @Before
+    public void setUp() {
+        parser = TestLevels.parser();
+    }
+
+    /**
+     * Verifies that the paths are valid and as short as possible on every
+     * style of map.
+     */
+    @Test
+    public void shortestPaths() {
+        for (MapGenerator.Style style : MapGenerator.Style.values()) {
+            final Board board = parser.parseMap(new MapGenerator(5).withStyle(style)
+                    .withSize(60, 40).generate()).getBoard();
+            final DistanceOracle oracle = DistanceOracle.forBoard(board);
+            final List<Square> squares = accessibleSquares(board);
+            final Random random = new Random(7);
+            for (int i = 0; i < 30; i++) {
+                final Square from = squares.get(random.nextInt(squares.size()));
+                final Square to = squares.get(random.nextInt(squares.size()));
+                final List<Direction> path = Navigation.shortestPath(from, to,
+                        mock(Unit.class), SearchMode.JUMP_POINT);
+                assertEquals(oracle.distance(from, to), path.size());
+                assertSame(to, follow(from, path));
+            }
+        }
+    }
+
+    /**
+     * Verifies that jump point search expands far fewer squares than
+     * breadth-first search on an open arena map.
+     */
+    @Test
+    public void fewerExpansionsOnArena() {
+        final Board board = parser.parseMap(new MapGenerator(9)
+                .withStyle(MapGenerator.Style.ARENA).withWallDensity(0.02).withSize(120, 120)
+                .generate()).getBoard();
+        final List<Square> squares = accessibleSquares(board);
+        final Random random = new Random(1);
+        long breadthFirst = 0;
+        long jumpPoint = 0;
+        for (int i = 0; i < 10; i++) {
+            final Square from = squares.get(random.nextInt(squares.size()));
+            final Square to = squares.get(random.nextInt(squares.size()));
+            final List<Direction> expected = Navigation.shortestPath(from, to,
+                    mock(Unit.class), SearchMode.BREADTH_FIRST);
+            breadthFirst += Navigation.getExpandedNodes();
+            final List<Direction> path = Navigation.shortestPath(from, to,
+                    mock(Unit.class), SearchMode.JUMP_POINT);
+            jumpPoint += Navigation.getExpandedNodes();
+            assertEquals(expected.size(), path.size());
+        }
+        assertTrue(jumpPoint * 4 < breadthFirst);
+    }
+
+    /**
+     * Verifies that scans wrap around the borders of the board.
+     */
+    @Test
+    public void wrapsAround() {
+        final Board board = parser.parseMap(Lists.newArrayList("  #  ")).getBoard();
+        final List<Direction> path = Navigation.shortestPath(board.squareAt(1, 0),
+                board.squareAt(3, 0), mock(Unit.class), SearchMode.JUMP_POINT);
+        assertArrayEquals(new Direction[]{Direction.WEST, Direction.WEST, Direction.WEST},
+                path.toArray(new Direction[]{}));
+    }
+
+    /**
+     * Verifies that unconnected squares have no path, unless terrain is ignored.
+     */
+    @Test
+    public void unreachable() {
+        final Board board = parser.parseMap(Lists.newArrayList(
+                "#####", "# # #", "#####")).getBoard();
+        final Square from = board.squareAt(1, 1), to = board.squareAt(3, 1);
+        assertNull(Navigation.shortestPath(from, to, mock(Unit.class), SearchMode.JUMP_POINT));
+        assertEquals(2, Navigation.shortestPath(from, to, null, SearchMode.JUMP_POINT).size());
+    }
+
+    private static Square follow(Square from, List<Direction> path) {
+        Square current = from;
+        for (Direction direction : path) {
+            current = current.getSquareAt(direction);
+            assertTrue(current.isAccessibleTo());
+        }
+        return current;
+    }
+
+    private static List<Square> accessibleSquares(Board board) {
+        final List<Square> squares = Lists.newArrayList();
+        for (int y = 0; y < board.getHeight(); y++) {
+            for (int x = 0; x < board.getWidth(); x++) {
+                if (board.squareAt(x, y).isAccessibleTo()) {
+                    squares.add(board.squareAt(x, y));
+                }
+            }
+        }
+        return squares;
+    }
+}
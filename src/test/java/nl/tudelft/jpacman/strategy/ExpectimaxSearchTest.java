@@ -0,0 +1,83 @@
+package nl.tudelft.jpacman.strategy;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.BoardLayout;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.DistanceOracle;
+import nl.tudelft.jpacman.level.TestLevels;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests choosing a move by {@link ExpectimaxSearch}.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+public class ExpectimaxSearchTest {
+
+    /**
+     * The accessible squares of a ring of corridors.
+     */
+    private BoardLayout layout;
+
+    /**
+     * The model of a level on the ring, with a ghost west of Pac-Man and
+     * pellets east of him.
+     */
+    private ForwardModel root;
+
+    /**
+     * The search under test.
+     */
+    private ExpectimaxSearch search;
+
+    /**
+     * Creates the board, the model and the search.
+     */
+    @Before
+    public void setUp() {
+        final Board board = TestLevels.board(
+                "############",
+                "#          #",
+                "# ######## #",
+                "#          #",
+                "############");
+        layout = board.getLayout();
+        final DistanceOracle oracle = DistanceOracle.forBoard(board);
+        root = new ForwardModel(layout, oracle,
+                new int[] {GhostPolicy.BLINKY}, new int[] {900});
+        root.placeGhost(0, layout.nodeAt(3, 1));
+        for (int x = 6; x < 11; x++) {
+            root.addPellet(layout.nodeAt(x, 1));
+        }
+        search = new ExpectimaxSearch(layout, oracle, 42);
+    }
+
+    /**
+     * Verifies that Pac-Man runs from the ghost towards the pellets, and
+     * that the search looks more than one move ahead.
+     */
+    @Test
+    public void runFromGhostToPellets() {
+        root.placePacman(layout.nodeAt(5, 1), Direction.WEST);
+        assertEquals(Direction.EAST, search.search(root, TimeUnit.MILLISECONDS.toNanos(50)));
+        assertTrue(search.getDepth() > 1);
+        assertTrue(search.getNodes() > 0);
+    }
+
+    /**
+     * Verifies that the search repeats its choice, however deep it gets.
+     */
+    @Test
+    public void deterministic() {
+        root.placePacman(layout.nodeAt(5, 1), null);
+        final Direction first = search.search(root, TimeUnit.MILLISECONDS.toNanos(20));
+        for (int i = 0; i < 5; i++) {
+            assertEquals(first, search.search(root, TimeUnit.MILLISECONDS.toNanos(20)));
+        }
+    }
+}
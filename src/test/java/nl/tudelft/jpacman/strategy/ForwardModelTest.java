@@ -0,0 +1,95 @@
+package nl.tudelft.jpacman.strategy;
+
+import nl.tudelft.jpacman.GameRandom;
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.BoardLayout;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.DistanceOracle;
+import nl.tudelft.jpacman.level.TestLevels;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests playing a {@link ForwardModel} forward.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+public class ForwardModelTest {
+
+    /**
+     * The accessible squares of a corridor with a side way.
+     */
+    private BoardLayout layout;
+
+    /**
+     * The model under test, with one ghost as fast as Pac-Man.
+     */
+    private ForwardModel model;
+
+    /**
+     * Creates the model: Pac-Man in the middle of the corridor, a ghost at
+     * its west end and pellets towards its east end.
+     */
+    @Before
+    public void setUp() {
+        final Board board = TestLevels.board(
+                "##########",
+                "#        #",
+                "######## #",
+                "##########");
+        layout = board.getLayout();
+        model = new ForwardModel(layout, DistanceOracle.forBoard(board),
+                new int[] {GhostPolicy.BLINKY}, new int[] {1000});
+        model.placePacman(layout.nodeAt(4, 1), null);
+        model.placeGhost(0, layout.nodeAt(1, 1));
+        for (int x = 5; x < 9; x++) {
+            model.addPellet(layout.nodeAt(x, 1));
+        }
+        model.addPellet(layout.nodeAt(8, 2));
+        model.setRandom(new GameRandom(42));
+    }
+
+    /**
+     * Verifies that Pac-Man runs along the corridor to the corner, eating the
+     * pellets on the way.
+     */
+    @Test
+    public void actFollowsCorridor() {
+        final ForwardModel copy = model.blank();
+        copy.copyFrom(model);
+        copy.setRandom(new GameRandom(1));
+        copy.act(Direction.EAST.ordinal(), 16);
+        assertEquals(layout.nodeAt(8, 1), copy.getPacman());
+        assertEquals(1, copy.getPelletsLeft());
+        assertFalse(copy.isDead());
+        assertEquals(5, model.getPelletsLeft());
+    }
+
+    /**
+     * Verifies that Pac-Man is caught when he runs into the ghost.
+     */
+    @Test
+    public void caughtByGhost() {
+        model.act(Direction.WEST.ordinal(), 16);
+        assertTrue(model.isDead());
+        assertTrue(model.isOver());
+    }
+
+    /**
+     * Verifies that eating all pellets is worth most, and being caught least.
+     */
+    @Test
+    public void rolloutValues() {
+        final ForwardModel copy = model.blank();
+        copy.setRandom(new GameRandom(7));
+        copy.copyFrom(model);
+        copy.act(Direction.EAST.ordinal(), 16);
+        copy.act(Direction.SOUTH.ordinal(), 16);
+        assertEquals(1, copy.rollout(new GameRandom(3), 60), 0);
+        model.act(Direction.WEST.ordinal(), 16);
+        assertTrue(model.rollout(new GameRandom(3), 60) < 0.2);
+    }
+}
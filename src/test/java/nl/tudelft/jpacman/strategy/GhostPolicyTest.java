@@ -0,0 +1,53 @@
+package nl.tudelft.jpacman.strategy;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.BoardLayout;
+import nl.tudelft.jpacman.board.DistanceOracle;
+import nl.tudelft.jpacman.level.TestLevels;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the moves the ghosts are expected to make in a search.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+public class GhostPolicyTest {
+
+    /**
+     * Verifies that Clyde runs away from a Pac-Man he can reach and is close to.
+     */
+    @Test
+    public void clydeShyWhenClose() {
+        final Board board = TestLevels.board(
+                "#########",
+                "#       #",
+                "#########");
+        final BoardLayout layout = board.getLayout();
+        final GhostPolicy policy = new GhostPolicy(layout, DistanceOracle.forBoard(board));
+        final int clyde = layout.nodeAt(3, 1);
+        final int pacman = layout.nodeAt(5, 1);
+        assertEquals(layout.nodeAt(2, 1), policy.target(GhostPolicy.CLYDE, clyde, pacman, -1, -1));
+    }
+
+    /**
+     * Verifies that Clyde is not shy of a Pac-Man he cannot reach, although
+     * the distance to him is {@link DistanceOracle#UNREACHABLE}, which is
+     * below the shyness distance: he then moves like Blinky.
+     */
+    @Test
+    public void clydeNotShyWhenUnreachable() {
+        final Board board = TestLevels.board(
+                "#########",
+                "#   #   #",
+                "#########");
+        final BoardLayout layout = board.getLayout();
+        final DistanceOracle oracle = DistanceOracle.forBoard(board);
+        final GhostPolicy policy = new GhostPolicy(layout, oracle);
+        final int clyde = layout.nodeAt(2, 1);
+        final int pacman = layout.nodeAt(6, 1);
+        assertEquals(DistanceOracle.UNREACHABLE, oracle.lowerBound(clyde, pacman));
+        assertEquals(policy.target(GhostPolicy.BLINKY, clyde, pacman, -1, -1),
+                policy.target(GhostPolicy.CLYDE, clyde, pacman, -1, -1));
+    }
+}
@@ -322,7 +322,7 @@ public class PacManhattanAITest {
         assertEquals("Direction incorrect", aiStrategy.hurryMove(), Direction.EAST);
 
         assertEquals("Distance incorrect", aiStrategy.getGhostDstThreshold(), 14);
-        PacManhattanAI.setGhostDstThreshold(7);
+        aiStrategy.setGhostDstThreshold(7);
         assertEquals("Distance incorrect", aiStrategy.getGhostDstThreshold(), 7);
     }
 }
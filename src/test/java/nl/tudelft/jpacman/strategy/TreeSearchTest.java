@@ -0,0 +1,49 @@
+package nl.tudelft.jpacman.strategy;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.BoardLayout;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.DistanceOracle;
+import nl.tudelft.jpacman.level.TestLevels;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests choosing a move by {@link TreeSearch}.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+public class TreeSearchTest {
+
+    /**
+     * Verifies that Pac-Man runs from a ghost towards the pellets, with the
+     * rollouts on two threads.
+     */
+    @Test
+    public void runFromGhostToPellets() {
+        final Board board = TestLevels.board(
+                "############",
+                "#          #",
+                "# ######## #",
+                "#          #",
+                "############");
+        final BoardLayout layout = board.getLayout();
+        final ForwardModel root = new ForwardModel(layout, DistanceOracle.forBoard(board),
+                new int[] {GhostPolicy.BLINKY}, new int[] {900});
+        root.placePacman(layout.nodeAt(5, 1), Direction.WEST);
+        root.placeGhost(0, layout.nodeAt(3, 1));
+        for (int x = 6; x < 11; x++) {
+            root.addPellet(layout.nodeAt(x, 1));
+        }
+        final ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            final TreeSearch search = new TreeSearch(pool, 2, 42);
+            assertEquals(Direction.EAST, search.search(root, TimeUnit.MILLISECONDS.toNanos(50)));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}